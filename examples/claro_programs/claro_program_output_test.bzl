@@ -0,0 +1,92 @@
+load("@bazel_skylib//rules:diff_test.bzl", "diff_test")
+load("@bazel_skylib//rules:write_file.bzl", "write_file")
+load("//:rules.bzl", "claro_binary")
+load("//src/java/com/claro:claro_build_rules_internal.bzl", "claro_expected_errors")
+
+def claro_program_output_test(name, main_file, expected_output, stdin = None, **kwargs):
+    """Builds a claro_binary() from the given main_file, and a test that running it produces exactly the expected output.
+
+    Args:
+        name: The name of the claro_binary(). The test itself is named `{name}_test`.
+        main_file: The .claro file to compile as the program's main file.
+        expected_output: A file containing exactly what the program is expected to write to stdout.
+        stdin: An optional file whose contents are piped into the program's stdin. Otherwise stdin is empty.
+        **kwargs: Any additional attributes to pass along to the claro_binary().
+    """
+    claro_binary(
+        name = name,
+        main_file = main_file,
+        **kwargs
+    )
+    native.genrule(
+        name = "{0}_output".format(name),
+        outs = ["{0}.out".format(name)],
+        srcs = ["{0}_deploy.jar".format(name)] + ([stdin] if stdin else []),
+        cmd = "$(JAVA) -jar $(location {0}_deploy.jar) < {1} > $(OUTS)".format(
+            name,
+            "$(location {0})".format(stdin) if stdin else "/dev/null",
+        ),
+        tools = ["@bazel_tools//tools/jdk:current_java_runtime"],
+        toolchains = ["@bazel_tools//tools/jdk:current_java_runtime"],
+    )
+    diff_test(
+        name = "{0}_test".format(name),
+        file1 = ":{0}.out".format(name),
+        file2 = expected_output,
+    )
+
+def claro_expected_errors_test(name, main_file, expected_error):
+    """Compiles the given main_file expecting compilation to fail, and a test that the errors include expected_error.
+
+    Args:
+        name: The name of the claro_expected_errors(). The test itself is named `{name}_test`.
+        main_file: The .claro file that's expected to fail to compile.
+        expected_error: A substring expected to appear (on a single line) in the compiler's error output.
+    """
+    claro_expected_errors(
+        name = name,
+        main_file = main_file,
+    )
+    native.genrule(
+        name = "{0}_matched_error".format(name),
+        outs = ["{0}.matched_error".format(name)],
+        srcs = [":{0}.errs".format(name)],
+        # Keep only the expected error, so that the test fails if it's missing without depending on the exact formatting
+        # of everything else that the compiler reports.
+        cmd = "grep -o -F -m 1 '{0}' $(location :{1}.errs) > $(OUTS) || true".format(expected_error, name),
+    )
+    write_file(
+        name = "{0}_expected_error".format(name),
+        out = "{0}.expected_error".format(name),
+        content = [expected_error, ""],
+    )
+    diff_test(
+        name = "{0}_test".format(name),
+        file1 = ":{0}.matched_error".format(name),
+        file2 = ":{0}.expected_error".format(name),
+    )
+
+def claro_repl_output_test(name, stdin, expected_output):
+    """A test that piping the given inputs into the Claro REPL, one input per line, produces exactly the expected output.
+
+    Args:
+        name: The name of the test.
+        stdin: A file containing the REPL inputs, one per line.
+        expected_output: A file containing exactly what the REPL is expected to write to stdout. Errors reported for any
+            rejected inputs go to stderr, so they aren't part of the expected output.
+    """
+    native.genrule(
+        name = "{0}_output".format(name),
+        outs = ["{0}.out".format(name)],
+        srcs = [stdin, "//src/java/com/claro:claro_compiler_binary_deploy.jar"],
+        cmd = "$(JAVA) -jar $(location //src/java/com/claro:claro_compiler_binary_deploy.jar) --repl < $(location {0}) > $(OUTS) 2> /dev/null".format(
+            stdin,
+        ),
+        tools = ["@bazel_tools//tools/jdk:current_java_runtime"],
+        toolchains = ["@bazel_tools//tools/jdk:current_java_runtime"],
+    )
+    diff_test(
+        name = name,
+        file1 = ":{0}.out".format(name),
+        file2 = expected_output,
+    )
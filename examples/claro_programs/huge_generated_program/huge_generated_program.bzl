@@ -0,0 +1,164 @@
+load("@bazel_skylib//rules:diff_test.bzl", "diff_test")
+load("@bazel_skylib//rules:write_file.bzl", "write_file")
+load("//:rules.bzl", "claro_binary")
+
+def huge_generated_program_test(name, main_blocks, procedure_stmts, match_arm_stmts, literal_elems, json_fields):
+    """Generates a claro_binary() whose main method and procedure are each far too large for a single Java method, and
+    a test that it compiles and runs to produce exactly the expected output.
+
+    Without outlining, javac would reject the generated `main` method and procedure outright for exceeding the 64KB
+    method size limit. The program deliberately threads locals across many top-level statements: some are declared
+    long before they're initialized, some are reassigned throughout, some are only referenced much later, and some are
+    lambdas (which can't be outlined themselves) called from later statements.
+
+    Beyond that, a single top-level statement can be too large on its own: a loop over a match whose arms each have
+    `match_arm_stmts` statements (referencing and reassigning outer locals, declaring locals of their own, and using
+    pattern bindings), list and map literals with `literal_elems` elements, and a struct with `json_fields` fields that
+    gets parsed from JSON.
+    """
+    lines = [
+        "function addAll(base: int) -> int {",
+        "  var acc = base;",
+    ]
+    for i in range(procedure_stmts):
+        lines.append("  acc = acc + {0};".format(i))
+    lines.extend([
+        "  return acc;",
+        "}",
+        "var total = 0;",
+    ])
+
+    expected_output = []
+    total = 0
+    for i in range(main_blocks):
+        lines.extend([
+            "var a{0} = {0};".format(i),
+            "var b{0}: int;".format(i),
+            "if (a{0} % 2 == 0) {{".format(i),
+            "  b{0} = a{0} * 2;".format(i),
+            "} else {",
+            "  b{0} = a{0} + 1;".format(i),
+            "}",
+        ])
+        total += i * 2 if i % 2 == 0 else i + 1
+        if i >= 37:
+            lines.append("total = total + b{0} + a{1};".format(i, i - 37))
+            total += i - 37
+        else:
+            lines.append("total = total + b{0};".format(i))
+        if i % 100 == 0:
+            lines.extend([
+                "match (a{0} % 3) {{".format(i),
+                "  case 0 -> total = total + 3;",
+                "  case _ -> total = total + 1;",
+                "}",
+            ])
+            total += 3 if i % 3 == 0 else 1
+        if i % 250 == 0:
+            lines.extend([
+                "var f{0}: function<int -> int> = x -> x + {0};".format(i),
+                "total = total + f{0}(1);".format(i),
+            ])
+            total += 1 + i
+        if i % 100 == 0:
+            lines.append("print(\"checkpoint {0}: {{total}}\");".format(i))
+            expected_output.append("checkpoint {0}: {1}".format(i, total))
+
+    # Every arm of this match needs outlining, so the loop runs each of them in turn.
+    lines.extend([
+        "var armIndex = 0;",
+        "while (armIndex < 3) {",
+        "  match (armIndex) {",
+        "    case 0 ->",
+    ])
+    for i in range(match_arm_stmts):
+        lines.append("      total = total + a{0};".format(i % 50))
+        total += i % 50
+    lines.extend([
+        "    case 1 ->",
+        "      var inArm = total % 1000;",
+    ])
+    in_arm = total % 1000
+    for i in range(match_arm_stmts):
+        lines.append("      inArm = inArm + {0};".format(i))
+        in_arm += i
+    lines.extend([
+        "      total = total + inArm;",
+        "    case X ->",
+    ])
+    total += in_arm
+    for i in range(match_arm_stmts):
+        lines.append("      total = total + X * {0};".format(i))
+        total += 2 * i
+    lines.extend([
+        "  }",
+        "  armIndex = armIndex + 1;",
+        "}",
+        "print(\"match: {total}\");",
+    ])
+    expected_output.append("match: {0}".format(total))
+
+    lines.extend([
+        "var bigList = [{0}];".format(", ".join(["total + {0}".format(i) for i in range(literal_elems)])),
+        "var bigMap = {{{0}}};".format(", ".join(["\"k{0}\": total + {0}".format(i) for i in range(literal_elems)])),
+        "var lastKey = \"k{0}\";".format(literal_elems - 1),
+        "print(\"bigList: {{len(bigList)}} {{bigList[{0}]}}\");".format(literal_elems - 1),
+        "print(\"bigMap: {bigMap[lastKey]}\");",
+    ])
+    expected_output.extend([
+        "bigList: {0} {1}".format(literal_elems, total + literal_elems - 1),
+        "bigMap: {0}".format(total + literal_elems - 1),
+    ])
+
+    lines.extend([
+        "alias Wide : struct {{{0}}}".format(", ".join(["f{0}: int".format(i) for i in range(json_fields)])),
+        "var parsedWide: std::ParsedJson<Wide> = fromJson(\"\\{{{0}}}\");".format(
+            ", ".join(["\\\"f{0}\\\": {0}".format(i) for i in range(json_fields)]),
+        ),
+        "var wide = unwrap(parsedWide).result;",
+        "if (wide instanceof Wide) {",
+        "  print(\"wide: {{wide.f0}} {{wide.f{0}}}\");".format(json_fields - 1),
+        "} else {",
+        "  print(\"wide: failed to parse\");",
+        "}",
+    ])
+    expected_output.append("wide: 0 {0}".format(json_fields - 1))
+
+    lines.extend([
+        "print(\"addAll: {addAll(7)}\");",
+        "print(\"total: {total}\");",
+    ])
+    expected_output.extend([
+        "addAll: {0}".format(7 + procedure_stmts * (procedure_stmts - 1) // 2),
+        "total: {0}".format(total),
+        "",
+    ])
+
+    write_file(
+        name = "{0}_main".format(name),
+        out = "{0}_main.claro".format(name),
+        content = lines,
+    )
+    claro_binary(
+        name = name,
+        main_file = ":{0}_main.claro".format(name),
+        outline_huge_methods = True,
+    )
+    native.genrule(
+        name = "{0}_output".format(name),
+        outs = ["{0}.out".format(name)],
+        srcs = ["{0}_deploy.jar".format(name)],
+        cmd = "$(JAVA) -jar $(location {0}_deploy.jar) > $(OUTS)".format(name),
+        tools = ["@bazel_tools//tools/jdk:current_java_runtime"],
+        toolchains = ["@bazel_tools//tools/jdk:current_java_runtime"],
+    )
+    write_file(
+        name = "{0}_expected_output".format(name),
+        out = "{0}.expected".format(name),
+        content = expected_output,
+    )
+    diff_test(
+        name = "{0}_test".format(name),
+        file1 = ":{0}.out".format(name),
+        file2 = ":{0}.expected".format(name),
+    )
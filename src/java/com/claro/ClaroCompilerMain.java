@@ -1,7 +1,9 @@
 package com.claro;
 
 import com.claro.compiler_backends.interpreted.Interpreter;
+import com.claro.compiler_backends.java_bytecode.JavaBytecodeRunner;
 import com.claro.compiler_backends.java_source.JavaSourceCompilerBackend;
+import com.claro.compiler_backends.java_source.JavaSourceCompilerPersistentWorker;
 import com.claro.compiler_backends.repl.Repl;
 
 import java.util.Arrays;
@@ -16,7 +18,15 @@ public class ClaroCompilerMain {
         new Interpreter(argsCopy).run();
         break;
       case "java_source":
-        new JavaSourceCompilerBackend(argsCopy).run();
+        // Bazel launches persistent workers by appending --persistent_worker to the action's startup args.
+        if (Arrays.asList(argsCopy).contains("--persistent_worker")) {
+          new JavaSourceCompilerPersistentWorker().run();
+        } else {
+          new JavaSourceCompilerBackend(argsCopy).run();
+        }
+        break;
+      case "run":
+        JavaBytecodeRunner.runAndWatch(argsCopy);
         break;
       case "repl":
         new Repl().run();
@@ -24,7 +34,8 @@ public class ClaroCompilerMain {
       default:
         throw new IllegalArgumentException(
             String.format(
-                "Unsupported compiler backend requested (%s). Must be oneof \"interpreted\"/\"java_source\"/\"repl\".",
+                "Unsupported compiler backend requested (%s). Must be oneof " +
+                "\"interpreted\"/\"java_source\"/\"run\"/\"repl\".",
                 compilerBackend
             )
         );
@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+# Launches a claro_binary() with an AppCDS archive of the classes listed by its build-time training run, falling back to
+# a plain launch whenever the archive can't be used.
+
+set -euo pipefail
+
+if [[ -n "${RUNFILES_DIR:-}" ]]; then
+  RUNFILES="${RUNFILES_DIR}"
+elif [[ -d "$0.runfiles" ]]; then
+  RUNFILES="$0.runfiles"
+else
+  echo "Error: Unable to locate the runfiles for $0." >&2
+  exit 1
+fi
+WORKSPACE_RUNFILES="${RUNFILES}/%workspace_name%"
+
+JAVA="${WORKSPACE_RUNFILES}/%java%"
+# The JVM only maps in an archive when the classpath is literally the one that it was dumped with, so always use the
+# deploy jar's real path (within the output base that built it) rather than whichever runfiles tree it's reached from.
+DEPLOY_JAR="$(cd "$(dirname "${WORKSPACE_RUNFILES}/%deploy_jar%")" && pwd -P)/$(basename "%deploy_jar%")"
+CLASS_LIST="${WORKSPACE_RUNFILES}/%class_list%"
+
+# Archives are dumped lazily into a cache directory that's private to the current user, keyed by the deploy jar's real
+# path and JVM, so distinct output bases and distinct users never share (or overwrite) each other's archives.
+CACHE_DIR="${XDG_CACHE_HOME:-${HOME:-}/.cache}/claro/app_cds"
+if [[ "${CACHE_DIR}" != /* ]] || ! mkdir -p -m 700 "${CACHE_DIR}" 2>/dev/null \
+    || [[ -L "${CACHE_DIR}" || ! -O "${CACHE_DIR}" ]]; then
+  exec "${JAVA}" -cp "${DEPLOY_JAR}" %main_class% "$@"
+fi
+ARCHIVE="${CACHE_DIR}/$(printf '%s\n%s' "${DEPLOY_JAR}" "${JAVA}" | cksum | cut -d ' ' -f 1)_%main_class%.jsa"
+
+# Rebuilding the deploy jar invalidates any archive dumped before it. The archive is dumped under a temporary name and
+# renamed into place, so that concurrent launches never observe a partially written archive.
+if [[ ! -f "${ARCHIVE}" || "${DEPLOY_JAR}" -nt "${ARCHIVE}" ]]; then
+  TMP_ARCHIVE="${ARCHIVE}.$$.tmp"
+  if ! { "${JAVA}" -Xshare:dump -XX:SharedClassListFile="${CLASS_LIST}" -XX:SharedArchiveFile="${TMP_ARCHIVE}" \
+      -cp "${DEPLOY_JAR}" > /dev/null 2>&1 && mv -f "${TMP_ARCHIVE}" "${ARCHIVE}"; }; then
+    # Starting up slower is still better than not starting at all.
+    rm -f "${TMP_ARCHIVE}" 2>/dev/null || true
+    exec "${JAVA}" -cp "${DEPLOY_JAR}" %main_class% "$@"
+  fi
+fi
+
+# With -Xshare:auto the JVM silently ignores an archive that doesn't match this deploy jar or JVM, rather than failing.
+exec "${JAVA}" -Xshare:auto -XX:SharedArchiveFile="${ARCHIVE}" -cp "${DEPLOY_JAR}" %main_class% "$@"
@@ -0,0 +1,113 @@
+package com.claro.benchmarks.app_cds;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Measures time-to-first-output of claro_binary() programs launched via their plain java_binary() launcher, vs via the
+ * launcher generated by `app_cds = True`, which maps the classes loaded during a training run in from an AppCDS archive
+ * rather than loading them from the deploy jar. Each run launches a fresh JVM, and is timed from process start until
+ * the first byte that the program writes to stdout, as well as until the process exits.
+ * <p>
+ * By default this runs the example programs in `//examples/claro_programs` that set `app_cds = True`.
+ * <p>
+ * Usage:
+ * bazel build //examples/claro_programs:all
+ * bazel run //src/java/com/claro/benchmarks/app_cds:app_cds_benchmark -- $(bazel info bazel-bin) [runs] [pkg:name...]
+ */
+public class AppCdsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: <bazel_bin> [runs] [pkg:name...]");
+      System.exit(2);
+    }
+    Path bazelBin = Paths.get(args[0]);
+    int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    ImmutableList<String> targets =
+        args.length > 2
+        ? ImmutableList.copyOf(Arrays.copyOfRange(args, 2, args.length))
+        : ImmutableList.of(
+            "examples/claro_programs:collection_comprehensions",
+            "examples/claro_programs:generics",
+            "examples/claro_programs:json",
+            "examples/claro_programs:match"
+        );
+
+    for (String target : targets) {
+      Path pkgDir = bazelBin.resolve(target.substring(0, target.indexOf(':')));
+      String name = target.substring(target.indexOf(':') + 1);
+      Path plainLauncher = pkgDir.resolve(name);
+      Path appCdsLauncher = pkgDir.resolve(name + "_app_cds");
+      if (!Files.isExecutable(plainLauncher) || !Files.isExecutable(appCdsLauncher)) {
+        System.err.printf("Skipping %s: build both :%s and :%s_app_cds first.%n", target, name, name);
+        continue;
+      }
+
+      // Warm up the OS page cache (and let the launcher dump its archive on first launch) before measuring anything.
+      for (int i = 0; i < 3; i++) {
+        launch(plainLauncher);
+        launch(appCdsLauncher);
+      }
+      long[][] plainNanos = new long[2][runs];
+      long[][] appCdsNanos = new long[2][runs];
+      // Interleave the two launchers so that neither is systematically favored by whatever else the machine is doing.
+      for (int i = 0; i < runs; i++) {
+        long[] plain = launch(plainLauncher);
+        plainNanos[0][i] = plain[0];
+        plainNanos[1][i] = plain[1];
+        long[] appCds = launch(appCdsLauncher);
+        appCdsNanos[0][i] = appCds[0];
+        appCdsNanos[1][i] = appCds[1];
+      }
+
+      System.out.printf("%s, %d runs each:%n", target, runs);
+      report("java_binary() first output       ", plainNanos[0]);
+      report("AppCDS launcher first output     ", appCdsNanos[0]);
+      report("java_binary() exit               ", plainNanos[1]);
+      report("AppCDS launcher exit             ", appCdsNanos[1]);
+      System.out.println();
+    }
+  }
+
+  // Returns the elapsed nanos until the first byte of stdout, and until the process exited.
+  private static long[] launch(Path launcher) throws Exception {
+    long start = System.nanoTime();
+    Process process =
+        new ProcessBuilder(launcher.toString())
+            .redirectError(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    // Any program reading from stdin gets EOF right away rather than blocking the benchmark.
+    process.getOutputStream().close();
+    long firstOutputNanos;
+    try (InputStream stdout = process.getInputStream()) {
+      int firstByte = stdout.read();
+      firstOutputNanos = System.nanoTime() - start;
+      if (firstByte < 0) {
+        throw new IllegalStateException(launcher + " exited without writing any output.");
+      }
+      stdout.transferTo(OutputStream.nullOutputStream());
+    }
+    int exitCode = process.waitFor();
+    long exitNanos = System.nanoTime() - start;
+    if (exitCode != 0) {
+      throw new IllegalStateException(launcher + " failed with exit code " + exitCode);
+    }
+    return new long[]{firstOutputNanos, exitNanos};
+  }
+
+  private static void report(String name, long[] elapsedNanos) {
+    long[] sorted = elapsedNanos.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "  %s median %,8d ms   min %,8d ms   max %,8d ms%n",
+        name, sorted[sorted.length / 2] / 1_000_000, sorted[0] / 1_000_000, sorted[sorted.length - 1] / 1_000_000
+    );
+  }
+}
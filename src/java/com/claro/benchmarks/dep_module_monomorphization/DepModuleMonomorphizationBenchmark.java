@@ -0,0 +1,189 @@
+package com.claro.benchmarks.dep_module_monomorphization;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.primitives.Longs;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures end-to-end compile time of a Claro target that calls many generic procedures exported by its dep modules,
+ * by re-running the exact compiler invocation that Bazel made for that target, in a fresh JVM each time. Every run
+ * therefore pays for setting up monomorphization of every dep module (starting up a subprocess per dep module, or
+ * loading the compiler in an isolated classloader per dep module when running `in_process`), and for every request to
+ * them (including the transitive requests between dep modules). Compilation is measured over each
+ * supported `--dep_module_monomorphization_ipc_transport`, along with the round trip latency of every individual
+ * monomorphization request (as recorded in the compiler's `--profile` output). Finally, compilation is measured
+ * against a cold and then a warm `--monomorphization_cache_dir`.
+ * <p>
+ * The `:many_generic_deps` target in this package is generated for exactly this purpose: it calls 8 distinct
+ * monomorphizations of a generic procedure exported by each of 16 dep modules, each of which transitively requires a
+ * monomorphization of a generic procedure exported by a single shared base module. To get its params file, build it
+ * once with `--materialize_param_files` and find the ClaroCompile action's `@...params` arg via
+ * `bazel aquery 'mnemonic("ClaroCompile", //src/java/com/claro/benchmarks/dep_module_monomorphization:many_generic_deps_bin)'`.
+ * <p>
+ * The compiler must be invoked via its Bazel-generated launcher (rather than its deploy jar directly) so that it can
+ * locate the dep module monomorphization subprocess binary in its runfiles.
+ * <p>
+ * Usage:
+ * bazel run //src/java/com/claro/benchmarks/dep_module_monomorphization:dep_module_monomorphization_benchmark -- \
+ * $(bazel info bazel-bin)/src/java/com/claro/claro_compiler_binary $(bazel info execution_root) \
+ * /abs/path/to/many_generic_deps_bin.params [runs]
+ */
+public class DepModuleMonomorphizationBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 3) {
+      System.err.println("Usage: <claro_compiler_binary_launcher> <execution_root> <params_file> [runs]");
+      System.exit(2);
+    }
+    Path compilerLauncher = Paths.get(args[0]);
+    File executionRoot = new File(args[1]);
+    List<String> originalArgs = Files.readAllLines(Paths.get(args[2]), StandardCharsets.UTF_8);
+    int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+    Path tmpDir = Files.createTempDirectory("claro_dep_module_monomorphization_benchmark");
+    try {
+      // Point the compilation at a temp output file so that bazel-out is never modified.
+      List<String> compilerArgs = new ArrayList<>();
+      Path profile = tmpDir.resolve("compiler_out.profile.json");
+      int depModules = 0;
+      for (int i = 0; i < originalArgs.size(); i++) {
+        String arg = originalArgs.get(i);
+        compilerArgs.add(arg);
+        if (arg.equals("--dep")) {
+          depModules++;
+        } else if (arg.equals("--output_file_path") && i + 1 < originalArgs.size()) {
+          i++;
+          compilerArgs.add(tmpDir.resolve("compiler_out").toString());
+        }
+      }
+      if (!compilerArgs.contains("--profile")) {
+        compilerArgs.add("--profile");
+      }
+
+      System.out.printf("Compiling against %d dep modules, %d runs per IPC transport.%n%n", depModules, runs);
+      for (String transport : ImmutableList.of("http", "pipe", "in_process")) {
+        List<String> transportCompilerArgs = new ArrayList<>(compilerArgs);
+        transportCompilerArgs.add("--dep_module_monomorphization_ipc_transport");
+        transportCompilerArgs.add(transport);
+        Path params =
+            Files.write(tmpDir.resolve(transport + ".params"), transportCompilerArgs, StandardCharsets.UTF_8);
+
+        // Warm up the OS page cache and the subprocess binary's jar before measuring anything.
+        compile(compilerLauncher, executionRoot, params);
+        List<Long> roundTripMillis = new ArrayList<>();
+        System.out.printf("%s transport:%n", transport);
+        report(
+            "Full compilation                 ",
+            runs,
+            () -> {
+              compile(compilerLauncher, executionRoot, params);
+              roundTripMillis.addAll(readIpcRoundTripMillis(profile));
+            }
+        );
+        reportRoundTrips("Per-request IPC round trip       ", roundTripMillis);
+      }
+
+      // A warm cache should mean that no dep module subprocess is ever started, so there's no IPC to measure at all.
+      Path cacheDir = tmpDir.resolve("monomorphization_cache");
+      List<String> cacheCompilerArgs = new ArrayList<>(compilerArgs);
+      cacheCompilerArgs.add("--monomorphization_cache_dir");
+      cacheCompilerArgs.add(cacheDir.toString());
+      Path params = Files.write(tmpDir.resolve("cache.params"), cacheCompilerArgs, StandardCharsets.UTF_8);
+      System.out.println("--monomorphization_cache_dir:");
+      report(
+          "Cold cache                       ",
+          runs,
+          () -> {
+            if (Files.exists(cacheDir)) {
+              MoreFiles.deleteRecursively(cacheDir, RecursiveDeleteOption.ALLOW_INSECURE);
+            }
+            compile(compilerLauncher, executionRoot, params);
+          }
+      );
+      report("Warm cache                       ", runs, () -> compile(compilerLauncher, executionRoot, params));
+      // Only the last cold run's stats survived, so this covers that run plus every warm run.
+      System.out.printf(
+          "  Cumulative %s%n", Files.readAllLines(cacheDir.resolve("stats.properties"), StandardCharsets.UTF_8).stream()
+              .filter(l -> l.startsWith("hit_rate=")).findFirst().orElse("hit_rate unavailable"));
+    } finally {
+      MoreFiles.deleteRecursively(tmpDir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  private static void compile(Path compilerLauncher, File executionRoot, Path paramsFile) throws Exception {
+    Process compiler =
+        new ProcessBuilder(ImmutableList.of(compilerLauncher.toString(), "--java_source", "@" + paramsFile))
+            .directory(executionRoot)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+    int exitCode = compiler.waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException("Compilation failed with exit code " + exitCode);
+    }
+  }
+
+  // Every monomorphization request gets a single "ipc" event in the profile, recording its round trip time as an arg.
+  private static List<Long> readIpcRoundTripMillis(Path profile) throws IOException {
+    List<Long> res = new ArrayList<>();
+    try (Reader reader = Files.newBufferedReader(profile, StandardCharsets.UTF_8)) {
+      for (JsonElement event : JsonParser.parseReader(reader).getAsJsonObject().getAsJsonArray("traceEvents")) {
+        JsonObject eventObj = event.getAsJsonObject();
+        if (eventObj.has("cat") && eventObj.get("cat").getAsString().equals("ipc")) {
+          res.add(eventObj.getAsJsonObject("args").get("round_trip_ms").getAsLong());
+        }
+      }
+    }
+    return res;
+  }
+
+  private static void reportRoundTrips(String name, List<Long> roundTripMillis) {
+    if (roundTripMillis.isEmpty()) {
+      System.out.printf("  %s no monomorphization requests were made%n%n", name);
+      return;
+    }
+    long[] sorted = Longs.toArray(roundTripMillis);
+    Arrays.sort(sorted);
+    System.out.printf(
+        "  %s median %,8d ms   p90 %,8d ms   max %,8d ms   (%,d requests)%n%n",
+        name,
+        sorted[sorted.length / 2],
+        sorted[sorted.length * 9 / 10],
+        sorted[sorted.length - 1],
+        sorted.length
+    );
+  }
+
+  private static void report(String name, int runs, Compilation compilation) throws Exception {
+    long[] elapsedMillis = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      compilation.run();
+      elapsedMillis[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    long[] sorted = elapsedMillis.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "  %s median %,8d ms   min %,8d ms   max %,8d ms%n", name, sorted[runs / 2], sorted[0], sorted[runs - 1]);
+  }
+
+  @FunctionalInterface
+  private interface Compilation {
+    void run() throws Exception;
+  }
+}
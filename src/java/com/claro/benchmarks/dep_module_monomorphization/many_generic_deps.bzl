@@ -0,0 +1,74 @@
+load("@bazel_skylib//rules:write_file.bzl", "write_file")
+load("//:rules.bzl", "claro_binary", "claro_module")
+
+# Concrete values that main passes to every dep module's generic procedures, each requiring its own monomorphization.
+# Deliberately excludes strings, since every generic procedure below pairs its arg with a string.
+_CONCRETE_ARGS = ["1", "1.5", "true", "[1]", "[1.5]", "[true]", "{1}", "{\"k\": 1}"]
+
+def many_generic_deps_program(name, dep_module_count, monomorphizations_per_dep = len(_CONCRETE_ARGS)):
+    """Generates a claro_binary() that calls generic procedures from `dep_module_count` separate dep modules.
+
+    Every dep module in turn calls a generic procedure from a single shared base module, so that every dep module
+    monomorphization requested by the binary transitively requires a monomorphization from the base module as well.
+    """
+    if monomorphizations_per_dep > len(_CONCRETE_ARGS):
+        fail("many_generic_deps_program: monomorphizations_per_dep must be at most {0}.".format(len(_CONCRETE_ARGS)))
+
+    write_file(
+        name = "{0}_base_api".format(name),
+        out = "{0}_base.claro_module_api".format(name),
+        content = ["function asList<A,B>(a: A, b: B) -> [oneof<A,B>];"],
+    )
+    write_file(
+        name = "{0}_base_src".format(name),
+        out = "{0}_base.claro".format(name),
+        content = [
+            "function asList<A,B>(a: A, b: B) -> [oneof<A,B>] {",
+            "  return [a, b];",
+            "}",
+        ],
+    )
+    claro_module(
+        name = "{0}_base".format(name),
+        module_api_file = ":{0}_base.claro_module_api".format(name),
+        srcs = [":{0}_base.claro".format(name)],
+    )
+
+    main_lines = []
+    deps = {}
+    for i in range(dep_module_count):
+        dep = "{0}_dep{1}".format(name, i)
+        write_file(
+            name = "{0}_api".format(dep),
+            out = "{0}.claro_module_api".format(dep),
+            content = ["function wrap<T>(t: T) -> [oneof<T, string>];"],
+        )
+        write_file(
+            name = "{0}_src".format(dep),
+            out = "{0}.claro".format(dep),
+            content = [
+                "function wrap<T>(t: T) -> [oneof<T, string>] {",
+                "  return Base::asList(t, \"dep{0}\");".format(i),
+                "}",
+            ],
+        )
+        claro_module(
+            name = dep,
+            module_api_file = ":{0}.claro_module_api".format(dep),
+            srcs = [":{0}.claro".format(dep)],
+            deps = {"Base": ":{0}_base".format(name)},
+        )
+        deps["Dep{0}".format(i)] = ":{0}".format(dep)
+        for arg in _CONCRETE_ARGS[:monomorphizations_per_dep]:
+            main_lines.append("print(Dep{0}::wrap({1}));".format(i, arg))
+
+    write_file(
+        name = "{0}_main".format(name),
+        out = "{0}_main.claro".format(name),
+        content = main_lines,
+    )
+    claro_binary(
+        name = name,
+        main_file = ":{0}_main.claro".format(name),
+        deps = deps,
+    )
@@ -0,0 +1,194 @@
+package com.claro.benchmarks.erased_monomorphization;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Measures what `--share_erased_monomorphizations` buys for a Claro program that calls the same generic procedures over
+ * many distinct struct types, by re-running the exact compiler invocation that Bazel made for that program with and
+ * without it. For each, this reports the size of the generated Java source, the number and total size of the class
+ * files that it compiles to, and the wall time to start up and run the program in a fresh JVM. With it, this also reports
+ * how many of the program's monomorphizations actually ended up delegating to a shared implementation.
+ * <p>
+ * The `:many_struct_instantiations` target in this package is generated for exactly this purpose: it calls a pair of
+ * generic procedures over each of 40 distinct struct types. To get its params file, build it once with
+ * `--materialize_param_files` and find the ClaroCompile action's `@...params` arg via
+ * `bazel aquery 'mnemonic("ClaroCompile", //src/java/com/claro/benchmarks/erased_monomorphization:many_struct_instantiations_bin)'`.
+ * The program's deploy jar provides the Claro runtime that the generated Java source is compiled and run against.
+ * <p>
+ * Usage:
+ * bazel build //src/java/com/claro/benchmarks/erased_monomorphization:many_struct_instantiations_deploy.jar
+ * bazel run //src/java/com/claro/benchmarks/erased_monomorphization:erased_monomorphization_benchmark -- \
+ * /abs/path/to/claro_compiler_binary_deploy.jar $(bazel info execution_root) \
+ * /abs/path/to/many_struct_instantiations_bin.params \
+ * $(bazel info bazel-bin)/src/java/com/claro/benchmarks/erased_monomorphization/many_struct_instantiations_deploy.jar \
+ * [runs]
+ */
+public class ErasedMonomorphizationBenchmark {
+  private static final Pattern SHARED_COUNTS_PATTERN =
+      Pattern.compile("Shared erased monomorphizations: (\\d+) of (\\d+)");
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.err.println(
+          "Usage: <claro_compiler_deploy_jar> <execution_root> <params_file> <program_deploy_jar> [runs]");
+      System.exit(2);
+    }
+    Path compilerJar = Paths.get(args[0]);
+    File executionRoot = new File(args[1]);
+    List<String> originalArgs = Files.readAllLines(Paths.get(args[2]), StandardCharsets.UTF_8);
+    Path programDeployJar = Paths.get(args[3]);
+    int runs = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+    String className = getArgValue(originalArgs, "--classname");
+    String mainClass = getArgValue(originalArgs, "--java_package") + "." + className;
+    Path tmpDir = Files.createTempDirectory("claro_erased_monomorphization_benchmark");
+    try {
+      for (boolean shareErasedMonomorphizations : new boolean[]{false, true}) {
+        String mode = shareErasedMonomorphizations ? "shared" : "monomorphized";
+        Path modeDir = Files.createDirectory(tmpDir.resolve(mode));
+        Path generatedSrc = modeDir.resolve(className + ".java");
+        // Point the compilation at a temp output file so that bazel-out is never modified.
+        List<String> compilerArgs = new ArrayList<>();
+        for (int i = 0; i < originalArgs.size(); i++) {
+          String arg = originalArgs.get(i);
+          if (arg.equals("--silent")) {
+            // The compiler only reports how many monomorphizations were shared in its non-silent output.
+            continue;
+          }
+          compilerArgs.add(arg);
+          if (arg.equals("--output_file_path") && i + 1 < originalArgs.size()) {
+            i++;
+            compilerArgs.add(generatedSrc.toString());
+          }
+        }
+        if (shareErasedMonomorphizations) {
+          compilerArgs.add("--share_erased_monomorphizations");
+        }
+        Path params = Files.write(modeDir.resolve(mode + ".params"), compilerArgs, StandardCharsets.UTF_8);
+        String compilerStderr =
+            runCapturingStderr(
+                executionRoot,
+                ImmutableList.of(getJavaBinary(), "-jar", compilerJar.toString(), "--java_source", "@" + params)
+            );
+
+        Path classesDir = Files.createDirectory(modeDir.resolve("classes"));
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac.run(
+            null, null, null,
+            "-nowarn", "-cp", programDeployJar.toString(), "-d", classesDir.toString(), generatedSrc.toString()) != 0) {
+          throw new IllegalStateException("Failed to compile the generated Java source.");
+        }
+        long classFiles;
+        long classBytes = 0;
+        try (Stream<Path> files = Files.walk(classesDir)) {
+          List<Path> classes =
+              files.filter(f -> f.toString().endsWith(".class")).collect(ImmutableList.toImmutableList());
+          classFiles = classes.size();
+          for (Path c : classes) {
+            classBytes += Files.size(c);
+          }
+        }
+
+        System.out.printf("%s:%n", mode);
+        System.out.printf("  Generated Java source            %,10d bytes%n", Files.size(generatedSrc));
+        System.out.printf("  Compiled classes                 %,10d files, %,d bytes%n", classFiles, classBytes);
+        if (shareErasedMonomorphizations) {
+          Matcher sharedCounts = SHARED_COUNTS_PATTERN.matcher(compilerStderr);
+          if (!sharedCounts.find()) {
+            throw new IllegalStateException("The compiler didn't report how many monomorphizations were shared.");
+          }
+          System.out.printf(
+              "  Shared monomorphizations         %,10d of %,d%n",
+              Integer.parseInt(sharedCounts.group(1)),
+              Integer.parseInt(sharedCounts.group(2))
+          );
+        }
+        // The freshly compiled classes come first on the classpath, so they shadow the deploy jar's own copy.
+        ImmutableList<String> runProgram =
+            ImmutableList.of(
+                getJavaBinary(), "-cp", classesDir + File.pathSeparator + programDeployJar, mainClass);
+        // Warm up the OS page cache before measuring anything.
+        run(executionRoot, runProgram);
+        report("Startup and run                  ", runs, () -> run(executionRoot, runProgram));
+        System.out.println();
+      }
+    } finally {
+      MoreFiles.deleteRecursively(tmpDir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  private static String getArgValue(List<String> args, String flag) {
+    int i = args.indexOf(flag);
+    if (i < 0 || i + 1 >= args.size()) {
+      throw new IllegalArgumentException("Params file is missing " + flag);
+    }
+    return args.get(i + 1);
+  }
+
+  private static String getJavaBinary() {
+    return Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+  }
+
+  private static void run(File workingDir, List<String> command) throws Exception {
+    Process process =
+        new ProcessBuilder(command)
+            .directory(workingDir)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+    int exitCode = process.waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException(command.get(command.size() - 1) + " failed with exit code " + exitCode);
+    }
+  }
+
+  // Returns the command's stderr, after passing it along to this process's own stderr.
+  private static String runCapturingStderr(File workingDir, List<String> command) throws Exception {
+    Process process =
+        new ProcessBuilder(command)
+            .directory(workingDir)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+    String stderr = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+    System.err.print(stderr);
+    int exitCode = process.waitFor();
+    if (exitCode != 0) {
+      throw new IllegalStateException(command.get(command.size() - 1) + " failed with exit code " + exitCode);
+    }
+    return stderr;
+  }
+
+  private static void report(String name, int runs, Run run) throws Exception {
+    long[] elapsedMillis = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      run.run();
+      elapsedMillis[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    long[] sorted = elapsedMillis.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "  %s median %,8d ms   min %,8d ms   max %,8d ms%n", name, sorted[runs / 2], sorted[0], sorted[runs - 1]);
+  }
+
+  @FunctionalInterface
+  private interface Run {
+    void run() throws Exception;
+  }
+}
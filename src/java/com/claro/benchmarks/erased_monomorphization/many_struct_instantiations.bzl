@@ -0,0 +1,38 @@
+load("@bazel_skylib//rules:write_file.bzl", "write_file")
+load("//:rules.bzl", "claro_binary")
+
+def many_struct_instantiations_program(name, struct_type_count):
+    """Generates a claro_binary() that calls the same generic procedures over `struct_type_count` distinct struct types.
+
+    The generic procedures only ever pass their generic values around, so every one of their monomorphizations over a
+    struct type is a candidate for sharing a single erased implementation.
+    """
+    lines = [
+        "function choose<T>(first: T, second: T, pickFirst: boolean) -> T {",
+        "  if (pickFirst) {",
+        "    return first;",
+        "  }",
+        "  return second;",
+        "}",
+        "function describe<T>(t: T, label: string) -> string {",
+        "  var chosen = choose(t, t, true);",
+        "  var res = \"{label}: {chosen}\";",
+        "  if (res == label) {",
+        "    return \"{label}: <empty>\";",
+        "  }",
+        "  return res;",
+        "}",
+    ]
+    for i in range(struct_type_count):
+        lines.append("var s{0} = {{id = {0}, field{0} = \"value{0}\"}};".format(i))
+        lines.append("print(describe(s{0}, \"s{0}\"));".format(i))
+
+    write_file(
+        name = "{0}_main".format(name),
+        out = "{0}_main.claro".format(name),
+        content = lines,
+    )
+    claro_binary(
+        name = name,
+        main_file = ":{0}_main.claro".format(name),
+    )
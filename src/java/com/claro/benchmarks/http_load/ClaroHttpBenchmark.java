@@ -0,0 +1,333 @@
+package com.claro.benchmarks.http_load;
+
+import com.claro.runtime_utilities.http.$ClaroHttpServer;
+import com.google.common.collect.ImmutableList;
+import com.google.devtools.common.options.OptionsParser;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A local load-generation harness for Claro HTTP services. The harness:
+ * <ol>
+ *   <li>starts the given claro_binary() deploy jar on a free port found via
+ *       {@link $ClaroHttpServer#getInetSocketAddressForPort(int)},</li>
+ *   <li>drives open-loop load at a fixed target rate over a fixed number of keep-alive connections,</li>
+ *   <li>reports an HDR latency histogram, achieved throughput and error rate, optionally recording the results as a
+ *       baseline JSON file or comparing them against a previously recorded baseline.</li>
+ * </ol>
+ * Load is open-loop: requests are scheduled at their intended send times regardless of whether prior requests have
+ * completed, and latency is measured from each request's *intended* send time. So if the service stalls and requests
+ * queue up behind busy connections, that queueing delay shows up in the reported latencies rather than being hidden
+ * (i.e. the results are not subject to "coordinated omission").
+ */
+public class ClaroHttpBenchmark {
+
+  private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+  public static void main(String[] args) throws Exception {
+    ClaroHttpBenchmarkCLIOptions options = parseCLIOptions(args);
+    if (options.service_deploy_jar.isEmpty() || options.endpoints.isEmpty()) {
+      throw new IllegalArgumentException("Both --service_deploy_jar and at least one --endpoint must be set.");
+    }
+    if (options.rate <= 0 || options.connections <= 0 || options.duration_secs <= 0) {
+      throw new IllegalArgumentException("--rate, --connections, and --duration_secs must all be positive.");
+    }
+
+    int port = $ClaroHttpServer.getInetSocketAddressForPort(0).getPort();
+    InetSocketAddress serviceAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    Process service = startService(options, port);
+    Thread killServiceHook = new Thread(service::destroyForcibly);
+    Runtime.getRuntime().addShutdownHook(killServiceHook);
+    try {
+      awaitServiceReady(service, serviceAddress, options.startup_timeout_secs);
+      System.err.printf("Service is up on port %d. Warming up for %ds...\n", port, options.warmup_secs);
+      BenchmarkResult result = runOpenLoopLoad(options, serviceAddress);
+
+      System.out.println(result.render());
+      JsonObject resultJson = result.toJson(options);
+      if (!options.compare_to_baseline.isEmpty()) {
+        System.out.println(compareToBaseline(resultJson, resolvePath(options.compare_to_baseline)));
+      }
+      if (!options.baseline_out.isEmpty()) {
+        Path baselineOut = resolvePath(options.baseline_out);
+        Files.write(baselineOut, (GSON.toJson(resultJson) + "\n").getBytes(StandardCharsets.UTF_8));
+        System.err.println("Wrote baseline to: " + baselineOut);
+      }
+    } finally {
+      service.destroy();
+      if (!service.waitFor(10, TimeUnit.SECONDS)) {
+        service.destroyForcibly();
+      }
+      Runtime.getRuntime().removeShutdownHook(killServiceHook);
+    }
+  }
+
+  private static Process startService(ClaroHttpBenchmarkCLIOptions options, int port) throws IOException {
+    ImmutableList.Builder<String> command =
+        ImmutableList.<String>builder()
+            .add(Paths.get(System.getProperty("java.home"), "bin", "java").toString())
+            .add("-jar")
+            .add(options.service_deploy_jar);
+    if (!options.port_flag.isEmpty()) {
+      command.add(String.format("--%s=%d", options.port_flag, port));
+    }
+    command.addAll(options.service_args);
+    return new ProcessBuilder(command.build()).inheritIO().start();
+  }
+
+  private static void awaitServiceReady(Process service, InetSocketAddress address, int timeoutSecs)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSecs);
+    while (System.nanoTime() < deadline) {
+      if (!service.isAlive()) {
+        throw new IllegalStateException("Service exited during startup with exit code " + service.exitValue());
+      }
+      try (Socket probe = new Socket()) {
+        probe.connect(address, 500);
+        return;
+      } catch (IOException e) {
+        Thread.sleep(100);
+      }
+    }
+    throw new IllegalStateException(
+        String.format("Service didn't start accepting connections on %s within %ds.", address, timeoutSecs));
+  }
+
+  private static BenchmarkResult runOpenLoopLoad(ClaroHttpBenchmarkCLIOptions options, InetSocketAddress address)
+      throws InterruptedException {
+    BlockingQueue<ScheduledRequest> scheduledRequests = new LinkedBlockingQueue<>();
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+    long loadStart = System.nanoTime();
+    long measurementStart = loadStart + TimeUnit.SECONDS.toNanos(options.warmup_secs);
+    long loadEnd = measurementStart + TimeUnit.SECONDS.toNanos(options.duration_secs);
+
+    List<LoadWorker> workers = new ArrayList<>(options.connections);
+    for (int i = 0; i < options.connections; i++) {
+      LoadWorker worker = new LoadWorker(address, scheduledRequests, measurementStart);
+      workers.add(worker);
+      worker.start();
+    }
+
+    // The scheduler never waits on responses, it only paces request *issuance* at the target rate.
+    long requestCount = 0;
+    for (long intendedStart = loadStart; intendedStart < loadEnd; intendedStart += intervalNanos) {
+      long now;
+      while ((now = System.nanoTime()) < intendedStart) {
+        LockSupport.parkNanos(intendedStart - now);
+      }
+      scheduledRequests.put(
+          new ScheduledRequest(
+              intendedStart, options.endpoints.get((int) (requestCount++ % options.endpoints.size()))));
+    }
+    for (int i = 0; i < workers.size(); i++) {
+      scheduledRequests.put(ScheduledRequest.POISON_PILL);
+    }
+
+    LatencyHistogram histogram = new LatencyHistogram();
+    long successes = 0;
+    long errors = 0;
+    long lastCompletion = measurementStart;
+    for (LoadWorker worker : workers) {
+      worker.join();
+      histogram.add(worker.histogram);
+      successes += worker.successes;
+      errors += worker.errors;
+      lastCompletion = Math.max(lastCompletion, worker.lastCompletionNanos);
+    }
+    return new BenchmarkResult(histogram, successes, errors, lastCompletion - measurementStart);
+  }
+
+  private static String compareToBaseline(JsonObject current, Path baselinePath) throws IOException {
+    JsonObject baseline =
+        GSON.fromJson(new String(Files.readAllBytes(baselinePath), StandardCharsets.UTF_8), JsonObject.class);
+    StringBuilder res = new StringBuilder("Comparison against baseline ").append(baselinePath).append(":\n");
+    if (!baseline.has("latency_ms")) {
+      // Baselines are checked in with only their settings until a run has actually been recorded for them.
+      return res.append("No results have been recorded in this baseline yet, so there's nothing to compare against.\n")
+          .toString();
+    }
+    // Results are only comparable when they were measured under the same settings.
+    for (String setting : ImmutableList.of("endpoints", "target_rate_rps", "connections", "duration_secs")) {
+      if (baseline.has(setting) && !baseline.get(setting).equals(current.get(setting))) {
+        res.append(
+            String.format(
+                "WARNING: This run's %s (%s) doesn't match the baseline's (%s).\n",
+                setting, current.get(setting), baseline.get(setting)
+            ));
+      }
+    }
+    res.append(String.format("%-22s %14s %14s %10s\n", "Metric", "Baseline", "Current", "Delta"));
+    appendComparisonRow(res, "throughput_rps", baseline, current);
+    appendComparisonRow(res, "error_rate", baseline, current);
+    JsonObject baselineLatencies = baseline.getAsJsonObject("latency_ms");
+    JsonObject currentLatencies = current.getAsJsonObject("latency_ms");
+    for (String percentile : currentLatencies.keySet()) {
+      appendComparisonRow(res, percentile, baselineLatencies, currentLatencies);
+    }
+    return res.toString();
+  }
+
+  private static void appendComparisonRow(StringBuilder res, String metric, JsonObject baseline, JsonObject current) {
+    if (!baseline.has(metric)) {
+      res.append(String.format("%-22s %14s %14.3f %10s\n", metric, "-", current.get(metric).getAsDouble(), "-"));
+      return;
+    }
+    double before = baseline.get(metric).getAsDouble();
+    double after = current.get(metric).getAsDouble();
+    res.append(
+        String.format(
+            "%-22s %14.3f %14.3f %10s\n",
+            metric, before, after, before == 0 ? "-" : String.format("%+.1f%%", 100 * (after - before) / before)
+        ));
+  }
+
+  private static Path resolvePath(String path) {
+    Path res = Paths.get(path);
+    // When run via `bazel run`, the working directory is the runfiles tree, so resolve paths that don't exist there
+    // against the workspace root instead so that baselines can be written directly into the source tree.
+    String workspaceDir = System.getenv("BUILD_WORKSPACE_DIRECTORY");
+    if (!res.isAbsolute() && !Files.exists(res) && workspaceDir != null) {
+      res = Paths.get(workspaceDir).resolve(path);
+    }
+    return res;
+  }
+
+  private static ClaroHttpBenchmarkCLIOptions parseCLIOptions(String[] args) {
+    OptionsParser parser = OptionsParser.newOptionsParser(ClaroHttpBenchmarkCLIOptions.class);
+    parser.parseAndExitUponError(args);
+    return parser.getOptions(ClaroHttpBenchmarkCLIOptions.class);
+  }
+
+  private static class ScheduledRequest {
+    static final ScheduledRequest POISON_PILL = new ScheduledRequest(-1, "");
+
+    final long intendedStartNanos;
+    final String path;
+
+    ScheduledRequest(long intendedStartNanos, String path) {
+      this.intendedStartNanos = intendedStartNanos;
+      this.path = path;
+    }
+  }
+
+  private static class LoadWorker extends Thread {
+    private final KeepAliveHttpConnection connection;
+    private final BlockingQueue<ScheduledRequest> scheduledRequests;
+    private final long measurementStartNanos;
+    // Each worker records into its own histogram, these are only read after the worker has been joined.
+    final LatencyHistogram histogram = new LatencyHistogram();
+    long successes = 0;
+    long errors = 0;
+    long lastCompletionNanos = 0;
+
+    LoadWorker(
+        InetSocketAddress address, BlockingQueue<ScheduledRequest> scheduledRequests, long measurementStartNanos) {
+      this.connection = new KeepAliveHttpConnection(address);
+      this.scheduledRequests = scheduledRequests;
+      this.measurementStartNanos = measurementStartNanos;
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        ScheduledRequest request;
+        while ((request = scheduledRequests.take()) != ScheduledRequest.POISON_PILL) {
+          boolean success;
+          try {
+            int status = connection.get(request.path);
+            success = status >= 200 && status < 300;
+          } catch (IOException e) {
+            success = false;
+          }
+          long completion = System.nanoTime();
+          if (request.intendedStartNanos < measurementStartNanos) {
+            continue; // Still warming up.
+          }
+          histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(completion - request.intendedStartNanos));
+          if (success) {
+            successes++;
+          } else {
+            errors++;
+          }
+          lastCompletionNanos = completion;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        connection.close();
+      }
+    }
+  }
+
+  private static class BenchmarkResult {
+    private final LatencyHistogram histogram;
+    private final long successes;
+    private final long errors;
+    private final long measuredNanos;
+
+    BenchmarkResult(LatencyHistogram histogram, long successes, long errors, long measuredNanos) {
+      this.histogram = histogram;
+      this.successes = successes;
+      this.errors = errors;
+      this.measuredNanos = measuredNanos;
+    }
+
+    double throughput() {
+      return measuredNanos == 0 ? 0 : (successes + errors) / (measuredNanos / 1e9);
+    }
+
+    double errorRate() {
+      long total = successes + errors;
+      return total == 0 ? 0 : (double) errors / total;
+    }
+
+    String render() {
+      return "Latency distribution (measured from intended send time):\n" +
+             histogram.renderPercentileDistribution() +
+             String.format("Requests: %d (%d errors)\n", successes + errors, errors) +
+             String.format("Throughput: %.1f req/s\n", throughput()) +
+             String.format("Error rate: %.4f%%\n", 100 * errorRate());
+    }
+
+    JsonObject toJson(ClaroHttpBenchmarkCLIOptions options) {
+      JsonObject res = new JsonObject();
+      res.addProperty("service", Paths.get(options.service_deploy_jar).getFileName().toString());
+      res.addProperty("endpoints", String.join(",", options.endpoints));
+      res.addProperty("target_rate_rps", options.rate);
+      res.addProperty("connections", options.connections);
+      res.addProperty("warmup_secs", options.warmup_secs);
+      res.addProperty("duration_secs", options.duration_secs);
+      res.addProperty("requests", successes + errors);
+      res.addProperty("errors", errors);
+      res.addProperty("throughput_rps", throughput());
+      res.addProperty("error_rate", errorRate());
+      JsonObject latencies = new JsonObject();
+      for (double percentile : LatencyHistogram.REPORTED_PERCENTILES) {
+        latencies.addProperty(
+            percentile >= 100.0 ? "max" : "p" + String.valueOf(percentile).replace(".0", ""),
+            histogram.getValueAtPercentile(percentile) / 1000.0
+        );
+      }
+      latencies.addProperty("mean", histogram.getMean() / 1000.0);
+      res.add("latency_ms", latencies);
+      return res;
+    }
+  }
+}
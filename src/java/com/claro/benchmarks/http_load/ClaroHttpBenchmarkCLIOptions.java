@@ -0,0 +1,91 @@
+package com.claro.benchmarks.http_load;
+
+import com.google.devtools.common.options.Option;
+import com.google.devtools.common.options.OptionsBase;
+
+import java.util.List;
+
+public class ClaroHttpBenchmarkCLIOptions extends OptionsBase {
+  @Option(
+      name = "service_deploy_jar",
+      help = "Path to the deploy jar of the claro_binary() HTTP service to benchmark.",
+      defaultValue = ""
+  )
+  public String service_deploy_jar;
+
+  @Option(
+      name = "port_flag",
+      help = "The name of the Claro flag that the service reads to decide which port to bind to. The harness will pick " +
+             "a free port and pass it to the service as --<port_flag>=<port>.",
+      defaultValue = ""
+  )
+  public String port_flag;
+
+  @Option(
+      name = "service_arg",
+      help = "Any additional args to pass along to the service on startup.",
+      allowMultiple = true,
+      defaultValue = ""
+  )
+  public List<String> service_args;
+
+  @Option(
+      name = "endpoint",
+      help = "An endpoint path (e.g. \"/\") that load will be driven against. If multiple are given, requests are " +
+             "spread across them round-robin.",
+      allowMultiple = true,
+      defaultValue = ""
+  )
+  public List<String> endpoints;
+
+  @Option(
+      name = "rate",
+      help = "The target request rate (reqs/sec). Load is open-loop, requests are scheduled at this rate regardless " +
+             "of how quickly the service responds.",
+      defaultValue = "100"
+  )
+  public int rate;
+
+  @Option(
+      name = "connections",
+      help = "The number of keep-alive connections that requests will be issued over.",
+      defaultValue = "8"
+  )
+  public int connections;
+
+  @Option(
+      name = "warmup_secs",
+      help = "Seconds of load to drive against the service before measurement begins so that the JIT can warm up.",
+      defaultValue = "10"
+  )
+  public int warmup_secs;
+
+  @Option(
+      name = "duration_secs",
+      help = "Seconds of load to drive against the service while measuring.",
+      defaultValue = "30"
+  )
+  public int duration_secs;
+
+  @Option(
+      name = "startup_timeout_secs",
+      help = "Seconds to wait for the service to start accepting connections before giving up.",
+      defaultValue = "60"
+  )
+  public int startup_timeout_secs;
+
+  @Option(
+      name = "baseline_out",
+      help = "Optional path to write this run's results to as JSON so that it can be checked in as a baseline. " +
+             "Relative paths are resolved against the workspace root when run via `bazel run`.",
+      defaultValue = ""
+  )
+  public String baseline_out;
+
+  @Option(
+      name = "compare_to_baseline",
+      help = "Optional path to a previously recorded baseline JSON file to compare this run's results against.",
+      defaultValue = ""
+  )
+  public String compare_to_baseline;
+}
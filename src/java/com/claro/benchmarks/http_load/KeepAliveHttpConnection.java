@@ -0,0 +1,149 @@
+package com.claro.benchmarks.http_load;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A deliberately tiny HTTP/1.1 client that issues GET requests serially over a single persistent (keep-alive)
+ * connection. The JDK's HttpClient manages its own unbounded connection pool, which would make the number of open
+ * connections a function of the service's latency rather than a controlled parameter of the benchmark, so the harness
+ * manages its own sockets instead.
+ */
+class KeepAliveHttpConnection implements Closeable {
+  // Bound how long a single response may take so that a wedged service can't hang the whole benchmark.
+  private static final int READ_TIMEOUT_MILLIS = 30_000;
+
+  private final InetSocketAddress address;
+  private final String hostHeader;
+  private Socket socket;
+  private OutputStream out;
+  private InputStream in;
+
+  KeepAliveHttpConnection(InetSocketAddress address) {
+    this.address = address;
+    this.hostHeader = address.getHostString() + ":" + address.getPort();
+  }
+
+  /**
+   * Sends a GET for the given path and fully consumes the response body so that the connection can be reused. Returns
+   * the response's status code.
+   */
+  int get(String path) throws IOException {
+    if (socket == null) {
+      connect();
+    }
+    try {
+      out.write(
+          ("GET " + path + " HTTP/1.1\r\n" +
+           "Host: " + hostHeader + "\r\n" +
+           "Connection: keep-alive\r\n" +
+           "\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+      return readResponse();
+    } catch (IOException e) {
+      // The connection is in an unknown state now, so drop it and let the next request reconnect.
+      close();
+      throw e;
+    }
+  }
+
+  private void connect() throws IOException {
+    socket = new Socket();
+    socket.setTcpNoDelay(true);
+    socket.setKeepAlive(true);
+    socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+    socket.connect(address);
+    out = new BufferedOutputStream(socket.getOutputStream());
+    in = new BufferedInputStream(socket.getInputStream());
+  }
+
+  private int readResponse() throws IOException {
+    String statusLine = readLine();
+    // E.g. "HTTP/1.1 200 OK".
+    String[] statusParts = statusLine.split(" ", 3);
+    if (statusParts.length < 2) {
+      throw new IOException("Malformed HTTP status line: " + statusLine);
+    }
+    int status = Integer.parseInt(statusParts[1]);
+
+    long contentLength = -1;
+    boolean chunked = false;
+    boolean closeConnection = false;
+    String header;
+    while (!(header = readLine()).isEmpty()) {
+      int colon = header.indexOf(':');
+      if (colon < 0) {
+        continue;
+      }
+      String name = header.substring(0, colon).trim();
+      String value = header.substring(colon + 1).trim();
+      if (name.equalsIgnoreCase("Content-Length")) {
+        contentLength = Long.parseLong(value);
+      } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+        chunked = value.equalsIgnoreCase("chunked");
+      } else if (name.equalsIgnoreCase("Connection")) {
+        closeConnection = value.equalsIgnoreCase("close");
+      }
+    }
+
+    if (chunked) {
+      long chunkSize;
+      while ((chunkSize = Long.parseLong(readLine().split(";", 2)[0].trim(), 16)) > 0) {
+        skipFully(chunkSize);
+        readLine(); // Trailing CRLF after each chunk.
+      }
+      // Consume any trailers through the final empty line.
+      while (!readLine().isEmpty()) ;
+    } else if (contentLength > 0) {
+      skipFully(contentLength);
+    }
+
+    if (closeConnection) {
+      close();
+    }
+    return status;
+  }
+
+  private String readLine() throws IOException {
+    StringBuilder line = new StringBuilder();
+    int c;
+    while ((c = in.read()) != '\n') {
+      if (c == -1) {
+        throw new EOFException("Connection closed by service mid-response.");
+      }
+      if (c != '\r') {
+        line.append((char) c);
+      }
+    }
+    return line.toString();
+  }
+
+  private void skipFully(long n) throws IOException {
+    while (n > 0) {
+      long skipped = in.skip(n);
+      if (skipped <= 0) {
+        if (in.read() == -1) {
+          throw new EOFException("Connection closed by service mid-body.");
+        }
+        skipped = 1;
+      }
+      n -= skipped;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (socket != null) {
+      try {
+        socket.close();
+      } catch (IOException ignored) {
+        // Nothing to do, the socket's going away either way.
+      }
+      socket = null;
+      out = null;
+      in = null;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.claro.benchmarks.http_load;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Arrays;
+
+/**
+ * A minimal HDR (High Dynamic Range) histogram of latencies recorded in microseconds. Values are bucketed using the same
+ * log-linear scheme as HdrHistogram: every power-of-two range is split into a fixed number of linear sub-buckets, so
+ * that every recorded value is tracked with a bounded relative error (~0.05% here) regardless of its magnitude, while
+ * the memory footprint stays constant no matter how many values are recorded.
+ * <p>
+ * Claro doesn't have a dep on the HdrHistogram library, and this harness needs nothing beyond recording, merging and
+ * percentile queries, so it's simpler to just implement the bucketing directly here.
+ * <p>
+ * Instances are NOT thread-safe. Each load-generating worker records into its own histogram and they're merged once the
+ * run is over.
+ */
+public class LatencyHistogram {
+  // 2^11 sub-buckets gives ~3 significant decimal digits of precision.
+  private static final int SUB_BUCKET_COUNT_MAGNITUDE = 11;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_COUNT_MAGNITUDE;
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+  // Track anything up to ~1hr of latency in micros. Anything larger gets clamped, which is fine for a load test.
+  public static final long HIGHEST_TRACKABLE_VALUE_MICROS = 60L * 60 * 1_000_000;
+  public static final ImmutableList<Double> REPORTED_PERCENTILES =
+      ImmutableList.of(50.0, 75.0, 90.0, 95.0, 99.0, 99.9, 99.99, 100.0);
+
+  private final long[] counts = new long[countsArrayIndex(HIGHEST_TRACKABLE_VALUE_MICROS) + 1];
+  private long totalCount = 0;
+  private long totalSum = 0;
+  private long minValue = Long.MAX_VALUE;
+  private long maxValue = 0;
+
+  public void recordValue(long valueMicros) {
+    long value = Math.max(0, Math.min(valueMicros, HIGHEST_TRACKABLE_VALUE_MICROS));
+    counts[countsArrayIndex(value)]++;
+    totalCount++;
+    totalSum += value;
+    minValue = Math.min(minValue, value);
+    maxValue = Math.max(maxValue, value);
+  }
+
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    totalSum += other.totalSum;
+    minValue = Math.min(minValue, other.minValue);
+    maxValue = Math.max(maxValue, other.maxValue);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    totalSum = 0;
+    minValue = Long.MAX_VALUE;
+    maxValue = 0;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public long getMinValue() {
+    return totalCount == 0 ? 0 : minValue;
+  }
+
+  public long getMaxValue() {
+    return maxValue;
+  }
+
+  public double getMean() {
+    return totalCount == 0 ? 0 : (double) totalSum / totalCount;
+  }
+
+  /**
+   * Returns the value (in micros) at the given percentile, reported as the highest value that's equivalent to the
+   * recorded values in the selected bucket (which is the convention HdrHistogram uses as well).
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    if (percentile >= 100.0) {
+      return maxValue;
+    }
+    long countAtPercentile = Math.max(1, (long) Math.ceil((percentile / 100.0) * totalCount));
+    long cumulative = 0;
+    for (int i = 0; i < counts.length; i++) {
+      cumulative += counts[i];
+      if (cumulative >= countAtPercentile) {
+        return Math.min(highestEquivalentValue(i), maxValue);
+      }
+    }
+    return maxValue;
+  }
+
+  /**
+   * Render a percentile distribution table in the same spirit as HdrHistogram's `outputPercentileDistribution()`.
+   */
+  public String renderPercentileDistribution() {
+    StringBuilder res = new StringBuilder();
+    res.append(String.format("%14s %12s %14s\n", "Value(ms)", "Percentile", "1/(1-Pct)"));
+    for (double percentile : REPORTED_PERCENTILES) {
+      res.append(
+          String.format(
+              "%14.3f %12s %14s\n",
+              getValueAtPercentile(percentile) / 1000.0,
+              String.format("%.4f", percentile / 100.0),
+              percentile >= 100.0 ? "inf" : String.format("%.2f", 1 / (1 - percentile / 100.0))
+          ));
+    }
+    res.append(
+        String.format(
+            "#[Mean = %.3fms, Min = %.3fms, Max = %.3fms, Total count = %d]\n",
+            getMean() / 1000.0, getMinValue() / 1000.0, getMaxValue() / 1000.0, getTotalCount()
+        ));
+    return res.toString();
+  }
+
+  private static int countsArrayIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    // Shift the value down until it lands in the upper half of the sub-buckets, then that shift identifies the bucket.
+    int bucketIndex = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_COUNT_MAGNITUDE - 1);
+    int subBucketIndex = (int) (value >>> bucketIndex);
+    return (bucketIndex + 1) * SUB_BUCKET_HALF_COUNT + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+  }
+
+  private static long highestEquivalentValue(int countsArrayIndex) {
+    if (countsArrayIndex < SUB_BUCKET_COUNT) {
+      return countsArrayIndex;
+    }
+    int bucketIndex = countsArrayIndex / SUB_BUCKET_HALF_COUNT - 1;
+    long subBucketIndex = (countsArrayIndex % SUB_BUCKET_HALF_COUNT) + SUB_BUCKET_HALF_COUNT;
+    return ((subBucketIndex + 1) << bucketIndex) - 1;
+  }
+}
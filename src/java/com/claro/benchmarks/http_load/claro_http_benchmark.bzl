@@ -0,0 +1,42 @@
+# Generates a runnable target that benchmarks a claro_binary() HTTP service. Run it via:
+#     $ bazel run //path/to:<name>
+# and pass any extra harness flags after a standalone `--`. E.g. record a new checked-in baseline via:
+#     $ bazel run //path/to:<name> -- --baseline_out=path/to/baseline.json
+def claro_http_benchmark(
+        name,
+        service,
+        endpoints,
+        port_flag,
+        rate = 100,
+        connections = 8,
+        warmup_secs = 10,
+        duration_secs = 30,
+        baseline = None,
+        service_args = [],
+        visibility = None):
+    service_deploy_jar = "{0}_deploy.jar".format(service)
+    args = [
+        "--service_deploy_jar=$(rootpath {0})".format(service_deploy_jar),
+        "--port_flag=" + port_flag,
+        "--rate={0}".format(rate),
+        "--connections={0}".format(connections),
+        "--warmup_secs={0}".format(warmup_secs),
+        "--duration_secs={0}".format(duration_secs),
+    ] + ["--endpoint=" + endpoint for endpoint in endpoints] + \
+        ["--service_arg=" + service_arg for service_arg in service_args]
+    data = [service_deploy_jar]
+    if baseline:
+        args.append("--compare_to_baseline=$(rootpath {0})".format(baseline))
+        data.append(baseline)
+
+    native.java_binary(
+        name = name,
+        main_class = "com.claro.benchmarks.http_load.ClaroHttpBenchmark",
+        runtime_deps = ["//src/java/com/claro/benchmarks/http_load:claro_http_benchmark_lib"],
+        args = args,
+        data = data,
+        # This target starts a real server and drives load against it, it's not something that should be picked up by
+        # wildcard builds/tests.
+        tags = ["manual"],
+        visibility = visibility,
+    )
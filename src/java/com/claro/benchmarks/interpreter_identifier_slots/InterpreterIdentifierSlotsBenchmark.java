@@ -0,0 +1,119 @@
+package com.claro.benchmarks.interpreter_identifier_slots;
+
+import com.claro.ClaroParser;
+import com.claro.compiler_backends.ParserUtil;
+import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.compiler_backends.java_source.JavaSourceCompilerBackend;
+import com.claro.intermediate_representation.ProgramNode;
+import com.claro.intermediate_representation.Target;
+import com.claro.stdlib.StdLibUtil;
+import com.google.common.collect.ImmutableList;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Measures the interpreter backend running Claro programs with every identifier access going through the slot that
+ * type checking resolved for it, vs searching the scope stack for the identifier by name on every access. By default
+ * this runs `examples/claro_programs/recursion.claro` and the `while_test.claro` loop example (the interpreter doesn't
+ * support `for` or `repeat` loops yet), but any other programs supported by the interpreter may be given instead.
+ * <p>
+ * Each run parses the program fresh, and only times the interpreter itself (type checking followed by execution). The
+ * programs' output is discarded, and any `input()` is answered with an empty line.
+ * <p>
+ * Usage:
+ * bazel run //src/java/com/claro/benchmarks/interpreter_identifier_slots:interpreter_identifier_slots_benchmark -- \
+ * [runs] [workspace_dir] [srcs...]
+ */
+public class InterpreterIdentifierSlotsBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    Path workspaceDir =
+        Paths.get(args.length > 1 ? args[1] : System.getenv().getOrDefault("BUILD_WORKSPACE_DIRECTORY", "."));
+    ImmutableList<Path> srcs =
+        args.length > 2
+        ? Arrays.stream(args, 2, args.length).map(workspaceDir::resolve).collect(ImmutableList.toImmutableList())
+        : ImmutableList.of(
+            workspaceDir.resolve("examples/claro_programs/recursion.claro"),
+            workspaceDir.resolve("examples/claro_programs/while_test.claro")
+        );
+
+    // This must happen before the interpreter first reads any input, as it only ever opens System.in once.
+    System.setIn(new InputStream() {
+      @Override
+      public int read() {
+        return '\n';
+      }
+    });
+    PrintStream originalOut = System.out;
+    PrintStream discardedOut = new PrintStream(OutputStream.nullOutputStream());
+
+    for (Path src : srcs) {
+      String srcContents = Files.readString(src);
+      // Warm up the JIT under both modes before measuring either of them.
+      System.setOut(discardedOut);
+      for (int i = 0; i < Math.max(10, runs / 10); i++) {
+        interpret(srcContents, /*resolveIdentifierSlots=*/true);
+        interpret(srcContents, /*resolveIdentifierSlots=*/false);
+      }
+      long[] byNameNanos = new long[runs];
+      long[] bySlotNanos = new long[runs];
+      // Interleave the two modes so that neither is systematically favored by whatever else the machine is doing.
+      for (int i = 0; i < runs; i++) {
+        byNameNanos[i] = interpret(srcContents, /*resolveIdentifierSlots=*/false);
+        bySlotNanos[i] = interpret(srcContents, /*resolveIdentifierSlots=*/true);
+      }
+      System.setOut(originalOut);
+
+      System.out.printf("%s, %d runs each:%n", workspaceDir.relativize(src), runs);
+      report("Identifier lookup by name        ", byNameNanos);
+      report("Identifier lookup by slot        ", bySlotNanos);
+      System.out.println();
+    }
+  }
+
+  private static long interpret(String srcContents, boolean resolveIdentifierSlots) {
+    JavaSourceCompilerBackend.resetProcessGlobalCompilationState();
+    ClaroParser parser =
+        ParserUtil.createParser(
+            CharBuffer.wrap(srcContents), "INTERPRETER", "INTERPRETER", /*supportInternalOnlyFeatures*/false,
+            /*escapeSpecialChars*/true
+        );
+    parser.generatedClassName = "";
+    parser.package_string = "";
+    ProgramNode programNode;
+    try {
+      programNode = (ProgramNode) parser.parse().value;
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to parse the benchmarked program.", e);
+    }
+    if (parser.errorsFound > 0) {
+      throw new IllegalStateException("Failed to parse the benchmarked program.");
+    }
+
+    long start = System.nanoTime();
+    ScopedHeap scopedHeap = new ScopedHeap();
+    scopedHeap.enterNewScope();
+    if (resolveIdentifierSlots) {
+      scopedHeap.enableIdentifierSlotResolution();
+    }
+    programNode.generateTargetOutput(Target.INTERPRETED, scopedHeap, StdLibUtil::registerIdentifiers);
+    return System.nanoTime() - start;
+  }
+
+  private static void report(String name, long[] elapsedNanos) {
+    long[] sorted = elapsedNanos.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "  %s median %,10d us   min %,10d us   max %,10d us%n",
+        name, sorted[sorted.length / 2] / 1_000, sorted[0] / 1_000, sorted[sorted.length - 1] / 1_000
+    );
+  }
+}
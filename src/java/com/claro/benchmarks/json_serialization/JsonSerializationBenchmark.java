@@ -0,0 +1,151 @@
+package com.claro.benchmarks.json_serialization;
+
+import com.claro.intermediate_representation.types.Types;
+import com.claro.intermediate_representation.types.impls.builtins_impls.collections.ClaroList;
+import com.claro.intermediate_representation.types.impls.builtins_impls.collections.ClaroMap;
+import com.claro.intermediate_representation.types.impls.builtins_impls.structs.ClaroStruct;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the serialization code that Claro generates for `toJson(...)` against Gson's reflection-based serialization
+ * of an equivalent Java object graph.
+ * <p>
+ * The Claro side is the very writer that the compiler generates for the `toJson(...)` call in
+ * json_serialization_payload.claro, loaded from that program's compiled classes, so this always measures the compiler's
+ * current codegen. The payload built here must have exactly the type that the program serializes.
+ * <p>
+ * Usage:
+ * bazel run //src/java/com/claro/benchmarks/json_serialization:json_serialization_benchmark -- [records] [iterations]
+ */
+public class JsonSerializationBenchmark {
+  private static final Types.StructType RECORD_TYPE = Types.StructType.forFieldTypes(
+      ImmutableList.of("id", "name", "score", "active", "tags", "attributes", "manager"),
+      ImmutableList.of(
+          Types.INTEGER,
+          Types.STRING,
+          Types.FLOAT,
+          Types.BOOLEAN,
+          Types.ListType.forValueType(Types.STRING),
+          Types.MapType.forKeyValueTypes(Types.STRING, Types.INTEGER),
+          Types.OneofType.forVariantTypes(ImmutableList.of(Types.INTEGER, Types.STRING))
+      ),
+      /*isMutable=*/false
+  );
+  private static final Types.ListType PAYLOAD_TYPE = Types.ListType.forValueType(RECORD_TYPE);
+  // Writers are numbered in the order that the compiler generates them, and the payload program's one toJson(...) call
+  // generates the writer for the outermost type first.
+  private static final String CLARO_PAYLOAD_WRITER_CLASS_NAME = "claro.lang.json_serialization_payload$$JsonWriter$0";
+  private static final MethodHandle CLARO_TO_JSON = lookupClaroToJson();
+
+  public static void main(String[] args) {
+    int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+    int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+    ClaroList<ClaroStruct> claroPayload = new ClaroList<>(PAYLOAD_TYPE);
+    List<Record> javaPayload = new ArrayList<>();
+    buildPayloads(records, claroPayload, javaPayload);
+
+    Gson gson = new Gson();
+    String claroJson = claroToJson(claroPayload);
+    String gsonJson = gson.toJson(javaPayload);
+    // Make sure that we're actually comparing equivalent work before timing anything.
+    if (!JsonParser.parseString(claroJson).equals(JsonParser.parseString(gsonJson))) {
+      throw new IllegalStateException("Claro and Gson produced different JSON!\n" + claroJson + "\n" + gsonJson);
+    }
+    System.out.printf(
+        "Serializing %d records (%,d bytes of JSON) %,d times each.%n%n", records, claroJson.length(), iterations);
+
+    // Interleave a couple of rounds so that neither side benefits from running after the other has warmed up the JIT.
+    for (int round = 1; round <= 3; round++) {
+      System.out.printf("Round %d:%n", round);
+      report("Claro toJson(...)", iterations, () -> claroToJson(claroPayload));
+      report("Gson.toJson(...) ", iterations, () -> gson.toJson(javaPayload));
+      System.out.println();
+    }
+  }
+
+  private static MethodHandle lookupClaroToJson() {
+    try {
+      Method toJson = Class.forName(CLARO_PAYLOAD_WRITER_CLASS_NAME).getDeclaredMethod("toJson", Object.class);
+      // Generated writers are only package-private to the generated program.
+      toJson.setAccessible(true);
+      return MethodHandles.lookup().unreflect(toJson);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Couldn't load the JSON writer generated for json_serialization_payload.claro", e);
+    }
+  }
+
+  private static String claroToJson(ClaroList<ClaroStruct> payload) {
+    try {
+      return (String) CLARO_TO_JSON.invokeExact((Object) payload);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  private static void report(String name, int iterations, java.util.function.Supplier<String> serialize) {
+    long totalChars = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      totalChars += serialize.get().length();
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    System.out.printf(
+        "  %s %,12.1f us/op  %,10.1f MB/s%n",
+        name,
+        elapsedNanos / 1_000.0 / iterations,
+        (totalChars / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0)
+    );
+  }
+
+  private static void buildPayloads(int records, ClaroList<ClaroStruct> claroPayload, List<Record> javaPayload) {
+    Random random = new Random(42);
+    Types.ListType tagsType = (Types.ListType) RECORD_TYPE.getFieldTypes().get(4);
+    Types.MapType attributesType = (Types.MapType) RECORD_TYPE.getFieldTypes().get(5);
+    for (int i = 0; i < records; i++) {
+      Record record = new Record();
+      record.id = i;
+      record.name = "user \"" + i + "\"\n" + Long.toHexString(random.nextLong());
+      record.score = random.nextFloat() * 100;
+      record.active = random.nextBoolean();
+      record.tags = new ArrayList<>();
+      record.attributes = new HashMap<>();
+      for (int j = 0; j < 5; j++) {
+        record.tags.add("tag-" + random.nextInt(100));
+        record.attributes.put("attr-" + j, random.nextInt());
+      }
+      record.manager = random.nextBoolean() ? (Object) random.nextInt(records) : "manager-" + random.nextInt(10);
+      javaPayload.add(record);
+
+      ClaroList<String> tags = new ClaroList<>(tagsType, record.tags);
+      ClaroMap<String, Integer> attributes = new ClaroMap<>(attributesType, record.attributes);
+      claroPayload.add(
+          new ClaroStruct(
+              RECORD_TYPE,
+              record.id, record.name, record.score, record.active, tags, attributes, record.manager
+          ));
+    }
+  }
+
+  // The equivalent Java object graph for Gson to reflect over.
+  private static class Record {
+    int id;
+    String name;
+    float score;
+    boolean active;
+    List<String> tags;
+    Map<String, Integer> attributes;
+    Object manager;
+  }
+}
@@ -0,0 +1,166 @@
+package com.claro.benchmarks.lexer_throughput;
+
+import com.claro.ClaroLexer;
+import com.claro.ClaroParser;
+import com.claro.Tokens;
+import com.claro.compiler_backends.ParserUtil;
+import com.claro.internal_static_state.InternalStaticStateUtil;
+import com.google.common.collect.ImmutableList;
+import java_cup.runtime.Symbol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures how quickly the compiler can ingest, lex, and parse Claro src files, using every .claro and .claro_internal
+ * file under `examples/claro_programs` and `stdlib` as the corpus:
+ * <ul>
+ *   <li>reading files line by line via a Scanner and lexing the reassembled String (the compiler's old approach),</li>
+ *   <li>reading files in bulk and decoding them straight into the lexer's input buffer (the current approach), and</li>
+ *   <li>the current approach followed by a full parse of each file.</li>
+ * </ul>
+ * Files are read from disk on every run, so after the first run this measures reads out of the OS page cache.
+ * Parse errors (e.g. from programs that are intentionally invalid) are counted but don't stop the benchmark.
+ * <p>
+ * Usage:
+ * bazel run //src/java/com/claro/benchmarks/lexer_throughput:lexer_throughput_benchmark -- [runs] [workspace_dir]
+ */
+public class LexerThroughputBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    Path workspaceDir =
+        Paths.get(args.length > 1 ? args[1] : System.getenv().getOrDefault("BUILD_WORKSPACE_DIRECTORY", "."));
+    ImmutableList<Path> srcFiles = findSrcFiles(
+        workspaceDir.resolve("examples/claro_programs"), workspaceDir.resolve("stdlib"));
+    if (srcFiles.isEmpty()) {
+      throw new IllegalArgumentException("No Claro src files found under the given workspace dir: " + workspaceDir);
+    }
+    long totalBytes = 0;
+    for (Path srcFile : srcFiles) {
+      totalBytes += Files.size(srcFile);
+    }
+    System.out.printf("Corpus: %,d src files, %,d bytes. %d runs each.%n%n", srcFiles.size(), totalBytes, runs);
+
+    // Warm up the JIT on every approach before measuring any of them.
+    for (int i = 0; i < 3; i++) {
+      scannerIngestAndLex(srcFiles);
+      bulkIngestAndLex(srcFiles);
+      bulkIngestLexAndParse(srcFiles);
+    }
+    report("Scanner line-by-line + lex       ", runs, totalBytes, () -> scannerIngestAndLex(srcFiles));
+    report("Bulk read + UTF-8 decode + lex   ", runs, totalBytes, () -> bulkIngestAndLex(srcFiles));
+    int[] parseFailures = {0};
+    report(
+        "Bulk read + decode + lex + parse ",
+        runs,
+        totalBytes,
+        () -> parseFailures[0] = bulkIngestLexAndParse(srcFiles)
+    );
+    System.out.printf("%n(%d of %d files failed to parse.)%n", parseFailures[0], srcFiles.size());
+  }
+
+  private static ImmutableList<Path> findSrcFiles(Path... roots) throws IOException {
+    ImmutableList.Builder<Path> res = ImmutableList.builder();
+    for (Path root : roots) {
+      if (!Files.isDirectory(root)) {
+        continue;
+      }
+      try (Stream<Path> paths = Files.walk(root)) {
+        res.addAll(
+            paths.filter(p -> p.toString().endsWith(".claro") || p.toString().endsWith(".claro_internal"))
+                .sorted()
+                .collect(Collectors.toList()));
+      }
+    }
+    return res.build();
+  }
+
+  private static void scannerIngestAndLex(ImmutableList<Path> srcFiles) throws IOException {
+    for (Path srcFile : srcFiles) {
+      StringBuilder inputProgram = new StringBuilder();
+      try (InputStream in = Files.newInputStream(srcFile)) {
+        Scanner scan = new Scanner(in);
+        while (scan.hasNextLine()) {
+          inputProgram.append(scan.nextLine());
+          inputProgram.append("\n");
+        }
+      }
+      lex(new StringReader(inputProgram.toString()), srcFile);
+    }
+  }
+
+  private static void bulkIngestAndLex(ImmutableList<Path> srcFiles) throws IOException {
+    for (Path srcFile : srcFiles) {
+      lex(ParserUtil.asReader(ParserUtil.decodeSrcFile(Files.readAllBytes(srcFile))), srcFile);
+    }
+  }
+
+  private static int bulkIngestLexAndParse(ImmutableList<Path> srcFiles) throws IOException {
+    int failures = 0;
+    for (Path srcFile : srcFiles) {
+      // Parsing populates global compiler state, so start each file from scratch just as a fresh compilation would.
+      InternalStaticStateUtil.reset();
+      ClaroParser parser = ParserUtil.createParser(
+          ParserUtil.decodeSrcFile(Files.readAllBytes(srcFile)),
+          srcFile.getFileName().toString(),
+          "LexerThroughputBenchmark",
+          /*supportInternalOnlyFeatures=*/srcFile.toString().endsWith(".claro_internal"),
+          /*escapeSpecialChars=*/true
+      );
+      try {
+        parser.parse();
+        if (parser.errorsFound > 0) {
+          failures++;
+        }
+      } catch (Exception e) {
+        failures++;
+      }
+    }
+    return failures;
+  }
+
+  private static void lex(Reader input, Path srcFile) throws IOException {
+    ClaroLexer lexer = new ClaroLexer(input);
+    lexer.lexedFileName = srcFile.getFileName().toString();
+    lexer.supportPrivilegedInlineJava = srcFile.toString().endsWith(".claro_internal");
+    lexer.escapeSpecialChars = true;
+    Symbol token;
+    do {
+      token = lexer.next_token();
+    } while (token.sym != Tokens.EOF);
+  }
+
+  private static void report(String name, int runs, long totalBytes, Benchmark benchmark) throws Exception {
+    long[] elapsedNanos = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      benchmark.run();
+      elapsedNanos[i] = System.nanoTime() - start;
+    }
+    long[] sorted = elapsedNanos.clone();
+    Arrays.sort(sorted);
+    long medianNanos = sorted[runs / 2];
+    System.out.printf(
+        "  %s median %,8.2f ms   min %,8.2f ms   %,8.1f MB/s%n",
+        name,
+        medianNanos / 1e6,
+        sorted[0] / 1e6,
+        (totalBytes / 1e6) / (medianNanos / 1e9)
+    );
+  }
+
+  @FunctionalInterface
+  private interface Benchmark {
+    void run() throws Exception;
+  }
+}
@@ -0,0 +1,136 @@
+package com.claro.benchmarks.scoped_heap;
+
+import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.compiler_backends.java_source.JavaSourceCompilerBackend;
+import com.claro.intermediate_representation.types.Types;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Measures how the cost of symbol resolution in the ScopedHeap scales with the depth of scope nesting, both:
+ * <ul>
+ *   <li>in isolation, repeatedly resolving an identifier declared in the outermost scope from the innermost scope, the
+ *   same way that type checking does for every single identifier reference, and</li>
+ *   <li>end-to-end, compiling generated programs whose top-level statements are nested that many scopes deep (and whose
+ *   innermost statements reference identifiers declared all the way out) with the `--java_source` backend in-process.</li>
+ * </ul>
+ * <p>
+ * Usage:
+ * bazel run //src/java/com/claro/benchmarks/scoped_heap:scoped_heap_benchmark -- [runs] [depth...]
+ */
+public class ScopedHeapBenchmark {
+  private static final int LOOKUPS_PER_RUN = 1_000_000;
+
+  public static void main(String[] args) throws Exception {
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    int[] depths =
+        args.length > 1
+        ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+        : new int[]{1, 8, 32, 128};
+
+    System.out.printf("Symbol resolution, %,d identifier references per run, %d runs each:%n", LOOKUPS_PER_RUN, runs);
+    for (int depth : depths) {
+      // Warm up the JIT before measuring anything.
+      for (int i = 0; i < 3; i++) {
+        resolveOutermostIdentifier(depth);
+      }
+      long[] elapsedNanos = new long[runs];
+      for (int i = 0; i < runs; i++) {
+        elapsedNanos[i] = resolveOutermostIdentifier(depth);
+      }
+      report(String.format("Depth %-4d", depth), elapsedNanos, LOOKUPS_PER_RUN, "ns/ref");
+    }
+    System.out.println();
+
+    // Compilation errors must surface as exceptions rather than exiting this process.
+    JavaSourceCompilerBackend.PERSISTENT_WORKER_MODE = true;
+    Path tmpDir = Files.createTempDirectory("claro_scoped_heap_benchmark");
+    try {
+      System.out.printf("Compiling deeply nested programs with --java_source, %d runs each:%n", runs);
+      for (int depth : depths) {
+        Path src = Files.writeString(
+            tmpDir.resolve("nested_" + depth + ".claro"), generateDeeplyNestedProgram(depth), StandardCharsets.UTF_8);
+        ImmutableList<String> compilerArgs =
+            ImmutableList.of(
+                "--silent",
+                "--classname", "nested_" + depth,
+                "--main_file_name", "nested_" + depth,
+                "--package", "com.claro.benchmarks.scoped_heap",
+                "--src", src.toString(),
+                "--output_file_path", tmpDir.resolve("nested_" + depth + ".java").toString()
+            );
+        for (int i = 0; i < 3; i++) {
+          compile(compilerArgs);
+        }
+        long[] elapsedNanos = new long[runs];
+        for (int i = 0; i < runs; i++) {
+          elapsedNanos[i] = compile(compilerArgs);
+        }
+        report(String.format("Depth %-4d", depth), elapsedNanos, 1_000_000, "ms       ");
+      }
+    } finally {
+      MoreFiles.deleteRecursively(tmpDir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  private static long resolveOutermostIdentifier(int depth) {
+    ScopedHeap scopedHeap = new ScopedHeap();
+    scopedHeap.enterNewScope();
+    scopedHeap.putIdentifierValue("outermost", Types.INTEGER, 0);
+    for (int i = 0; i < depth; i++) {
+      scopedHeap.enterNewScope();
+      scopedHeap.putIdentifierValue("v" + i, Types.INTEGER, i);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < LOOKUPS_PER_RUN; i++) {
+      // These are exactly the lookups that IdentifierReferenceTerm makes while type checking a single reference.
+      if (!scopedHeap.isIdentifierDeclared("outermost") || !scopedHeap.isIdentifierInitialized("outermost")) {
+        throw new IllegalStateException("Failed to resolve identifier declared in the outermost scope.");
+      }
+      scopedHeap.markIdentifierUsed("outermost");
+      scopedHeap.getValidatedIdentifierType("outermost");
+    }
+    return System.nanoTime() - start;
+  }
+
+  // Generates a program whose statements are nested `depth` scopes deep, alternating between if-stmts and while-loops,
+  // where every scope declares a new variable referencing both the variable declared just outside of it and the one
+  // declared in the outermost scope.
+  private static String generateDeeplyNestedProgram(int depth) {
+    StringBuilder res = new StringBuilder("var v0 = 0;\n");
+    for (int i = 1; i <= depth; i++) {
+      res.append(i % 2 == 0 ? "while (v" : "if (v").append(i - 1).append(i % 2 == 0 ? " < 0) {\n" : " >= 0) {\n");
+      res.append(String.format("var v%s = v%s + v0;\n", i, i - 1));
+    }
+    res.append(String.format("print(v%s + v0);\n", depth));
+    for (int i = 1; i <= depth; i++) {
+      res.append("}\n");
+    }
+    return res.toString();
+  }
+
+  private static long compile(ImmutableList<String> compilerArgs) throws Exception {
+    JavaSourceCompilerBackend.resetProcessGlobalCompilationState();
+    long start = System.nanoTime();
+    new JavaSourceCompilerBackend(compilerArgs.toArray(new String[0])).run();
+    return System.nanoTime() - start;
+  }
+
+  private static void report(String name, long[] elapsedNanos, long nanosPerUnit, String unit) {
+    long[] sorted = elapsedNanos.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "  %s median %,10.1f %s   min %,10.1f %s   max %,10.1f %s%n",
+        name,
+        (double) sorted[sorted.length / 2] / nanosPerUnit, unit,
+        (double) sorted[0] / nanosPerUnit, unit,
+        (double) sorted[sorted.length - 1] / nanosPerUnit, unit
+    );
+  }
+}
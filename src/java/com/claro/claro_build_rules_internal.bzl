@@ -116,8 +116,9 @@ def _invoke_claro_compiler_impl(ctx):
     # Declare an Action to execute the Claro compiler binary over the given srcs.
     # Constructing the args using ctx.actions.args() is Bazel's approach to performance optimization akin to Java's
     # use of StringBuilder rather than immediate String concatenations.
+    startup_args = ctx.actions.args()
+    startup_args.add("--java_source")
     args = ctx.actions.args()
-    args.add("--java_source")
     if is_module:
         args.add("--unique_module_name", ctx.attr.unique_module_name)
     else:
@@ -127,6 +128,12 @@ def _invoke_claro_compiler_impl(ctx):
         args.add("--silent")
     if ctx.attr.expect_errors:
         args.add("--expect_errors")
+    if ctx.attr.outline_huge_methods:
+        args.add("--outline_huge_methods")
+    outputs = [ctx.outputs.compiler_out]
+    if ctx.outputs.profile_output:
+        args.add("--profile_output", ctx.outputs.profile_output)
+        outputs.append(ctx.outputs.profile_output)
     args.add("--package", project_package)
     for src in srcs:
         args.add("--src", src)
@@ -169,7 +176,8 @@ def _invoke_claro_compiler_impl(ctx):
     args.add("--output_file_path", ctx.outputs.compiler_out)
 
     # TODO(steving) Drop this once the "bootstrapping" version of the compiler also accepts this.
-    if "bootstrapping" not in ctx.executable.claro_compiler.basename:
+    is_bootstrapping_compiler = "bootstrapping" in ctx.executable.claro_compiler.basename
+    if not is_bootstrapping_compiler:
         # Add paths to all transitive .claro_module files for all modules in this compilation unit's subgraph.
         transitive_subgraph_dep_modules_depset = depset(
             direct = [dep[ClaroModuleInfo].info for dep in ctx.attr.deps] + [dep[ClaroModuleInfo].info for dep in ctx.attr._stdlib_module_deps.keys()],
@@ -192,6 +200,17 @@ def _invoke_claro_compiler_impl(ctx):
         for used_optional_stdlib_module in optional_stdlib_modules_used_in_transitive_closure.to_list():
             args.add("--optional_stdlib_module_used_in_transitive_closure", used_optional_stdlib_module)
 
+    # The Claro compiler can run as a Bazel persistent worker so that a single warm JVM services every compilation in the
+    # build. Bazel requires workers to receive their per-request args via a params file passed as the final arg.
+    execution_requirements = {}
+    if not is_bootstrapping_compiler:
+        args.use_param_file("@%s", use_always = True)
+        args.set_param_file_format("multiline")
+        execution_requirements = {
+            "supports-workers": "1",
+            "requires-worker-protocol": "json",
+        }
+
     ctx.actions.run(
         inputs = depset(
             direct = srcs,
@@ -200,10 +219,12 @@ def _invoke_claro_compiler_impl(ctx):
                          [dep.files for dep in ctx.attr.deps.keys()] +
                          [dep[ClaroModuleInfo].info.files for dep in ctx.attr.deps]
         ),
-        outputs = [ctx.outputs.compiler_out],
-        arguments = [args],
+        outputs = outputs,
+        arguments = [startup_args, args],
         progress_message = "Compiling Claro Program: " + ctx.outputs.compiler_out.path,
         executable = ctx.executable.claro_compiler,
+        mnemonic = "ClaroCompile",
+        execution_requirements = execution_requirements,
     )
 
     if is_module:
@@ -252,13 +273,54 @@ def _invoke_claro_compiler_impl(ctx):
     ]
 
 
-def claro_binary(name, main_file, srcs = [], deps = {}, resources = {}, optional_stdlib_deps = [], debug = False, visibility = None):
-    _claro_binary(name, main_file, "{0}.java".format(name), srcs, deps, resources, optional_stdlib_deps, debug, visibility)
+def claro_binary(name, main_file, srcs = [], deps = {}, resources = {}, optional_stdlib_deps = [], debug = False, visibility = None, outline_huge_methods = False, profile = False, app_cds = False, app_cds_training_args = [], tree_shake = False):
+    _claro_binary(
+        name, main_file, "{0}.java".format(name), srcs, deps, resources, optional_stdlib_deps, debug, visibility,
+        outline_huge_methods = outline_huge_methods, profile = profile)
+    deploy_jar = ":{0}_deploy.jar".format(name)
+    if tree_shake:
+        # Every claro_binary() links in all of the default stdlib modules, all of its dep modules' codegen, and all of
+        # the builtin Java deps, regardless of how little of them the program actually uses. So produce a deploy jar of
+        # only the classes that are actually reachable from the program's main class, along with a report of what was
+        # removed.
+        native.genrule(
+            name = "{0}_tree_shaking".format(name),
+            srcs = [deploy_jar],
+            outs = [
+                "{0}_deploy_tree_shaken.jar".format(name),
+                "{0}_tree_shaking_report.txt".format(name),
+            ],
+            cmd = "$(location @claro-lang//src/java/com/claro/compiler_backends/java_source/tree_shaking:deploy_jar_tree_shaker) " +
+                  "--deploy_jar $(location {0}) --main_class claro.lang.{1} ".format(deploy_jar, name) +
+                  "--out $(location {0}_deploy_tree_shaken.jar) --report $(location {0}_tree_shaking_report.txt)".format(name),
+            tools = ["@claro-lang//src/java/com/claro/compiler_backends/java_source/tree_shaking:deploy_jar_tree_shaker"],
+            visibility = visibility,
+        )
+        native.java_import(
+            name = "{0}_tree_shaken_import".format(name),
+            jars = [":{0}_deploy_tree_shaken.jar".format(name)],
+        )
+        native.java_binary(
+            name = "{0}_tree_shaken".format(name),
+            main_class = "claro.lang." + name,
+            runtime_deps = [":{0}_tree_shaken_import".format(name)],
+            visibility = visibility,
+        )
+        deploy_jar = ":{0}_deploy_tree_shaken.jar".format(name)
+    if app_cds:
+        # Opt-in, as the training run executes the program itself as part of the build.
+        _claro_app_cds_binary(
+            name = "{0}_app_cds".format(name),
+            deploy_jar = deploy_jar,
+            main_class = "claro.lang." + name,
+            training_args = app_cds_training_args,
+            visibility = visibility,
+        )
 
 def claro_expected_errors(name, main_file, srcs = [], deps = {}, resources = {}, optional_stdlib_deps = [], debug = False, visibility = None):
     _claro_binary(name, main_file, "{0}.errs".format(name), srcs, deps, resources, optional_stdlib_deps, debug, visibility, expect_errors = True)
 
-def _claro_binary(name, main_file, compiler_out, srcs = [], deps = {}, resources = {}, optional_stdlib_deps = [], debug = False, visibility = None, expect_errors = False):
+def _claro_binary(name, main_file, compiler_out, srcs = [], deps = {}, resources = {}, optional_stdlib_deps = [], debug = False, visibility = None, expect_errors = False, outline_huge_methods = False, profile = False):
     # Add optional stdlib dep targets since the user doesn't actually "know" the explicit Bazel target that implements it.
     deps = dict(**deps) # Make a copy of the frozen deps dict.
     for optional_stdlib_dep in optional_stdlib_deps:
@@ -278,6 +340,8 @@ def _claro_binary(name, main_file, compiler_out, srcs = [], deps = {}, resources
         debug = debug,
         visibility = visibility,
         expect_errors = expect_errors,
+        outline_huge_methods = outline_huge_methods,
+        profile_output = "{0}.profile.json".format(name) if profile else None,
     )
     if not expect_errors:
         native.java_binary(
@@ -420,6 +484,11 @@ INVOKE_CLARO_COMPILER_ATTRS = {
         default = [],
     ),
     "debug": attr.bool(default = False),
+    "outline_huge_methods": attr.bool(
+        doc = "Whether to have the Claro compiler outline runs of top-level statements out of generated methods that " +
+              "would otherwise be too large for the JIT to compile (or for javac to compile at all).",
+        default = False,
+    ),
 
     # Args below this point are intended primarily for internal use only.
 
@@ -456,6 +525,12 @@ INVOKE_CLARO_COMPILER_ATTRS = {
               "sake of incrementality.",
         mandatory = False,
     ),
+    "profile_output": attr.output(
+        doc = "If set, the Claro compiler's profile of this compilation is written here as Chrome trace JSON " +
+              "(viewable in chrome://tracing or https://ui.perfetto.dev). claro_binary(profile = True) declares this " +
+              "as `{name}.profile.json`, which can be built directly to profile the compiler on that program.",
+        mandatory = False,
+    ),
     "expect_errors": attr.bool(
         doc = "Used to indicate that the given program is expected to have errors and the intent is for compile-time " +
               "error messages to be redirected to the requested output file instead of any codegen. This was " +
@@ -485,6 +560,83 @@ _invoke_claro_compiler_internal = rule(
 )
 
 
+# Startup of short-lived Claro programs is dominated by the JVM loading and verifying the very same classes on every run
+# (Guava, Gson, the Claro runtime, ...). This rule does a training run of the program's deploy jar to find every class
+# that it actually loads, and produces a launcher that maps those classes in from an AppCDS archive instead. Because the
+# archive is only valid for the exact JVM that dumped it, the launcher always runs the program on that same Java runtime.
+def _claro_app_cds_binary_impl(ctx):
+    java_runtime = ctx.attr._java_runtime[java_common.JavaRuntimeInfo]
+    deploy_jar = ctx.file.deploy_jar
+    class_list = ctx.actions.declare_file(ctx.label.name + ".classlist")
+
+    training_args = ctx.actions.args()
+    training_args.add(java_runtime.java_executable_exec_path)
+    training_args.add("-XX:DumpLoadedClassList=" + class_list.path)
+    training_args.add("-cp", deploy_jar)
+    training_args.add(ctx.attr.main_class)
+    training_args.add_all(ctx.attr.training_args)
+    ctx.actions.run_shell(
+        inputs = depset(direct = [deploy_jar], transitive = [java_runtime.files]),
+        outputs = [class_list],
+        arguments = [training_args],
+        # The training run only needs to get far enough to have loaded the classes that a typical run would load, so
+        # programs that exit with an error (e.g. because they read from stdin) still produce a useful class list.
+        command = '"$@" < /dev/null > /dev/null 2>&1 || true; test -s "{0}"'.format(class_list.path),
+        progress_message = "Training AppCDS Class List: " + class_list.short_path,
+        mnemonic = "ClaroAppCdsTraining",
+    )
+
+    # The archive itself isn't dumped at build time. The JVM only maps in an AppCDS archive when the runtime classpath is
+    # *literally* the same string that the archive was dumped with, and it records the deploy jar's mtime, neither of
+    # which is knowable from within a hermetic action. So the launcher dumps it from the class list on first launch,
+    # into a per-user cache.
+    launcher = ctx.actions.declare_file(ctx.label.name)
+    ctx.actions.expand_template(
+        template = ctx.file._launcher_template,
+        output = launcher,
+        substitutions = {
+            "%workspace_name%": ctx.workspace_name,
+            "%java%": java_runtime.java_executable_runfiles_path,
+            "%deploy_jar%": deploy_jar.short_path,
+            "%class_list%": class_list.short_path,
+            "%main_class%": ctx.attr.main_class,
+        },
+        is_executable = True,
+    )
+    return [
+        DefaultInfo(
+            executable = launcher,
+            files = depset([launcher, class_list]),
+            runfiles = ctx.runfiles(files = [deploy_jar, class_list], transitive_files = java_runtime.files),
+        ),
+    ]
+
+_claro_app_cds_binary = rule(
+    implementation = _claro_app_cds_binary_impl,
+    attrs = {
+        "deploy_jar": attr.label(
+            doc = "The program's self-contained deploy jar.",
+            allow_single_file = [".jar"],
+            mandatory = True,
+        ),
+        "main_class": attr.string(mandatory = True),
+        "training_args": attr.string_list(
+            doc = "Args passed to the program during the training run that determines which classes get archived.",
+            default = [],
+        ),
+        "_java_runtime": attr.label(
+            default = Label("@bazel_tools//tools/jdk:current_java_runtime"),
+            providers = [java_common.JavaRuntimeInfo],
+        ),
+        "_launcher_template": attr.label(
+            default = Label("@claro-lang//src/java/com/claro:app_cds_launcher.sh.tpl"),
+            allow_single_file = True,
+        ),
+    },
+    executable = True,
+)
+
+
 # This macro produces a target that will allow you to build a claro_builtin_java_deps_deploy.jar that can be used by the
 # CLI to compile Claro programs from source w/o using Bazel. This is intended for use in lightweight scripting scenarios
 # and is not intended to be the primary form of building Claro programs. Bazel is very much the answer for large scale
@@ -522,6 +674,7 @@ def gen_claro_compiler(name = DEFAULT_CLARO_NAME):
         deps = [
             ":" + name + "_java_parser",
             "@claro-lang//src/java/com/claro/compiler_backends/interpreted:interpreter",
+            "@claro-lang//src/java/com/claro/compiler_backends/java_bytecode:java_bytecode",
             "@claro-lang//src/java/com/claro/compiler_backends/java_source:java_source",
             "@claro-lang//src/java/com/claro/compiler_backends/repl:repl",
         ],
@@ -3,12 +3,19 @@ package com.claro.compiler_backends;
 import com.claro.ClaroLexer;
 import com.claro.ClaroParser;
 
+import java.io.CharArrayReader;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 public class ParserUtil {
 
-  private static ClaroLexer createLexer(String input, boolean escapeSpecialChars) {
-    ClaroLexer lexer = new ClaroLexer(new StringReader(input));
+  private static ClaroLexer createLexer(Reader input, boolean escapeSpecialChars) {
+    ClaroLexer lexer = new ClaroLexer(input);
     lexer.escapeSpecialChars = escapeSpecialChars;
     return lexer;
   }
@@ -19,13 +26,54 @@ public class ParserUtil {
 
   public static ClaroParser createParser(
       String input, String srcFilename, String generatedClassName, boolean supportInternalOnlyFeatures, boolean escapeSpecialChars) {
+    return createParser(
+        new StringReader(input), srcFilename, generatedClassName, supportInternalOnlyFeatures, escapeSpecialChars);
+  }
+
+  // Lexes directly out of the given buffer's backing array (as returned by decodeSrcFile()) without copying it.
+  public static ClaroParser createParser(
+      CharBuffer input, String srcFilename, String generatedClassName, boolean supportInternalOnlyFeatures, boolean escapeSpecialChars) {
+    return createParser(
+        asReader(input), srcFilename, generatedClassName, supportInternalOnlyFeatures, escapeSpecialChars);
+  }
+
+  private static ClaroParser createParser(
+      Reader input, String srcFilename, String generatedClassName, boolean supportInternalOnlyFeatures, boolean escapeSpecialChars) {
     ClaroLexer lexer = createLexer(input, escapeSpecialChars);
     lexer.lexedFileName = srcFilename;
     lexer.supportPrivilegedInlineJava = supportInternalOnlyFeatures;
     ClaroParser parser = new ClaroParser(lexer);
     parser.generatedClassName = generatedClassName;
     parser.parsedFileName = srcFilename;
+    lexer.errorMessages = parser.errorMessages;
     return parser;
   }
 
+  /**
+   * Decodes the entire (UTF-8 encoded) contents of a src file in a single pass, straight into the buffer that the lexer
+   * will read from. This replaces reading src files line by line with a Scanner, which ran regex based line splitting
+   * over every char of the input just to reassemble the lines into a String (i.e. yet another copy) afterwards.
+   * <p>
+   * Just like the old line by line reading, the returned contents are guaranteed to end in a newline.
+   */
+  public static CharBuffer decodeSrcFile(byte[] srcFileBytes) {
+    CharsetDecoder decoder =
+        StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // UTF-8 never decodes to more chars than there are bytes, so this leaves room for one trailing newline.
+    CharBuffer res = CharBuffer.allocate(srcFileBytes.length + 1);
+    decoder.decode(ByteBuffer.wrap(srcFileBytes), res, /*endOfInput=*/true);
+    decoder.flush(res);
+    if (res.position() == 0 || res.get(res.position() - 1) != '\n') {
+      res.put('\n');
+    }
+    res.flip();
+    return res;
+  }
+
+  public static Reader asReader(CharBuffer input) {
+    return new CharArrayReader(input.array(), input.arrayOffset() + input.position(), input.remaining());
+  }
+
 }
@@ -7,9 +7,10 @@ import com.claro.intermediate_representation.ProgramNode;
 import com.claro.intermediate_representation.Target;
 import com.claro.stdlib.StdLibUtil;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
 
 public class Interpreter implements CompilerBackend {
   private final boolean SILENT;
@@ -27,22 +28,17 @@ public class Interpreter implements CompilerBackend {
     }
     // TODO(steving) THERE'S NO SUCH FILE. THIS INTERPRETER BACKEND IS COMPLETELY ABANDONED FOR NOW...
     String inputFile = "to_interpret.claro";
-    Scanner scan = null;
+    CharBuffer inputProgram;
     try {
-      scan = new Scanner(new File(inputFile));
-    } catch (FileNotFoundException e) {
+      inputProgram = ParserUtil.decodeSrcFile(Files.readAllBytes(Paths.get(inputFile)));
+    } catch (NoSuchFileException e) {
       System.err.println(String.format("File not found: %s\nExiting.", inputFile));
       return;
     }
-    StringBuilder inputProgram = new StringBuilder();
-    while (scan.hasNextLine()) {
-      inputProgram.append(scan.nextLine());
-      // Scanner is being stupid and dropping all the newlines... so this may give an extra compared to what's in the
-      // source file, but who cares, the grammar will handle it.
-      inputProgram.append("\n");
-    }
 
-    ClaroParser parser = ParserUtil.createParser(inputProgram.toString(), "INTERPRETER", "INTERPRETER");
+    ClaroParser parser =
+        ParserUtil.createParser(
+            inputProgram, "INTERPRETER", "INTERPRETER", /*supportInternalOnlyFeatures*/false, /*escapeSpecialChars*/true);
 
     // These are unused for the interpreted case. We're not gonna produce any files.
     parser.generatedClassName = "";
@@ -56,7 +52,12 @@ public class Interpreter implements CompilerBackend {
     ProgramNode programNode = ((ProgramNode) parser.parse().value);
 
     if (parser.errorsFound == 0) {
-      programNode.generateTargetOutput(Target.INTERPRETED, StdLibUtil::registerIdentifiers);
+      ScopedHeap scopedHeap = new ScopedHeap();
+      scopedHeap.enterNewScope();
+      // Have type checking resolve each identifier's slot up front so that execution can access identifiers by index
+      // rather than searching the entire scope stack for them by name on every single access.
+      scopedHeap.enableIdentifierSlotResolution();
+      programNode.generateTargetOutput(Target.INTERPRETED, scopedHeap, StdLibUtil::registerIdentifiers);
     }
   }
 }
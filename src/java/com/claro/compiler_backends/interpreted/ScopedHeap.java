@@ -9,7 +9,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 // TODO(steving) There should be a ScopedSymbolTable interface with 2 impls. 1: ScopedHeap used for Interpreter and
@@ -18,7 +19,14 @@ public class ScopedHeap {
 
   @VisibleForTesting
   public final Stack<Scope> scopeStack = new Stack<>();
+  // An index over every scope's scopedSymbolTable, mapping each identifier to the levels of all scopes in which it's
+  // currently bound. This allows the innermost binding of any identifier to be found in constant time rather than by
+  // searching every scope from the innermost outwards, no matter how deeply nested the current scope is.
+  private final HashMap<String, BindingScopeLevels> bindingScopeLevelsByIdentifier = new HashMap<>();
   public boolean checkUnused = true;
+  // Only the interpreter actually accesses identifiers' values through the ScopedHeap, so only it has any use for the
+  // pre-resolved IdentifierSlots that would otherwise be wasted work for the compiler's type checking phase.
+  private boolean resolveIdentifierSlots = false;
   // A table<depModuleName, isUsed, descriptor> of dep module descriptors and whether or not they have been referenced.
   public static HashBasedTable<String, Boolean, SerializedClaroModule.UniqueModuleDescriptor> currProgramDepModules =
       HashBasedTable.create();
@@ -33,8 +41,17 @@ public class ScopedHeap {
   // cause an error if they are unused and to not be required to be marked exported if mentioned in a .claro_module_api
   // file given the implication that these modules are implicit direct deps of every single claro_module() target.
   public static ImmutableSet<String> stdlibDepModules = ImmutableSet.of();
-
-  public static String getDefiningModuleDisambiguator(Optional<String> optionalOriginatingDepModuleName) {
+  // Global identifiers (namely the procedures exported by dep modules) whose IdentifierData is only constructed and
+  // registered the first time that the identifier is actually looked up. Most programs reference only a small fraction
+  // of everything exported by their deps, so this avoids deserializing the signatures of everything else.
+  private final HashMap<String, Supplier<IdentifierData>> lazyGlobalIdentifierDataSuppliers = new HashMap<>();
+  private int lazyGlobalIdentifiersRegisteredCount = 0;
+  // The CodegenRecordings currently in progress, innermost last.
+  private final ArrayList<CodegenRecording> activeCodegenRecordings = new ArrayList<>();
+
+  // Synchronized along with markDepModuleUsed() as src files may be parsed concurrently and both are reachable from the
+  // parser and lexer.
+  public static synchronized String getDefiningModuleDisambiguator(Optional<String> optionalOriginatingDepModuleName) {
     String res;
     if (optionalOriginatingDepModuleName.isPresent()) {
       // Just assume that the dep module was correctly registered but may or may not be marked used yet.
@@ -69,6 +86,10 @@ public class ScopedHeap {
     this.checkUnused = false;
   }
 
+  public void enableIdentifierSlotResolution() {
+    this.resolveIdentifierSlots = true;
+  }
+
   // This should honestly only be used by the Target.INTERPRETED path where the values will actually be known to the
   // CompilerBackend itself.
   public Object getIdentifierValue(String identifier) throws ClaroParserException {
@@ -96,7 +117,7 @@ public class ScopedHeap {
     identifierData.isAssignable = false;
     identifierData.isStaticValue = true;
     identifierData.isLazyValue = isLazy;
-    scopeStack.peek().scopedSymbolTable.put(identifier, identifierData);
+    bind(scopeStack.size() - 1, identifier, identifierData);
   }
 
   public void observeIdentifierAllowingHiding(String identifier, Type type) {
@@ -113,6 +134,9 @@ public class ScopedHeap {
   // initialized on the scope level where they're actually init'd. Independent from setting its value which should still
   // be a side-effect that propogates up to the scope-level of declaration.
   public void initializeIdentifier(String identifier) {
+    if (!activeCodegenRecordings.isEmpty()) {
+      recordCodegenAssignment(identifier);
+    }
     // Mark it initialized only in this current code branch represented by this current scope level.
     scopeStack.peek().initializedIdentifiers.add(identifier);
   }
@@ -152,10 +176,10 @@ public class ScopedHeap {
     if (isTypeDefinition) {
       identifierData.isTypeDefinition = true;
     }
-    scopeStack
-        .elementAt(scopeLevel)
-        .scopedSymbolTable
-        .put(identifier, identifierData);
+    if (!activeCodegenRecordings.isEmpty()) {
+      recordCodegenDeclaration(identifier, scopeLevel);
+    }
+    bind(scopeLevel, identifier, identifierData);
     if (value != null) {
       scopeStack.peek().initializedIdentifiers.add(identifier);
     }
@@ -167,10 +191,10 @@ public class ScopedHeap {
   // references within this scope since searching for declared identifiers will stop at the first found in a
   // bottom-up search.
   public void putIdentifierValueAllowingHiding(String identifier, Type type, Object value) {
-    scopeStack
-        .peek()
-        .scopedSymbolTable
-        .put(identifier, new IdentifierData(type, value, true));
+    if (!activeCodegenRecordings.isEmpty()) {
+      recordCodegenDeclaration(identifier, scopeStack.size() - 1);
+    }
+    bind(scopeStack.size() - 1, identifier, new IdentifierData(type, value, true));
     if (value != null) {
       scopeStack.peek().initializedIdentifiers.add(identifier);
     }
@@ -180,11 +204,7 @@ public class ScopedHeap {
   // intentional hiding of captured variables (e.g. for a lambda implicitly capturing outer variables).
   public void putCapturedIdentifierData(Map<String, IdentifierData> lambdaScopeCapturedIdentifierData) {
     lambdaScopeCapturedIdentifierData.forEach(
-        (identifier, identifierData) ->
-            scopeStack
-                .peek()
-                .scopedSymbolTable
-                .put(identifier, identifierData));
+        (identifier, identifierData) -> bind(scopeStack.size() - 1, identifier, identifierData));
   }
 
   // Simply update the value but don't change any other metadata associated with the symbol.
@@ -193,19 +213,60 @@ public class ScopedHeap {
     identifierData.interpretedValue = updatedIdentifierValue;
   }
 
+  // The below methods are the interpreter's fast path for accessing identifiers by the IdentifierSlot resolved during
+  // type checking, rather than searching the scope stack for them by name. If the scope at the resolved slot turns out
+  // not to be holding the expected identifier at runtime (e.g. because some scope was populated in a different order
+  // during type checking than during execution), these fall back to the equivalent lookup by name.
+
+  public IdentifierData getIdentifierData(IdentifierSlot identifierSlot) throws ClaroParserException {
+    int scopeLevel = identifierSlot.getScopeLevel(scopeStack.peek());
+    if (scopeLevel < scopeStack.size()) {
+      IdentifierData identifierData =
+          scopeStack.elementAt(scopeLevel).getSlotIdentifierData(identifierSlot.slot, identifierSlot.identifier);
+      if (identifierData != null) {
+        return identifierData;
+      }
+    }
+    return getIdentifierData(identifierSlot.identifier);
+  }
+
+  public void updateIdentifierValue(IdentifierSlot identifierSlot, Object updatedIdentifierValue) {
+    getIdentifierData(identifierSlot).interpretedValue = updatedIdentifierValue;
+  }
+
+  // This is only valid for IdentifierSlots resolved via ScopedHeap::resolveDeclaredIdentifierSlot, as declarations are
+  // always made in the current scope (whether or not they're hiding some outer identifier).
+  public void putIdentifierValue(IdentifierSlot identifierSlot, Type type, Object value) {
+    Scope currScope = scopeStack.peek();
+    int currScopeLevel = scopeStack.size() - 1;
+    int slotCount = currScope.slotCount;
+    IdentifierData identifierData = new IdentifierData(type, value, true);
+    if (identifierSlot.getScopeLevel(currScope) == currScopeLevel
+        && currScope.bindAtSlot(identifierSlot.slot, identifierSlot.identifier, identifierData)) {
+      if (currScope.slotCount > slotCount) {
+        // This was a new binding rather than a rebinding.
+        indexBinding(currScopeLevel, identifierSlot.identifier);
+      }
+      if (value != null) {
+        currScope.initializedIdentifiers.add(identifierSlot.identifier);
+      }
+    } else {
+      putIdentifierValueAllowingHiding(identifierSlot.identifier, type, value);
+    }
+  }
+
   public void markIdentifierUsed(String identifier) {
     Optional<Integer> identifierScopeLevel = findIdentifierDeclaredScopeLevel(identifier);
+    // The message is only formatted on failure, as this is called for every single identifier reference.
     Preconditions.checkArgument(
         identifierScopeLevel.isPresent(),
-        String.format(
-            "Internal Compiler Error: attempting to mark usage of an undeclared identifier %s.",
-            identifier
-        )
+        "Internal Compiler Error: attempting to mark usage of an undeclared identifier %s.",
+        identifier
     );
     scopeStack.elementAt(identifierScopeLevel.get()).scopedSymbolTable.get(identifier).used = true;
   }
 
-  public static void markDepModuleUsed(String depModule) {
+  public static synchronized void markDepModuleUsed(String depModule) {
     // Don't need to do anything if this module's already been marked used.
     if (ScopedHeap.currProgramDepModules.contains(depModule, /*isUsed=*/false)) {
       Map<Boolean, SerializedClaroModule.UniqueModuleDescriptor> depModuleRowMap =
@@ -218,10 +279,41 @@ public class ScopedHeap {
   public void deleteIdentifierValue(String identifier) {
     Optional<Integer> optionalIdentifierScopeLevel = findIdentifierDeclaredScopeLevel(identifier);
     optionalIdentifierScopeLevel.ifPresent(
-        scopeLevel -> scopeStack.elementAt(scopeLevel).scopedSymbolTable.remove(identifier)
+        scopeLevel -> {
+          if (scopeStack.elementAt(scopeLevel).unbind(identifier)) {
+            bindingScopeLevelsByIdentifier.get(identifier).remove(scopeLevel);
+          }
+        }
     );
   }
 
+  // Snapshots the identifiers bound in the given scope so that any bound there afterwards can be dropped again via
+  // unbindIdentifiersBoundSince().
+  public ImmutableSet<String> getIdentifiersBoundAtLevel(int scopeLevel) {
+    return ImmutableSet.copyOf(scopeStack.elementAt(scopeLevel).scopedSymbolTable.keySet());
+  }
+
+  public void unbindIdentifiersBoundSince(int scopeLevel, ImmutableSet<String> prevBoundIdentifiers) {
+    Scope scope = scopeStack.elementAt(scopeLevel);
+    for (String identifier :
+        ImmutableList.copyOf(Sets.difference(scope.scopedSymbolTable.keySet(), prevBoundIdentifiers))) {
+      if (scope.unbind(identifier)) {
+        bindingScopeLevelsByIdentifier.get(identifier).remove(scopeLevel);
+      }
+      scope.initializedIdentifiers.remove(identifier);
+    }
+  }
+
+  private void bind(int scopeLevel, String identifier, IdentifierData identifierData) {
+    if (scopeStack.elementAt(scopeLevel).bind(identifier, identifierData)) {
+      indexBinding(scopeLevel, identifier);
+    }
+  }
+
+  private void indexBinding(int scopeLevel, String identifier) {
+    bindingScopeLevelsByIdentifier.computeIfAbsent(identifier, unused -> new BindingScopeLevels()).add(scopeLevel);
+  }
+
   // For use only during the type-checking phase.
   public void observeNewScope(boolean beginIdentifierInitializationBranchInspection) {
     observeNewScope(beginIdentifierInitializationBranchInspection, Scope.ScopeType.DEFAULT_SCOPE);
@@ -232,14 +324,14 @@ public class ScopedHeap {
     if (beginIdentifierInitializationBranchInspection) {
       scopeStack.peek().branchDetectionEnabled = true;
     }
-    scopeStack.push(new Scope(scopeType));
+    pushScope(new Scope(scopeType));
   }
 
   public void exitCurrObservedScope(boolean finalizeIdentifiersInitializedInBranchGroup) {
     if (checkUnused) {
       checkAllIdentifiersInCurrScopeUsed();
     }
-    Scope exitedScope = scopeStack.pop();
+    Scope exitedScope = popScope();
     if (scopeStack.peek().branchDetectionEnabled) {
       scopeStack.peek().updateIdentifiersInitializedInBranchGroup(exitedScope);
       if (finalizeIdentifiersInitializedInBranchGroup) {
@@ -253,14 +345,44 @@ public class ScopedHeap {
   }
 
   public void enterNewScope(Scope.ScopeType scopeType) {
-    scopeStack.push(new Scope(scopeType));
+    pushScope(new Scope(scopeType));
+  }
+
+  private void pushScope(Scope scope) {
+    int scopeLevel = scopeStack.size();
+    if (!scopeStack.isEmpty()) {
+      Scope outerScope = scopeStack.peek();
+      scope.frameBaseLevel = outerScope.frameBaseLevel;
+      scope.innermostFunctionScopeLevel = outerScope.innermostFunctionScopeLevel;
+      scope.innermostLambdaScopeLevel = outerScope.innermostLambdaScopeLevel;
+    }
+    switch (scope.scopeType) {
+      case FUNCTION_SCOPE:
+        scope.frameBaseLevel = scopeLevel;
+        scope.innermostFunctionScopeLevel = scopeLevel;
+        break;
+      case LAMBDA_SCOPE:
+        scope.frameBaseLevel = scopeLevel;
+        scope.innermostLambdaScopeLevel = scopeLevel;
+        break;
+    }
+    scopeStack.push(scope);
+  }
+
+  private Scope popScope() {
+    int scopeLevel = scopeStack.size() - 1;
+    Scope exitedScope = scopeStack.pop();
+    for (String identifier : exitedScope.scopedSymbolTable.keySet()) {
+      bindingScopeLevelsByIdentifier.get(identifier).remove(scopeLevel);
+    }
+    return exitedScope;
   }
 
   public void exitCurrScope() {
     if (checkUnused) {
       checkAllIdentifiersInCurrScopeUsed();
     }
-    scopeStack.pop();
+    popScope();
   }
 
   public boolean isIdentifierDeclared(String identifier) {
@@ -282,125 +404,284 @@ public class ScopedHeap {
     throw new ClaroParserException(String.format("No identifier <%s> within the current scope!", identifier));
   }
 
+  // Resolves the slot that the given identifier is currently bound to, for the interpreter to use to access it at
+  // runtime. This must be called during type checking, at the same point in the program where the identifier will be
+  // accessed, so that the scope stack is structured exactly as it will be during execution.
+  public Optional<IdentifierSlot> resolveIdentifierSlot(String identifier) {
+    if (!this.resolveIdentifierSlots) {
+      return Optional.empty();
+    }
+    return findIdentifierDeclaredScopeLevel(identifier).flatMap(
+        scopeLevel -> {
+          int slot = scopeStack.elementAt(scopeLevel).findSlot(identifier);
+          if (slot < 0) {
+            return Optional.empty();
+          }
+          int frameBaseLevel = scopeStack.peek().frameBaseLevel;
+          return Optional.of(
+              scopeLevel >= frameBaseLevel
+              ? new IdentifierSlot(identifier, /*isFrameRelative=*/true, scopeLevel - frameBaseLevel, slot)
+              : new IdentifierSlot(identifier, /*isFrameRelative=*/false, scopeLevel, slot));
+        });
+  }
+
+  // Same as the above, but only resolves the identifier's slot if it was declared in the current scope.
+  public Optional<IdentifierSlot> resolveDeclaredIdentifierSlot(String identifier) {
+    return resolveIdentifierSlot(identifier)
+        .filter(identifierSlot -> identifierSlot.getScopeLevel(scopeStack.peek()) == scopeStack.size() - 1);
+  }
+
+  // Defers registering the given identifier in the outermost (global) scope until the first time that it's looked up.
+  public void putLazyGlobalIdentifierValue(String identifier, Supplier<IdentifierData> identifierDataSupplier) {
+    lazyGlobalIdentifierDataSuppliers.put(identifier, identifierDataSupplier);
+  }
+
+  // Same as the above, for an identifier that names a type definition.
+  public void putLazyGlobalTypeDefinition(String identifier, Supplier<Type> typeSupplier) {
+    putLazyGlobalIdentifierValue(
+        identifier,
+        () -> {
+          IdentifierData res = new IdentifierData(typeSupplier.get(), null, /*declared=*/true);
+          res.isTypeDefinition = true;
+          return res;
+        }
+    );
+  }
+
+  public int getLazyGlobalIdentifiersRegisteredCount() {
+    return lazyGlobalIdentifiersRegisteredCount;
+  }
+
+  public int getLazyGlobalIdentifiersSkippedCount() {
+    return lazyGlobalIdentifierDataSuppliers.size();
+  }
+
+  private void maybeRegisterLazyGlobalIdentifier(String identifier) {
+    if (lazyGlobalIdentifierDataSuppliers.isEmpty()) {
+      return;
+    }
+    Supplier<IdentifierData> identifierDataSupplier = lazyGlobalIdentifierDataSuppliers.remove(identifier);
+    if (identifierDataSupplier != null) {
+      // Register exactly as if this had been put eagerly while the global scope was the current scope.
+      IdentifierData identifierData = identifierDataSupplier.get();
+      bind(0, identifier, identifierData);
+      if (identifierData.interpretedValue != null) {
+        scopeStack.firstElement().initializedIdentifiers.add(identifier);
+      }
+      lazyGlobalIdentifiersRegisteredCount++;
+    }
+  }
+
   private Optional<Integer> findIdentifierDeclaredScopeLevel(String identifier) {
-    return findScopeStackLevel(scopeLevel -> scopeLevel.scopedSymbolTable.containsKey(identifier), identifier);
+    maybeRegisterLazyGlobalIdentifier(identifier);
+    if (!activeCodegenRecordings.isEmpty()) {
+      recordCodegenReference(identifier);
+    }
+    BindingScopeLevels bindingScopeLevels = bindingScopeLevelsByIdentifier.get(identifier);
+    if (bindingScopeLevels == null || bindingScopeLevels.isEmpty()) {
+      return Optional.empty(); // Not found.
+    }
+    return applyScopeVisibilityRules(bindingScopeLevels.innermost(), identifier);
   }
 
   public Optional<Integer> findIdentifierInitializedScopeLevel(String identifier) {
-    return findScopeStackLevel(scopeLevel -> scopeLevel.initializedIdentifiers.contains(identifier), identifier);
+    maybeRegisterLazyGlobalIdentifier(identifier);
+    if (!activeCodegenRecordings.isEmpty()) {
+      recordCodegenReference(identifier);
+    }
+    return findIdentifierInitializedScopeLevelUnrecorded(identifier);
   }
 
-  // This method searches from the current Scope outwards, trying to find any scope that matches the given
-  // predicate. This method also takes responsibility of honoring the unique Scoping rules applicable to
-  // each Scope.ScopeType so this method's behavior differs based on the ScopeType of the current (and outer)
-  // Scopes to simulate visibility rules. Namely, once a FUNCTION_SCOPE is reached, it will ignore any
-  // non-Function-Type (or non-Contract-Type) identifiers that it finds outside.
-  private Optional<Integer> findScopeStackLevel(Function<Scope, Boolean> checkScopeLevelFn, String identifier) {
-    // Start searching first in the innermost scope, that is, the last map in our stack.
+  private Optional<Integer> findIdentifierInitializedScopeLevelUnrecorded(String identifier) {
+    // Initialization is tracked per code branch rather than per binding, so there's no index to consult here. Start
+    // searching first in the innermost scope, that is, the last one in our stack.
     int scopeLevel = scopeStack.size();
-    Optional<Integer> pastFunctionScopeBoundary = Optional.empty();
-    Optional<Integer> pastLambdaScopeBoundary = Optional.empty();
     while (--scopeLevel >= 0) {
-      Scope currScope = scopeStack.elementAt(scopeLevel);
-      Scope.ScopeType currScopeType = currScope.scopeType;
-      boolean checkScopeLevelFnResult = checkScopeLevelFn.apply(currScope);
-      switch (currScopeType) {
-        case DEFAULT_SCOPE:
-          if (checkScopeLevelFnResult) {
-            if (pastFunctionScopeBoundary.isPresent() || pastLambdaScopeBoundary.isPresent()) {
-              ImmutableSet<BaseType> functionBaseTypes =
-                  ImmutableSet.of(BaseType.FUNCTION, BaseType.CONSUMER_FUNCTION, BaseType.PROVIDER_FUNCTION);
-              IdentifierData identifierData = currScope.scopedSymbolTable.get(identifier);
-              if (identifierData.isTypeDefinition
-                  || identifierData.isStaticValue
-                  || (functionBaseTypes.contains(identifierData.type.baseType()) &&
-                      functionBaseTypes.contains(identifierData.type.getPossiblyOverridenBaseType()))) {
-                // In any of these cases, we should accept Function type references, Type definitions and static values.
-                return Optional.of(scopeLevel);
-              } else if (pastFunctionScopeBoundary.isPresent()) {
-                // Functions may also reference Modules or Contracts defined in outer scopes.
-                ImmutableSet<BaseType> allowedNonFunctionTypeReferences =
-                    ImmutableSet.of(BaseType.MODULE, BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
-                if (allowedNonFunctionTypeReferences.contains(identifierData.type.baseType())) {
-                  return Optional.of(scopeLevel);
-                }
-                return Optional.empty();
-              } else {
-                // Lambdas can reference anything in outer scopes, but they need to re-declare a hiding variable
-                // copying the value from the outer scope. This method can handle that implicitly here adding
-                // a new hiding identifier at the scope level that the lambda was found at.
-                ImmutableSet<BaseType> ignoredIdentifierReferenceTypes =
-                    ImmutableSet.of(BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
-                if (ignoredIdentifierReferenceTypes.contains(identifierData.type.baseType())) {
-                  // In this case we actually will allow the lambda to reference the original identifiers in the default
-                  // scope since we don't want lambdas to have to redeclare contracts.
-                  return Optional.of(scopeLevel);
-                } else {
-                  redeclareCaptureVariable(identifier, pastLambdaScopeBoundary.get(), identifierData);
-
-                  // Point the caller to the newly declared value rather than the one found in the outer scope
-                  // since that's been hidden and copied now.
-                  return pastLambdaScopeBoundary;
-                }
-              }
-            } else {
+      if (scopeStack.elementAt(scopeLevel).initializedIdentifiers.contains(identifier)) {
+        return applyScopeVisibilityRules(scopeLevel, identifier);
+      }
+    }
+    return Optional.empty(); // Not found.
+  }
+
+  public int getCurrFrameBaseLevel() {
+    return scopeStack.peek().frameBaseLevel;
+  }
+
+  // Begins recording the identifiers referenced, declared, and assigned by all codegen from now until the returned
+  // recording is stopped. If the recorded codegen is going to be wrapped in its own Java block, then none of the
+  // identifiers that it declares are visible to Java afterwards, so they're dropped from any enclosing recordings.
+  public CodegenRecording startCodegenRecording(boolean isJavaBlock) {
+    Scope currScope = scopeStack.peek();
+    CodegenRecording recording =
+        new CodegenRecording(
+            scopeStack.size() - 1, currScope.frameBaseLevel, currScope.innermostFunctionScopeLevel, isJavaBlock);
+    activeCodegenRecordings.add(recording);
+    return recording;
+  }
+
+  public void stopCodegenRecording(CodegenRecording recording) {
+    Preconditions.checkState(
+        activeCodegenRecordings.remove(activeCodegenRecordings.size() - 1) == recording,
+        "Internal Compiler Error! Codegen recordings must be stopped in the reverse order that they were started.");
+    if (recording.isJavaBlock) {
+      for (CodegenRecording enclosingRecording : activeCodegenRecordings) {
+        if (enclosingRecording.scopeLevel == recording.scopeLevel) {
+          enclosingRecording.declaredIdentifiers.removeAll(recording.declaredIdentifiers);
+        }
+      }
+    }
+  }
+
+  public boolean isCodegenRecording() {
+    return !activeCodegenRecordings.isEmpty();
+  }
+
+  // Some codegen updates a local without going through initializeIdentifier() (e.g. `x++`), so it must record that
+  // explicitly.
+  public void recordCodegenAssignment(String identifier) {
+    if (activeCodegenRecordings.isEmpty()) {
+      return;
+    }
+    // The assignment itself counts as a reference, but only the initialization state before it matters.
+    recordCodegenReference(identifier);
+    int functionScopeLevel = scopeStack.peek().innermostFunctionScopeLevel;
+    for (CodegenRecording recording : activeCodegenRecordings) {
+      if (recording.functionScopeLevel == functionScopeLevel) {
+        recording.assignedIdentifiers.add(identifier);
+      }
+    }
+  }
+
+  // Only control flow escaping the frame that the recording was started in is recorded, so e.g. the `return` of a
+  // lambda defined within the recorded codegen doesn't count.
+  public void recordCodegenReturn() {
+    forEachCodegenRecordingInCurrFrame(recording -> recording.returns = true);
+  }
+
+  public void recordCodegenLoopJump() {
+    forEachCodegenRecordingInCurrFrame(recording -> recording.jumps = true);
+  }
+
+  // For codegen referencing Java locals that don't correspond to any Claro identifier (e.g. pipe chain backreferences).
+  public void recordCodegenSyntheticLocalReference() {
+    forEachCodegenRecordingInCurrFrame(recording -> recording.referencesSyntheticLocals = true);
+  }
+
+  public void recordCodegenInlineJava() {
+    forEachCodegenRecordingInCurrFrame(recording -> recording.inlinesJava = true);
+  }
+
+  private void forEachCodegenRecordingInCurrFrame(Consumer<CodegenRecording> recordFn) {
+    int frameBaseLevel = scopeStack.peek().frameBaseLevel;
+    for (CodegenRecording recording : activeCodegenRecordings) {
+      if (recording.frameBaseLevel == frameBaseLevel) {
+        recordFn.accept(recording);
+      }
+    }
+  }
+
+  private void recordCodegenReference(String identifier) {
+    int functionScopeLevel = scopeStack.peek().innermostFunctionScopeLevel;
+    Boolean initialized = null;
+    for (CodegenRecording recording : activeCodegenRecordings) {
+      if (recording.functionScopeLevel == functionScopeLevel
+          && !recording.referencedIdentifiersInitialized.containsKey(identifier)) {
+        if (initialized == null) {
+          initialized = findIdentifierInitializedScopeLevelUnrecorded(identifier).isPresent();
+        }
+        recording.referencedIdentifiersInitialized.put(identifier, initialized);
+      }
+    }
+  }
+
+  private void recordCodegenDeclaration(String identifier, int scopeLevel) {
+    int functionScopeLevel = scopeStack.peek().innermostFunctionScopeLevel;
+    for (CodegenRecording recording : activeCodegenRecordings) {
+      if (recording.functionScopeLevel == functionScopeLevel && recording.scopeLevel == scopeLevel) {
+        recording.declaredIdentifiers.add(identifier);
+      }
+    }
+  }
+
+  // Given the innermost scope level at which the identifier was found, this method takes responsibility of honoring the
+  // unique Scoping rules applicable to each Scope.ScopeType so this method's behavior differs based on the ScopeType of
+  // the current (and outer) Scopes to simulate visibility rules. Namely, if a FUNCTION_SCOPE lies between the current
+  // scope and the found scope, it will ignore any non-Function-Type (or non-Contract-Type) identifiers found outside.
+  private Optional<Integer> applyScopeVisibilityRules(int scopeLevel, String identifier) {
+    // Only the innermost Function and Lambda scope boundaries that were crossed on the way out to the found scope
+    // matter. Let's just make sure that we keep only the first one we come across in case I ever want to support
+    // nested Functions.
+    Scope innermostScope = scopeStack.peek();
+    Optional<Integer> pastFunctionScopeBoundary =
+        innermostScope.innermostFunctionScopeLevel > scopeLevel
+        ? Optional.of(innermostScope.innermostFunctionScopeLevel)
+        : Optional.empty();
+    Optional<Integer> pastLambdaScopeBoundary =
+        innermostScope.innermostLambdaScopeLevel > scopeLevel
+        ? Optional.of(innermostScope.innermostLambdaScopeLevel)
+        : Optional.empty();
+    Scope currScope = scopeStack.elementAt(scopeLevel);
+    Scope.ScopeType currScopeType = currScope.scopeType;
+    switch (currScopeType) {
+      case DEFAULT_SCOPE:
+        if (pastFunctionScopeBoundary.isPresent() || pastLambdaScopeBoundary.isPresent()) {
+          ImmutableSet<BaseType> functionBaseTypes =
+              ImmutableSet.of(BaseType.FUNCTION, BaseType.CONSUMER_FUNCTION, BaseType.PROVIDER_FUNCTION);
+          IdentifierData identifierData = currScope.scopedSymbolTable.get(identifier);
+          if (identifierData.isTypeDefinition
+              || identifierData.isStaticValue
+              || (functionBaseTypes.contains(identifierData.type.baseType()) &&
+                  functionBaseTypes.contains(identifierData.type.getPossiblyOverridenBaseType()))) {
+            // In any of these cases, we should accept Function type references, Type definitions and static values.
+            return Optional.of(scopeLevel);
+          } else if (pastFunctionScopeBoundary.isPresent()) {
+            // Functions may also reference Modules or Contracts defined in outer scopes.
+            ImmutableSet<BaseType> allowedNonFunctionTypeReferences =
+                ImmutableSet.of(BaseType.MODULE, BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
+            if (allowedNonFunctionTypeReferences.contains(identifierData.type.baseType())) {
               return Optional.of(scopeLevel);
             }
-          }
-          break;
-        case FUNCTION_SCOPE:
-          if (checkScopeLevelFnResult) {
-            // Lambdas can reference anything in outer scopes, but they need to re-declare a hiding variable
-            // copying the value from the outer scope. This method can handle that implicitly here adding
-            // a new hiding identifier at the scope level that the lambda was found at.
-            pastLambdaScopeBoundary.ifPresent(
-                lambdaScopeLevel -> {
-                  ImmutableSet<BaseType> ignoredIdentifierReferenceTypes =
-                      ImmutableSet.of(BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
-                  if (!ignoredIdentifierReferenceTypes.contains(currScope.scopedSymbolTable.get(identifier).type.baseType())) {
-                    redeclareCaptureVariable(
-                        identifier, lambdaScopeLevel, currScope.scopedSymbolTable.get(identifier));
-                  }
-                });
-            return Optional.of(scopeLevel);
+            return Optional.empty();
           } else {
-            // If we don't find what we're looking for before going outside the Function scope boundary,
-            // we have to mark that we just did that. Let's just make sure that we keep only the first one
-            // we come across in case I ever want to support nested Functions.
-            if (!pastFunctionScopeBoundary.isPresent()) {
-              pastFunctionScopeBoundary = Optional.of(scopeLevel);
-            }
-          }
-          break;
-        case LAMBDA_SCOPE:
-          if (checkScopeLevelFnResult) {
             // Lambdas can reference anything in outer scopes, but they need to re-declare a hiding variable
             // copying the value from the outer scope. This method can handle that implicitly here adding
             // a new hiding identifier at the scope level that the lambda was found at.
-            pastLambdaScopeBoundary.ifPresent(
-                lambdaScopeLevel -> {
-                  ImmutableSet<BaseType> ignoredIdentifierReferenceTypes =
-                      ImmutableSet.of(BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
-                  if (!ignoredIdentifierReferenceTypes.contains(currScope.scopedSymbolTable.get(identifier).type.baseType())) {
-                    redeclareCaptureVariable(
-                        identifier, lambdaScopeLevel, currScope.scopedSymbolTable.get(identifier));
-                  }
-                });
-            return Optional.of(scopeLevel);
-          } else {
-            // If we don't find what we're looking for before going outside the Lambda scope boundary,
-            // we have to mark that we just did that. Let's just make sure that we keep only the first one
-            // we come across.
-            if (!pastLambdaScopeBoundary.isPresent()) {
-              pastLambdaScopeBoundary = Optional.of(scopeLevel);
+            ImmutableSet<BaseType> ignoredIdentifierReferenceTypes =
+                ImmutableSet.of(BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
+            if (ignoredIdentifierReferenceTypes.contains(identifierData.type.baseType())) {
+              // In this case we actually will allow the lambda to reference the original identifiers in the default
+              // scope since we don't want lambdas to have to redeclare contracts.
+              return Optional.of(scopeLevel);
+            } else {
+              redeclareCaptureVariable(identifier, pastLambdaScopeBoundary.get(), identifierData);
+
+              // Point the caller to the newly declared value rather than the one found in the outer scope
+              // since that's been hidden and copied now.
+              return pastLambdaScopeBoundary;
             }
           }
-          break;
-        default:
-          throw new ClaroParserException("Internal Compiler Error: Unsupported ScopeType " + currScopeType);
-      }
+        } else {
+          return Optional.of(scopeLevel);
+        }
+      case FUNCTION_SCOPE:
+      case LAMBDA_SCOPE:
+        // Lambdas can reference anything in outer scopes, but they need to re-declare a hiding variable
+        // copying the value from the outer scope. This method can handle that implicitly here adding
+        // a new hiding identifier at the scope level that the lambda was found at.
+        pastLambdaScopeBoundary.ifPresent(
+            lambdaScopeLevel -> {
+              ImmutableSet<BaseType> ignoredIdentifierReferenceTypes =
+                  ImmutableSet.of(BaseType.$CONTRACT, BaseType.$CONTRACT_IMPLEMENTATION);
+              if (!ignoredIdentifierReferenceTypes.contains(currScope.scopedSymbolTable.get(identifier).type.baseType())) {
+                redeclareCaptureVariable(
+                    identifier, lambdaScopeLevel, currScope.scopedSymbolTable.get(identifier));
+              }
+            });
+        return Optional.of(scopeLevel);
+      default:
+        throw new ClaroParserException("Internal Compiler Error: Unsupported ScopeType " + currScopeType);
     }
-    return Optional.empty(); // Not found.
   }
 
   // Need to re-declare a hiding variable copying the value from the outer scope. This method can
@@ -408,9 +689,7 @@ public class ScopedHeap {
   private void redeclareCaptureVariable(String identifier, int scopeLevel, IdentifierData identifierData) {
     IdentifierData redeclaredCaptureIdentifierData =
         new IdentifierData(identifierData.type, identifierData.interpretedValue, identifierData.declared);
-    scopeStack.get(scopeLevel)
-        .scopedSymbolTable
-        .put(identifier, redeclaredCaptureIdentifierData);
+    bind(scopeLevel, identifier, redeclaredCaptureIdentifierData);
     // I need to mark this newly initialized capture variable.
     scopeStack.get(scopeLevel).lambdaScopeCapturedVariables.put(identifier, identifierData.type);
     // That implicit copy that we just did, definitely counts as "using" the identifier.
@@ -500,8 +779,105 @@ public class ScopedHeap {
     }
   }
 
+  // Records, straight from the IR, what some span of codegen within a single generated Java method depends on, so that
+  // the span can be moved into a separate helper method (see HugeMethodOutliner) without having to reverse engineer
+  // this from the generated Java itself. Recording is deliberately conservative: every lookup of an identifier counts as
+  // a reference to it, even if the lookup doesn't end up emitting the identifier.
+  public static final class CodegenRecording {
+    // Each referenced identifier, mapped to whether it was already initialized when it was first referenced.
+    public final LinkedHashMap<String, Boolean> referencedIdentifiersInitialized = new LinkedHashMap<>();
+    // Only the identifiers bound directly in the scope that was current when recording started.
+    public final LinkedHashSet<String> declaredIdentifiers = new LinkedHashSet<>();
+    public final HashSet<String> assignedIdentifiers = new HashSet<>();
+    public boolean returns = false;
+    public boolean jumps = false;
+    public boolean referencesSyntheticLocals = false;
+    public boolean inlinesJava = false;
+    private final int scopeLevel;
+    private final int frameBaseLevel;
+    private final int functionScopeLevel;
+    private final boolean isJavaBlock;
+
+    private CodegenRecording(int scopeLevel, int frameBaseLevel, int functionScopeLevel, boolean isJavaBlock) {
+      this.scopeLevel = scopeLevel;
+      this.frameBaseLevel = frameBaseLevel;
+      this.functionScopeLevel = functionScopeLevel;
+      this.isJavaBlock = isJavaBlock;
+    }
+  }
+
+  // The lexical address of an identifier. Identifiers declared within the current procedure's frame (i.e. at or above
+  // its FUNCTION_SCOPE/LAMBDA_SCOPE) are addressed relative to the frame's base scope so that the address remains valid
+  // no matter how deep the call stack is at runtime, while anything outside of the frame (i.e. procedures and other
+  // top-level definitions) is addressed by its absolute level in the scope stack.
+  public static final class IdentifierSlot {
+    private final String identifier;
+    private final boolean isFrameRelative;
+    private final int scopeLevel;
+    private final int slot;
+
+    private IdentifierSlot(String identifier, boolean isFrameRelative, int scopeLevel, int slot) {
+      this.identifier = identifier;
+      this.isFrameRelative = isFrameRelative;
+      this.scopeLevel = scopeLevel;
+      this.slot = slot;
+    }
+
+    private int getScopeLevel(Scope currScope) {
+      return this.isFrameRelative ? currScope.frameBaseLevel + this.scopeLevel : this.scopeLevel;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "IdentifierSlot(%s, %s%s, slot = %s)",
+          this.identifier, this.isFrameRelative ? "frame + " : "level ", this.scopeLevel, this.slot);
+    }
+  }
+
+  // The levels of every scope in which some identifier is currently bound, in ascending order. The innermost binding is
+  // almost always the one being added or removed, as scopes are exited in the reverse order that they were entered.
+  private static final class BindingScopeLevels {
+    private int[] scopeLevels = new int[2];
+    private int size = 0;
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    int innermost() {
+      return scopeLevels[size - 1];
+    }
+
+    void add(int scopeLevel) {
+      if (size == scopeLevels.length) {
+        scopeLevels = Arrays.copyOf(scopeLevels, size * 2);
+      }
+      int i = size;
+      while (i > 0 && scopeLevels[i - 1] > scopeLevel) {
+        scopeLevels[i] = scopeLevels[i - 1];
+        i--;
+      }
+      scopeLevels[i] = scopeLevel;
+      size++;
+    }
+
+    void remove(int scopeLevel) {
+      for (int i = size - 1; i >= 0; i--) {
+        if (scopeLevels[i] == scopeLevel) {
+          System.arraycopy(scopeLevels, i + 1, scopeLevels, i, size - i - 1);
+          size--;
+          return;
+        }
+      }
+    }
+  }
+
   @VisibleForTesting
   public static class Scope {
+    private static final String[] NO_SLOT_IDENTIFIERS = new String[0];
+    private static final IdentifierData[] NO_SLOT_IDENTIFIER_DATA = new IdentifierData[0];
+
     // This is a map that contains all declared identifiers. An entry will be made in this map for every identifier
     // immediately following its declaration. Its type and value will be logged at the first scope level where it was
     // declared because further code branches (scopes) may still need to update its value as a desired side-effect.
@@ -533,10 +909,93 @@ public class ScopedHeap {
 
     final ScopeType scopeType;
 
+    // The level of the innermost FUNCTION_SCOPE or LAMBDA_SCOPE enclosing (or equal to) this scope, or 0 outside of any
+    // procedure. Frame-relative IdentifierSlots are resolved against this.
+    int frameBaseLevel = 0;
+    // The levels of the innermost FUNCTION_SCOPE and LAMBDA_SCOPE enclosing (or equal to) this scope, or -1 if none.
+    int innermostFunctionScopeLevel = -1;
+    int innermostLambdaScopeLevel = -1;
+
+    // Every identifier bound in the scopedSymbolTable is also assigned a slot in these arrays, in the order that it was
+    // first bound, so that the interpreter is able to access it by index via a pre-resolved IdentifierSlot.
+    private String[] slotIdentifiers = NO_SLOT_IDENTIFIERS;
+    private IdentifierData[] slotIdentifierData = NO_SLOT_IDENTIFIER_DATA;
+    private int slotCount = 0;
+
     Scope(ScopeType scopeType) {
       this.scopeType = scopeType;
     }
 
+    // Returns true iff the identifier wasn't already bound in this scope.
+    boolean bind(String identifier, IdentifierData identifierData) {
+      if (scopedSymbolTable.put(identifier, identifierData) != null) {
+        int slot = findSlot(identifier);
+        if (slot >= 0) {
+          slotIdentifierData[slot] = identifierData;
+        }
+        return false;
+      }
+      appendSlot(identifier, identifierData);
+      return true;
+    }
+
+    // Binds the identifier only if doing so would leave it at the given slot, returning whether it was bound.
+    boolean bindAtSlot(int slot, String identifier, IdentifierData identifierData) {
+      if (slot < slotCount) {
+        if (!identifier.equals(slotIdentifiers[slot])) {
+          return false;
+        }
+        slotIdentifierData[slot] = identifierData;
+        scopedSymbolTable.put(identifier, identifierData);
+        return true;
+      }
+      if (slot > slotCount || scopedSymbolTable.containsKey(identifier)) {
+        return false;
+      }
+      scopedSymbolTable.put(identifier, identifierData);
+      appendSlot(identifier, identifierData);
+      return true;
+    }
+
+    // Returns true iff the identifier was actually bound in this scope.
+    boolean unbind(String identifier) {
+      if (scopedSymbolTable.remove(identifier) == null) {
+        return false;
+      }
+      int slot = findSlot(identifier);
+      if (slot >= 0) {
+        // Leave a hole rather than shifting later slots, so that all previously resolved slots remain valid.
+        slotIdentifiers[slot] = null;
+        slotIdentifierData[slot] = null;
+      }
+      return true;
+    }
+
+    int findSlot(String identifier) {
+      for (int i = 0; i < slotCount; i++) {
+        if (identifier.equals(slotIdentifiers[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    // Returns null if the given identifier isn't bound at the given slot.
+    IdentifierData getSlotIdentifierData(int slot, String identifier) {
+      return slot < slotCount && identifier.equals(slotIdentifiers[slot]) ? slotIdentifierData[slot] : null;
+    }
+
+    private void appendSlot(String identifier, IdentifierData identifierData) {
+      if (slotCount == slotIdentifiers.length) {
+        int newLength = Math.max(4, slotCount * 2);
+        slotIdentifiers = Arrays.copyOf(slotIdentifiers, newLength);
+        slotIdentifierData = Arrays.copyOf(slotIdentifierData, newLength);
+      }
+      slotIdentifiers[slotCount] = identifier;
+      slotIdentifierData[slotCount] = identifierData;
+      slotCount++;
+    }
+
     /*
      * The below code handling code branches allows us to do branch inspection to determine at compile-time whether we
      * can guarantee that an identifier will have been initialized after exiting a branch group. An example would be
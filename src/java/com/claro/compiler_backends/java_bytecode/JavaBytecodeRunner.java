@@ -0,0 +1,267 @@
+package com.claro.compiler_backends.java_bytecode;
+
+import com.claro.compiler_backends.java_source.JavaSourceCompilerBackend;
+import com.claro.compiler_backends.java_source.JavaSourceCompilerBackendCLIOptions;
+import com.claro.intermediate_representation.Node;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Compiles a Claro program entirely in memory and immediately runs it, all within a single long-lived compiler JVM, so
+ * that local iteration on a program doesn't have to go through Bazel's separate codegen, javac, and jar actions, nor
+ * pay for a fresh JVM to start up and warm up for each of them. After each run, this waits for any of the program's
+ * srcs to change, and then compiles and runs the program again from scratch.
+ * <p>
+ * Each run loads the program's class files into a fresh classloader that's isolated from the compiler's own classes,
+ * so every run of the program starts from its own clean static state, exactly as it would in a fresh process. The Claro
+ * runtime and the program's compiled dep modules are loaded from the jars given via `--java_bytecode_classpath`, e.g.
+ * the program's own deploy jar. Note that a program calling `System.exit()` will exit the runner as well.
+ * <p>
+ * Usage (from the execution root, as the params file's paths are relative to it):
+ * bazel build //path/to:program_deploy.jar
+ * cd $(bazel info execution_root) && $(bazel info bazel-bin)/src/java/com/claro/claro_compiler_binary --run \
+ * @/abs/path/to/program_bin.params --java_bytecode_classpath $(bazel info bazel-bin)/path/to/program_deploy.jar \
+ * [--run_arg ...]
+ */
+public class JavaBytecodeRunner extends JavaSourceCompilerBackend {
+  private static final long WATCH_POLL_INTERVAL_MS = 200;
+  // Matches the Java toolchain (`--java_runtime_version=remotejdk_11` in .bazelrc) that the java_source backend's
+  // separate Javac action targets, so that the program behaves the same as it would when built by Bazel.
+  private static final String JAVA_RELEASE = "11";
+
+  private final ImmutableList<File> classpath;
+  private final ImmutableList<URL> runtimeClasspath;
+  private final String javaPackage;
+  private final String classname;
+  private final String mainClass;
+  private final String[] programArgs;
+  private Optional<TreeMap<String, byte[]>> optionalClassFilesByName = Optional.empty();
+
+  private JavaBytecodeRunner(String... args) {
+    super(args);
+    JavaSourceCompilerBackendCLIOptions options = parseCLIOptions(args);
+    this.classpath =
+        options.java_bytecode_classpath.stream()
+            .filter(p -> !p.isEmpty())
+            .map(File::new)
+            .collect(ImmutableList.toImmutableList());
+    this.runtimeClasspath =
+        this.classpath.stream().map(JavaBytecodeRunner::toURL).collect(ImmutableList.toImmutableList());
+    this.javaPackage = options.java_package;
+    this.classname = options.classname;
+    this.mainClass =
+        options.java_package.isEmpty() ? options.classname : options.java_package + "." + options.classname;
+    // Empty args are passed along as-is, exactly as they'd be passed to the program's own launcher.
+    this.programArgs = options.run_arg.toArray(new String[0]);
+  }
+
+  public static void runAndWatch(String... args) throws Exception {
+    // Compilation errors must never exit this process, as the next edit should simply be compiled and run again.
+    JavaSourceCompilerBackend.PERSISTENT_WORKER_MODE = true;
+    ImmutableList<Path> srcs =
+        parseCLIOptions(args).srcs.stream().map(Paths::get).collect(ImmutableList.toImmutableList());
+    while (true) {
+      ImmutableMap<Path, FileTime> lastModifiedTimes = getLastModifiedTimes(srcs);
+      compileAndRun(args);
+      System.err.println("Watching srcs for changes... (Ctrl-C to exit)");
+      while (getLastModifiedTimes(srcs).equals(lastModifiedTimes)) {
+        Thread.sleep(WATCH_POLL_INTERVAL_MS);
+      }
+    }
+  }
+
+  private static void compileAndRun(String... args) throws Exception {
+    JavaSourceCompilerBackend.resetProcessGlobalCompilationState();
+    long start = System.nanoTime();
+    JavaBytecodeRunner runner;
+    try {
+      runner = new JavaBytecodeRunner(args);
+      runner.runCompilation();
+    } catch (CompilationExitException e) {
+      // All errors have already been reported.
+      return;
+    } catch (Exception e) {
+      // Mirror what would've happened to an uncaught exception in a standalone compiler process.
+      e.printStackTrace(System.err);
+      return;
+    } finally {
+      // Don't hold onto this compilation's AST and symbol table while the program runs.
+      JavaSourceCompilerBackend.resetProcessGlobalCompilationState();
+    }
+    if (!runner.optionalClassFilesByName.isPresent()) {
+      System.err.println("Error: Only claro_binary() programs can be run, but --classname was not set.");
+      return;
+    }
+    System.err.printf("Compiled in %,d ms.%n", (System.nanoTime() - start) / 1_000_000);
+    runner.invokeMain(runner.optionalClassFilesByName.get());
+  }
+
+  @Override
+  protected void handleExecutableProgramJavaSource(Node.GeneratedJavaSourceFile javaSource) throws IOException {
+    // The program is only ever run from memory, so there's nothing to emit. javac needs the whole source at once though,
+    // so this is the one place where the file's sections are actually assembled.
+    StringWriter assembledJavaSource = new StringWriter((int) Math.min(javaSource.length(), Integer.MAX_VALUE));
+    javaSource.writeTo(assembledJavaSource);
+    this.optionalClassFilesByName = Optional.of(compileInMemory(assembledJavaSource.getBuffer()));
+  }
+
+  private TreeMap<String, byte[]> compileInMemory(CharSequence javaSource) {
+    JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+    if (javac == null) {
+      System.err.println(
+          "Internal Compiler Error! The run backend must be run on a JDK rather than a JRE, as it requires " +
+          "the system Java compiler.");
+      exit(ERR_EXIT_CODE);
+    }
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    TreeMap<String, byte[]> classFilesByName = new TreeMap<>();
+    try (StandardJavaFileManager standardFileManager =
+             javac.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      standardFileManager.setLocation(StandardLocation.CLASS_PATH, this.classpath);
+      JavaFileManager inMemoryFileManager =
+          new ForwardingJavaFileManager<JavaFileManager>(standardFileManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(
+                Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+              return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                  return new ByteArrayOutputStream() {
+                    @Override
+                    public void close() {
+                      classFilesByName.put(className.replace('.', '/') + kind.extension, toByteArray());
+                    }
+                  };
+                }
+              };
+            }
+          };
+      // The generated source is handed to javac as-is, without ever being copied into a String.
+      JavaFileObject source =
+          new SimpleJavaFileObject(
+              URI.create(String.format(
+                  "mem:///%s%s%s",
+                  this.javaPackage.replace('.', '/'),
+                  this.javaPackage.isEmpty() ? "" : "/",
+                  this.classname + JavaFileObject.Kind.SOURCE.extension
+              )),
+              JavaFileObject.Kind.SOURCE
+          ) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+              return javaSource;
+            }
+          };
+      boolean success =
+          javac.getTask(
+              null,
+              inMemoryFileManager,
+              diagnostics,
+              // Generated code has nothing to process, and its unchecked casts are expected.
+              ImmutableList.of("--release", JAVA_RELEASE, "-g", "-nowarn", "-proc:none", "-implicit:none"),
+              null,
+              ImmutableList.of(source)
+          ).call();
+      if (!success) {
+        System.err.println("Internal Compiler Error! Failed to compile the generated Java source:");
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+          if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+            System.err.println(diagnostic);
+          }
+        }
+        exit(ERR_EXIT_CODE);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Internal Compiler Error! Failed to set up in-memory Java compilation.", e);
+    }
+    return classFilesByName;
+  }
+
+  private void invokeMain(TreeMap<String, byte[]> classFilesByName) throws Exception {
+    Thread currentThread = Thread.currentThread();
+    ClassLoader originalContextClassLoader = currentThread.getContextClassLoader();
+    // The runtime classpath is deliberately not parented by the compiler's own classloader, as the compiler carries its
+    // own copy of much of the Claro runtime whose static state must not leak between runs.
+    try (URLClassLoader runtimeClassLoader =
+             new URLClassLoader(this.runtimeClasspath.toArray(new URL[0]), ClassLoader.getPlatformClassLoader())) {
+      ClassLoader programClassLoader = new InMemoryClassLoader(classFilesByName, runtimeClassLoader);
+      currentThread.setContextClassLoader(programClassLoader);
+      programClassLoader.loadClass(this.mainClass)
+          .getMethod("main", String[].class)
+          .invoke(null, (Object) this.programArgs);
+    } catch (InvocationTargetException e) {
+      // Mirror what would've happened to an uncaught exception in a standalone program.
+      e.getCause().printStackTrace(System.err);
+    } finally {
+      currentThread.setContextClassLoader(originalContextClassLoader);
+    }
+  }
+
+  private static ImmutableMap<Path, FileTime> getLastModifiedTimes(ImmutableList<Path> srcs) {
+    ImmutableMap.Builder<Path, FileTime> res = ImmutableMap.builder();
+    for (Path src : srcs) {
+      try {
+        res.put(src, Files.getLastModifiedTime(src));
+      } catch (IOException e) {
+        // The src may be mid-save by an editor, so just treat it as changed once it reappears.
+        res.put(src, FileTime.fromMillis(0));
+      }
+    }
+    return res.build();
+  }
+
+  private static URL toURL(File file) {
+    try {
+      return file.toURI().toURL();
+    } catch (MalformedURLException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // Loads the freshly compiled program's own classes before ever delegating to its parent, so that they always shadow
+  // any stale copies of the same classes that may be present in the runtime classpath (e.g. in the program's own
+  // deploy jar).
+  private static final class InMemoryClassLoader extends ClassLoader {
+    private final TreeMap<String, byte[]> classFilesByName;
+
+    InMemoryClassLoader(TreeMap<String, byte[]> classFilesByName, ClassLoader parent) {
+      super(parent);
+      this.classFilesByName = classFilesByName;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> res = findLoadedClass(name);
+        if (res == null) {
+          byte[] classFile = this.classFilesByName.get(name.replace('.', '/') + ".class");
+          res = classFile == null ? super.loadClass(name, false) : defineClass(name, classFile, 0, classFile.length);
+        }
+        if (resolve) {
+          resolveClass(res);
+        }
+        return res;
+      }
+    }
+  }
+}
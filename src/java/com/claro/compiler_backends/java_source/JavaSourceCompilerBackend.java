@@ -8,13 +8,18 @@ import com.claro.compiler_backends.ParserUtil;
 import com.claro.compiler_backends.interpreted.ScopedHeap;
 import com.claro.compiler_backends.java_source.monomorphization.MonomorphizationCoordinator;
 import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
+import com.claro.compiler_backends.profiling.CompilerProfiler;
 import com.claro.intermediate_representation.ModuleNode;
+import com.claro.intermediate_representation.Node;
 import com.claro.intermediate_representation.ProgramNode;
 import com.claro.intermediate_representation.Target;
 import com.claro.intermediate_representation.expressions.Expr;
+import com.claro.intermediate_representation.statements.GenericFunctionDefinitionStmt;
 import com.claro.intermediate_representation.statements.ProcedureDefinitionStmt;
+import com.claro.intermediate_representation.statements.ReturnStmt;
 import com.claro.intermediate_representation.statements.Stmt;
 import com.claro.intermediate_representation.statements.StmtListNode;
+import com.claro.intermediate_representation.statements.UsingBlockStmt;
 import com.claro.intermediate_representation.statements.contracts.ContractDefinitionStmt;
 import com.claro.intermediate_representation.statements.contracts.ContractImplementationStmt;
 import com.claro.intermediate_representation.statements.contracts.ContractProcedureImplementationStmt;
@@ -28,19 +33,27 @@ import com.claro.module_system.module_serialization.proto.SerializedClaroModule;
 import com.claro.module_system.module_serialization.proto.claro_types.TypeProtos;
 import com.claro.stdlib.StdLibUtil;
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Throwables;
 import com.google.common.collect.*;
 import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CharSource;
 import com.google.devtools.common.options.OptionsParser;
+import com.google.devtools.common.options.OptionsParsingException;
 import com.google.protobuf.ByteString;
 
 import java.io.*;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -53,6 +66,10 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
   // this is a static field that will be directly configured by {@link DepModuleMonomorphization.java} when the compiler
   // is re-invoked as a dep module monomorphization subprocess.
   public static boolean DEP_MODULE_MONOMORPHIZATION_ENABLED = false;
+  // Similarly, this is directly configured by {@link JavaSourceCompilerPersistentWorker.java} when the compiler is
+  // running as a Bazel persistent worker. In that case the process must outlive each compilation, so rather than
+  // exiting the process, compilation failures are surfaced to the worker as a {@link CompilationExitException}.
+  public static boolean PERSISTENT_WORKER_MODE = false;
   public static ScopedHeap scopedHeap;
   public static ProgramNode mainSrcFileProgramNode;
   public static JavaSourceCompilerBackend javaSourceCompilerBackend;
@@ -72,6 +89,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
   private final ImmutableList<SrcFile> SRCS;
   private final Optional<String> OPTIONAL_UNIQUE_MODULE_NAME;
   private final Optional<String> OPTIONAL_OUTPUT_FILE_PATH;
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
   public int ERR_EXIT_CODE = 1; // To be overridden in the case that a compilation err is expected.
 
@@ -82,11 +100,11 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
 
     if (options.java_package.isEmpty() || options.srcs.isEmpty()) {
       System.err.println("Error: --java_package and [--src ...]+ are required args.");
-      System.exit(ERR_EXIT_CODE);
+      exit(ERR_EXIT_CODE);
     }
     if (options.classname.isEmpty() == options.unique_module_name.isEmpty()) {
       System.err.println("Error: Exactly one of --unique_module_name and --classname should be set.");
-      System.exit(ERR_EXIT_CODE);
+      exit(ERR_EXIT_CODE);
     }
     if (!options.classname.isEmpty() // this is a claro_binary() with a main method.
         && options.optional_stdlib_modules_used_in_transitive_closure.contains("http")
@@ -101,7 +119,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                          "\t\t\t...\n" +
                          "\t\t\toptional_stdlib_deps = [\"http\"],\n" +
                          "\t\t)");
-      System.exit(ERR_EXIT_CODE);
+      exit(ERR_EXIT_CODE);
     }
 
     this.SILENT = options.silent;
@@ -155,6 +173,12 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
     this.EXPORTS = options.exports.stream().collect(ImmutableSet.toImmutableSet());
     this.OPTIONAL_OUTPUT_FILE_PATH =
         Optional.ofNullable(options.output_file_path.isEmpty() ? null : options.output_file_path);
+    InternalStaticStateUtil.GenericProcedureDefinitionStmt_shareErasedMonomorphizations =
+        options.share_erased_monomorphizations;
+    InternalStaticStateUtil.StmtListNode_outlineHugeMethods = options.outline_huge_methods;
+    if (!options.profile_output.isEmpty()) {
+      CompilerProfiler.enable(FileSystems.getDefault().getPath(options.profile_output));
+    }
 
     // Make sure that the MonomorphizationCoordinator knows paths to all .claro_module files that may be used for
     // monomorphization of generic procedures from direct and transitive dep modules.
@@ -166,6 +190,30 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                   split -> split[0],
                   split -> split[1]
               ));
+      switch (options.dep_module_monomorphization_ipc_transport) {
+        case "pipe":
+          MonomorphizationCoordinator.IPC_TRANSPORT = MonomorphizationCoordinator.IpcTransport.PIPE;
+          break;
+        case "http":
+          MonomorphizationCoordinator.IPC_TRANSPORT = MonomorphizationCoordinator.IpcTransport.HTTP;
+          break;
+        case "in_process":
+          // The isolated compilers share this process's stdout, which is reserved for the worker protocol when running
+          // as a persistent worker, so fall back to the default in that case.
+          MonomorphizationCoordinator.IPC_TRANSPORT =
+              PERSISTENT_WORKER_MODE
+              ? MonomorphizationCoordinator.IpcTransport.HTTP
+              : MonomorphizationCoordinator.IpcTransport.IN_PROCESS;
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Unsupported --dep_module_monomorphization_ipc_transport: " +
+              options.dep_module_monomorphization_ipc_transport);
+      }
+      if (!options.monomorphization_cache_dir.isEmpty()) {
+        MonomorphizationCoordinator.enablePersistentCache(
+            Paths.get(options.monomorphization_cache_dir), options.monomorphization_cache_max_mb * 1024L * 1024L);
+      }
     }
 
     if (options.expect_errors) {
@@ -178,21 +226,156 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
         System.setErr(err);
       } catch (Exception e) {
         System.err.println("Failed to redirect err output to requested output file!");
-        System.exit(1);
+        exit(1);
       }
     }
   }
 
-  private static JavaSourceCompilerBackendCLIOptions parseCLIOptions(String... args) {
+  protected static JavaSourceCompilerBackendCLIOptions parseCLIOptions(String... args) {
     OptionsParser parser = OptionsParser.newOptionsParser(JavaSourceCompilerBackendCLIOptions.class);
-    parser.parseAndExitUponError(args);
+    try {
+      parser.parse(expandParamsFiles(args));
+    } catch (OptionsParsingException | IOException e) {
+      System.err.println("Error parsing command line: " + e.getMessage());
+      exit(2);
+    }
     return parser.getOptions(JavaSourceCompilerBackendCLIOptions.class);
   }
 
+  // Claro's Bazel rules pass args via a "multiline" params file (one arg per line) referenced as `@path`, both so that
+  // the compiler can run as a persistent worker and so that very large dep graphs don't hit command line length limits.
+  // Every line is exactly one arg, so an empty line is an empty arg (e.g. the value of `--some_flag ""`).
+  private static ImmutableList<String> expandParamsFiles(String... args) throws IOException {
+    ImmutableList.Builder<String> res = ImmutableList.builder();
+    for (String arg : args) {
+      if (arg.startsWith("@")) {
+        res.addAll(Files.readAllLines(FileSystems.getDefault().getPath(arg.substring(1)), StandardCharsets.UTF_8));
+      } else {
+        res.add(arg);
+      }
+    }
+    return res.build();
+  }
+
+  protected static void exit(int exitCode) {
+    // Dep module monomorphization subprocesses may have already been started during type checking.
+    if (!InternalStaticStateUtil.JavaSourceCompilerBackend_depModuleGenericMonomoprhizationsNeeded.isEmpty()) {
+      MonomorphizationCoordinator.shutdownDepModuleMonomorphization();
+    }
+    // Even failed compilations are worth profiling.
+    CompilerProfiler.writeChromeTraceIfEnabled();
+    if (PERSISTENT_WORKER_MODE) {
+      throw new CompilationExitException(exitCode);
+    }
+    System.exit(exitCode);
+  }
+
+  // Resets all process-global compilation state back to its initial values so that the next compilation in this same
+  // process behaves exactly as it would have in a fresh process. This must be called before constructing a new
+  // JavaSourceCompilerBackend in any process that has already run a compilation (i.e. a persistent worker).
+  public static void resetProcessGlobalCompilationState() {
+    MonomorphizationCoordinator.reset();
+    InternalStaticStateUtil.reset();
+    CompilerProfiler.reset();
+
+    DEP_MODULE_MONOMORPHIZATION_ENABLED = false;
+    scopedHeap = null;
+    mainSrcFileProgramNode = null;
+    javaSourceCompilerBackend = null;
+    depsClosureCodegendMonomorphizationsByModuleAndProc = ImmutableMap.of();
+    syntheticProcedureDefStmt = null;
+
+    ModuleApiParser.errorMessages.clear();
+    Expr.typeErrorsFound.clear();
+    Expr.validatingContractProcCallWithinGenericProc = false;
+    ProgramNode.miscErrorsFound.clear();
+    ProgramNode.nonMainFiles = ImmutableList.of();
+    ProgramNode.importedContractDefinitionStmts = null;
+    ProgramNode.moduleApiDef = Optional.empty();
+    ProgramNode.transitiveExportedFlags = null;
+    ProgramNode.resourcesByName = null;
+
+    ScopedHeap.currProgramDepModules = HashBasedTable.create();
+    ScopedHeap.currProgramDepModuleExportedTypes = ImmutableMap.of();
+    ScopedHeap.transitiveExportedDepModules = ImmutableSet.of();
+    ScopedHeap.stdlibDepModules = ImmutableSet.of();
+
+    Types.UserDefinedType.$resolvedWrappedTypes.clear();
+    Types.UserDefinedType.$typeParamNames.clear();
+    Types.$GenericTypeParam.concreteTypeMappingsForBetterErrorMessages = Optional.empty();
+    Types.$GenericTypeParam.concreteTypeMappingsForParameterizedTypeCodegen = Optional.empty();
+
+    Stmt.consumeGeneratedJavaSourceStmtsBeforeCurrentStmt();
+    ReturnStmt.withinProcedureScope = Optional.empty();
+    ReturnStmt.supportReturnStmt = false;
+    UsingBlockStmt.currentlyUsedBindings = Sets.newHashSet();
+    UsingBlockStmt.currentlyUsedModules = Sets.newHashSet();
+    GenericFunctionDefinitionStmt.genericFunctionDefStmtsByName.clear();
+    GenericFunctionDefinitionStmt.resetSharedErasedMonomorphizations();
+    ContractDefinitionStmt.contractImplementationsByContractName.clear();
+    ContractImplementationStmt.resetDependencyGenericProcedureDefCodegen();
+  }
+
+  // Thrown in place of exiting the process when running as a persistent worker.
+  protected static class CompilationExitException extends RuntimeException {
+    final int exitCode;
+
+    CompilationExitException(int exitCode) {
+      super("Compilation exited with code: " + exitCode, null, false, false);
+      this.exitCode = exitCode;
+    }
+  }
+
   // Note: This method is assuming that whatever script allowed you to invoke the compiler directly has already done
   // validation that you have exactly 0 or 1 .claro_module_api files and, if 1, then --classname is set to "".
   @Override
   public void run() throws Exception {
+    CompilerProfiler.Span compilationSpan = CompilerProfiler.start("compilation", "Compile");
+    runCompilation();
+    compilationSpan.end();
+    CompilerProfiler.writeChromeTraceIfEnabled();
+  }
+
+  // Emits the final output of a successful compilation, either to the requested output file or else to stdout where
+  // it will be piped by Claro's Bazel rules into the appropriate output file.
+  private void emitCompilationOutput(CompilationOutput output) throws IOException {
+    if (this.OPTIONAL_OUTPUT_FILE_PATH.isPresent()) {
+      try (OutputStream out =
+               new BufferedOutputStream(Files.newOutputStream(createOutputFile().toPath()), OUTPUT_BUFFER_SIZE)) {
+        output.writeTo(out);
+      }
+    } else {
+      // Only flush, never close, stdout.
+      OutputStream out = new BufferedOutputStream(System.out, OUTPUT_BUFFER_SIZE);
+      output.writeTo(out);
+      out.flush();
+    }
+  }
+
+  // Backends that extend this one may override this in order to do something other than emit the compilation output for
+  // an executable Claro program at all.
+  protected void handleExecutableProgramJavaSource(Node.GeneratedJavaSourceFile javaSource) throws IOException {
+    emitCompilationOutput(CompilationOutput.forJavaSource(javaSource));
+  }
+
+  // The final output of a compilation, which is written straight through to its destination(s) rather than first being
+  // materialized as yet another in-memory copy of the entire generated program.
+  @FunctionalInterface
+  interface CompilationOutput {
+    void writeTo(OutputStream out) throws IOException;
+
+    static CompilationOutput forJavaSource(Node.GeneratedJavaSourceFile javaSource) {
+      return out -> {
+        // Each section of the file is encoded straight into the output as it's reached, so the complete program is
+        // never assembled in memory.
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        javaSource.writeTo(writer);
+        writer.flush();
+      };
+    }
+  }
+
+  protected void runCompilation() throws Exception {
     scopedHeap = new ScopedHeap();
     scopedHeap.enterNewScope();
     if (this.SRCS.size() == 1) {
@@ -241,24 +424,79 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
     return getModuleApiParserForFileContents("$THIS_MODULE$", uniqueModuleName, readFile(srcFile));
   }
 
-  private ModuleApiParser getModuleApiParserForFileContents(String moduleName, String uniqueModuleName, String moduleApiFileContents) {
-    ModuleApiParser moduleApiParser = ModuleApiParserUtil.createParser(moduleApiFileContents, moduleName);
+  private ModuleApiParser getModuleApiParserForFileContents(String moduleName, String uniqueModuleName, CharBuffer moduleApiFileContents) {
+    ModuleApiParser moduleApiParser =
+        ModuleApiParserUtil.createParser(ParserUtil.asReader(moduleApiFileContents), moduleName);
     moduleApiParser.moduleName = moduleName;
     moduleApiParser.uniqueModuleName = uniqueModuleName;
     return moduleApiParser;
   }
 
-  private static String readFile(SrcFile srcFile) {
-    Scanner scan = new Scanner(srcFile.getFileInputStream());
+  private static CharBuffer readFile(SrcFile srcFile) {
+    try {
+      // Read the whole file in one go, and when it's on disk, into a byte[] that's already exactly the right size.
+      return ParserUtil.decodeSrcFile(
+          srcFile.getOptionalReadOnceInputStream().isPresent()
+          ? ByteStreams.toByteArray(srcFile.getOptionalReadOnceInputStream().get())
+          : Files.readAllBytes(FileSystems.getDefault().getPath(srcFile.getPath())));
+    } catch (IOException e) {
+      throw new RuntimeException("File not found:", e);
+    }
+  }
 
-    StringBuilder inputProgram = new StringBuilder();
-    while (scan.hasNextLine()) {
-      inputProgram.append(scan.nextLine());
-      // Scanner is being stupid and dropping all the newlines... so this may give an extra compared to what's in the
-      // source file, but who cares, the grammar will handle it.
-      inputProgram.append("\n");
+  // The non-main src files are entirely independent of one another until type checking, so they're lexed and parsed
+  // concurrently. The resulting ProgramNodes are always returned in the order that the src files were given so that
+  // compilation remains deterministic regardless of the order in which the files actually finish parsing.
+  private static ImmutableList<ProgramNode> parseNonMainSrcFiles(ImmutableList<ClaroParser> nonMainSrcFileParsers)
+      throws Exception {
+    if (nonMainSrcFileParsers.size() <= 1) {
+      ImmutableList.Builder<ProgramNode> res = ImmutableList.builder();
+      for (ClaroParser nonMainSrcFileParser : nonMainSrcFileParsers) {
+        res.add(parseNonMainSrcFile(nonMainSrcFileParser, /*srcFileIndex=*/1));
+      }
+      return res.build();
+    }
+    ExecutorService parsingExecutor =
+        Executors.newFixedThreadPool(
+            Math.min(nonMainSrcFileParsers.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      ImmutableList.Builder<Future<ProgramNode>> parsedNonMainSrcFilePrograms = ImmutableList.builder();
+      for (int i = 0; i < nonMainSrcFileParsers.size(); i++) {
+        ClaroParser nonMainSrcFileParser = nonMainSrcFileParsers.get(i);
+        // Index 0 is reserved for the main src file which is parsed on this thread.
+        int srcFileIndex = i + 1;
+        parsedNonMainSrcFilePrograms.add(
+            parsingExecutor.submit(() -> parseNonMainSrcFile(nonMainSrcFileParser, srcFileIndex)));
+      }
+      ImmutableList.Builder<ProgramNode> res = ImmutableList.builder();
+      for (Future<ProgramNode> parsedNonMainSrcFileProgram : parsedNonMainSrcFilePrograms.build()) {
+        try {
+          res.add(parsedNonMainSrcFileProgram.get());
+        } catch (ExecutionException e) {
+          // Surface the failure exactly as it would've been thrown had the file been parsed on this thread.
+          Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+          Throwables.throwIfUnchecked(e.getCause());
+          throw e;
+        }
+      }
+      return res.build();
+    } finally {
+      parsingExecutor.shutdownNow();
     }
-    return inputProgram.toString();
+  }
+
+  private static ProgramNode parseNonMainSrcFile(ClaroParser nonMainSrcFileParser, int srcFileIndex) throws Exception {
+    CompilerProfiler.Span span = CompilerProfiler.start("parse", "Parse: " + nonMainSrcFileParser.parsedFileName);
+    ProgramNode res = InternalStaticStateUtil.withSrcFileParsingState(
+        srcFileIndex, () -> (ProgramNode) nonMainSrcFileParser.parse().value);
+    span.end();
+    return res;
+  }
+
+  // Report in the order that the src files were given, regardless of the order in which they were actually parsed.
+  private static void printParserErrors(ImmutableList<ClaroParser> nonMainSrcFileParsers, ClaroParser mainSrcFileParser) {
+    nonMainSrcFileParsers.forEach(p -> p.errorMessages.forEach(Runnable::run));
+    mainSrcFileParser.errorMessages.forEach(Runnable::run);
   }
 
   private void checkTypesAndGenJavaSourceForSrcFiles(
@@ -297,12 +535,15 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       {
         ImmutableList.Builder<SerializedClaroModule> transitiveModules = ImmutableList.builder();
         for (SrcFile transitiveDepModuleSrcFile : this.TRANSITIVE_MODULE_DEPS) {
+          CompilerProfiler.Span span =
+              CompilerProfiler.start("dep_module", "Transitive Dep Module: " + transitiveDepModuleSrcFile.getPath());
           SerializedClaroModule parsedModule =
               SerializedClaroModule.parseDelimitedFrom(transitiveDepModuleSrcFile.getFileInputStream());
           transitiveModules.add(parsedModule);
           importedContractDefinitionStmts.addAll(
               registerDepModuleExportedTypes(scopedHeap, Optional.empty(), parsedModule));
           registerDepModuleExportedTypeInitializersAndUnwrappers(scopedHeap, Optional.empty(), parsedModule);
+          span.end();
         }
         // Ensure the contract impls are all registered *after* modules are defined.
         transitiveModules.build().forEach(p -> registerDepModuleContractImpls(scopedHeap, p));
@@ -340,12 +581,9 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       }
 
       // Parse the non-main src files first.
-      ImmutableList.Builder<ProgramNode> parsedNonMainSrcFilePrograms = ImmutableList.builder();
-      for (ClaroParser nonMainSrcFileParser : nonMainSrcFileParsers) {
-        parsedNonMainSrcFilePrograms.add((ProgramNode) nonMainSrcFileParser.parse().value);
-      }
+      CompilerProfiler.Span parsingSpan = CompilerProfiler.start("phase", "Parsing");
       // Push these parsed non-main src programs to where they'll be found for type checking and codegen.
-      ProgramNode.nonMainFiles = parsedNonMainSrcFilePrograms.build();
+      ProgramNode.nonMainFiles = parseNonMainSrcFiles(nonMainSrcFileParsers);
       ProgramNode.importedContractDefinitionStmts = importedContractDefinitionStmts.build();
       // Optionally push the module api file to where it'll be found during type checking to validate that the
       // nonMainSrcFilePrograms actually do export the necessary bindings.
@@ -355,6 +593,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       }
       // Parse the main src file.
       mainSrcFileProgramNode = ((ProgramNode) mainSrcFileParser.parse().value);
+      parsingSpan.end();
 
       int totalParserErrorsFound =
           mainSrcFileParser.errorsFound +
@@ -362,7 +601,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       // Don't even bother attempting type validation if there was a parsing error.
       if (totalParserErrorsFound == 0) {
         // Here, type checking and codegen of ALL src files is happening at once.
-        StringBuilder generateTargetOutputRes = null;
+        Node.GeneratedJavaSourceFile generateTargetOutputRes = null;
         if (DEP_MODULE_MONOMORPHIZATION_ENABLED) {
           // In this case, since this module has already been validated, a full recompilation is not necessary. Instead,
           // just do the "discovery" phases that will bring the necessary types/identifiers into memory so that generic
@@ -378,6 +617,26 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
         } else {
           generateTargetOutputRes =
               mainSrcFileProgramNode.generateTargetOutput(Target.JAVA_SOURCE, scopedHeap, StdLibUtil::registerIdentifiers);
+          // Record how much dep module symbol registration was avoided by only registering symbols on first reference.
+          CompilerProfiler.start("dep_module", "Lazy Dep Module Symbol Registration")
+              .withArg("registered", scopedHeap.getLazyGlobalIdentifiersRegisteredCount())
+              .withArg("skipped", scopedHeap.getLazyGlobalIdentifiersSkippedCount())
+              .end();
+          if (!this.SILENT) {
+            System.err.printf(
+                "Dep module symbols: %d registered on first reference, %d never referenced and skipped.%n",
+                scopedHeap.getLazyGlobalIdentifiersRegisteredCount(),
+                scopedHeap.getLazyGlobalIdentifiersSkippedCount()
+            );
+          }
+          if (!this.SILENT && InternalStaticStateUtil.GenericProcedureDefinitionStmt_shareErasedMonomorphizations) {
+            System.err.printf(
+                "Shared erased monomorphizations: %d of %d local generic procedure monomorphizations delegate to a " +
+                "shared implementation.%n",
+                GenericFunctionDefinitionStmt.sharedErasedMonomorphizationsCount,
+                GenericFunctionDefinitionStmt.erasableMonomorphizationsCount
+            );
+          }
         }
         if (Expr.typeErrorsFound.isEmpty() && ProgramNode.miscErrorsFound.isEmpty()) {
           if (optionalModuleApiParser.isPresent()) {
@@ -400,28 +659,23 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
               );
             }
           } else {
-            if (this.OPTIONAL_OUTPUT_FILE_PATH.isPresent()) {
-              // Here we've been asked to write the output to a particular file.
-              try (FileWriter outputFileWriter = new FileWriter(createOutputFile())) {
-                outputFileWriter.write(generateTargetOutputRes.toString());
-              }
-            } else {
-              // Here, we were simply asked to codegen an executable Claro program. Output the codegen'd Java source to
-              // stdout directly where it will be piped by Claro's Bazel rules into the appropriate .java file.
-              System.out.println(generateTargetOutputRes);
-            }
+            // Here, we were simply asked to codegen an executable Claro program, so just emit the codegen'd Java source.
+            handleExecutableProgramJavaSource(generateTargetOutputRes);
           }
           return;
         }
       }
       // Fall into this error reporting if we encountered any parsing or type validation errors.
-      ClaroParser.errorMessages.forEach(Runnable::run);
+      printParserErrors(nonMainSrcFileParsers, mainSrcFileParser);
       Expr.typeErrorsFound.forEach(e -> e.accept(mainSrcFileParser.generatedClassName));
       ProgramNode.miscErrorsFound.forEach(Runnable::run);
       warnNumErrorsFound(totalParserErrorsFound);
-      System.exit(ERR_EXIT_CODE);
+      exit(ERR_EXIT_CODE);
+    } catch (CompilationExitException e) {
+      // We've already reported everything there is to report, don't let this get handled as an unexpected error.
+      throw e;
     } catch (ClaroParserException e) {
-      ClaroParser.errorMessages.forEach(Runnable::run);
+      printParserErrors(nonMainSrcFileParsers, mainSrcFileParser);
       Expr.typeErrorsFound.forEach(err -> err.accept(mainSrcFileParser.generatedClassName));
       ProgramNode.miscErrorsFound.forEach(Runnable::run);
       System.err.println(e.getMessage());
@@ -429,12 +683,12 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                          + nonMainSrcFileParsers.stream().map(p -> p.errorsFound).reduce(Integer::sum).orElse(0));
       if (this.SILENT) {
         // We found errors, there's no point to emit the generated code.
-        System.exit(ERR_EXIT_CODE);
+        exit(ERR_EXIT_CODE);
       } else {
         throw e;
       }
     } catch (Exception e) {
-      ClaroParser.errorMessages.forEach(Runnable::run);
+      printParserErrors(nonMainSrcFileParsers, mainSrcFileParser);
       Expr.typeErrorsFound.forEach(err -> err.accept(mainSrcFileParser.generatedClassName));
       ProgramNode.miscErrorsFound.forEach(Runnable::run);
       System.err.println(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
@@ -442,7 +696,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                          + nonMainSrcFileParsers.stream().map(p -> p.errorsFound).reduce(Integer::sum).orElse(0));
       if (this.SILENT) {
         // We found errors, there's no point to emit the generated code.
-        System.exit(ERR_EXIT_CODE);
+        exit(ERR_EXIT_CODE);
       } else {
         throw e;
       }
@@ -460,8 +714,10 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
     {
       ImmutableList.Builder<SerializedClaroModule> parsedModulesBuilder = ImmutableList.builder();
       for (Map.Entry<String, SrcFile> moduleDep : moduleDeps.entrySet()) {
+        CompilerProfiler.Span span = CompilerProfiler.start("dep_module", "Dep Module: " + moduleDep.getKey());
         SerializedClaroModule parsedModule =
             SerializedClaroModule.parseDelimitedFrom(moduleDep.getValue().getFileInputStream());
+        span.end();
         parsedModulesBuilder.add(parsedModule);
         parsedClaroModuleProtosBuilder.put(moduleDep.getKey(), parsedModule);
 
@@ -530,18 +786,24 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       }
     }
 
-    // Register the exported procedures.
+    // Register the exported procedures. These are registered lazily, so that only the procedures that this compilation
+    // unit actually references (via `Dep::name`) ever pay for deserializing their signatures.
     for (Map.Entry<String, SerializedClaroModule> moduleDep : parsedClaroModuleProtos.entrySet()) {
       // Setup the regular exported procedures.
       for (SerializedClaroModule.Procedure depExportedProc :
           moduleDep.getValue().getExportedProcedureDefinitionsList()) {
-        Types.ProcedureType procedureType = getProcedureTypeFromProto(depExportedProc);
-        scopedHeap.putIdentifierValue(
+        scopedHeap.putLazyGlobalIdentifierValue(
             String.format("$DEP_MODULE$%s$%s", moduleDep.getKey(), depExportedProc.getName()),
-            procedureType,
-            // If this is a generic procedure, then the symbol table will hold a function that's used to register a
-            // concrete call, and get back the monomorphization's canonical name, otherwise, null.
-            maybeSetupGenericDepModuleProcedure(moduleDep.getKey(), depExportedProc, procedureType)
+            () -> {
+              Types.ProcedureType procedureType = getProcedureTypeFromProto(depExportedProc);
+              return new ScopedHeap.IdentifierData(
+                  procedureType,
+                  // If this is a generic procedure, then the symbol table will hold a function that's used to register
+                  // a concrete call, and get back the monomorphization's canonical name, otherwise, null.
+                  maybeSetupGenericDepModuleProcedure(moduleDep.getKey(), depExportedProc, procedureType),
+                  /*declared=*/true
+              );
+            }
         );
       }
       registerDepModuleExportedTypeInitializersAndUnwrappers(scopedHeap, Optional.of(moduleDep.getKey()), moduleDep.getValue());
@@ -550,9 +812,10 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
           syntheticHttpServiceDef ->
               syntheticHttpServiceDef.getEndpointsList().forEach(
                   endpoint ->
-                      scopedHeap.putIdentifierValue(
+                      scopedHeap.putLazyGlobalIdentifierValue(
                           String.format("$DEP_MODULE$%s$%s", moduleDep.getKey(), endpoint.getEndpointName()),
-                          getProcedureTypeFromProto(endpoint.getProcedure())
+                          () -> new ScopedHeap.IdentifierData(
+                              getProcedureTypeFromProto(endpoint.getProcedure()), null, /*declared=*/true)
                       )));
 
     }
@@ -635,8 +898,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                 .orElse(true)) {
               // Make note of this needed dep module monomorphization somewhere so that just before finalizing codegen
               // we can trigger dep module monomorphization.
-              InternalStaticStateUtil.JavaSourceCompilerBackend_depModuleGenericMonomoprhizationsNeeded.put(
-                  depModuleName,
+              IPCMessages.MonomorphizationRequest monomorphizationRequest =
                   getMonomorphizationRequest(
                       depExportedProc,
                       orderedConcreteTypeParams,
@@ -651,8 +913,16 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                               Map.Entry::getKey,
                               Map.Entry::getValue
                           ))
-                  )
-              );
+                  );
+              InternalStaticStateUtil.JavaSourceCompilerBackend_depModuleGenericMonomoprhizationsNeeded.put(
+                  depModuleName, monomorphizationRequest);
+              // Give the dep module's monomorphization subprocess a head start by triggering the monomorphization now,
+              // during type checking, rather than waiting until codegen. (When this compilation is itself a dep module
+              // monomorphization subprocess, its needed monomorphizations are instead reported back to the coordinator.)
+              if (!DEP_MODULE_MONOMORPHIZATION_ENABLED) {
+                MonomorphizationCoordinator.requestDepModuleMonomorphization(
+                    ScopedHeap.getDefiningModuleDisambiguator(Optional.of(depModuleName)), monomorphizationRequest);
+              }
             }
             return monomorphizationName;
           };
@@ -793,16 +1063,19 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       optionalModuleName.ifPresent(
           moduleName ->
               initializerEntry.getValue().getProceduresList().forEach(
-                  p -> {
-                    Types.ProcedureType procedureType = getProcedureTypeFromProto(p);
-                    scopedHeap.putIdentifierValue(
-                        String.format("$DEP_MODULE$%s$%s", moduleName, p.getName()),
-                        procedureType,
-                        // If this is a generic procedure, then the symbol table will hold a function that's used to register a
-                        // concrete call, and get back the monomorphization's canonical name, otherwise, null.
-                        maybeSetupGenericDepModuleProcedure(moduleName, p, procedureType)
-                    );
-                  }));
+                  p -> scopedHeap.putLazyGlobalIdentifierValue(
+                      String.format("$DEP_MODULE$%s$%s", moduleName, p.getName()),
+                      () -> {
+                        Types.ProcedureType procedureType = getProcedureTypeFromProto(p);
+                        return new ScopedHeap.IdentifierData(
+                            procedureType,
+                            // If this is a generic procedure, then the symbol table will hold a function that's used to
+                            // register a concrete call, and get back the monomorphization's canonical name, otherwise, null.
+                            maybeSetupGenericDepModuleProcedure(moduleName, p, procedureType),
+                            /*declared=*/true
+                        );
+                      }
+                  )));
       InternalStaticStateUtil.InitializersBlockStmt_initializersByInitializedTypeNameAndModuleDisambiguator
           .put(
               initializerEntry.getKey(),
@@ -824,16 +1097,19 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       optionalModuleName.ifPresent(
           moduleName ->
               unwrapperEntry.getValue().getProceduresList().forEach(
-                  p -> {
-                    Types.ProcedureType procedureType = getProcedureTypeFromProto(p);
-                    scopedHeap.putIdentifierValue(
-                        String.format("$DEP_MODULE$%s$%s", moduleName, p.getName()),
-                        procedureType,
-                        // If this is a generic procedure, then the symbol table will hold a function that's used to register a
-                        // concrete call, and get back the monomorphization's canonical name, otherwise, null.
-                        maybeSetupGenericDepModuleProcedure(moduleName, p, procedureType)
-                    );
-                  }));
+                  p -> scopedHeap.putLazyGlobalIdentifierValue(
+                      String.format("$DEP_MODULE$%s$%s", moduleName, p.getName()),
+                      () -> {
+                        Types.ProcedureType procedureType = getProcedureTypeFromProto(p);
+                        return new ScopedHeap.IdentifierData(
+                            procedureType,
+                            // If this is a generic procedure, then the symbol table will hold a function that's used to
+                            // register a concrete call, and get back the monomorphization's canonical name, otherwise, null.
+                            maybeSetupGenericDepModuleProcedure(moduleName, p, procedureType),
+                            /*declared=*/true
+                        );
+                      }
+                  )));
       InternalStaticStateUtil.UnwrappersBlockStmt_unwrappersByUnwrappedTypeNameAndModuleDisambiguator
           .put(
               unwrapperEntry.getKey(),
@@ -855,6 +1131,13 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
   // transitive exported deps of those direct deps will be unnamed. This is in keeping with Claro enabling module
   // consumers to actually utilize transitive exported types from dep modules w/o actually placing a direct dep on those
   // modules so long as they never try to explicitly *name* any types from those transitive exported dep modules.
+  //
+  // Type names and constructors are only ever looked up through the ScopedHeap, so they're registered lazily on first
+  // reference just like exported procedures. However, a newtype's wrapped type and type param names must be registered
+  // eagerly, as they're read directly from Types.UserDefinedType's static maps whenever a dep type is encountered
+  // structurally (e.g. in a dep procedure's signature), even if the type is never named. Atoms, contracts and
+  // HttpServices are registered eagerly as well, as codegen consults their global tables (e.g. the atom cache, and
+  // the contract impls needed for dynamic dispatch) without ever looking them up by name.
   private static ImmutableList<ContractDefinitionStmt> registerDepModuleExportedTypes(
       ScopedHeap scopedHeap, Optional<String> optionalModuleName, SerializedClaroModule parsedModule) {
     // Register any alias defs found in the module.
@@ -862,7 +1145,8 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
         parsedModule.getExportedTypeDefinitions().getExportedAliasDefsByNameMap().entrySet()) {
       String disambiguatedIdentifier =
           String.format("%s$%s", exportedAliasDef.getKey(), parsedModule.getModuleDescriptor().getUniqueModuleName());
-      scopedHeap.putIdentifierValueAsTypeDef(disambiguatedIdentifier, Types.parseTypeProto(exportedAliasDef.getValue()), null);
+      scopedHeap.putLazyGlobalTypeDefinition(
+          disambiguatedIdentifier, () -> Types.parseTypeProto(exportedAliasDef.getValue()));
     }
 
     // Register any newtype defs found in the module.
@@ -879,13 +1163,12 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                   .build());
       // Declare the dep type twice just for the sake of the constructor being easily found by the FunctionCallExpr
       // where the naming convention is different.
-      scopedHeap.putIdentifierValueAsTypeDef(disambiguatedIdentifier, newType, null);
+      scopedHeap.putLazyGlobalTypeDefinition(disambiguatedIdentifier, () -> newType);
       optionalModuleName.ifPresent(
           moduleName ->
-              scopedHeap.putIdentifierValueAsTypeDef(
+              scopedHeap.putLazyGlobalTypeDefinition(
                   String.format("$DEP_MODULE$%s$%s", moduleName, exportedNewTypedef.getKey()),
-                  newType,
-                  null
+                  () -> newType
               ));
       // Register any type param names.
       if (!newType.parameterizedTypeArgs().isEmpty()) {
@@ -894,16 +1177,16 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       }
       // Register the wrapped type.
       Type wrappedType = Types.parseTypeProto(exportedNewTypedef.getValue().getWrappedType());
-      scopedHeap.putIdentifierValueAsTypeDef(
-          String.format("%s$wrappedType", disambiguatedIdentifier), wrappedType, null);
+      scopedHeap.putLazyGlobalTypeDefinition(
+          String.format("%s$wrappedType", disambiguatedIdentifier), () -> wrappedType);
       Types.UserDefinedType.$resolvedWrappedTypes.put(disambiguatedIdentifier, wrappedType);
       // Register its constructor. However, there may be no constructor in the case of an opaque type that's not allowed
       // to be constructed by consumers anyways.
       if (optionalModuleName.isPresent() && exportedNewTypedef.getValue().hasConstructor()) {
-        Type cons = getProcedureTypeFromProto(exportedNewTypedef.getValue().getConstructor());
-        scopedHeap.putIdentifierValue(
+        scopedHeap.putLazyGlobalIdentifierValue(
             String.format("$DEP_MODULE$%s$%s$constructor", optionalModuleName.get(), exportedNewTypedef.getKey()),
-            cons
+            () -> new ScopedHeap.IdentifierData(
+                getProcedureTypeFromProto(exportedNewTypedef.getValue().getConstructor()), null, /*declared=*/true)
         );
       }
     }
@@ -1092,7 +1375,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
       System.err.println("An error occurred while trying to open/create the specified output file: " +
                          this.OPTIONAL_OUTPUT_FILE_PATH.get());
       e.printStackTrace();
-      System.exit(ERR_EXIT_CODE);
+      exit(ERR_EXIT_CODE);
     }
     return outputFile;
   }
@@ -1100,7 +1383,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
   private void serializeClaroModule(
       String projectPackage,
       String uniqueModuleName,
-      StringBuilder moduleCodegen,
+      Node.GeneratedJavaSourceFile moduleCodegen,
       ImmutableList<SrcFile> moduleImplFiles,
       ScopedHeap scopedHeap) throws IOException {
     SerializedClaroModule.Builder serializedClaroModuleBuilder =
@@ -1305,8 +1588,7 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                                 .build())
                     .collect(ImmutableList.toImmutableList())
             )
-            .setStaticJavaCodegen(
-                ByteString.copyFrom(moduleCodegen.toString().getBytes(StandardCharsets.UTF_8)))
+            .setStaticJavaCodegen(toUtf8ByteString(moduleCodegen))
             .putAllCodegendMonomorphizationsTransitiveClosureByUniqueModuleName(
                 // Accumulate all dep module monomorphizations from any direct or transitive module in the dep graph
                 // rooted at this current module. They do not need to be codegend again by any module that consumes this
@@ -1326,7 +1608,9 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                                                                  .collect(ImmutableList.toImmutableList())
                                                          )
                                                      )))),
+                        // Sorted since monomorphizations are collected concurrently, in no particular order.
                         MonomorphizationCoordinator.monomorphizationsByModuleAndRequestCache.cellSet().stream()
+                            .sorted(Comparator.comparing(c -> c.getRowKey() + '$' + c.getColumnKey()))
                             .map(c -> ImmutableList.of(
                                 c.getRowKey(),
                                 ImmutableList.of(
@@ -1358,15 +1642,15 @@ public class JavaSourceCompilerBackend implements CompilerBackend {
                   ByteString.copyFrom(ByteStreams.toByteArray(moduleImplFile.getFileInputStream()))));
     }
 
-    if (this.OPTIONAL_OUTPUT_FILE_PATH.isPresent()) {
-      serializedClaroModuleBuilder.build().writeDelimitedTo(Files.newOutputStream(createOutputFile().toPath()));
-    } else {
-      // Finally write the proto message to stdout where Claro's Bazel rules will pipe this output into the appropriate
-      // .claro_module output file.
-      serializedClaroModuleBuilder
-          .build()
-          .writeDelimitedTo(System.out);
-    }
+    // Finally emit the proto message which will end up in the appropriate .claro_module output file.
+    SerializedClaroModule serializedClaroModule = serializedClaroModuleBuilder.build();
+    emitCompilationOutput(serializedClaroModule::writeDelimitedTo);
+  }
+
+  private static ByteString toUtf8ByteString(Node.GeneratedJavaSourceFile javaSource) throws IOException {
+    ByteString.Output res = ByteString.newOutput((int) Math.min(javaSource.length(), Integer.MAX_VALUE));
+    CompilationOutput.forJavaSource(javaSource).writeTo(res);
+    return res.toByteString();
   }
 
   public static void registerExportedContractImplementation(
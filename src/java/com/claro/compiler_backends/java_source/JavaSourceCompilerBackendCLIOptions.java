@@ -131,6 +131,73 @@ public class JavaSourceCompilerBackendCLIOptions extends OptionsBase {
   )
   public List<String> dep_graph_claro_module_by_unique_name;
 
+  @Option(
+      name = "dep_module_monomorphization_ipc_transport",
+      help = "How to communicate with dep module monomorphization subprocesses. Either 'pipe' (length-delimited protos " +
+             "over the subprocesses' stdin/stdout, batching requests per round trip), 'http' (one HTTP request per " +
+             "monomorphization request, carrying a base64 encoded proto), or 'in_process' (no subprocesses at all, " +
+             "each dep module is monomorphized in this process in its own isolated classloader). 'in_process' falls " +
+             "back to 'http' when running as a persistent worker.",
+      defaultValue = "http"
+  )
+  public String dep_module_monomorphization_ipc_transport;
+
+  @Option(
+      name = "monomorphization_cache_dir",
+      help = "If set, dep module monomorphizations are persisted to this dir across compilations, keyed on the content " +
+             "of the dep module and the monomorphization requested, so that any monomorphization that a prior " +
+             "compilation already requested skips the dep module's subprocess entirely. Cumulative hit rates are " +
+             "reported in <monomorphization_cache_dir>/stats.properties.",
+      defaultValue = ""
+  )
+  public String monomorphization_cache_dir;
+
+  @Option(
+      name = "monomorphization_cache_max_mb",
+      help = "Once the --monomorphization_cache_dir grows beyond this size, its least recently used files are evicted.",
+      defaultValue = "512"
+  )
+  public int monomorphization_cache_max_mb;
+
+  @Option(
+      name = "share_erased_monomorphizations",
+      help = "Emit a single shared implementation for all monomorphizations of a generic procedure that would otherwise " +
+             "be identical except for their concrete type params (e.g. a generic procedure that only passes its " +
+             "generic values around, called over many different struct types). Monomorphizations that depend on their " +
+             "concrete type params at runtime, dispatch to contract procedures, or map type params to distinct Java " +
+             "types are still fully monomorphized.",
+      defaultValue = "false"
+  )
+  public boolean share_erased_monomorphizations;
+
+  @Option(
+      name = "outline_huge_methods",
+      help = "When the codegen for the program's top-level statements, or for a procedure's body, would produce a Java " +
+             "method too large for the JIT to compile (or for javac to compile at all), outline runs of its top-level " +
+             "statements into separate helper methods. Opt-in, as only a method's top-level statements are outlined, so " +
+             "e.g. a single huge match, collection literal, or JSON parser still can't be split up.",
+      defaultValue = "false"
+  )
+  public boolean outline_huge_methods;
+
+  @Option(
+      name = "java_bytecode_classpath",
+      help = "A jar on the classpath that the generated Java source for a claro_binary() is compiled against and run " +
+             "with. Only used by the `run` backend, which compiles and runs the program in memory.",
+      allowMultiple = true,
+      defaultValue = ""
+  )
+  public List<String> java_bytecode_classpath;
+
+  @Option(
+      name = "run_arg",
+      help = "An arg to pass to the program's main method. Only used by the `run` backend, which compiles and runs the " +
+             "program in memory.",
+      allowMultiple = true,
+      defaultValue = ""
+  )
+  public List<String> run_arg;
+
   @Option(
       name = "output_file_path",
       help = "The path to the output file to put the generated Java.",
@@ -138,6 +205,16 @@ public class JavaSourceCompilerBackendCLIOptions extends OptionsBase {
   )
   public String output_file_path;
 
+  @Option(
+      name = "profile_output",
+      help = "If set, record wall time, allocations, and AST node counts for each compiler phase and top-level " +
+             "statement, as well as time spent deserializing dep modules and waiting on dep module monomorphization. " +
+             "The profile is written to this path as Chrome trace JSON (viewable in chrome://tracing or " +
+             "https://ui.perfetto.dev).",
+      defaultValue = ""
+  )
+  public String profile_output;
+
   @Option(
       name = "expect_errors",
       help = "Internal Only! This is used to indicate that errors are expected and so stderr will be redirected to " +
@@ -0,0 +1,99 @@
+package com.claro.compiler_backends.java_source;
+
+import com.claro.compiler_backends.java_source.monomorphization.MonomorphizationCoordinator;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Runs the {@link JavaSourceCompilerBackend} as a Bazel persistent worker so that a single long-lived JVM can service
+ * every Claro compilation in a build, rather than paying JVM startup, class loading, and JIT warmup over again for every
+ * single claro_module() and claro_binary() target.
+ * <p>
+ * This speaks Bazel's JSON worker protocol (see https://bazel.build/remote/creating#work-requests), reading
+ * WorkRequests from stdin and writing WorkResponses to stdout. Since stdout is reserved for the protocol, all output
+ * produced by each compilation is captured and sent back to Bazel as part of its WorkResponse instead.
+ * <p>
+ * The compiler was originally written assuming a single compilation per process, so a great deal of its state is
+ * process-global. Before each compilation all of that state is reset so that each compilation behaves exactly as it
+ * would have in a fresh process.
+ */
+public class JavaSourceCompilerPersistentWorker {
+  private static final Gson GSON = new Gson();
+
+  public void run() throws IOException {
+    JavaSourceCompilerBackend.PERSISTENT_WORKER_MODE = true;
+    MonomorphizationCoordinator.PERSISTENT_WORKER_MODE = true;
+
+    PrintStream protocolOut = System.out;
+    // Make sure that nothing that happens to print outside a request can ever corrupt the protocol stream.
+    System.setOut(System.err);
+
+    JsonReader requestReader = new JsonReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    // Bazel sends a stream of concatenated top-level JSON objects, one per WorkRequest.
+    requestReader.setLenient(true);
+    while (requestReader.peek() != JsonToken.END_DOCUMENT) {
+      WorkRequest request = GSON.fromJson(requestReader, WorkRequest.class);
+      protocolOut.println(GSON.toJson(handleRequest(request)));
+      protocolOut.flush();
+    }
+  }
+
+  private static WorkResponse handleRequest(WorkRequest request) throws UnsupportedEncodingException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    PrintStream capturedOutput = new PrintStream(output, /*autoFlush=*/true, StandardCharsets.UTF_8.name());
+    PrintStream originalOut = System.out;
+    PrintStream originalErr = System.err;
+    System.setOut(capturedOutput);
+    System.setErr(capturedOutput);
+
+    int exitCode = 0;
+    try {
+      JavaSourceCompilerBackend.resetProcessGlobalCompilationState();
+      new JavaSourceCompilerBackend(request.arguments.toArray(new String[0])).run();
+    } catch (JavaSourceCompilerBackend.CompilationExitException e) {
+      exitCode = e.exitCode;
+    } catch (Throwable t) {
+      // Mirror what would've happened to an uncaught exception in a standalone compiler process.
+      t.printStackTrace(System.err);
+      exitCode = 1;
+    } finally {
+      // When run with --expect_errors the compiler redirects its output to the output file, which must be closed here
+      // since there's no process exit to do it for us.
+      if (System.out != capturedOutput) {
+        System.out.close();
+      }
+      System.setOut(originalOut);
+      System.setErr(originalErr);
+      // Don't hold onto this compilation's AST and symbol table while waiting for the next request.
+      JavaSourceCompilerBackend.resetProcessGlobalCompilationState();
+    }
+
+    WorkResponse response = new WorkResponse();
+    response.exitCode = exitCode;
+    response.output = new String(output.toByteArray(), StandardCharsets.UTF_8);
+    response.requestId = request.requestId;
+    return response;
+  }
+
+  // Only the fields of Bazel's WorkRequest/WorkResponse messages that are actually relevant to the compiler are modeled
+  // here. Unknown fields are simply ignored.
+  private static class WorkRequest {
+    List<String> arguments = List.of();
+    int requestId;
+  }
+
+  private static class WorkResponse {
+    int exitCode;
+    String output;
+    int requestId;
+  }
+}
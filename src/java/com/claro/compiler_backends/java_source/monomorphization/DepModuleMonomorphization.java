@@ -3,6 +3,7 @@ package com.claro.compiler_backends.java_source.monomorphization;
 import com.claro.ClaroCompilerMain;
 import com.claro.compiler_backends.java_source.JavaSourceCompilerBackend;
 import com.claro.compiler_backends.java_source.monomorphization.ipc.MonomorphizationRequestProcessing;
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
 import com.claro.intermediate_representation.ProgramNode;
 import com.claro.intermediate_representation.statements.GenericFunctionDefinitionStmt;
 import com.claro.intermediate_representation.statements.Stmt;
@@ -17,10 +18,20 @@ import com.claro.runtime_utilities.http.$HttpUtil;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.devtools.common.options.OptionsParser;
+import com.google.protobuf.InvalidProtocolBufferException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.function.Function;
 
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc$monomorphization_ipc.getDepModuleMonomorphizationServerForFreePort;
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc$monomorphization_ipc.startMonomorphizationServerAndAwaitShutdown;
@@ -28,8 +39,9 @@ import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomo
 
 public class DepModuleMonomorphization {
 
-  private final $ClaroHttpServer server;
-  private final DepModuleCoordinatorService coordinatorClient;
+  // These are only present when communicating with the coordinator over HTTP rather than over stdin/stdout pipes.
+  private final Optional<$ClaroHttpServer> server;
+  private final Optional<DepModuleCoordinatorService> coordinatorClient;
   private final ImmutableList<String> recompilationArgs;
 
   public static void main(String[] args) throws Exception {
@@ -43,6 +55,11 @@ public class DepModuleMonomorphization {
 
     String uniqueModuleName = parsedModule.getModuleDescriptor().getUniqueModuleName();
 
+    if (options.ipcTransport.equals("pipe")) {
+      runPipeTransport(parsedModule);
+      return;
+    }
+
     // Here I need to immediately trigger the server to startup so that I can be ready to receive monomorphization reqs
     // from the coordinator compilation unit.
     DepModuleMonomorphization monomorphizer;
@@ -50,8 +67,8 @@ public class DepModuleMonomorphization {
       DepModuleCoordinatorService coordinatorClient = getDepModuleCoordinatorClient.apply(options.coordinatorPort);
       monomorphizer =
           new DepModuleMonomorphization(
-              startMonomorphizationServerInNewThread(uniqueModuleName, coordinatorClient),
-              coordinatorClient,
+              Optional.of(startMonomorphizationServerInNewThread(uniqueModuleName, coordinatorClient)),
+              Optional.of(coordinatorClient),
               // TODO(steving) Unfortunately, for now, the "bootstrapping" version of the SerializedClaroModule.java file
               //     doesn't have access to the command_line_args field as it's a version behind. After I push the first
               //     version of Claro that actually supports dep module monomorphization, I should refactor to call directly.
@@ -70,7 +87,7 @@ public class DepModuleMonomorphization {
     // healthy shutdown, and fault-tolerant shutdown in the case that the coordinator process is killed without being
     // given the chance to do cleanup.
     String coordinatorReadyResponse = sendMessageToCoordinator_markDepModuleSubprocessReady
-        .apply(monomorphizer.coordinatorClient, uniqueModuleName).get();
+        .apply(monomorphizer.coordinatorClient.get(), uniqueModuleName).get();
 
     if (!Boolean.parseBoolean(coordinatorReadyResponse)) {
       System.err.println(
@@ -80,9 +97,87 @@ public class DepModuleMonomorphization {
     }
   }
 
+  // Serves monomorphization requests from the coordinator over this process's stdin/stdout pipes. Every message is a
+  // length-delimited proto, so there's no HTTP server, no base64 encoding, and no port registration handshake involved.
+  // Shutdown is signaled by the coordinator closing this process's stdin, which also happens implicitly if the
+  // coordinator dies without getting the chance to do cleanup, so this process can never be orphaned.
+  private static void runPipeTransport(SerializedClaroModule parsedModule) throws Exception {
+    // This process's stdout is now exclusively reserved for responses to the coordinator, so anything else that gets
+    // printed (e.g. by the compiler itself) has to be redirected to stderr instead.
+    OutputStream coordinatorOut = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+    InputStream coordinatorIn = new BufferedInputStream(new FileInputStream(FileDescriptor.in));
+    System.setOut(System.err);
+
+    DepModuleMonomorphization monomorphizer =
+        new DepModuleMonomorphization(
+            Optional.empty(), Optional.empty(), ImmutableList.copyOf(parsedModule.getCommandLineArgsList()));
+    monomorphizer.runModuleCompilationPreworkBeforeMonomorphizationWorkPossible();
+
+    // Report back to the coordinator that we're ready to handle monomorphization requests.
+    IPCMessages.MonomorphizationResponseBatch.getDefaultInstance().writeDelimitedTo(coordinatorOut);
+    coordinatorOut.flush();
+
+    IPCMessages.MonomorphizationRequestBatch requestBatch;
+    // parseDelimitedFrom() only returns null once the coordinator has closed the pipe.
+    while ((requestBatch = IPCMessages.MonomorphizationRequestBatch.parseDelimitedFrom(coordinatorIn)) != null) {
+      IPCMessages.MonomorphizationResponseBatch.Builder responseBatch =
+          IPCMessages.MonomorphizationResponseBatch.newBuilder();
+      for (IPCMessages.MonomorphizationRequest request : requestBatch.getMonomorphizationRequestsList()) {
+        responseBatch.addMonomorphizationResponses(
+            MonomorphizationRequestProcessing.handleMonomorphizationRequest(request));
+      }
+      responseBatch.build().writeDelimitedTo(coordinatorOut);
+      coordinatorOut.flush();
+    }
+
+    // W/o this the process would hang forever as these threads are going to live forever.
+    ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);
+    $HttpUtil.shutdownOkHttpClient();
+  }
+
+  // Entry point used instead of main() when the coordinator runs dep module monomorphization within its own JVM. The
+  // coordinator loads this class (and the entire bootstrapping compiler along with it) in a classloader dedicated to
+  // the given dep module, so that none of the compiler's static state is shared with the coordinator or with any other
+  // dep module. Only JDK types can cross that classloader boundary, so the returned handler accepts and returns
+  // serialized MonomorphizationRequest/MonomorphizationResponse protos. The returned handler is also AutoCloseable, and
+  // must only ever be called from one thread at a time.
+  public static Function<byte[], byte[]> startInProcess(String depModuleFilePath) throws Exception {
+    SerializedClaroModule parsedModule;
+    try (InputStream depModuleInputStream =
+             Files.newInputStream(FileSystems.getDefault().getPath(depModuleFilePath), StandardOpenOption.READ)) {
+      parsedModule = SerializedClaroModule.parseDelimitedFrom(depModuleInputStream);
+    }
+    new DepModuleMonomorphization(
+        Optional.empty(), Optional.empty(), ImmutableList.copyOf(parsedModule.getCommandLineArgsList()))
+        .runModuleCompilationPreworkBeforeMonomorphizationWorkPossible();
+    return new InProcessMonomorphizationHandler();
+  }
+
+  private static final class InProcessMonomorphizationHandler implements Function<byte[], byte[]>, AutoCloseable {
+    @Override
+    public byte[] apply(byte[] serializedMonomorphizationRequest) {
+      IPCMessages.MonomorphizationRequest monomorphizationRequest;
+      try {
+        monomorphizationRequest = IPCMessages.MonomorphizationRequest.parseFrom(serializedMonomorphizationRequest);
+      } catch (InvalidProtocolBufferException e) {
+        throw new IllegalArgumentException("Internal Compiler Error! Failed to parse MonomorphizationRequest!", e);
+      }
+      return MonomorphizationRequestProcessing.handleMonomorphizationRequest(monomorphizationRequest).toByteArray();
+    }
+
+    // W/o this the coordinator would never be able to exit as these threads are going to live forever.
+    @Override
+    public void close() {
+      ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);
+      $HttpUtil.shutdownOkHttpClient();
+    }
+  }
+
   // I'll make an instance of this literally just so I can have final variables.
   private DepModuleMonomorphization(
-      $ClaroHttpServer server, DepModuleCoordinatorService coordinatorClient, ImmutableList<String> recompilationArgs) {
+      Optional<$ClaroHttpServer> server,
+      Optional<DepModuleCoordinatorService> coordinatorClient,
+      ImmutableList<String> recompilationArgs) {
     this.server = server;
     this.coordinatorClient = coordinatorClient;
     // TODO(steving) TESTING!!! FOR NOW I'LL NEED TO FILTER OUT ARGS THAT THE "BOOTSTRAPPING" COMPILER WON'T BE READY
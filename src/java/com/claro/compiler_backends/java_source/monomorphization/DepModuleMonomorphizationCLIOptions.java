@@ -28,4 +28,12 @@ public class DepModuleMonomorphizationCLIOptions extends OptionsBase {
       defaultValue = ""
   )
   public String depModuleFilePath;
+
+  @Option(
+      name = "ipc_transport",
+      help = "How to communicate with the coordinator compiler instance. Either 'http' (via --coordinator_port) or " +
+             "'pipe' (via length-delimited protos over this process's stdin/stdout).",
+      defaultValue = "http"
+  )
+  public String ipcTransport;
 }
@@ -0,0 +1,103 @@
+package com.claro.compiler_backends.java_source.monomorphization;
+
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages.MonomorphizationRequest;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+// Runs dep module monomorphization for a single dep module directly within the coordinator's own JVM, rather than in a
+// subprocess, so there's no JVM startup and no IPC at all. The compiler keeps all of its state in statics, so the
+// dep module monomorphization binary is loaded in a classloader dedicated to this dep module, whose parent is the
+// platform classloader so that none of its classes (and therefore none of its statics) are shared with the coordinator
+// or any other dep module. Since each of those isolated compilers is single threaded, every call into it is made from
+// a single thread dedicated to this dep module, which still allows separate dep modules to proceed concurrently.
+final class DepModuleMonomorphizationInProcessClient {
+  private static final String DEP_MODULE_MONOMORPHIZATION_CLASS_NAME =
+      "com.claro.compiler_backends.java_source.monomorphization.DepModuleMonomorphization";
+
+  private final URLClassLoader isolatedClassLoader;
+  private final ListeningExecutorService dedicatedThread;
+  private final ListenableFuture<Function<byte[], byte[]>> handler;
+
+  private DepModuleMonomorphizationInProcessClient(
+      String uniqueModuleName, String depModuleMonomorphizationBinaryPath, String depModuleFilePath)
+      throws IOException {
+    this.isolatedClassLoader =
+        new URLClassLoader(
+            "dep-module-monomorphization-" + uniqueModuleName,
+            new URL[]{Paths.get(depModuleMonomorphizationBinaryPath).toUri().toURL()},
+            ClassLoader.getPlatformClassLoader()
+        );
+    this.dedicatedThread = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("dep-module-monomorphization-" + uniqueModuleName)
+            // Daemon thread so that a dep module that never finishes its setup can't stop the compiler from exiting.
+            .setDaemon(true)
+            .setThreadFactory(runnable -> {
+              Thread thread = new Thread(runnable);
+              // Anything within the isolated compiler that loads classes reflectively must do so from the isolated
+              // classloader as well.
+              thread.setContextClassLoader(this.isolatedClassLoader);
+              return thread;
+            })
+            .build()));
+    // Kick off the dep module's compilation prework right away, so that it's done concurrently with the coordinator's
+    // own compilation.
+    this.handler = this.dedicatedThread.submit(() -> startIsolatedDepModuleMonomorphization(depModuleFilePath));
+  }
+
+  static DepModuleMonomorphizationInProcessClient start(
+      String uniqueModuleName, String depModuleMonomorphizationBinaryPath, String depModuleFilePath)
+      throws IOException {
+    return new DepModuleMonomorphizationInProcessClient(
+        uniqueModuleName, depModuleMonomorphizationBinaryPath, depModuleFilePath);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Function<byte[], byte[]> startIsolatedDepModuleMonomorphization(String depModuleFilePath) throws Exception {
+    try {
+      return (Function<byte[], byte[]>)
+          this.isolatedClassLoader.loadClass(DEP_MODULE_MONOMORPHIZATION_CLASS_NAME)
+              .getMethod("startInProcess", String.class)
+              .invoke(null, depModuleFilePath);
+    } catch (InvocationTargetException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  // The request is submitted to this dep module's dedicated thread after any setup or requests already submitted, so
+  // there's no need to wait for the handler to be ready before calling this.
+  ListenableFuture<IPCMessages.MonomorphizationResponse> request(MonomorphizationRequest monomorphizationRequest) {
+    return this.dedicatedThread.submit(
+        () -> IPCMessages.MonomorphizationResponse.parseFrom(
+            this.handler.get().apply(monomorphizationRequest.toByteArray())));
+  }
+
+  void close() {
+    this.dedicatedThread.submit(() -> {
+      try {
+        if (this.handler.isDone()) {
+          ((AutoCloseable) this.handler.get()).close();
+        }
+      } catch (Exception ignored) {
+        // The isolated compiler failed to start, so there's nothing to clean up.
+      }
+      try {
+        this.isolatedClassLoader.close();
+      } catch (IOException ignored) {
+        // The classloader's jar is only ever read, so there's nothing that could be lost.
+      }
+    });
+    this.dedicatedThread.shutdown();
+  }
+}
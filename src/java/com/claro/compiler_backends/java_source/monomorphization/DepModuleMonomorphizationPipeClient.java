@@ -0,0 +1,132 @@
+package com.claro.compiler_backends.java_source.monomorphization;
+
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages.MonomorphizationRequest;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// The coordinator's end of the stdin/stdout pipes to a single dep module monomorphization subprocess. Requests are
+// queued up and sent by a single dispatcher thread, which writes every request queued up since the last round trip as a
+// single length-delimited MonomorphizationRequestBatch, and then reads back the corresponding
+// MonomorphizationResponseBatch. So while the subprocess is busy starting up or handling one batch, any new requests
+// simply accumulate to be sent together in the next one.
+final class DepModuleMonomorphizationPipeClient {
+  private static final PendingRequest SHUTDOWN = new PendingRequest(null, null);
+
+  private final String uniqueModuleName;
+  private final Process process;
+  private final LinkedBlockingQueue<PendingRequest> queuedRequests = new LinkedBlockingQueue<>();
+  private volatile boolean closed = false;
+
+  private DepModuleMonomorphizationPipeClient(String uniqueModuleName, Process process) {
+    this.uniqueModuleName = uniqueModuleName;
+    this.process = process;
+  }
+
+  static DepModuleMonomorphizationPipeClient start(String uniqueModuleName, ProcessBuilder depModuleSubprocess)
+      throws IOException {
+    DepModuleMonomorphizationPipeClient client =
+        new DepModuleMonomorphizationPipeClient(
+            uniqueModuleName,
+            depModuleSubprocess
+                .redirectInput(ProcessBuilder.Redirect.PIPE)
+                .redirectOutput(ProcessBuilder.Redirect.PIPE)
+                .start()
+        );
+    // Daemon thread so that a subprocess that never becomes ready can't stop the compiler from exiting.
+    Thread dispatcher =
+        new Thread(client::dispatchRequestBatches, "dep-module-monomorphization-pipe-" + uniqueModuleName);
+    dispatcher.setDaemon(true);
+    dispatcher.start();
+    return client;
+  }
+
+  synchronized ListenableFuture<IPCMessages.MonomorphizationResponse> request(
+      MonomorphizationRequest monomorphizationRequest) {
+    SettableFuture<IPCMessages.MonomorphizationResponse> res = SettableFuture.create();
+    if (this.closed) {
+      res.setException(new IllegalStateException(
+          "Internal Compiler Error! Dep module monomorphization subprocess already shut down for module: " +
+          this.uniqueModuleName));
+    } else {
+      this.queuedRequests.add(new PendingRequest(monomorphizationRequest, res));
+    }
+    return res;
+  }
+
+  // Closing the subprocess's stdin signals it to exit once it's done with any batch that it's currently handling.
+  synchronized void close() {
+    this.closed = true;
+    this.queuedRequests.add(SHUTDOWN);
+  }
+
+  private void dispatchRequestBatches() {
+    ArrayList<PendingRequest> batch = new ArrayList<>();
+    try (OutputStream toSubprocess = new BufferedOutputStream(this.process.getOutputStream());
+         InputStream fromSubprocess = new BufferedInputStream(this.process.getInputStream())) {
+      // The subprocess writes a single empty batch once it's done with its compilation prework.
+      if (IPCMessages.MonomorphizationResponseBatch.parseDelimitedFrom(fromSubprocess) == null) {
+        throw new IOException("Subprocess exited before becoming ready.");
+      }
+      boolean shutdown = false;
+      while (!shutdown) {
+        batch.add(this.queuedRequests.take());
+        this.queuedRequests.drainTo(batch);
+        shutdown = batch.remove(SHUTDOWN);
+        if (batch.isEmpty()) {
+          continue;
+        }
+        IPCMessages.MonomorphizationRequestBatch.Builder requestBatch =
+            IPCMessages.MonomorphizationRequestBatch.newBuilder();
+        for (PendingRequest pendingRequest : batch) {
+          requestBatch.addMonomorphizationRequests(pendingRequest.request);
+        }
+        requestBatch.build().writeDelimitedTo(toSubprocess);
+        toSubprocess.flush();
+
+        IPCMessages.MonomorphizationResponseBatch responseBatch =
+            IPCMessages.MonomorphizationResponseBatch.parseDelimitedFrom(fromSubprocess);
+        if (responseBatch == null || responseBatch.getMonomorphizationResponsesCount() != batch.size()) {
+          throw new IOException("Subprocess exited or responded to a different number of requests than it was sent.");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+          batch.get(i).response.set(responseBatch.getMonomorphizationResponses(i));
+        }
+        batch.clear();
+      }
+    } catch (IOException | InterruptedException e) {
+      failAllRequests(
+          batch,
+          new RuntimeException(
+              "Internal Compiler Error! Lost connection to dep module monomorphization subprocess for module: " +
+              this.uniqueModuleName, e)
+      );
+    }
+  }
+
+  // Synchronized with request() so that no request can be queued after the queue's been drained for the last time.
+  private synchronized void failAllRequests(ArrayList<PendingRequest> batch, RuntimeException failure) {
+    this.closed = true;
+    this.queuedRequests.drainTo(batch);
+    batch.stream().filter(r -> r != SHUTDOWN).forEach(r -> r.response.setException(failure));
+  }
+
+  private static final class PendingRequest {
+    private final MonomorphizationRequest request;
+    private final SettableFuture<IPCMessages.MonomorphizationResponse> response;
+
+    private PendingRequest(
+        MonomorphizationRequest request, SettableFuture<IPCMessages.MonomorphizationResponse> response) {
+      this.request = request;
+      this.response = response;
+    }
+  }
+}
@@ -3,26 +3,36 @@ package com.claro.compiler_backends.java_source.monomorphization;
 import com.claro.compiler_backends.java_source.monomorphization.ipc_coordinator.SubprocessRegistration;
 import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
 import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages.MonomorphizationRequest;
+import com.claro.compiler_backends.profiling.CompilerProfiler;
 import com.claro.runtime_utilities.ClaroRuntimeUtilities;
 import com.claro.runtime_utilities.http.$ClaroHttpServer;
 import com.claro.runtime_utilities.http.$HttpUtil;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
 import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.devtools.build.runfiles.AutoBazelRepository;
 import com.google.devtools.build.runfiles.Runfiles;
 import com.google.protobuf.InvalidProtocolBufferException;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc$main_compilation_unit_monomorphization_ipc.DepModuleMonomorphizationService;
@@ -31,8 +41,9 @@ import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomo
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc_coordinator$monomorphization_ipc_coordinator.startCoordinatorServerAndAwaitShutdown;
 
 // This class contains some quite complex subprocess orchestration logic that should be hidden from the compiler logic
-// itself. Hence the only publicly exposed function here is the single getDepModuleMonomorphization() function that
-// should be called to opaquely retrieve the monomorphization for an arbitrary dep module monomorphization request.
+// itself. Hence the only publicly exposed functions here are requestDepModuleMonomorphization(), which should be called
+// to opaquely trigger monomorphization for an arbitrary dep module monomorphization request, and
+// awaitDepModuleMonomorphizations(), which should be called once before consuming the results.
 // Unless you're actually working on modifying the dep module monomorphization subprocess coordination architecture, you
 // really shouldn't bother spending too much effort fully grocking the multiprocessing that's actually going on under
 // the hood here.
@@ -44,11 +55,36 @@ public class MonomorphizationCoordinator {
   // This cache enables us to ensure that we don't make IPC calls for monomorphizations that have already been retrieved.
   // This will also be consumed after all dep module monomorphizations are completed so that they can all be included in
   // this compilation unit's codegen.
-  public static final HashBasedTable<String, MonomorphizationRequest, String>
-      monomorphizationsByModuleAndRequestCache = HashBasedTable.create();
+  public static final Table<String, MonomorphizationRequest, String>
+      monomorphizationsByModuleAndRequestCache = Tables.synchronizedTable(HashBasedTable.create());
 
   public static ImmutableMap<String, String> DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME;
   public static Map<String, String> RUNFILES_ENV_VARS;
+  // When the compiler is running as a Bazel persistent worker, the process must outlive each individual compilation,
+  // so the shared runtime executors must be left running once the coordinator shuts down. Additionally, the worker's
+  // stdout is reserved for the worker protocol, so subprocess output gets forwarded to stderr instead.
+  public static boolean PERSISTENT_WORKER_MODE = false;
+  // HTTP remains the default until the pipe transport has been exercised end to end by dep module monomorphization
+  // subprocesses running under Bazel.
+  public static IpcTransport IPC_TRANSPORT = IpcTransport.HTTP;
+  private static final ConcurrentHashMap<String, DepModuleMonomorphizationPipeClient> pipeClientsByUniqueModuleName =
+      new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<String, DepModuleMonomorphizationInProcessClient>
+      inProcessClientsByUniqueModuleName = new ConcurrentHashMap<>();
+  private static Optional<PersistentMonomorphizationCache> persistentCache = Optional.empty();
+
+  public enum IpcTransport {
+    // Dep module monomorphization subprocesses communicate with this coordinator via length-delimited protos over their
+    // stdin/stdout pipes, batching up requests per round trip.
+    PIPE,
+    // Every single request is made as a separate HTTP request carrying a base64 encoded proto, which requires each
+    // subprocess to run an HTTP server and to register its port with an HTTP server running in this coordinator.
+    HTTP,
+    // There are no subprocesses at all. Instead, each dep module is monomorphized within this coordinator's own JVM, in
+    // an isolated classloader, and requests are made via direct method calls. See
+    // DepModuleMonomorphizationInProcessClient for details.
+    IN_PROCESS,
+  }
 
   // Static iniitialization happening here b/c preloading Bazel's runfiles is notably an expensive operation that should
   // only be done once.
@@ -69,70 +105,177 @@ public class MonomorphizationCoordinator {
     }
   }
 
-  // TODO(steving) In the future, assuming this "simple" implementation works, I should actually be able to potentially
-  //   optimize this process via some parallelization via some clever scheme to immediately trigger monomorphization the
-  //   second it's recognized during type checking. This would give the subprocesses a head start of starting up earlier
-  //   than they do in the current approach where they don't startup until codegen. And since they don't necessarily
-  //   depend on each other, they could actually be running in parallel rather than a single subprocess actively
-  //   processing MonomorphizationRequests at any given time. This could potentially help to alleviate some of the
-  //   overhead of Dep Module Monomorphization, so I should circle back to this when I get a chance. (Impl note: I think
-  //   it'd center around a Caffeine loading cache w/ infinite timeout so that multiple threads could be updating
-  //   essentially a central work registry safely; triggering monomorphization would just be calling get() on the cache).
-  public static void getDepModuleMonomorphization(String module, MonomorphizationRequest depModuleMonomorphizationReq) {
-    // See if the IPC req can be skipped in the case that this monomorphization has already been retrieved previously.
-    if (monomorphizationsByModuleAndRequestCache.get(module, depModuleMonomorphizationReq) != null) {
+  // Monomorphization is pipelined: each dep module's subprocess is started the moment that type checking first discovers
+  // a call to one of its generic procedures, and every request is sent asynchronously, so all dep module subprocesses
+  // can be starting up and processing requests concurrently rather than only a single subprocess being busy at a time.
+  // Transitive requests made by the subprocesses are themselves sent as soon as their responses arrive. Every request,
+  // direct or transitive, is deduplicated through this central work registry. Once codegen needs the results,
+  // awaitDepModuleMonomorphizations() blocks until the entire transitive closure of requests has been completed.
+  private static final ConcurrentHashMap<Map.Entry<String, MonomorphizationRequest>, ListenableFuture<Void>>
+      depModuleMonomorphizationWorkRegistry = new ConcurrentHashMap<>();
+
+  // Asynchronously triggers monomorphization of the given request by the given dep module (identified by its unique
+  // module name), starting up the dep module's subprocess if necessary. This is a no-op if this request has already
+  // been made.
+  public static void requestDepModuleMonomorphization(
+      String module, MonomorphizationRequest depModuleMonomorphizationReq) {
+    SettableFuture<Void> res = SettableFuture.create();
+    if (depModuleMonomorphizationWorkRegistry.putIfAbsent(
+        Maps.immutableEntry(module, depModuleMonomorphizationReq), res) != null) {
+      return;
+    }
+    Optional<IPCMessages.MonomorphizationResponse> cachedMonomorphizationRes =
+        persistentCache.flatMap(
+            cache -> cache.get(
+                module,
+                DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME.get(module),
+                depModuleMonomorphizationReq
+            ));
+    if (cachedMonomorphizationRes.isPresent()) {
+      // This dep module's subprocess never even needs to be started unless some other request misses the cache.
+      try {
+        handleDepModuleMonomorphizationResponse(module, depModuleMonomorphizationReq, cachedMonomorphizationRes.get());
+        res.set(null);
+      } catch (RuntimeException e) {
+        res.setException(e);
+      }
       return;
     }
+    long requestStartNanos = System.nanoTime();
+    ListenableFuture<IPCMessages.MonomorphizationResponse> monomorphizationResFuture;
+    try {
+      monomorphizationResFuture =
+          requestDepModuleMonomorphizationViaIpcTransport(module, depModuleMonomorphizationReq);
+    } catch (RuntimeException e) {
+      res.setException(e);
+      return;
+    }
+    res.setFuture(
+        Futures.transform(
+            monomorphizationResFuture,
+            monomorphizationRes -> {
+              // Responses are handled on whichever thread received them, so the IPC's round trip time is recorded as an
+              // arg rather than as a span that would have to start and end on different threads.
+              CompilerProfiler.Span ipcSpan =
+                  CompilerProfiler.start("ipc", "Monomorphization IPC: " + module)
+                      .withArg("procedure", depModuleMonomorphizationReq.getProcedureName())
+                      .withArg("transport", IPC_TRANSPORT.name().toLowerCase())
+                      .withArg("round_trip_ms", (System.nanoTime() - requestStartNanos) / 1_000_000);
+              handleDepModuleMonomorphizationResponse(module, depModuleMonomorphizationReq, monomorphizationRes);
+              // HTTP responses may be handled out of the order that the dep module produced them in, which would make
+              // the cache entries' accumulated monomorphizations unreliable. See PersistentMonomorphizationCache.
+              if (IPC_TRANSPORT != IpcTransport.HTTP) {
+                persistentCache.ifPresent(
+                    cache -> cache.put(
+                        module,
+                        DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME.get(module),
+                        depModuleMonomorphizationReq,
+                        monomorphizationRes
+                    ));
+              }
+              ipcSpan.end();
+              return null;
+            },
+            MoreExecutors.directExecutor()
+        ));
+  }
 
+  private static ListenableFuture<IPCMessages.MonomorphizationResponse>
+  requestDepModuleMonomorphizationViaIpcTransport(
+      String module, MonomorphizationRequest depModuleMonomorphizationReq) {
+    switch (IPC_TRANSPORT) {
+      case PIPE:
+        return getDepModuleMonomorphizationPipeClient(module).request(depModuleMonomorphizationReq);
+      case HTTP:
+        return requestDepModuleMonomorphizationOverHttp(module, depModuleMonomorphizationReq);
+      case IN_PROCESS:
+        return getDepModuleMonomorphizationInProcessClient(module).request(depModuleMonomorphizationReq);
+      default:
+        throw new IllegalStateException("Internal Compiler Error! Unexpected IpcTransport: " + IPC_TRANSPORT);
+    }
+  }
+
+  private static ListenableFuture<IPCMessages.MonomorphizationResponse> requestDepModuleMonomorphizationOverHttp(
+      String module, MonomorphizationRequest depModuleMonomorphizationReq) {
+    return Futures.transform(
+        Futures.transformAsync(
+            getDepModuleMonomorphizationSubprocessClient(module),
+            depModuleMonomorphizationService ->
+                sendMessageToSubprocess_TriggerMonomorphization.apply(
+                    depModuleMonomorphizationService,
+                    BaseEncoding.base64Url().encode(depModuleMonomorphizationReq.toByteArray())
+                ),
+            MoreExecutors.directExecutor()
+        ),
+        encodedMonomorphizationRes -> {
+          try {
+            return IPCMessages.MonomorphizationResponse.parseFrom(
+                BaseEncoding.base64Url().decode(encodedMonomorphizationRes));
+          } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+            throw new RuntimeException("Internal Compiler Error! Failed to parse MonomorphizationResponse proto.", e);
+          }
+        },
+        MoreExecutors.directExecutor()
+    );
+  }
+
+  private static void handleDepModuleMonomorphizationResponse(
+      String module,
+      MonomorphizationRequest depModuleMonomorphizationReq,
+      IPCMessages.MonomorphizationResponse monomorphizationRes) {
+    if (!monomorphizationRes.getOptionalErrorMessage().isEmpty()) {
+      throw new RuntimeException(
+          "Internal Compiler Error! Dep Module Monomorphization Failed for Module: " + module
+          + " for current MonomorphizationRequest:\n" + depModuleMonomorphizationReq
+          + "\nHere's the stacktrace from the dep module subprocess:\n" +
+          monomorphizationRes.getOptionalErrorMessage());
+    }
+    // Store all local monomorphizations returned by the dep module subprocess, they'll need to be included in the
+    // module's codegen.
+    for (IPCMessages.MonomorphizationResponse.Monomorphization monomorphization : monomorphizationRes.getLocalModuleMonomorphizationsList()) {
+      monomorphizationsByModuleAndRequestCache.put(
+          module, monomorphization.getMonomorphizationRequest(), monomorphization.getMonomorphizationCodegen());
+    }
+    // Handle any transitive dep module monomorphizations that were requested by the dep module subprocess. These are
+    // registered before this request's future completes, so awaitDepModuleMonomorphizations() will always see them.
+    for (IPCMessages.MonomorphizationResponse.TransitiveDepModuleMonomorphizationRequest
+        transitiveDepModuleMonomorphizationReq : monomorphizationRes.getTransitiveDepModuleMonomorphizationRequestsList()) {
+      requestDepModuleMonomorphization(
+          transitiveDepModuleMonomorphizationReq.getUniqueModuleName(),
+          transitiveDepModuleMonomorphizationReq.getMonomorphizationRequest()
+      );
+    }
+  }
+
+  // Blocks until every dep module monomorphization requested so far, and everything that they transitively requested,
+  // has been cached in monomorphizationsByModuleAndRequestCache.
+  public static void awaitDepModuleMonomorphizations() {
     try {
-      // Make a blocking IPC call to the dep module monomorphization subprocess.
-      IPCMessages.MonomorphizationResponse monomorphizationRes =
-          IPCMessages.MonomorphizationResponse.parseFrom(
-              BaseEncoding.base64Url().decode(
-                  Futures.transform(
-                      getDepModuleMonomorphizationSubprocessClient(module),
-                      depModuleMonomorphizationService ->
-                          sendMessageToSubprocess_TriggerMonomorphization.apply(
-                              depModuleMonomorphizationService,
-                              BaseEncoding.base64Url().encode(depModuleMonomorphizationReq.toByteArray())
-                          ).get(),
-                      MoreExecutors.directExecutor()
-                  ).get()));
-      if (!monomorphizationRes.getOptionalErrorMessage().isEmpty()) {
-        shutdownDepModuleMonomorphization();
-        throw new RuntimeException(
-            "Internal Compiler Error! Dep Module Monomorphization Failed for Module: " + module
-            + " for current MonomorphizationRequest:\n" + depModuleMonomorphizationReq
-            + "\nHere's the stacktrace from the dep module subprocess:\n" +
-            monomorphizationRes.getOptionalErrorMessage());
-      }
-      // Store all local monomorphizations returned by the dep module subprocess, they'll need to be included in the
-      // module's codegen.
-      for (IPCMessages.MonomorphizationResponse.Monomorphization monomorphization : monomorphizationRes.getLocalModuleMonomorphizationsList()) {
-        // Cache the result so that we can avoid duplicate calls in the future.
-        monomorphizationsByModuleAndRequestCache.put(
-            module, monomorphization.getMonomorphizationRequest(), monomorphization.getMonomorphizationCodegen());
-      }
-      // Handle any transitive dep module monomorphizations that were requested by the dep module subprocess.
-      for (IPCMessages.MonomorphizationResponse.TransitiveDepModuleMonomorphizationRequest
-          transitiveDepModuleMonomorphizationReq : monomorphizationRes.getTransitiveDepModuleMonomorphizationRequestsList()) {
-        // I want to have the current module's compilation process move in as much of a straight line as possible, so
-        // for now, I'm going to immediately request the monomorphization from this transitive dep module.
-        getDepModuleMonomorphization(
-            transitiveDepModuleMonomorphizationReq.getUniqueModuleName(),
-            transitiveDepModuleMonomorphizationReq.getMonomorphizationRequest()
-        );
-      }
+      int awaitedRequestsCount;
+      do {
+        ImmutableList<ListenableFuture<Void>> pendingRequests =
+            ImmutableList.copyOf(depModuleMonomorphizationWorkRegistry.values());
+        awaitedRequestsCount = pendingRequests.size();
+        Futures.allAsList(pendingRequests).get();
+      } while (depModuleMonomorphizationWorkRegistry.size() > awaitedRequestsCount);
+      persistentCache.ifPresent(PersistentMonomorphizationCache::finish);
     } catch (InterruptedException | ExecutionException e) {
       shutdownDepModuleMonomorphization();
-      throw new RuntimeException("Internal Compiler Error! Failed to get dep module monomorphization from subprocess.", e);
-    } catch (InvalidProtocolBufferException | IllegalArgumentException e) {
-      shutdownDepModuleMonomorphization();
-      throw new RuntimeException("Internal Compiler Error! Failed to parse MonomorphizationResponse proto.", e);
+      throw new RuntimeException(
+          "Internal Compiler Error! Failed to get dep module monomorphization from subprocess.",
+          e instanceof ExecutionException ? e.getCause() : e
+      );
     }
   }
 
-  private static HashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState>
+  // Enables persisting dep module monomorphizations to the given dir across compilations, so that requests that any
+  // prior compilation already made skip the dep module subprocess entirely. Must be called before any requests are made.
+  public static void enablePersistentCache(Path cacheDir, long maxBytes) {
+    persistentCache =
+        PersistentMonomorphizationCache.create(cacheDir, maxBytes, DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH);
+  }
+
+  private static ConcurrentHashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState>
   getRegisteredMonomorphizationSubprocessesByUniqueModuleNameAndStartLocalCoordinatorServerIfNecessary() {
     if (SubprocessRegistration.registeredMonomorphizationSubprocessesByUniqueModuleName.isDone()) {
       try {
@@ -143,54 +286,58 @@ public class MonomorphizationCoordinator {
     }
     // In this case I need to start up the local coordinator server and then I can mark the registry ready.
     startCoordinatorServer();
-    HashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry = Maps.newHashMap();
+    ConcurrentHashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry =
+        new ConcurrentHashMap<>();
     SubprocessRegistration.registeredMonomorphizationSubprocessesByUniqueModuleName.set(registry);
     return registry;
   }
 
   private static void startCoordinatorServer() {
     // Startup the coordinator server so it's ready to communicate.
-    coordinatorServer = getDepModuleCoordinatorServerForFreePort.apply();
-    coordinatorPort = coordinatorServer.server.getListenAddresses().get(0).getPort();
+    $ClaroHttpServer server = coordinatorServer = getDepModuleCoordinatorServerForFreePort.apply();
+    coordinatorPort = server.server.getListenAddresses().get(0).getPort();
     $ClaroHttpServer.silent = true;
     new Thread(() -> {
-      startCoordinatorServerAndAwaitShutdown.apply(coordinatorServer, "COORDINATOR STARTED!");
+      startCoordinatorServerAndAwaitShutdown.apply(server, "COORDINATOR STARTED!");
 
       // Cleanup once something triggers shutdown. W/o this the process would hang forever as these threads are
       // going to live forever.
-      ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);
-      $HttpUtil.shutdownOkHttpClient();
+      if (!PERSISTENT_WORKER_MODE) {
+        ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);
+        $HttpUtil.shutdownOkHttpClient();
+      }
     }).start();
   }
 
-  private static ListenableFuture<DepModuleMonomorphizationService> getDepModuleMonomorphizationSubprocessClient(
+  // Synchronized since monomorphization requests are sent concurrently, and each dep module subprocess must only ever
+  // be started once.
+  private static synchronized ListenableFuture<DepModuleMonomorphizationService> getDepModuleMonomorphizationSubprocessClient(
       String uniqueModuleName) {
     // If a subprocess has already been triggered for this dep module, then I can just return the future client that'll
     // be marked ready once it can respond to monomorphization requests.
-    HashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry =
+    ConcurrentHashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry =
         getRegisteredMonomorphizationSubprocessesByUniqueModuleNameAndStartLocalCoordinatorServerIfNecessary();
     if (!registry.containsKey(uniqueModuleName)) {
       // Otherwise, we'll need to actually trigger the subprocess for the dep module and register it.
       registry.put(uniqueModuleName, SubprocessRegistration.DepModuleMonomorphizationSubprocessState.create());
       try {
-        if (!Files.exists(Paths.get(DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH))) {
-          MonomorphizationCoordinator.shutdownDepModuleMonomorphization();
-          throw new RuntimeException(
-              "Internal Compiler Error! Dep Module Monomorphization Subprocess binary not found at: " +
-              DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH);
-        }
         ProcessBuilder depModuleSubprocess =
-            new ProcessBuilder()
-                .command("java", "-jar", DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH,
-                         "--coordinator_port", String.valueOf(coordinatorPort),
-                         "--dep_module_file_path", DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME.get(uniqueModuleName),
-                         // TODO(steving) DELETE THIS, The uniqe name should be looked up in the .claro_module.
-                         "--dep_module_unique_name", uniqueModuleName
-                )
-                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
-                .redirectError(ProcessBuilder.Redirect.INHERIT);
-        depModuleSubprocess.environment().putAll(RUNFILES_ENV_VARS);
-        depModuleSubprocess.start();
+            getDepModuleMonomorphizationSubprocessBuilder(
+                uniqueModuleName, "--ipc_transport", "http", "--coordinator_port", String.valueOf(coordinatorPort))
+                .redirectOutput(
+                    PERSISTENT_WORKER_MODE ? ProcessBuilder.Redirect.PIPE : ProcessBuilder.Redirect.INHERIT);
+        Process process = depModuleSubprocess.start();
+        if (PERSISTENT_WORKER_MODE) {
+          Thread forwardStdout = new Thread(() -> {
+            try {
+              ByteStreams.copy(process.getInputStream(), new FileOutputStream(FileDescriptor.err));
+            } catch (IOException ignored) {
+              // The subprocess has gone away, nothing left to forward.
+            }
+          });
+          forwardStdout.setDaemon(true);
+          forwardStdout.start();
+        }
       } catch (IOException e) {
         throw new RuntimeException(
             "Internal Compiler Error! Unable to start dep module monomorphization subprocess for module: " +
@@ -200,13 +347,105 @@ public class MonomorphizationCoordinator {
     return registry.get(uniqueModuleName).getReadyClient();
   }
 
-  public static void shutdownDepModuleMonomorphization() {
+  // Synchronized for the same reason as getDepModuleMonomorphizationSubprocessClient(). The subprocess's stdout is
+  // exclusively reserved for responses, so there's no need to forward it when running as a persistent worker.
+  private static synchronized DepModuleMonomorphizationPipeClient getDepModuleMonomorphizationPipeClient(
+      String uniqueModuleName) {
+    DepModuleMonomorphizationPipeClient pipeClient = pipeClientsByUniqueModuleName.get(uniqueModuleName);
+    if (pipeClient == null) {
+      try {
+        pipeClient =
+            DepModuleMonomorphizationPipeClient.start(
+                uniqueModuleName,
+                getDepModuleMonomorphizationSubprocessBuilder(uniqueModuleName, "--ipc_transport", "pipe")
+            );
+      } catch (IOException e) {
+        throw new RuntimeException(
+            "Internal Compiler Error! Unable to start dep module monomorphization subprocess for module: " +
+            uniqueModuleName, e);
+      }
+      pipeClientsByUniqueModuleName.put(uniqueModuleName, pipeClient);
+    }
+    return pipeClient;
+  }
+
+  // Synchronized for the same reason as getDepModuleMonomorphizationSubprocessClient().
+  private static synchronized DepModuleMonomorphizationInProcessClient getDepModuleMonomorphizationInProcessClient(
+      String uniqueModuleName) {
+    DepModuleMonomorphizationInProcessClient inProcessClient = inProcessClientsByUniqueModuleName.get(uniqueModuleName);
+    if (inProcessClient == null) {
+      assertDepModuleMonomorphizationBinaryExists();
+      try {
+        inProcessClient =
+            DepModuleMonomorphizationInProcessClient.start(
+                uniqueModuleName,
+                DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH,
+                DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME.get(uniqueModuleName)
+            );
+      } catch (IOException e) {
+        throw new RuntimeException(
+            "Internal Compiler Error! Unable to load dep module monomorphization for module: " + uniqueModuleName, e);
+      }
+      inProcessClientsByUniqueModuleName.put(uniqueModuleName, inProcessClient);
+    }
+    return inProcessClient;
+  }
+
+  private static ProcessBuilder getDepModuleMonomorphizationSubprocessBuilder(
+      String uniqueModuleName, String... ipcTransportArgs) {
+    assertDepModuleMonomorphizationBinaryExists();
+    ProcessBuilder depModuleSubprocess =
+        new ProcessBuilder()
+            .command(
+                ImmutableList.<String>builder()
+                    .add("java", "-jar", DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH)
+                    .add(ipcTransportArgs)
+                    .add(
+                        "--dep_module_file_path",
+                        DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME.get(uniqueModuleName)
+                    )
+                    // TODO(steving) DELETE THIS, The uniqe name should be looked up in the .claro_module.
+                    .add("--dep_module_unique_name", uniqueModuleName)
+                    .build())
+            .redirectError(ProcessBuilder.Redirect.INHERIT);
+    depModuleSubprocess.environment().putAll(RUNFILES_ENV_VARS);
+    return depModuleSubprocess;
+  }
+
+  private static void assertDepModuleMonomorphizationBinaryExists() {
+    if (!Files.exists(Paths.get(DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH))) {
+      MonomorphizationCoordinator.shutdownDepModuleMonomorphization();
+      throw new RuntimeException(
+          "Internal Compiler Error! Dep Module Monomorphization Subprocess binary not found at: " +
+          DEP_MODULE_MONOMORPHIZATION_SUBPROCESS_BINARY_PATH);
+    }
+  }
+
+  public static synchronized void shutdownDepModuleMonomorphization() {
+    pipeClientsByUniqueModuleName.values().forEach(DepModuleMonomorphizationPipeClient::close);
+    pipeClientsByUniqueModuleName.clear();
+    inProcessClientsByUniqueModuleName.values().forEach(DepModuleMonomorphizationInProcessClient::close);
+    inProcessClientsByUniqueModuleName.clear();
     if (!Objects.isNull(MonomorphizationCoordinator.coordinatorServer)) {
       terminateAllDepModuleMonomorphizationSubprocesses();
       MonomorphizationCoordinator.coordinatorServer.shutdown();
+      // Make sure that repeated shutdowns are a no-op.
+      MonomorphizationCoordinator.coordinatorServer = null;
     }
   }
 
+  // Shuts down anything left running by the prior compilation and drops all state related to it, so that the next
+  // compilation in this same process starts from scratch.
+  public static void reset() {
+    shutdownDepModuleMonomorphization();
+    coordinatorPort = -1;
+    monomorphizationsByModuleAndRequestCache.clear();
+    depModuleMonomorphizationWorkRegistry.clear();
+    persistentCache = Optional.empty();
+    DEP_GRAPH_CLARO_MODULE_PATHS_BY_UNIQUE_MODULE_NAME = null;
+    SubprocessRegistration.registeredMonomorphizationSubprocessesByUniqueModuleName = SettableFuture.create();
+  }
+
   // Each dep module monomorphization subprocess has been configured to block indefinitely on a call to
   private static void terminateAllDepModuleMonomorphizationSubprocesses() {
     SubprocessRegistration.getRegisteredMonomorphizationSubprocessesByUniqueModuleName().values().forEach(
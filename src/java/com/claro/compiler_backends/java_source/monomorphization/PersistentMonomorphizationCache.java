@@ -0,0 +1,323 @@
+package com.claro.compiler_backends.java_source.monomorphization;
+
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
+import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages.MonomorphizationRequest;
+import com.claro.compiler_backends.profiling.CompilerProfiler;
+import com.claro.module_system.module_serialization.proto.SerializedClaroModule;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of dep module monomorphizations that persists across compilations, enabled via the compiler's
+ * `--monomorphization_cache_dir` option, so that every downstream compilation unit instantiating the same generic
+ * procedure from the same dep module (e.g. `lists::map<int, string>`) doesn't have to monomorphize it all over again. A
+ * dep module whose requests all hit the cache never has its monomorphization subprocess started at all.
+ * <p>
+ * Entries are keyed by a SHA-256 over the dep module monomorphization binary (as that's the compiler that actually
+ * generates the codegen), the dep module's unique name, the content of its .claro_module along with every file that
+ * its recorded command line args reference (i.e. everything the dep module's compilation gets redone over), and the
+ * serialized MonomorphizationRequest itself.
+ * <p>
+ * A dep module's monomorphization session skips codegen for anything that it already generated for a prior request,
+ * so a single response doesn't necessarily contain every local monomorphization that its codegen depends on. So, each
+ * entry conservatively records every local monomorphization produced by the session up to and including that request.
+ * This means that a hit may include some monomorphizations that a cold compilation wouldn't have, but never fewer.
+ * <p>
+ * Once over `--monomorphization_cache_max_mb`, the least recently used files are evicted. Hit rates accumulated across
+ * every compilation using the cache are reported in the cache dir's `stats.properties` file.
+ * <p>
+ * The cache is strictly best-effort: any failure to read or write the cache simply falls back to monomorphizing.
+ */
+final class PersistentMonomorphizationCache {
+  // Bump this whenever the layout of cache entries changes.
+  private static final int CACHE_FORMAT_VERSION = 1;
+  private static final String ENTRIES_DIR = "entries";
+  private static final String BLOBS_DIR = "blobs";
+  private static final String STATS_FILE = "stats.properties";
+
+  private final Path cacheDir;
+  private final long maxBytes;
+  private final HashCode depModuleMonomorphizationBinaryHash;
+  // Empty for dep modules whose inputs couldn't be hashed, which are simply never cached.
+  private final ConcurrentHashMap<String, Optional<HashCode>> depModuleInputsHashesByUniqueModuleName =
+      new ConcurrentHashMap<>();
+  // The SHA-256 of every local monomorphization produced by each dep module's monomorphization session so far, in the
+  // order that they were produced.
+  private final ConcurrentHashMap<String, LinkedHashSet<String>> sessionMonomorphizationSha256sByUniqueModuleName =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  private PersistentMonomorphizationCache(Path cacheDir, long maxBytes, HashCode depModuleMonomorphizationBinaryHash) {
+    this.cacheDir = cacheDir;
+    this.maxBytes = maxBytes;
+    this.depModuleMonomorphizationBinaryHash = depModuleMonomorphizationBinaryHash;
+  }
+
+  static Optional<PersistentMonomorphizationCache> create(
+      Path cacheDir, long maxBytes, String depModuleMonomorphizationBinaryPath) {
+    try {
+      Files.createDirectories(cacheDir.resolve(ENTRIES_DIR));
+      Files.createDirectories(cacheDir.resolve(BLOBS_DIR));
+      return Optional.of(
+          new PersistentMonomorphizationCache(
+              cacheDir,
+              maxBytes,
+              MoreFiles.asByteSource(Paths.get(depModuleMonomorphizationBinaryPath)).hash(Hashing.sha256())
+          ));
+    } catch (IOException e) {
+      System.err.println("Warning: Failed to open the monomorphization cache: " + e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  Optional<IPCMessages.MonomorphizationResponse> get(
+      String uniqueModuleName, String depModuleFilePath, MonomorphizationRequest monomorphizationRequest) {
+    Optional<HashCode> key = getKey(uniqueModuleName, depModuleFilePath, monomorphizationRequest);
+    if (key.isPresent()) {
+      try {
+        Path entry = getEntryPath(key.get());
+        IPCMessages.CachedMonomorphizationResponse cached =
+            IPCMessages.CachedMonomorphizationResponse.parseFrom(Files.readAllBytes(entry));
+        IPCMessages.MonomorphizationResponse.Builder res = IPCMessages.MonomorphizationResponse.newBuilder();
+        for (String monomorphizationSha256 : cached.getLocalModuleMonomorphizationSha256SList()) {
+          Path blob = getBlobPath(monomorphizationSha256);
+          res.addLocalModuleMonomorphizations(
+              IPCMessages.MonomorphizationResponse.Monomorphization.parseFrom(Files.readAllBytes(blob)));
+          markUsed(blob);
+        }
+        res.addAllTransitiveDepModuleMonomorphizationRequests(cached.getTransitiveDepModuleMonomorphizationRequestsList());
+        markUsed(entry);
+        this.hits.incrementAndGet();
+        return Optional.of(res.build());
+      } catch (IOException e) {
+        // Either there's no such entry, or some part of it was evicted out from under it. Either way, it's a miss.
+      }
+    }
+    this.misses.incrementAndGet();
+    return Optional.empty();
+  }
+
+  // Must be called with each dep module's responses in exactly the order that its monomorphization session produced
+  // them, and only for successful responses.
+  void put(
+      String uniqueModuleName,
+      String depModuleFilePath,
+      MonomorphizationRequest monomorphizationRequest,
+      IPCMessages.MonomorphizationResponse monomorphizationResponse) {
+    Optional<HashCode> key = getKey(uniqueModuleName, depModuleFilePath, monomorphizationRequest);
+    if (!key.isPresent()) {
+      return;
+    }
+    try {
+      IPCMessages.CachedMonomorphizationResponse.Builder entry =
+          IPCMessages.CachedMonomorphizationResponse.newBuilder()
+              .addAllTransitiveDepModuleMonomorphizationRequests(
+                  monomorphizationResponse.getTransitiveDepModuleMonomorphizationRequestsList());
+      LinkedHashSet<String> sessionMonomorphizationSha256s =
+          this.sessionMonomorphizationSha256sByUniqueModuleName.computeIfAbsent(
+              uniqueModuleName, k -> new LinkedHashSet<>());
+      synchronized (sessionMonomorphizationSha256s) {
+        for (IPCMessages.MonomorphizationResponse.Monomorphization monomorphization
+            : monomorphizationResponse.getLocalModuleMonomorphizationsList()) {
+          byte[] serializedMonomorphization = monomorphization.toByteArray();
+          String monomorphizationSha256 = Hashing.sha256().hashBytes(serializedMonomorphization).toString();
+          if (sessionMonomorphizationSha256s.add(monomorphizationSha256)) {
+            Path blob = getBlobPath(monomorphizationSha256);
+            if (Files.exists(blob)) {
+              markUsed(blob);
+            } else {
+              writeAtomically(blob, serializedMonomorphization);
+            }
+          }
+        }
+        entry.addAllLocalModuleMonomorphizationSha256S(sessionMonomorphizationSha256s);
+      }
+      writeAtomically(getEntryPath(key.get()), entry.build().toByteArray());
+    } catch (IOException e) {
+      System.err.println("Warning: Failed to write to the monomorphization cache: " + e.getMessage());
+    }
+  }
+
+  // Records this compilation's hits and misses in the cache's stats, and then evicts the least recently used files
+  // until the cache is back under its size limit. Should be called once all monomorphizations have been completed.
+  void finish() {
+    CompilerProfiler.Span span =
+        CompilerProfiler.start("monomorphization_cache", "Persistent Monomorphization Cache")
+            .withArg("hits", this.hits.get())
+            .withArg("misses", this.misses.get());
+    int evicted = 0;
+    try {
+      evicted = evictLeastRecentlyUsed();
+      updateStats(evicted);
+    } catch (IOException e) {
+      System.err.println("Warning: Failed to maintain the monomorphization cache: " + e.getMessage());
+    }
+    span.withArg("evicted", evicted).end();
+  }
+
+  private Optional<HashCode> getKey(
+      String uniqueModuleName, String depModuleFilePath, MonomorphizationRequest monomorphizationRequest) {
+    return this.depModuleInputsHashesByUniqueModuleName
+        .computeIfAbsent(uniqueModuleName, k -> hashDepModuleInputs(depModuleFilePath))
+        .map(depModuleInputsHash -> {
+          Hasher hasher = Hashing.sha256().newHasher();
+          hasher.putInt(CACHE_FORMAT_VERSION);
+          hasher.putBytes(this.depModuleMonomorphizationBinaryHash.asBytes());
+          hasher.putInt(uniqueModuleName.length()).putString(uniqueModuleName, StandardCharsets.UTF_8);
+          hasher.putBytes(depModuleInputsHash.asBytes());
+          hasher.putBytes(monomorphizationRequest.toByteArray());
+          return hasher.hash();
+        });
+  }
+
+  private static Optional<HashCode> hashDepModuleInputs(String depModuleFilePath) {
+    try {
+      byte[] depModuleBytes = Files.readAllBytes(Paths.get(depModuleFilePath));
+      Hasher hasher = Hashing.sha256().newHasher();
+      hasher.putInt(depModuleBytes.length).putBytes(depModuleBytes);
+      // The recorded args are already covered by the hash of the .claro_module itself, but the content of the files
+      // that they reference (e.g. "--src foo.claro" or "--dep Foo:foo.claro_module") isn't.
+      for (String arg : SerializedClaroModule.parseDelimitedFrom(new ByteArrayInputStream(depModuleBytes))
+          .getCommandLineArgsList()) {
+        Path referencedFile;
+        try {
+          referencedFile = Paths.get(arg.substring(arg.lastIndexOf(':') + 1));
+        } catch (InvalidPathException e) {
+          continue;
+        }
+        if (Files.isRegularFile(referencedFile)) {
+          hasher.putInt(arg.length()).putString(arg, StandardCharsets.UTF_8);
+          hasher.putBytes(MoreFiles.asByteSource(referencedFile).hash(Hashing.sha256()).asBytes());
+        }
+      }
+      return Optional.of(hasher.hash());
+    } catch (IOException | RuntimeException e) {
+      return Optional.empty();
+    }
+  }
+
+  private int evictLeastRecentlyUsed() throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (String dir : new String[]{ENTRIES_DIR, BLOBS_DIR}) {
+      try (Stream<Path> dirFiles = Files.list(this.cacheDir.resolve(dir))) {
+        dirFiles.filter(Files::isRegularFile).forEach(files::add);
+      }
+    }
+    long totalBytes = 0;
+    for (Path file : files) {
+      totalBytes += Files.size(file);
+    }
+    if (totalBytes <= this.maxBytes) {
+      return 0;
+    }
+    files.sort(Comparator.comparing(PersistentMonomorphizationCache::getLastModifiedTimeOrEpoch));
+    // Evict down to 90% of the limit so that every compilation doesn't end up evicting something.
+    long targetBytes = this.maxBytes / 10 * 9;
+    int evicted = 0;
+    for (Path file : files) {
+      if (totalBytes <= targetBytes) {
+        break;
+      }
+      long size = Files.size(file);
+      if (Files.deleteIfExists(file)) {
+        totalBytes -= size;
+        evicted++;
+      }
+    }
+    return evicted;
+  }
+
+  private void updateStats(int evicted) throws IOException {
+    // Concurrent compilations may share the same cache, so the stats have to be updated under a lock.
+    try (FileChannel channel =
+             FileChannel.open(
+                 this.cacheDir.resolve(STATS_FILE),
+                 StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         FileLock ignored = channel.lock()) {
+      Properties stats = new Properties();
+      stats.load(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1));
+      long totalHits = Long.parseLong(stats.getProperty("hits", "0")) + this.hits.get();
+      long totalMisses = Long.parseLong(stats.getProperty("misses", "0")) + this.misses.get();
+      stats.setProperty("compilations", String.valueOf(Long.parseLong(stats.getProperty("compilations", "0")) + 1));
+      stats.setProperty("hits", String.valueOf(totalHits));
+      stats.setProperty("misses", String.valueOf(totalMisses));
+      stats.setProperty(
+          "hit_rate",
+          String.format("%.4f", totalHits + totalMisses == 0 ? 0.0 : (double) totalHits / (totalHits + totalMisses)));
+      stats.setProperty(
+          "evicted_files", String.valueOf(Long.parseLong(stats.getProperty("evicted_files", "0")) + evicted));
+      channel.truncate(0);
+      channel.position(0);
+      Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1);
+      stats.store(writer, "Claro persistent monomorphization cache stats, accumulated across all compilations.");
+      writer.flush();
+    } catch (NumberFormatException e) {
+      // Someone's tampered with the stats, so just start over.
+      Files.deleteIfExists(this.cacheDir.resolve(STATS_FILE));
+    }
+  }
+
+  // Bumping the last modified time is what makes eviction least recently *used* rather than least recently written.
+  private static void markUsed(Path file) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException ignored) {
+      // At worst, this file is evicted a bit sooner than it should've been.
+    }
+  }
+
+  private static FileTime getLastModifiedTimeOrEpoch(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private void writeAtomically(Path path, byte[] bytes) throws IOException {
+    // Write to a temp file first and then atomically move it into place so that concurrent compilations can never
+    // observe a partially written file.
+    Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tmp, bytes);
+      Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private Path getEntryPath(HashCode key) {
+    return this.cacheDir.resolve(ENTRIES_DIR).resolve(key.toString());
+  }
+
+  private Path getBlobPath(String monomorphizationSha256) {
+    return this.cacheDir.resolve(BLOBS_DIR).resolve(monomorphizationSha256);
+  }
+}
@@ -9,7 +9,6 @@ import com.claro.runtime_utilities.http.$ClaroHttpServer;
 import com.claro.runtime_utilities.http.$HttpUtil;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Maps;
 import com.google.common.io.BaseEncoding;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -17,10 +16,10 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc$monomorphization_ipc.DepModuleMonomorphizationService;
@@ -108,7 +107,7 @@ public class TestCoordinator {
         .build();
   }
 
-  public static HashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState>
+  public static ConcurrentHashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState>
   getRegisteredMonomorphizationSubprocessesByUniqueModuleNameAndStartLocalCoordinatorServerIfNecessary() {
     if (SubprocessRegistration.registeredMonomorphizationSubprocessesByUniqueModuleName.isDone()) {
       try {
@@ -119,7 +118,8 @@ public class TestCoordinator {
     }
     // In this case I need to start up the local coordinator server and then I can mark the registry ready.
     startCoordinatorServer();
-    HashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry = Maps.newHashMap();
+    ConcurrentHashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry =
+        new ConcurrentHashMap<>();
     SubprocessRegistration.registeredMonomorphizationSubprocessesByUniqueModuleName.set(registry);
     return registry;
   }
@@ -204,7 +204,7 @@ public class TestCoordinator {
       String uniqueModuleName) {
     // If a subprocess has already been triggered for this dep module, then I can just return the future client that'll
     // be marked ready once it can respond to monomorphization requests.
-    HashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry =
+    ConcurrentHashMap<String, SubprocessRegistration.DepModuleMonomorphizationSubprocessState> registry =
         getRegisteredMonomorphizationSubprocessesByUniqueModuleNameAndStartLocalCoordinatorServerIfNecessary();
     if (!registry.containsKey(uniqueModuleName)) {
       // Otherwise, we'll need to actually trigger the subprocess for the dep module and register it.
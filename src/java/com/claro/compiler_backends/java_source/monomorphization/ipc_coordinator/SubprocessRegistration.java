@@ -5,18 +5,18 @@ import com.claro.intermediate_representation.types.impls.builtins_impls.futures.
 import com.google.auto.value.AutoValue;
 import com.google.common.util.concurrent.SettableFuture;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc$main_compilation_unit_monomorphization_ipc.DepModuleMonomorphizationService;
 import static claro.lang.src$java$com$claro$compiler_backends$java_source$monomorphization$ipc$main_compilation_unit_monomorphization_ipc.getDepModuleMonomorphizationClient;
 
 public class SubprocessRegistration {
-  public static SettableFuture<HashMap<String, DepModuleMonomorphizationSubprocessState>>
+  public static SettableFuture<ConcurrentHashMap<String, DepModuleMonomorphizationSubprocessState>>
       registeredMonomorphizationSubprocessesByUniqueModuleName = SettableFuture.create();
 
   public static void registerPort(String uniqueModuleName, String port) {
-    HashMap<String, DepModuleMonomorphizationSubprocessState> registry =
+    ConcurrentHashMap<String, DepModuleMonomorphizationSubprocessState> registry =
         getRegisteredMonomorphizationSubprocessesByUniqueModuleName();
 
     if (!registry.containsKey(uniqueModuleName)) {
@@ -37,7 +37,7 @@ public class SubprocessRegistration {
     return new ClaroFuture<>(Types.FutureType.wrapping(Types.STRING), subprocessState.getDoneFuture());
   }
 
-  public static HashMap<String, DepModuleMonomorphizationSubprocessState> getRegisteredMonomorphizationSubprocessesByUniqueModuleName() {
+  public static ConcurrentHashMap<String, DepModuleMonomorphizationSubprocessState> getRegisteredMonomorphizationSubprocessesByUniqueModuleName() {
     try {
       return SubprocessRegistration.registeredMonomorphizationSubprocessesByUniqueModuleName.get();
     } catch (InterruptedException | ExecutionException e) {
@@ -0,0 +1,340 @@
+package com.claro.compiler_backends.java_source.tree_shaking;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.devtools.common.options.Option;
+import com.google.devtools.common.options.OptionsBase;
+import com.google.devtools.common.options.OptionsParser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Shrinks a claro_binary()'s deploy jar down to only the classes that are reachable from its main class, dropping e.g.
+ * stdlib modules, dep module codegen, and builtin Java deps (Guava, Gson, ...) that the program never actually uses.
+ * <p>
+ * Reachability is computed at the granularity of classes, by following every class name mentioned anywhere in a
+ * reachable class's constant pool. That covers direct references, as well as field/method descriptors, generic
+ * signatures, annotations, and string literals naming a class (e.g. for `Class.forName()`). So this conservatively
+ * keeps everything that the program could possibly load by name, with the exception of class names computed at runtime.
+ * Providers listed under `META-INF/services/` are kept whenever their service is reachable, and every non-class
+ * resource is kept as is.
+ * <p>
+ * Alongside the shrunken jar, this writes a report of exactly what was removed.
+ */
+public class DeployJarTreeShaker {
+  private static final String CLASS_FILE_EXTENSION = ".class";
+  private static final String MULTI_RELEASE_PREFIX = "META-INF/versions/";
+  private static final String SERVICES_PREFIX = "META-INF/services/";
+  // Matches every class named in a field/method descriptor or generic signature, e.g. `Lcom/foo/Bar;`.
+  private static final Pattern DESCRIPTOR_CLASS_NAME = Pattern.compile("L([^;<>\\[()]+)[;<]");
+
+  public static void main(String... args) {
+    CLIOptions options = parseCLIOptions(args);
+    if (options.deployJar.isEmpty() || options.mainClass.isEmpty() || options.out.isEmpty()
+        || options.report.isEmpty()) {
+      System.err.println("Error: --deploy_jar, --main_class, --out, and --report are all required.");
+      System.exit(1);
+      return;
+    }
+
+    try {
+      ImmutableList<JarEntryContents> entries = readJar(options.deployJar);
+      ImmutableSet<String> reachableClasses = findReachableClasses(entries, options.mainClass.replace('.', '/'));
+      ImmutableList<JarEntryContents> keptEntries = keepReachable(entries, reachableClasses);
+      writeJar(options.out, keptEntries);
+      Files.writeString(
+          Paths.get(options.report), getReport(options.mainClass, entries, keptEntries), StandardCharsets.UTF_8);
+    } catch (IllegalStateException e) {
+      System.err.println("Error: " + e.getMessage());
+      System.exit(1);
+    } catch (IOException e) {
+      System.err.println("Error: Unable to tree-shake the given deploy jar: " + options.deployJar);
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  private static ImmutableList<JarEntryContents> readJar(String path) throws IOException {
+    ImmutableList.Builder<JarEntryContents> res = ImmutableList.builder();
+    try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+      for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+        res.add(new JarEntryContents(entry, in.readAllBytes()));
+      }
+    }
+    return res.build();
+  }
+
+  private static ImmutableSet<String> findReachableClasses(ImmutableList<JarEntryContents> entries, String mainClass)
+      throws IOException {
+    // Multi-release jars may hold more than one class file per class, and all of them must be followed.
+    SetMultimap<String, JarEntryContents> classFilesByClassName = LinkedHashMultimap.create();
+    SetMultimap<String, String> providersByService = LinkedHashMultimap.create();
+    for (JarEntryContents entry : entries) {
+      entry.getClassName().ifPresent(className -> classFilesByClassName.put(className, entry));
+      if (entry.name.startsWith(SERVICES_PREFIX) && !entry.isDirectory) {
+        String service = entry.name.substring(SERVICES_PREFIX.length()).replace('.', '/');
+        for (String line : new String(entry.contents, StandardCharsets.UTF_8).split("\n")) {
+          String provider = line.replaceFirst("#.*", "").trim();
+          if (!provider.isEmpty()) {
+            providersByService.put(service, provider.replace('.', '/'));
+          }
+        }
+      }
+    }
+    if (!classFilesByClassName.containsKey(mainClass)) {
+      throw new IllegalStateException("The given deploy jar doesn't contain the main class: " + mainClass);
+    }
+
+    Set<String> reachable = new LinkedHashSet<>();
+    Deque<String> worklist = new ArrayDeque<>();
+    reachable.add(mainClass);
+    worklist.add(mainClass);
+    while (!worklist.isEmpty()) {
+      String className = worklist.poll();
+      Set<String> referencedClasses = new HashSet<>(providersByService.get(className));
+      for (JarEntryContents classFile : classFilesByClassName.get(className)) {
+        for (String constant : readUtf8Constants(classFile)) {
+          addReferencedClassNames(constant, referencedClasses);
+        }
+      }
+      for (String referencedClass : referencedClasses) {
+        if (classFilesByClassName.containsKey(referencedClass) && reachable.add(referencedClass)) {
+          worklist.add(referencedClass);
+        }
+      }
+    }
+    return ImmutableSet.copyOf(reachable);
+  }
+
+  // Every class that's referenced by a class file in any way at all is named by one of its CONSTANT_Utf8_info entries,
+  // so there's no need to parse anything beyond the constant pool.
+  private static ImmutableList<String> readUtf8Constants(JarEntryContents classFile) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile.contents));
+    if (in.readInt() != 0xCAFEBABE) {
+      throw new IllegalStateException("Malformed class file: " + classFile.name);
+    }
+    in.readUnsignedShort(); // minor_version
+    in.readUnsignedShort(); // major_version
+    int constantPoolCount = in.readUnsignedShort();
+    ImmutableList.Builder<String> res = ImmutableList.builder();
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          // Class files use the same modified UTF-8 encoding as DataInput.
+          res.add(in.readUTF());
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          in.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          in.skipBytes(3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          in.skipBytes(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          in.skipBytes(8);
+          // These take up two constant pool slots.
+          i++;
+          break;
+        default:
+          throw new IllegalStateException(
+              String.format("Unrecognized constant pool tag %s in class file: %s", tag, classFile.name));
+      }
+    }
+    return res.build();
+  }
+
+  private static void addReferencedClassNames(String constant, Set<String> res) {
+    // The constant itself may be a class name in internal form (e.g. a CONSTANT_Class_info's name), in binary form
+    // (e.g. a string literal passed to `Class.forName()`), or a path to a class file (e.g. a resource lookup).
+    String internalName = constant.replace('.', '/');
+    res.add(internalName);
+    if (internalName.endsWith("/class")) {
+      res.add(internalName.substring(0, internalName.length() - "/class".length()));
+    }
+    if (constant.indexOf(';') >= 0) {
+      Matcher matcher = DESCRIPTOR_CLASS_NAME.matcher(constant);
+      while (matcher.find()) {
+        res.add(matcher.group(1));
+      }
+    }
+  }
+
+  private static ImmutableList<JarEntryContents> keepReachable(
+      ImmutableList<JarEntryContents> entries, ImmutableSet<String> reachableClasses) {
+    Set<JarEntryContents> keptFiles =
+        entries.stream()
+            .filter(e -> !e.isDirectory)
+            .filter(e -> e.getClassName().map(reachableClasses::contains).orElse(true))
+            .collect(ImmutableSet.toImmutableSet());
+    // Only keep directory entries that still contain something.
+    Set<String> nonEmptyDirs = new HashSet<>();
+    for (JarEntryContents file : keptFiles) {
+      for (int i = file.name.indexOf('/'); i >= 0; i = file.name.indexOf('/', i + 1)) {
+        nonEmptyDirs.add(file.name.substring(0, i + 1));
+      }
+    }
+    return entries.stream()
+        .filter(e -> e.isDirectory ? nonEmptyDirs.contains(e.name) : keptFiles.contains(e))
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private static void writeJar(String path, ImmutableList<JarEntryContents> entries) throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+      for (JarEntryContents entry : entries) {
+        ZipEntry zipEntry = new ZipEntry(entry.name);
+        // Preserve the deploy jar's timestamps so that the output is just as reproducible as its input.
+        if (entry.time != -1) {
+          zipEntry.setTime(entry.time);
+        }
+        out.putNextEntry(zipEntry);
+        out.write(entry.contents);
+        out.closeEntry();
+      }
+    }
+  }
+
+  private static String getReport(
+      String mainClass, ImmutableList<JarEntryContents> entries, ImmutableList<JarEntryContents> keptEntries) {
+    Set<JarEntryContents> kept = new HashSet<>(keptEntries);
+    Set<String> allClassNames = new HashSet<>();
+    entries.forEach(e -> e.getClassName().ifPresent(allClassNames::add));
+    // Nested classes are attributed to their top-level class. Claro's generated class names may themselves contain '$'
+    // (e.g. `stdlib$lists$lists`), so the top-level class is the shortest '$'-delimited prefix that's actually a class.
+    SortedMap<String, long[]> classCountAndBytesByRemovedTopLevelClass = new TreeMap<>();
+    SortedMap<String, long[]> classCountAndBytesByRemovedPackage = new TreeMap<>();
+    Set<String> removedClasses = new HashSet<>();
+    long totalBytes = 0;
+    long removedBytes = 0;
+    for (JarEntryContents entry : entries) {
+      totalBytes += entry.contents.length;
+      if (kept.contains(entry) || !entry.getClassName().isPresent()) {
+        continue;
+      }
+      String className = entry.getClassName().get();
+      removedClasses.add(className);
+      removedBytes += entry.contents.length;
+      String topLevelClass = className;
+      for (int i = className.indexOf('$', className.lastIndexOf('/') + 1); i > 0; i = className.indexOf('$', i + 1)) {
+        if (allClassNames.contains(className.substring(0, i))) {
+          topLevelClass = className.substring(0, i);
+          break;
+        }
+      }
+      long[] topLevelClassCountAndBytes =
+          classCountAndBytesByRemovedTopLevelClass.computeIfAbsent(topLevelClass.replace('/', '.'), k -> new long[2]);
+      topLevelClassCountAndBytes[0]++;
+      topLevelClassCountAndBytes[1] += entry.contents.length;
+      String pkg = className.lastIndexOf('/') < 0 ? "" : className.substring(0, className.lastIndexOf('/'));
+      long[] packageCountAndBytes =
+          classCountAndBytesByRemovedPackage.computeIfAbsent(pkg.replace('/', '.'), k -> new long[2]);
+      packageCountAndBytes[0]++;
+      packageCountAndBytes[1] += entry.contents.length;
+    }
+
+    StringBuilder res = new StringBuilder();
+    res.append(String.format("Tree-shaking report for %s%n%n", mainClass));
+    res.append(String.format(
+        "Removed %,d of %,d classes, %,d of %,d uncompressed bytes (%.1f%%).%n",
+        removedClasses.size(), allClassNames.size(), removedBytes, totalBytes,
+        totalBytes == 0 ? 0.0 : 100.0 * removedBytes / totalBytes
+    ));
+    res.append(String.format("%nRemoved by package:%n"));
+    classCountAndBytesByRemovedPackage.forEach(
+        (pkg, countAndBytes) -> res.append(String.format(
+            "  %-70s %,6d classes %,12d bytes%n", pkg.isEmpty() ? "<default>" : pkg, countAndBytes[0],
+            countAndBytes[1]
+        )));
+    res.append(String.format("%nRemoved top-level classes (including their nested classes):%n"));
+    classCountAndBytesByRemovedTopLevelClass.forEach(
+        (topLevelClass, countAndBytes) -> res.append(String.format(
+            "  %-70s %,6d classes %,12d bytes%n", topLevelClass, countAndBytes[0], countAndBytes[1])));
+    return res.toString();
+  }
+
+  private static CLIOptions parseCLIOptions(String... args) {
+    OptionsParser parser = OptionsParser.newOptionsParser(CLIOptions.class);
+    parser.parseAndExitUponError(args);
+    return parser.getOptions(CLIOptions.class);
+  }
+
+  private static final class JarEntryContents {
+    final String name;
+    final boolean isDirectory;
+    final long time;
+    final byte[] contents;
+
+    JarEntryContents(ZipEntry entry, byte[] contents) {
+      this.name = entry.getName();
+      this.isDirectory = entry.isDirectory();
+      this.time = entry.getTime();
+      this.contents = contents;
+    }
+
+    // Returns the internal name of the class defined by this entry, if it's a class file (other than a module-info).
+    Optional<String> getClassName() {
+      if (this.isDirectory || !this.name.endsWith(CLASS_FILE_EXTENSION) || this.name.endsWith("module-info.class")) {
+        return Optional.empty();
+      }
+      String res = this.name.substring(0, this.name.length() - CLASS_FILE_EXTENSION.length());
+      if (res.startsWith(MULTI_RELEASE_PREFIX)) {
+        // E.g. META-INF/versions/9/com/foo/Bar.class defines com/foo/Bar.
+        int versionEnd = res.indexOf('/', MULTI_RELEASE_PREFIX.length());
+        res = versionEnd < 0 ? res : res.substring(versionEnd + 1);
+      }
+      return Optional.of(res);
+    }
+  }
+
+  public static class CLIOptions extends OptionsBase {
+    @Option(
+        name = "deploy_jar",
+        help = "Path to the claro_binary()'s deploy jar.",
+        defaultValue = ""
+    )
+    public String deployJar;
+    @Option(
+        name = "main_class",
+        help = "The fully qualified name of the program's main class, from which reachability is computed.",
+        defaultValue = ""
+    )
+    public String mainClass;
+    @Option(
+        name = "out",
+        help = "Path to write the tree-shaken deploy jar to.",
+        defaultValue = ""
+    )
+    public String out;
+    @Option(
+        name = "report",
+        help = "Path to write the report of everything that was removed to.",
+        defaultValue = ""
+    )
+    public String report;
+  }
+}
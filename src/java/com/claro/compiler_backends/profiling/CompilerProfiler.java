@@ -0,0 +1,146 @@
+package com.claro.compiler_backends.profiling;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A lightweight profiler used to attribute compile time to individual compiler phases, top-level statements, dep module
+ * deserialization, and dep module monomorphization IPC, enabled via the compiler's `--profile_output` option.
+ * <p>
+ * Each recorded {@link Span} captures wall time and the bytes allocated by the current thread while it was open, along
+ * with any additional args (e.g. AST node counts). The result is written in Chrome's Trace Event Format so that it can
+ * be opened directly in chrome://tracing or https://ui.perfetto.dev.
+ * <p>
+ * When profiling isn't enabled, every method here is a cheap no-op so that call sites don't need to guard themselves.
+ */
+public final class CompilerProfiler {
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+  private static final Span NOOP_SPAN = new Span(null, null);
+
+  private static Optional<Path> optionalTraceOutputPath = Optional.empty();
+  private static long profilingStartNanos;
+  private static List<Map<String, Object>> traceEvents = Collections.synchronizedList(new ArrayList<>());
+
+  private CompilerProfiler() {
+  }
+
+  public static void enable(Path traceOutputPath) {
+    CompilerProfiler.optionalTraceOutputPath = Optional.of(traceOutputPath);
+    CompilerProfiler.profilingStartNanos = System.nanoTime();
+  }
+
+  public static boolean isEnabled() {
+    return CompilerProfiler.optionalTraceOutputPath.isPresent();
+  }
+
+  public static void reset() {
+    CompilerProfiler.optionalTraceOutputPath = Optional.empty();
+    CompilerProfiler.traceEvents = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  /**
+   * Starts a new span that will be recorded once {@link Span#end()} is called. Spans that are never ended (e.g. because
+   * compilation failed with an exception) are simply dropped.
+   */
+  public static Span start(String category, String name) {
+    if (!isEnabled()) {
+      return NOOP_SPAN;
+    }
+    return new Span(category, name);
+  }
+
+  /**
+   * Writes all recorded spans to the configured trace output path as Chrome trace JSON. Does nothing if profiling isn't
+   * enabled.
+   */
+  public static void writeChromeTraceIfEnabled() {
+    if (!isEnabled()) {
+      return;
+    }
+    Map<String, Object> processName = new LinkedHashMap<>();
+    processName.put("name", "process_name");
+    processName.put("ph", "M");
+    processName.put("pid", 1);
+    processName.put("args", Collections.singletonMap("name", "Claro Compiler"));
+    Map<String, Object> trace = new LinkedHashMap<>();
+    synchronized (CompilerProfiler.traceEvents) {
+      List<Map<String, Object>> events = new ArrayList<>(CompilerProfiler.traceEvents.size() + 1);
+      events.add(processName);
+      events.addAll(CompilerProfiler.traceEvents);
+      trace.put("traceEvents", events);
+    }
+    trace.put("displayTimeUnit", "ms");
+    Path traceOutputPath = CompilerProfiler.optionalTraceOutputPath.get();
+    try (Writer writer = Files.newBufferedWriter(traceOutputPath, StandardCharsets.UTF_8)) {
+      new Gson().toJson(trace, writer);
+    } catch (IOException e) {
+      System.err.println("Failed to write compiler profile to " + traceOutputPath + ": " + e.getMessage());
+    }
+  }
+
+  // Returns -1 if the JVM doesn't support measuring per-thread allocations.
+  private static long getCurrentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  public static final class Span {
+    private final String category;
+    private final String name;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private final Map<String, Object> args;
+
+    private Span(String category, String name) {
+      this.category = category;
+      this.name = name;
+      if (category == null) {
+        // This is the no-op span.
+        this.startNanos = 0;
+        this.startAllocatedBytes = 0;
+        this.args = null;
+      } else {
+        this.args = new LinkedHashMap<>();
+        this.startAllocatedBytes = getCurrentThreadAllocatedBytes();
+        this.startNanos = System.nanoTime();
+      }
+    }
+
+    public Span withArg(String key, Object value) {
+      if (this.args != null) {
+        this.args.put(key, value);
+      }
+      return this;
+    }
+
+    public void end() {
+      if (this.args == null) {
+        return;
+      }
+      long endNanos = System.nanoTime();
+      if (this.startAllocatedBytes >= 0) {
+        this.args.put("allocated_bytes", getCurrentThreadAllocatedBytes() - this.startAllocatedBytes);
+      }
+      Map<String, Object> event = new LinkedHashMap<>();
+      event.put("name", this.name);
+      event.put("cat", this.category);
+      event.put("ph", "X");
+      event.put("ts", (this.startNanos - CompilerProfiler.profilingStartNanos) / 1_000.0);
+      event.put("dur", (endNanos - this.startNanos) / 1_000.0);
+      event.put("pid", 1);
+      event.put("tid", Thread.currentThread().getId());
+      event.put("args", this.args);
+      CompilerProfiler.traceEvents.add(event);
+    }
+  }
+}
@@ -7,30 +7,127 @@ import com.claro.compiler_backends.ParserUtil;
 import com.claro.compiler_backends.interpreted.ScopedHeap;
 import com.claro.compiler_backends.repl.repl_terminal.ReplTerminal;
 import com.claro.intermediate_representation.ProgramNode;
-import com.claro.intermediate_representation.Target;
 import com.claro.intermediate_representation.expressions.Expr;
 import com.claro.intermediate_representation.statements.Stmt;
+import com.claro.runtime_utilities.ClaroRuntimeUtilities;
 import com.claro.stdlib.StdLibUtil;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
 
+import javax.tools.*;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.function.Function;
 
+/**
+ * Compiles each REPL input to Java bytecode and runs it, so that everything supported by the java_source backend works
+ * in the REPL at the speed of compiled code.
+ * <p>
+ * Each input is codegen'd as its own class extending the class generated for the previous input, with every top-level
+ * binding that it declares promoted to a static field. So every binding, procedure, and type defined by any previous
+ * input remains directly accessible to later inputs via inheritance, all while the input itself is compiled using the
+ * exact same codegen as any other Claro program. The generated classes are compiled by the in-process Java compiler
+ * into a temp dir that's on the classpath of a single classloader persisting for the life of the REPL.
+ */
 public class Repl implements CompilerBackend {
 
+  private static final String REPL_INPUT_CLASS_NAME_PREFIX = "$ReplInput$";
+
   // To maintain REPL state, we're gonna keep a heap to reuse across all REPL statements.
   private final ScopedHeap SCOPED_HEAP = new ScopedHeap();
 
   private Function<ScopedHeap, ImmutableList<Stmt>> setupStdLibFn = StdLibUtil::registerIdentifiers;
 
+  private final Path replClassesDir;
+  private final URLClassLoader replClassLoader;
+  private final ImmutableList<String> javacOptions;
+  private Optional<String> optionalPrevReplInputClassName = Optional.empty();
+  private int replInputCount = 0;
+  // Reused across every input so that javac only ever has to index the classpath once.
+  private JavaCompiler javac;
+  private StandardJavaFileManager javaFileManager;
+
   public Repl() {
     // Make sure that the REPL's heap is ready.
     SCOPED_HEAP.enterNewScope();
+    // We can't check for unused identifiers in the REPL because we might just not yet have seen the instruction where a
+    // given identifier will be used.
+    SCOPED_HEAP.disableCheckUnused();
+    ProgramNode.resourcesByName = ImmutableMap.of();
+
+    try {
+      this.replClassesDir = Files.createTempDirectory("claro_repl");
+      // The generated code runs against the very same Claro runtime classes that the compiler itself is running with.
+      this.replClassLoader =
+          new URLClassLoader(new URL[]{this.replClassesDir.toUri().toURL()}, Repl.class.getClassLoader());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        MoreFiles.deleteRecursively(this.replClassesDir, RecursiveDeleteOption.ALLOW_INSECURE);
+      } catch (IOException ignored) {
+        // It's only a temp dir, nothing more to do.
+      }
+    }));
+    this.javacOptions =
+        ImmutableList.of(
+            // Generated code has nothing to process, and its unchecked casts are expected.
+            "-g", "-nowarn", "-proc:none",
+            "-cp", System.getProperty("java.class.path") + File.pathSeparator + this.replClassesDir,
+            "-d", this.replClassesDir.toString()
+        );
   }
 
   @Override
   public void run() {
-    ReplTerminal replTerminal = new ReplTerminal(this::interpretInstruction);
-    replTerminal.runTerminal();
+    this.javac = ToolProvider.getSystemJavaCompiler();
+    if (this.javac == null) {
+      System.err.println(
+          "Error: The REPL must be run on a JDK rather than a JRE, as it requires the system Java compiler.");
+      return;
+    }
+    this.javaFileManager = this.javac.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    try {
+      if (System.console() == null) {
+        // Inputs are being piped in (e.g. by a script or a test) rather than typed at a terminal, so there's no line
+        // editing to support. Each line is simply its own input, exactly as if Enter had been pressed after it.
+        runPipedInputs();
+      } else {
+        new ReplTerminal(this::interpretInstruction).runTerminal();
+      }
+    } finally {
+      // Because Claro has native support for Graph Functions which execute concurrently/asynchronously, we also need to
+      // make sure to shutdown the executor service at the end of the session to clean up.
+      ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);
+    }
+  }
+
+  private void runPipedInputs() {
+    BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    try {
+      String line;
+      while ((line = stdin.readLine()) != null) {
+        if (!line.trim().isEmpty()) {
+          interpretInstruction(line);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   private Void interpretInstruction(String instruction) {
@@ -40,16 +137,33 @@ public class Repl implements CompilerBackend {
     // This is a fair bit of a hack to just delete the '.claro:1: ' prefix from in front of the error messages.
     parser.generatedClassName = "\b\b\b\b\b\b\b\b\b\b";
 
+    String replInputClassName = REPL_INPUT_CLASS_NAME_PREFIX + this.replInputCount;
     try {
-      ((ProgramNode) parser.parse().value).generateTargetOutput(Target.REPL, SCOPED_HEAP, setupStdLibFn);
-      setupStdLibFn = s -> {
-        return ImmutableList.of();
-      }; // We'll keep reusing the same ScopedHeap, so we don't need to do this again.
+      ProgramNode programNode = (ProgramNode) parser.parse().value;
+      Optional<StringBuilder> optionalReplInputJavaSource = Optional.empty();
+      if (parser.errorsFound == 0) {
+        optionalReplInputJavaSource =
+            programNode.generateReplJavaSource(
+                SCOPED_HEAP, replInputClassName, this.optionalPrevReplInputClassName, setupStdLibFn);
+      }
       if (!(parser.errorsFound == 0 && Expr.typeErrorsFound.isEmpty() && ProgramNode.miscErrorsFound.isEmpty())) {
-        ClaroParser.errorMessages.forEach(Runnable::run);
+        parser.errorMessages.forEach(Runnable::run);
         Expr.typeErrorsFound.forEach(e -> e.accept(parser.generatedClassName));
         ProgramNode.miscErrorsFound.forEach(Runnable::run);
         warnErrorsFound(parser);
+      } else if (optionalReplInputJavaSource.isPresent()) {
+        if (!compile(replInputClassName, optionalReplInputJavaSource.get())) {
+          // Drop everything this input registered, since no later input will be able to reference any of it.
+          programNode.rollbackReplInput(SCOPED_HEAP);
+          return null;
+        }
+        // The stdlib only gets registered by the first input to actually be accepted, as any rejected input's
+        // registrations are all rolled back. We'll keep reusing the same ScopedHeap, so we don't need to do this again.
+        setupStdLibFn = s -> ImmutableList.of();
+        // Every following input builds on this one, even if running it fails partway through.
+        this.optionalPrevReplInputClassName = Optional.of(replInputClassName);
+        this.replInputCount++;
+        runReplInput(replInputClassName);
       }
     } catch (ClaroParserException e) {
       parser.errorMessages.forEach(Runnable::run);
@@ -75,11 +189,46 @@ public class Repl implements CompilerBackend {
     return null;
   }
 
+  private boolean compile(String replInputClassName, StringBuilder replInputJavaSource) {
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    JavaFileObject source =
+        new SimpleJavaFileObject(
+            URI.create("string:///" + replInputClassName + JavaFileObject.Kind.SOURCE.extension),
+            JavaFileObject.Kind.SOURCE
+        ) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return replInputJavaSource;
+          }
+        };
+    boolean success =
+        this.javac.getTask(
+            null, this.javaFileManager, diagnostics, this.javacOptions, null, ImmutableList.of(source)).call();
+    if (!success) {
+      System.err.println("Internal Compiler Error! Failed to compile the generated Java source:");
+      for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+        if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+          System.err.println(diagnostic);
+        }
+      }
+    }
+    return success;
+  }
+
+  private void runReplInput(String replInputClassName) throws ReflectiveOperationException {
+    try {
+      this.replClassLoader.loadClass(replInputClassName).getMethod("$run").invoke(null);
+    } catch (InvocationTargetException e) {
+      // Mirror what would've happened to an uncaught exception in a standalone program, without ending the session.
+      e.getCause().printStackTrace();
+    }
+  }
+
   private ClaroParser getParser(String currLine) {
     ClaroParser parser =
         ParserUtil.createParser(currLine.trim(), "REPL", "REPL", /*supportInternalOnlyFeatures*/false, /*escapeSpecialChars*/false);
 
-    // These are unused for the interpreted case. We're not gonna produce any files.
+    // The generated class names are managed by the REPL itself, and the generated classes live in the default package.
     parser.generatedClassName = "";
     parser.package_string = "";
 
@@ -4,7 +4,9 @@ import com.claro.compiler_backends.interpreted.ScopedHeap;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class Node {
@@ -20,6 +22,25 @@ public abstract class Node {
     return children;
   }
 
+  // Counts the nodes in the AST rooted at this Node. This is only used for profiling, and intentionally avoids
+  // recursion so that it can't overflow the stack on very large programs.
+  public long countAstNodes() {
+    long count = 0;
+    ArrayDeque<Node> remaining = new ArrayDeque<>();
+    remaining.push(this);
+    while (!remaining.isEmpty()) {
+      count++;
+      remaining.pop().getCountedAstNodes().forEach(remaining::push);
+    }
+    return count;
+  }
+
+  // Nodes that reference other AST nodes outside of their children (e.g. StmtListNode's tail) should override this so
+  // that they're accounted for by countAstNodes().
+  protected Iterable<Node> getCountedAstNodes() {
+    return getChildren();
+  }
+
   // In this case the ScopedHeap is only getting used as a symbol table for lookups of whether the identifier is already
   // declared or not.
   public abstract GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap);
@@ -101,9 +122,114 @@ public abstract class Node {
       );
     }
 
+    /**
+     * Returns a new, empty {@link Accumulator} for merging a long sequence of {@link GeneratedJavaSource} instances
+     * (e.g. the codegen for every stmt in a program). Repeatedly calling {@link #createMerged(GeneratedJavaSource)}
+     * would instead copy everything merged so far on every single call, which is quadratic in the size of the program.
+     */
+    public static Accumulator accumulator() {
+      return new Accumulator();
+    }
+
     @Override
     public String toString() {
       throw new UnsupportedOperationException("Internal Compiler Error: GeneratedJavaSource is internal only.");
     }
+
+    /**
+     * Append-only builder of a single {@link GeneratedJavaSource}, into which every merged instance is copied exactly
+     * once. The merged instances themselves are never mutated, so they're free to be shared elsewhere.
+     */
+    public static final class Accumulator {
+      private final StringBuilder javaSourceBody = new StringBuilder();
+      private Optional<StringBuilder> optionalStaticDefinitions = Optional.empty();
+      private Optional<StringBuilder> optionalStaticPreambleStmts = Optional.empty();
+
+      private Accumulator() {
+      }
+
+      public Accumulator append(GeneratedJavaSource other) {
+        this.javaSourceBody.append(other.javaSourceBody());
+        if (other.optionalStaticDefinitions().isPresent()) {
+          if (!this.optionalStaticDefinitions.isPresent()) {
+            this.optionalStaticDefinitions = Optional.of(new StringBuilder());
+          }
+          this.optionalStaticDefinitions.get().append(other.optionalStaticDefinitions().get());
+        }
+        if (other.optionalStaticPreambleStmts().isPresent()) {
+          if (!this.optionalStaticPreambleStmts.isPresent()) {
+            this.optionalStaticPreambleStmts = Optional.of(new StringBuilder());
+          }
+          this.optionalStaticPreambleStmts.get().append(other.optionalStaticPreambleStmts().get());
+        }
+        return this;
+      }
+
+      // The returned instance takes ownership of this Accumulator's builders, so nothing more should be appended after.
+      public GeneratedJavaSource build() {
+        return GeneratedJavaSource.create(
+            this.javaSourceBody, this.optionalStaticDefinitions, this.optionalStaticPreambleStmts);
+      }
+    }
+  }
+
+  /**
+   * The final Java src file generated for a compilation unit, kept as the ordered sequence of sections that it's
+   * assembled from (imports, static preamble, static definitions, main method body, ...) rather than as one single
+   * copy of the entire program. The sections are only ever concatenated as they're streamed to their destination by
+   * {@link #writeTo(Writer)}.
+   */
+  public static final class GeneratedJavaSourceFile {
+    private static final int WRITE_CHUNK_SIZE = 8 * 1024;
+
+    private final ArrayList<CharSequence> sections = new ArrayList<>();
+    // Only these sections are exclusively owned by this file, the rest may be shared elsewhere so must be left intact.
+    private final Set<CharSequence> ownedSections = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long length = 0;
+
+    public GeneratedJavaSourceFile append(CharSequence section) {
+      this.sections.add(section);
+      this.length += section.length();
+      return this;
+    }
+
+    // The given section is handed over to this file, so its buffer will be dropped as soon as it's been written.
+    public GeneratedJavaSourceFile appendAndRelease(StringBuilder section) {
+      this.ownedSections.add(section);
+      return append(section);
+    }
+
+    public long length() {
+      return this.length;
+    }
+
+    /**
+     * Writes each section in order, releasing each owned section as soon as it's been written so that the program is
+     * never held in memory alongside a complete copy of itself. This consumes the file, so it may only be called once.
+     */
+    public void writeTo(Writer writer) throws IOException {
+      char[] chunk = new char[WRITE_CHUNK_SIZE];
+      for (int i = 0; i < this.sections.size(); i++) {
+        CharSequence section = this.sections.get(i);
+        if (section instanceof StringBuilder) {
+          // Write the section one chunk at a time, as section.toString() would copy the entire section all at once.
+          StringBuilder builder = (StringBuilder) section;
+          for (int start = 0; start < builder.length(); start += chunk.length) {
+            int end = Math.min(start + chunk.length, builder.length());
+            builder.getChars(start, end, chunk, 0);
+            writer.write(chunk, 0, end - start);
+          }
+        } else {
+          writer.write(section.toString());
+        }
+        if (this.ownedSections.remove(section)) {
+          ((StringBuilder) section).setLength(0);
+          ((StringBuilder) section).trimToSize();
+        }
+        this.sections.set(i, null);
+      }
+      this.sections.clear();
+      this.length = 0;
+    }
   }
 }
@@ -3,6 +3,7 @@ package com.claro.intermediate_representation;
 import com.claro.compiler_backends.interpreted.ScopedHeap;
 import com.claro.compiler_backends.java_source.monomorphization.MonomorphizationCoordinator;
 import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
+import com.claro.compiler_backends.profiling.CompilerProfiler;
 import com.claro.intermediate_representation.expressions.Expr;
 import com.claro.intermediate_representation.expressions.procedures.functions.StructuralConcreteGenericTypeValidationUtil;
 import com.claro.intermediate_representation.statements.*;
@@ -35,8 +36,53 @@ public class ProgramNode {
       transitiveExportedFlags;
   public static ImmutableMap<String, String> resourcesByName;
 
+  private long profiledAstNodeCount = -1;
+
+  // Every class generated for a Claro program gets the same set of imports, as codegen throughout the compiler assumes
+  // that all of these are available unqualified.
+  private static final String GENERATED_JAVA_SOURCE_IMPORTS =
+      "import static com.claro.stdlib.userinput.UserInput.promptUserInput;\n" +
+      "\n" +
+      "import com.claro.intermediate_representation.types.BaseType;\n" +
+      "import com.claro.intermediate_representation.types.ConcreteType;\n" +
+      "import com.claro.intermediate_representation.types.SupportsMutableVariant;\n" +
+      "import com.claro.intermediate_representation.types.Type;\n" +
+      "import com.claro.intermediate_representation.types.TypeProvider;\n" +
+      "import com.claro.intermediate_representation.types.Types;\n" +
+      "import com.claro.intermediate_representation.types.impls.ClaroTypeImplementation;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.*;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.collections.*;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.atoms.$ClaroAtom;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.futures.ClaroFuture;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.procedures.ClaroConsumerFunction;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.procedures.ClaroFunction;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.procedures.ClaroProviderFunction;\n" +
+      "import com.claro.intermediate_representation.types.impls.builtins_impls.structs.ClaroStruct;\n" +
+      "import com.claro.intermediate_representation.types.impls.user_defined_impls.$UserDefinedType;\n" +
+      "import com.claro.intermediate_representation.types.impls.user_defined_impls.ClaroUserDefinedTypeImplementation;\n" +
+      "import com.claro.runtime_utilities.ClaroRuntimeUtilities;\n" +
+      "import com.claro.runtime_utilities.injector.Injector;\n" +
+      "import com.claro.runtime_utilities.injector.Key;\n" +
+      "import com.claro.stdlib.userinput.UserInput;\n" +
+      "import com.google.common.collect.ImmutableList;\n" +
+      "import com.google.common.collect.ImmutableMap;\n" +
+      "import com.google.common.collect.ImmutableSet;\n" +
+      "import com.google.common.util.concurrent.Futures;\n" +
+      "import com.google.common.util.concurrent.ListenableFuture;\n" +
+      "import com.google.devtools.common.options.Option;\n" +
+      "import com.google.devtools.common.options.OptionsBase;\n" +
+      "import java.io.StringReader;\n" +
+      "import java.util.ArrayList;\n" +
+      "import java.util.List;\n" +
+      "import java.util.Optional;\n" +
+      "import java.util.concurrent.ExecutionException;\n" +
+      "import java.util.function.Function;\n" +
+      "import java.util.function.Supplier;\n" +
+      "import java.util.stream.Collectors;\n";
+
   // By default, don't support any StdLib.
   private Function<ScopedHeap, ImmutableList<Stmt>> setupStdLibFn = s -> ImmutableList.of();
+  private Optional<ReplInputRollback> optionalReplInputRollback = Optional.empty();
 
   // TODO(steving) package and generatedClassName should probably be injected some cleaner way since this is a Target::JAVA_SOURCE-only artifact.
   public ProgramNode(
@@ -60,7 +106,7 @@ public class ProgramNode {
     };
   }
 
-  public StringBuilder generateTargetOutput(
+  public Node.GeneratedJavaSourceFile generateTargetOutput(
       Target target,
       // Injecting this here literally just to keep Bazel from needing a circular dep on ProgramNode via Exec method.
       // TODO(steving) Fix this garbage.
@@ -70,12 +116,12 @@ public class ProgramNode {
     return generateTargetOutput(target, scopedHeap, setupStdLibFn);
   }
 
-  public StringBuilder generateTargetOutput(
+  public Node.GeneratedJavaSourceFile generateTargetOutput(
       Target target,
       ScopedHeap scopedHeap,
       Function<ScopedHeap, ImmutableList<Stmt>> setupStdLibFn) throws IllegalArgumentException {
     this.setupStdLibFn = setupStdLibFn;
-    StringBuilder generatedOutput;
+    Node.GeneratedJavaSourceFile generatedOutput;
     switch (target) {
       case JAVA_SOURCE:
         generatedOutput = generateJavaSourceOutput(scopedHeap);
@@ -86,7 +132,8 @@ public class ProgramNode {
         scopedHeap.disableCheckUnused();
         // We're gonna be a bit overly clever and allow fallthrough to the next case just for kicks.
       case INTERPRETED:
-        generatedOutput = new StringBuilder().append(generateInterpretedOutput(scopedHeap));
+        generatedOutput =
+            new Node.GeneratedJavaSourceFile().append(String.valueOf(generateInterpretedOutput(scopedHeap)));
         break;
       default:
         throw new IllegalArgumentException("Unexpected Target: " + target);
@@ -105,31 +152,46 @@ public class ProgramNode {
 
   // TODO(steving) This method needs to be refactored and have lots of its logic lifted up out into the callers which
   // TODO(steving) are the actual CompilerBackend's. Most of what's going on here is legit not an AST node's responsibility.
-  public StringBuilder generateJavaSourceOutput(ScopedHeap scopedHeap) {
+  public Node.GeneratedJavaSourceFile generateJavaSourceOutput(ScopedHeap scopedHeap) {
     // RUN ALL PHASES THAT PRECEDE TYPE VALIDATION. THESE PHASES PREPROCESS THE GIVEN PROGRAM TO "DISCOVER" AND REGISTER
     // ALL TYPES AND IDENTIFIERS THAT WILL BE NECESSARY DURING THE FOLLOWING TYPE VALIDATION PHASES.
     runDiscoveryCompilationPhases(scopedHeap);
+    if (CompilerProfiler.isEnabled()) {
+      runPhaseOverAllProgramFiles(p -> p.stmtListNode.profileTopLevelStmts = true);
+    }
 
     // MODULE TYPE VALIDATION PHASE:
+    CompilerProfiler.Span phase = startPhaseSpan("Module Type Validation");
     runPhaseOverAllProgramFiles(p -> p.performModuleTypeValidationPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // TRANSITIVE EXPORTED FLAGS VALIDATION PHASE:
+    phase = startPhaseSpan("Transitive Exported Flags Validation");
     performTransitiveFlagDefsValidationPhase();
+    phase.end();
 
     // STATIC VALUE PROVIDER VALIDATION PHASE:
     if (ProgramNode.moduleApiDef.isPresent()) {
+      phase = startPhaseSpan("Static Value Provider Validation");
       performStaticValueProviderValidationPhase(scopedHeap);
+      phase.end();
     }
 
     // PROCEDURE TYPE VALIDATION PHASE:
+    phase = startPhaseSpan("Procedure Type Validation");
     runPhaseOverAllProgramFiles(p -> p.performProcedureTypeValidationPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // CONTRACT TYPE VALIDATION PHASE:
+    phase = startPhaseSpan("Contract Type Validation");
     runPhaseOverAllProgramFiles(p -> p.performContractTypeValidationPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // GENERIC PROCEDURE TYPE VALIDATION PHASE:
+    phase = startPhaseSpan("Generic Procedure Type Validation");
     runPhaseOverAllProgramFiles(p -> p.performGenericProcedureTypeValidationPhase(p.stmtListNode, scopedHeap));
     InternalStaticStateUtil.GnericProcedureDefinitionStmt_doneWithGenericProcedureTypeValidationPhase = true;
+    phase.end();
 
     // Now, force the ScopedHeap into a new Scope, because we want to make it explicit that top-level function
     // definitions live in their own scope and cannot reference variables below. We consider functions defined
@@ -138,6 +200,7 @@ public class ProgramNode {
 
     // NON-PROCEDURE/MODULE STATEMENT TYPE VALIDATION PHASE:
     // Validate all types in the entire remaining AST before execution.
+    phase = startPhaseSpan("Type Validation");
     if (ProgramNode.moduleApiDef.isPresent()) {
       // Since we're compiling this source code against a module api, it may actually turn out that there are newtype
       // defs exported by the module whose constructors require type checking.
@@ -169,6 +232,7 @@ public class ProgramNode {
           }
         }
     );
+    phase.end();
 
     // UNUSED CHECKING PHASE:
     // Manually exit the last observed scope which is the global scope, since nothing else will trigger its exit.
@@ -193,6 +257,7 @@ public class ProgramNode {
     // Here, in the case that this program is being compiled as a Module, then I must validate that the Module API is
     // actually being correctly satisfied by the given implementation files that were just validated.
     if (ProgramNode.moduleApiDef.isPresent()) {
+      phase = startPhaseSpan("Module API Validation");
       try {
         ProgramNode.moduleApiDef.get().assertOpaqueTypesDefinedInternally(scopedHeap);
         ProgramNode.moduleApiDef.get().assertExpectedProceduresActuallyExported(scopedHeap);
@@ -207,48 +272,53 @@ public class ProgramNode {
             errMsg -> miscErrorsFound.push(() -> System.err.println(errMsg))
         );
       }
+      phase.end();
     }
 
     // CODE GEN PHASE:
     // Refuse to do code-gen phase if there were any type validation errors.
-    StringBuilder res = null; // I hate null but am also too lazy right now to refactor to Optional<StringBuilder>
+    Node.GeneratedJavaSourceFile res = null; // I hate null but am also too lazy right now to refactor to Optional<...>
     if (Expr.typeErrorsFound.isEmpty() && miscErrorsFound.isEmpty()) {
-      // Begin codegen on all non-main src files.
-      Node.GeneratedJavaSource programJavaSource = Node.GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
+      phase = startPhaseSpan("Codegen");
+      // Begin codegen on all non-main src files. Everything is appended to a single accumulator so that the codegen
+      // for the whole program is only ever copied once on its way into the final Java src file.
+      Node.GeneratedJavaSource.Accumulator programJavaSourceAccumulator = Node.GeneratedJavaSource.accumulator();
       if (ProgramNode.moduleApiDef.isPresent()) {
         // Since we're compiling this source code against a module api, start by doing codegen for any exported static
         // value definitions, so that static initialization later won't run into any "forward declaration" issues.
         for (FlagDefStmt flagDefStmt : ProgramNode.moduleApiDef.get().exportedFlagDefs) {
-          programJavaSource = programJavaSource.createMerged(flagDefStmt.generateJavaSourceOutput(scopedHeap));
+          programJavaSourceAccumulator.append(flagDefStmt.generateJavaSourceOutput(scopedHeap));
         }
         for (StaticValueDefStmt staticValueDefStmt : ProgramNode.moduleApiDef.get().exportedStaticValueDefs) {
-          programJavaSource = programJavaSource.createMerged(staticValueDefStmt.generateJavaSourceOutput(scopedHeap));
+          programJavaSourceAccumulator.append(staticValueDefStmt.generateJavaSourceOutput(scopedHeap));
         }
         // It may turn out that there are newtype defs exported by the module whose constructors require codegen.
         for (NewTypeDefStmt exportedNewTypeDef : ProgramNode.moduleApiDef.get().exportedNewTypeDefs) {
-          programJavaSource = programJavaSource.createMerged(exportedNewTypeDef.generateJavaSourceOutput(scopedHeap));
+          programJavaSourceAccumulator.append(exportedNewTypeDef.generateJavaSourceOutput(scopedHeap));
         }
         for (HttpServiceDefStmt exportedHttpServiceDefStmt : ProgramNode.moduleApiDef.get().exportedHttpServiceDefs) {
-          programJavaSource =
-              programJavaSource.createMerged(exportedHttpServiceDefStmt.generateJavaSourceOutput(scopedHeap));
+          programJavaSourceAccumulator.append(exportedHttpServiceDefStmt.generateJavaSourceOutput(scopedHeap));
         }
       }
       for (ProgramNode currNonMainProgramNode : ProgramNode.nonMainFiles) {
-        programJavaSource = programJavaSource.createMerged(
-            currNonMainProgramNode.stmtListNode.generateJavaSourceOutput(scopedHeap, this.generatedClassName));
-        // Drop all javaSourceBody's from each because we actually don't want anything from non-main src files except
+        Node.GeneratedJavaSource nonMainJavaSource =
+            currNonMainProgramNode.stmtListNode.generateJavaSourceOutput(scopedHeap, this.generatedClassName);
+        // Drop the javaSourceBody from each because we actually don't want anything from non-main src files except
         // for things like type/procedure defs.
-        programJavaSource.javaSourceBody().setLength(0);
+        nonMainJavaSource.javaSourceBody().setLength(0);
+        programJavaSourceAccumulator.append(nonMainJavaSource);
       }
       // Make sure to codegen any potential dynamic dispatch handlers from dep contract defs.
       for (ContractDefinitionStmt importedContractDefinitionStmt : ProgramNode.importedContractDefinitionStmts) {
-        programJavaSource =
-            programJavaSource.createMerged(importedContractDefinitionStmt.generateJavaSourceOutput(scopedHeap));
+        programJavaSourceAccumulator.append(importedContractDefinitionStmt.generateJavaSourceOutput(scopedHeap));
       }
       // Now do codegen on this current program, implied to be the "main" src file. Do NOT throw away the javaSourceBody
       // on this main src file as this is the actual "program" that the programmer wants to be able to run.
-      programJavaSource =
-          programJavaSource.createMerged(stmtListNode.generateJavaSourceOutput(scopedHeap, this.generatedClassName));
+      if (!ProgramNode.moduleApiDef.isPresent()) {
+        stmtListNode.optionalOutlinableMethodArgNames = Optional.of(ImmutableSet.of());
+      }
+      programJavaSourceAccumulator.append(stmtListNode.generateJavaSourceOutput(scopedHeap, this.generatedClassName));
+      Node.GeneratedJavaSource programJavaSource = programJavaSourceAccumulator.build();
       // Just before committing to this codegen result, in the case that this is actually a Module definition being
       // compiled, the "main" file is actually a dummy file, so drop its main stmts.
       if (ProgramNode.moduleApiDef.isPresent()) {
@@ -256,6 +326,7 @@ public class ProgramNode {
       }
       // Finally, wrap up the GeneratedJavaSource as a Java src file.
       res = genJavaSource(programJavaSource);
+      phase.end();
 
       // As a final step, it's possible that this compilation unit depended on some dep module for a generic procedure(s)
       // whose monomorphization(s) will still need to be generated. Do that now and append the codegen to the codegen
@@ -265,24 +336,30 @@ public class ProgramNode {
       //  sophisticated approach that avoids code duplication while maintaining build incrementality will be necessary
       //  to get Claro to a more practically useful place.
       if (!InternalStaticStateUtil.JavaSourceCompilerBackend_depModuleGenericMonomoprhizationsNeeded.isEmpty()) {
-        // Sequentially trigger all dep module monomorphizations. Register all of the monomorphizations first and then
-        // collect them afterwards. It's necessary to do it this way since each monomorphization request may actually
-        // trigger an unknown chain of other monomorphization requests even from transitive dep modules, so a single
-        // monomorphization request doesn't actually correspond directly to something I can immediately append to codegen.
+        phase = startPhaseSpan("Dep Module Monomorphization");
+        // Most of these monomorphizations will have already been triggered during type checking, but make sure that
+        // every one of them has been requested, and then wait for them all. It's necessary to wait for everything since
+        // each monomorphization request may actually trigger an unknown chain of other monomorphization requests even
+        // from transitive dep modules, so a single monomorphization request doesn't actually correspond directly to
+        // something I can immediately append to codegen.
         for (Map.Entry<String, IPCMessages.MonomorphizationRequest> depModuleMonomorphization :
             InternalStaticStateUtil.JavaSourceCompilerBackend_depModuleGenericMonomoprhizationsNeeded.entries()) {
           // Under the hood this call is abstracting away a massive amount of multiprocessing complexity.
-          MonomorphizationCoordinator.getDepModuleMonomorphization(
+          MonomorphizationCoordinator.requestDepModuleMonomorphization(
               ScopedHeap.getDefiningModuleDisambiguator(Optional.of(depModuleMonomorphization.getKey())),
               depModuleMonomorphization.getValue()
           );
         }
+        MonomorphizationCoordinator.awaitDepModuleMonomorphizations();
         res.append("\n// Dep Module Monomorphizations Generated Below:\n");
-        for (String depModule : MonomorphizationCoordinator.monomorphizationsByModuleAndRequestCache.rowKeySet()) {
+        // Monomorphizations are collected concurrently in no particular order, so codegen them in sorted order to keep
+        // the generated output deterministic.
+        for (String depModule :
+            ImmutableSortedSet.copyOf(MonomorphizationCoordinator.monomorphizationsByModuleAndRequestCache.rowKeySet())) {
+          TreeMap<String, String> monomorphizationCodegenByGenProcName = new TreeMap<>();
           for (Map.Entry<IPCMessages.MonomorphizationRequest, String> entry
               : MonomorphizationCoordinator.monomorphizationsByModuleAndRequestCache.row(depModule).entrySet()) {
             IPCMessages.MonomorphizationRequest monomorphizationRequest = entry.getKey();
-            String monomorphizationCodegen = entry.getValue();
             String genProcName =
                 String.format(
                     "%s__%s",
@@ -295,19 +372,25 @@ public class ProgramNode {
                             monomorphizationRequest.getProcedureName()
                         ))
                 );
-            res.append("/*MONOMORPHIZATION: ").append(depModule).append("*/\n")
-                .append("final class $MONO$")
-                .append(Hashing.sha256().hashUnencodedChars(depModule))
-                .append('$')
-                .append(genProcName)
-                .append(" {\n");
-            res.append(monomorphizationCodegen).append("\n");
+            monomorphizationCodegenByGenProcName.put(genProcName, entry.getValue());
+          }
+          for (Map.Entry<String, String> monomorphization : monomorphizationCodegenByGenProcName.entrySet()) {
+            res.append(
+                String.format(
+                    "/*MONOMORPHIZATION: %s*/\nfinal class $MONO$%s$%s {\n",
+                    depModule,
+                    Hashing.sha256().hashUnencodedChars(depModule),
+                    monomorphization.getKey()
+                ));
+            // The monomorphization's codegen is appended as its own section, without being copied.
+            res.append(monomorphization.getValue()).append("\n");
             res.append("\n}\n");
           }
         }
 
         // Cleanup any threads or subprocesses that got started up by monomorphization.
         MonomorphizationCoordinator.shutdownDepModuleMonomorphization();
+        phase.end();
       }
     }
 
@@ -353,6 +436,7 @@ public class ProgramNode {
     // TODO(steving) the response from the parser better so that it's not just a denormalized list of stmts,
     // TODO(steving) instead it should give a structured list of type defs seperate from procedure defs etc.
     // TYPE DISCOVERY PHASE:
+    CompilerProfiler.Span phase = startPhaseSpan("Type Discovery");
     if (ProgramNode.moduleApiDef.isPresent()) {
       // Since we're compiling this source code against a module api, it may actually turn out that there are newtype
       // defs exported by the module that should also be accessible w/in its implementation sources.
@@ -363,9 +447,11 @@ public class ProgramNode {
           .assertInitializersAndUnwrappersBlocksAreDefinedOnTypesExportedByThisModule(scopedHeap);
     }
     runPhaseOverAllProgramFiles(p -> p.performTypeDiscoveryPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // STATIC VALUE DISCOVERY PHASE:
     if (ProgramNode.moduleApiDef.isPresent()) {
+      phase = startPhaseSpan("Static Value Discovery");
       // Since we're compiling this source code against a module api, it may actually turn out that there are static
       // values exported by the module that should be declared for use within the impl sources. However, the static
       // values will not be initialized yet. We'll use the fact that Claro will error on trying to read uninitialized
@@ -385,9 +471,11 @@ public class ProgramNode {
           throw new RuntimeException(e);
         }
       }
+      phase.end();
     }
 
     // PROCEDURE DISCOVERY PHASE:
+    phase = startPhaseSpan("Procedure Discovery");
     if (ProgramNode.moduleApiDef.isPresent()) {
       // Since we're compiling this source code against a module api, it may actually turn out that there are newtype
       // defs exported by the module whose constructors should also be accessible w/in its implementation sources.
@@ -400,8 +488,10 @@ public class ProgramNode {
       }
     }
     runPhaseOverAllProgramFiles(p -> p.performProcedureDiscoveryPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // CONTRACT DISCOVERY PHASE:
+    phase = startPhaseSpan("Contract Discovery");
     if (ProgramNode.moduleApiDef.isPresent()) {
       // Since we're compiling this source code against a module api, it may actually turn out that there are contract
       // defs exported by the module that should also be accessible w/in its implementation sources.
@@ -414,9 +504,12 @@ public class ProgramNode {
       }
     }
     runPhaseOverAllProgramFiles(p -> p.performContractDiscoveryPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // GENERIC PROCEDURE DISCOVERY PHASE:
+    phase = startPhaseSpan("Generic Procedure Discovery");
     runPhaseOverAllProgramFiles(p -> p.performGenericProcedureDiscoveryPhase(p.stmtListNode, scopedHeap));
+    phase.end();
 
     // Modules only need to know about procedure type signatures, nothing else, so save procedure type
     // validation for after the full module discovery and validation phases since procedure type validation
@@ -424,7 +517,23 @@ public class ProgramNode {
     // top-level procedures.
 
     // MODULE DISCOVERY PHASE:
+    phase = startPhaseSpan("Module Discovery");
     runPhaseOverAllProgramFiles(p -> p.performModuleDiscoveryPhase(p.stmtListNode, scopedHeap));
+    phase.end();
+  }
+
+  private CompilerProfiler.Span startPhaseSpan(String phaseName) {
+    CompilerProfiler.Span span = CompilerProfiler.start("phase", phaseName);
+    if (CompilerProfiler.isEnabled()) {
+      // Every phase runs over the entire program, so the node count is the same for each. It's included so that phases
+      // can be compared against the size of the program across compilation units.
+      if (this.profiledAstNodeCount < 0) {
+        this.profiledAstNodeCount = 0;
+        runPhaseOverAllProgramFiles(p -> this.profiledAstNodeCount += p.stmtListNode.countAstNodes());
+      }
+      span.withArg("nodes", this.profiledAstNodeCount);
+    }
+    return span;
   }
 
   protected Object generateInterpretedOutput(ScopedHeap scopedHeap) {
@@ -491,6 +600,179 @@ public class ProgramNode {
     return null;
   }
 
+  // Type checks and codegens a single input to the compiled REPL as its own class extending the class generated for the
+  // previous input (if any), so that every top-level binding, procedure, and type defined by any previous input remains
+  // directly accessible from this input's codegen via inheritance. The given ScopedHeap is shared across all inputs, so
+  // just like the interpreted REPL, each input's top-level bindings are kept in their own scope that's never exited.
+  // The input's statements are codegen'd into a `public static void $run()` method, and each binding that it declares
+  // is promoted to a static field on the generated class once they've all run. Returns empty if any errors were found,
+  // in which case everything that this input registered has already been rolled back via rollbackReplInput().
+  public Optional<StringBuilder> generateReplJavaSource(
+      ScopedHeap scopedHeap,
+      String replInputClassName,
+      Optional<String> optionalPrevReplInputClassName,
+      Function<ScopedHeap, ImmutableList<Stmt>> setupStdLibFn) {
+    this.setupStdLibFn = setupStdLibFn;
+    InternalStaticStateUtil.optionalGeneratedClassName = Optional.of(replInputClassName);
+    // Procedures and types are discovered into the previous input's scope (or the global scope), not this input's own
+    // scope, so that they're never mistaken for bindings to promote. So they must be explicitly rolled back on failure.
+    this.optionalReplInputRollback = Optional.of(new ReplInputRollback(scopedHeap));
+    boolean success = false;
+    try {
+      runDiscoveryCompilationPhases(scopedHeap);
+      performModuleTypeValidationPhase(this.stmtListNode, scopedHeap);
+      performProcedureTypeValidationPhase(this.stmtListNode, scopedHeap);
+      performContractTypeValidationPhase(this.stmtListNode, scopedHeap);
+      performGenericProcedureTypeValidationPhase(this.stmtListNode, scopedHeap);
+      InternalStaticStateUtil.GnericProcedureDefinitionStmt_doneWithGenericProcedureTypeValidationPhase = true;
+
+      scopedHeap.enterNewScope();
+      try {
+        this.stmtListNode.assertExpectedExprTypes(scopedHeap);
+      } catch (ClaroTypeException e) {
+        throw new RuntimeException(e);
+      }
+      if (!(Expr.typeErrorsFound.isEmpty() && miscErrorsFound.isEmpty())) {
+        return Optional.empty();
+      }
+      Node.GeneratedJavaSource inputJavaSource =
+          this.stmtListNode.generateJavaSourceOutput(scopedHeap, replInputClassName);
+
+      StringBuilder bindingFields = new StringBuilder();
+      StringBuilder bindingFieldAssignments = new StringBuilder();
+      for (Map.Entry<String, ScopedHeap.IdentifierData> binding :
+          new TreeMap<>(scopedHeap.scopeStack.peek().scopedSymbolTable).entrySet()) {
+        String identifier = binding.getKey();
+        ScopedHeap.IdentifierData identifierData = binding.getValue();
+        // Only actual Java locals are promoted, never anything synthetic.
+        if (identifierData.isTypeDefinition || identifierData.isStaticValue
+            || !identifier.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+          continue;
+        }
+        bindingFields.append("public static ").append(identifierData.type.getJavaSourceType()).append(' ')
+            .append(identifier).append(";\n");
+        // A binding that's only declared here may still be initialized by some later input, which will simply assign
+        // to the inherited field directly.
+        if (scopedHeap.isIdentifierInitialized(identifier)) {
+          bindingFieldAssignments.append(replInputClassName).append('.').append(identifier).append(" = ")
+              .append(identifier).append(";\n");
+        }
+      }
+
+      StringBuilder res = new StringBuilder(
+          String.format(
+              "/*******AUTO-GENERATED: DO NOT MODIFY*******/\n\n" +
+              GENERATED_JAVA_SOURCE_IMPORTS +
+              "\n\n" +
+              "@SuppressWarnings(\"unchecked\")\n" +
+              "public class %s%s {\n" +
+              "// Bindings declared by this REPL input.\n" +
+              "%s\n" +
+              "// Setup the atom cache so that all atoms are singleton.\n" +
+              "public static final $ClaroAtom[] ATOM_CACHE = new $ClaroAtom[]{%s};\n\n",
+              replInputClassName,
+              optionalPrevReplInputClassName.map(c -> " extends " + c).orElse(""),
+              bindingFields,
+              AtomDefinitionStmt.codegenAtomCacheInit()
+          ));
+      appendAndRelease(res, inputJavaSource.optionalStaticPreambleStmts().orElse(new StringBuilder())).append("\n\n");
+      appendAndRelease(res, inputJavaSource.optionalStaticDefinitions().orElse(new StringBuilder())).append("\n\n");
+      // Parsers and writers generated for previous inputs are inherited, so only newly generated ones belong here.
+      appendAndRelease(res, InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen).append("\n");
+      appendAndRelease(res, InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen).append("\n");
+      res.append("public static void $run() {\n");
+      appendAndRelease(res, inputJavaSource.javaSourceBody()).append("\n");
+      res.append(bindingFieldAssignments);
+      res.append("}\n}\n");
+      success = true;
+      return Optional.of(res);
+    } finally {
+      if (!success) {
+        rollbackReplInput(scopedHeap);
+      }
+    }
+  }
+
+  // Drops everything registered by the REPL input most recently passed to generateReplJavaSource() so that it can simply
+  // be corrected and entered again, as if it had never been entered at all.
+  public void rollbackReplInput(ScopedHeap scopedHeap) {
+    this.optionalReplInputRollback.ifPresent(rollback -> rollback.apply(scopedHeap));
+    this.optionalReplInputRollback = Optional.empty();
+  }
+
+  // Captures all compiler state that a REPL input's discovery and type validation phases register beyond its own scope.
+  private static final class ReplInputRollback {
+    private final int scopeLevel;
+    private final ImmutableSet<String> boundIdentifiers;
+    private final ImmutableSet<String> globallyBoundIdentifiers;
+    private final ImmutableTable<String, String, Integer> atomCacheIndexByModuleAndAtomName;
+    private final int atomCount;
+    private final ImmutableTable<String, ImmutableMap<Type, Type>, ProcedureDefinitionStmt> monomorphizations;
+    private final ImmutableTable<String, ImmutableMap<Type, Type>, String> alreadyCodegendMonomorphizations;
+    private final ImmutableMap<String, GenericFunctionDefinitionStmt> genericFunctionDefStmtsByName;
+    private final ImmutableMap<String, Integer> contractImplementationsCountByContractName;
+    private final ImmutableTable<String, String, Type> httpServiceEndpointProcedureSignatures;
+    private final ImmutableSet<Type> jsonParserTypes;
+    private final ImmutableSet<Type> jsonArrayStreamTypes;
+    private final ImmutableSet<Type> jsonWriterTypes;
+
+    ReplInputRollback(ScopedHeap scopedHeap) {
+      this.scopeLevel = scopedHeap.scopeStack.size() - 1;
+      this.boundIdentifiers = scopedHeap.getIdentifiersBoundAtLevel(this.scopeLevel);
+      // Generic procedures (and their monomorphizations) are always bound in the global scope.
+      this.globallyBoundIdentifiers = scopedHeap.getIdentifiersBoundAtLevel(0);
+      this.atomCacheIndexByModuleAndAtomName =
+          InternalStaticStateUtil.AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME.build();
+      this.atomCount = InternalStaticStateUtil.AtomDefinitionStmt_globalAtomCount;
+      this.monomorphizations = ImmutableTable.copyOf(GenericFunctionDefinitionStmt.monomorphizations);
+      this.alreadyCodegendMonomorphizations =
+          ImmutableTable.copyOf(GenericFunctionDefinitionStmt.alreadyCodegendMonomorphizations);
+      this.genericFunctionDefStmtsByName = ImmutableMap.copyOf(GenericFunctionDefinitionStmt.genericFunctionDefStmtsByName);
+      this.contractImplementationsCountByContractName =
+          ContractDefinitionStmt.contractImplementationsByContractName.entrySet().stream()
+              .collect(ImmutableMap.toImmutableMap(Map.Entry::getKey, e -> e.getValue().size()));
+      this.httpServiceEndpointProcedureSignatures =
+          ImmutableTable.copyOf(InternalStaticStateUtil.HttpServiceDef_endpointProcedureSignatures);
+      this.jsonParserTypes = ImmutableSet.copyOf(InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType.keySet());
+      this.jsonArrayStreamTypes =
+          ImmutableSet.copyOf(InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType.keySet());
+      this.jsonWriterTypes = ImmutableSet.copyOf(InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType.keySet());
+    }
+
+    void apply(ScopedHeap scopedHeap) {
+      // The input's own scope only exists if it made it past type validation.
+      while (scopedHeap.scopeStack.size() - 1 > this.scopeLevel) {
+        scopedHeap.exitCurrScope();
+      }
+      scopedHeap.unbindIdentifiersBoundSince(this.scopeLevel, this.boundIdentifiers);
+      scopedHeap.unbindIdentifiersBoundSince(0, this.globallyBoundIdentifiers);
+      InternalStaticStateUtil.AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME =
+          ImmutableTable.<String, String, Integer>builder().putAll(this.atomCacheIndexByModuleAndAtomName);
+      InternalStaticStateUtil.AtomDefinitionStmt_globalAtomCount = this.atomCount;
+      GenericFunctionDefinitionStmt.monomorphizations.clear();
+      GenericFunctionDefinitionStmt.monomorphizations.putAll(this.monomorphizations);
+      GenericFunctionDefinitionStmt.alreadyCodegendMonomorphizations.clear();
+      GenericFunctionDefinitionStmt.alreadyCodegendMonomorphizations.putAll(this.alreadyCodegendMonomorphizations);
+      GenericFunctionDefinitionStmt.genericFunctionDefStmtsByName.clear();
+      GenericFunctionDefinitionStmt.genericFunctionDefStmtsByName.putAll(this.genericFunctionDefStmtsByName);
+      ContractDefinitionStmt.contractImplementationsByContractName.keySet()
+          .retainAll(this.contractImplementationsCountByContractName.keySet());
+      this.contractImplementationsCountByContractName.forEach(
+          (contractName, implementationsCount) -> {
+            List<ImmutableMap<String, Type>> implementations =
+                ContractDefinitionStmt.contractImplementationsByContractName.get(contractName);
+            implementations.subList(implementationsCount, implementations.size()).clear();
+          });
+      InternalStaticStateUtil.HttpServiceDef_endpointProcedureSignatures.clear();
+      InternalStaticStateUtil.HttpServiceDef_endpointProcedureSignatures.putAll(
+          this.httpServiceEndpointProcedureSignatures);
+      // Any parsers or writers generated for this input were never compiled, so later inputs must generate their own.
+      InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType.keySet().retainAll(this.jsonParserTypes);
+      InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType.keySet().retainAll(this.jsonArrayStreamTypes);
+      InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType.keySet().retainAll(this.jsonWriterTypes);
+    }
+  }
+
   private void setupStdLib(ScopedHeap scopedHeap) {
     ImmutableList<Stmt> stdlibSetupPrefixStmts = this.setupStdLibFn.apply(scopedHeap);
     if (!stdlibSetupPrefixStmts.isEmpty()) {
@@ -662,6 +944,10 @@ public class ProgramNode {
     while (currStmtListNode != null) {
       Stmt currStmt = (Stmt) currStmtListNode.getChildren().get(0);
       if (currStmt instanceof ProcedureDefinitionStmt) {
+        CompilerProfiler.Span span =
+            stmtListNode.profileTopLevelStmts
+            ? StmtListNode.startTopLevelStmtSpan("Procedure Type Validation", currStmt)
+            : null;
         try {
           currStmt.assertExpectedExprTypes(scopedHeap);
         } catch (ClaroTypeException e) {
@@ -670,6 +956,9 @@ public class ProgramNode {
           // use in the execution stage.
           throw new RuntimeException(e);
         }
+        if (span != null) {
+          span.end();
+        }
       }
       currStmtListNode = currStmtListNode.tail;
     }
@@ -811,35 +1100,7 @@ public class ProgramNode {
   // TODO(steving) Take a higher order structure than just a list for the body, allow the java generation steps to
   // TODO(steving) specify code gen for different parts of the gen'd java file. This is just necessary for hacking
   // TODO(steving) java's nuances as our underlying VM.
-  private StringBuilder genJavaSource(Node.GeneratedJavaSource stmtListJavaSource) {
-    String mainMethodCodegen;
-    if (ProgramNode.moduleApiDef.isPresent()) {
-      // In this case no main method whatsoever is desired. Instead we're simply compiling a static java library class.
-      mainMethodCodegen = "";
-    } else {
-      mainMethodCodegen = String.format(
-          "public static void main(String[] args) {\n" +
-          "    try {\n" +
-          "/**BEGIN USER CODE**/\n" +
-          "%s\n\n" +
-          "/**END USER CODE**/\n" +
-          "    } finally {\n" +
-          "      // Because Claro has native support for Graph Functions which execute concurrently/asynchronously,\n" +
-          "      // we also need to make sure to shutdown the executor service at the end of the run to clean up.\n" +
-          "      ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);\n" +
-          "%s" +
-          "    }\n" +
-          "  }\n\n",
-          stmtListJavaSource.javaSourceBody(),
-          // Only actually codegen cleanup code for the optional stdlib `http` Module, if it was actually used somewhere
-          // in this Claro program and we actually have runtime Java deps on the module's custom deps.
-          ScopedHeap.currProgramDepModules.containsRow("http")
-          ? "      // Because Claro has native support for Http Requests sent asynchronously on a threadpool, I\n" +
-            "      // need to also ensure that the OkHttp3 client is shutdown.\n" +
-            "      com.claro.runtime_utilities.http.$HttpUtil.shutdownOkHttpClient();\n"
-          : ""
-      );
-    }
+  private Node.GeneratedJavaSourceFile genJavaSource(Node.GeneratedJavaSource stmtListJavaSource) {
     StringBuilder staticValueInitialization = new StringBuilder();
     ProgramNode.moduleApiDef.ifPresent(
         m -> m.exportedFlagDefs.forEach(
@@ -849,89 +1110,93 @@ public class ProgramNode {
         m -> m.exportedStaticValueDefs.forEach(
             s -> s.generateStaticInitialization(staticValueInitialization)
         ));
-    return new StringBuilder(
-        String.format(
-            "/*******AUTO-GENERATED: DO NOT MODIFY*******/\n\n" +
-            "%s" +
-            "\n" +
-            "import static com.claro.stdlib.userinput.UserInput.promptUserInput;\n" +
-            "\n" +
-            "import com.claro.intermediate_representation.types.BaseType;\n" +
-            "import com.claro.intermediate_representation.types.ConcreteType;\n" +
-            "import com.claro.intermediate_representation.types.SupportsMutableVariant;\n" +
-            "import com.claro.intermediate_representation.types.Type;\n" +
-            "import com.claro.intermediate_representation.types.TypeProvider;\n" +
-            "import com.claro.intermediate_representation.types.Types;\n" +
-            "import com.claro.intermediate_representation.types.impls.ClaroTypeImplementation;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.*;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.collections.*;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.atoms.$ClaroAtom;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.futures.ClaroFuture;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.procedures.ClaroConsumerFunction;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.procedures.ClaroFunction;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.procedures.ClaroProviderFunction;\n" +
-            "import com.claro.intermediate_representation.types.impls.builtins_impls.structs.ClaroStruct;\n" +
-            "import com.claro.intermediate_representation.types.impls.user_defined_impls.$UserDefinedType;\n" +
-            "import com.claro.intermediate_representation.types.impls.user_defined_impls.ClaroUserDefinedTypeImplementation;\n" +
-            "import com.claro.runtime_utilities.ClaroRuntimeUtilities;\n" +
-            "import com.claro.runtime_utilities.injector.Injector;\n" +
-            "import com.claro.runtime_utilities.injector.Key;\n" +
-            "import com.claro.stdlib.userinput.UserInput;\n" +
-            "import com.google.common.collect.ImmutableList;\n" +
-            "import com.google.common.collect.ImmutableMap;\n" +
-            "import com.google.common.collect.ImmutableSet;\n" +
-            "import com.google.common.util.concurrent.Futures;\n" +
-            "import com.google.common.util.concurrent.ListenableFuture;\n" +
-            "import com.google.devtools.common.options.Option;\n" +
-            "import com.google.devtools.common.options.OptionsBase;\n" +
-            "import java.io.StringReader;\n" +
-            "import java.util.ArrayList;\n" +
-            "import java.util.List;\n" +
-            "import java.util.Optional;\n" +
-            "import java.util.concurrent.ExecutionException;\n" +
-            "import java.util.function.Function;\n" +
-            "import java.util.function.Supplier;\n" +
-            "import java.util.stream.Collectors;\n" +
-            "\n\n" +
-            "@SuppressWarnings(\"unchecked\")\n" +
-            "public class %s {\n" +
-            "\n" +
-            "// This class will be populated with the definition of any flags that are defined to be parsed\n" +
-            "// anywhere in the overall program.\n" +
-            "%s\n" +
-            "// Setup the atom cache so that all atoms are singleton.\n" +
-            "public static final $ClaroAtom[] ATOM_CACHE = new $ClaroAtom[]{%s};\n\n" +
-            "// Static preamble statements first thing.\n" +
-            "%s\n\n" +
-            "// Static Initializers.\n" +
-            "%s\n\n" +
-            "// Now the static definitions.\n" +
-            "%s\n\n" +
-            "// Optionally the main method will be here if this is not a Module.\n" +
-            "%s\n" +
-            "}\n",
-            this.packageString,
-            this.generatedClassName,
-            // Only do flag parsing related codegen if we actually need to parse cli flags.
-            !ProgramNode.moduleApiDef.isPresent() && !transitiveExportedFlags.isEmpty()
-            ? ProgramNode.transitiveExportedFlags.values().stream()
-                .map(f ->
-                         FlagDefStmt.generateAnnotatedOptionField(
-                             f.getName(), Types.parseTypeProto(f.getType())))
-                .collect(Collectors.joining(
-                    "\n",
-                    "public static class $FlagsToParse extends OptionsBase {\n",
-                    "\n}\n" +
-                    "// Very first thing to do is statically configure the generated class to be used for parsing flags.\n" +
-                    "  static {\n    com.claro.runtime_utilities.flags.$Flags.$programOptionsClass = $FlagsToParse.class;\n  }\n"
-                ))
-            : "",
-            AtomDefinitionStmt.codegenAtomCacheInit(),
-            stmtListJavaSource.optionalStaticPreambleStmts().orElse(new StringBuilder()),
-            staticValueInitialization,
-            stmtListJavaSource.optionalStaticDefinitions().orElse(new StringBuilder()),
-            mainMethodCodegen
-        )
+    String classPrelude = String.format(
+        "/*******AUTO-GENERATED: DO NOT MODIFY*******/\n\n" +
+        "%s" +
+        "\n" +
+        GENERATED_JAVA_SOURCE_IMPORTS +
+        "\n\n" +
+        "@SuppressWarnings(\"unchecked\")\n" +
+        "public class %s {\n" +
+        "\n" +
+        "// This class will be populated with the definition of any flags that are defined to be parsed\n" +
+        "// anywhere in the overall program.\n" +
+        "%s\n" +
+        "// Setup the atom cache so that all atoms are singleton.\n" +
+        "public static final $ClaroAtom[] ATOM_CACHE = new $ClaroAtom[]{%s};\n\n" +
+        "// Static preamble statements first thing.\n",
+        this.packageString,
+        this.generatedClassName,
+        // Only do flag parsing related codegen if we actually need to parse cli flags.
+        !ProgramNode.moduleApiDef.isPresent() && !transitiveExportedFlags.isEmpty()
+        ? ProgramNode.transitiveExportedFlags.values().stream()
+            .map(f ->
+                     FlagDefStmt.generateAnnotatedOptionField(
+                         f.getName(), Types.parseTypeProto(f.getType())))
+            .collect(Collectors.joining(
+                "\n",
+                "public static class $FlagsToParse extends OptionsBase {\n",
+                "\n}\n" +
+                "// Very first thing to do is statically configure the generated class to be used for parsing flags.\n" +
+                "  static {\n    com.claro.runtime_utilities.flags.$Flags.$programOptionsClass = $FlagsToParse.class;\n  }\n"
+            ))
+        : "",
+        AtomDefinitionStmt.codegenAtomCacheInit()
     );
+    StringBuilder staticPreambleStmts = stmtListJavaSource.optionalStaticPreambleStmts().orElse(new StringBuilder());
+    StringBuilder staticDefinitions = stmtListJavaSource.optionalStaticDefinitions().orElse(new StringBuilder());
+    StringBuilder mainMethodBody = stmtListJavaSource.javaSourceBody();
+
+    // The program's codegen is never copied into one single builder. Instead, each piece becomes its own section of the
+    // file, in order, and is only concatenated with the others as the file is streamed to its destination, after which
+    // each piece is released.
+    Node.GeneratedJavaSourceFile res = new Node.GeneratedJavaSourceFile();
+    res.append(classPrelude);
+    res.appendAndRelease(staticPreambleStmts).append("\n\n");
+    res.append("// Static Initializers.\n");
+    res.appendAndRelease(staticValueInitialization).append("\n\n");
+    res.append("// Now the static definitions.\n");
+    res.appendAndRelease(staticDefinitions).append("\n\n");
+    res.append("// Shared parsers for any types parsed via fromJson(...).\n")
+        .append(InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen).append("\n");
+    res.append("// Shared writers for any types serialized via toJson(...).\n")
+        .append(InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen).append("\n");
+    res.append("// Optionally the main method will be here if this is not a Module.\n");
+    // In the case of a Module no main method whatsoever is desired. Instead we're simply compiling a static java
+    // library class.
+    if (!ProgramNode.moduleApiDef.isPresent()) {
+      res.append(
+          "public static void main(String[] args) {\n" +
+          "    try {\n" +
+          "/**BEGIN USER CODE**/\n");
+      res.appendAndRelease(mainMethodBody).append("\n\n");
+      res.append(
+          "/**END USER CODE**/\n" +
+          "    } finally {\n" +
+          "      // Because Claro has native support for Graph Functions which execute concurrently/asynchronously,\n" +
+          "      // we also need to make sure to shutdown the executor service at the end of the run to clean up.\n" +
+          "      ClaroRuntimeUtilities.$shutdownAndAwaitTermination(ClaroRuntimeUtilities.DEFAULT_EXECUTOR_SERVICE);\n");
+      // Only actually codegen cleanup code for the optional stdlib `http` Module, if it was actually used somewhere
+      // in this Claro program and we actually have runtime Java deps on the module's custom deps.
+      if (ScopedHeap.currProgramDepModules.containsRow("http")) {
+        res.append(
+            "      // Because Claro has native support for Http Requests sent asynchronously on a threadpool, I\n" +
+            "      // need to also ensure that the OkHttp3 client is shutdown.\n" +
+            "      com.claro.runtime_utilities.http.$HttpUtil.shutdownOkHttpClient();\n");
+      }
+      res.append(
+          "    }\n" +
+          "  }\n\n");
+    }
+    res.append("\n}\n");
+    return res;
+  }
+
+  // The given codegen piece is exclusively owned by the caller, so its buffer can be dropped as soon as it's copied.
+  private static StringBuilder appendAndRelease(StringBuilder res, StringBuilder piece) {
+    res.append(piece);
+    piece.setLength(0);
+    piece.trimToSize();
+    return res;
   }
 }
@@ -21,7 +21,6 @@ import java.util.stream.Stream;
 public class ComprehensionExpr extends Expr {
   private static final ImmutableSet<BaseType> SUPPORTED_COLLECTION_TYPES =
       ImmutableSet.of(BaseType.LIST, BaseType.SET, BaseType.MAP);
-  private static long TOTAL_COMPREHENSIONS_COUNT = 0;
 
   private final BaseType comprehensionResultBaseType;
   private final Expr mappedItemExpr;
@@ -51,7 +50,7 @@ public class ComprehensionExpr extends Expr {
     this.collectionExpr = collectionExpr;
     this.whereClauseExpr = whereClauseExpr;
     this.isMutable = isMutable;
-    this.uniqueId = ComprehensionExpr.TOTAL_COMPREHENSIONS_COUNT++;
+    this.uniqueId = InternalStaticStateUtil.parsingState().ComprehensionExpr_totalComprehensionsCount++;
   }
 
   public ComprehensionExpr(BaseType comprehensionResultBaseType, Expr mappedItemKeyExpr, Expr mappedItemValExpr, IdentifierReferenceTerm itemName, Expr collectionExpr, Optional<Expr> whereClauseExpr, boolean isMutable, Supplier<String> currentLine, int currentLineNumber, int startCol, int endCol) {
@@ -64,7 +63,7 @@ public class ComprehensionExpr extends Expr {
     this.collectionExpr = collectionExpr;
     this.whereClauseExpr = whereClauseExpr;
     this.isMutable = isMutable;
-    this.uniqueId = ComprehensionExpr.TOTAL_COMPREHENSIONS_COUNT++;
+    this.uniqueId = InternalStaticStateUtil.parsingState().ComprehensionExpr_totalComprehensionsCount++;
   }
 
   @Override
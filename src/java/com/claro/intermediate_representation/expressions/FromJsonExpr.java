@@ -2,6 +2,7 @@ package com.claro.intermediate_representation.expressions;
 
 import com.claro.compiler_backends.interpreted.ScopedHeap;
 import com.claro.intermediate_representation.expressions.procedures.functions.StructuralConcreteGenericTypeValidationUtil;
+import com.claro.intermediate_representation.statements.HugeMethodOutliner;
 import com.claro.intermediate_representation.types.BaseType;
 import com.claro.intermediate_representation.types.ClaroTypeException;
 import com.claro.intermediate_representation.types.Type;
@@ -11,20 +12,35 @@ import com.claro.stdlib.StdLibModuleRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.function.BiFunction;
+import java.util.Optional;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class FromJsonExpr extends Expr {
   private final Expr parsedExpr;
+  // Retaining the raw JSON string in successfully parsed results is opt-in, as it keeps the entire input alive for as
+  // long as the result is. Error results always retain it so that the user can fall back to handling it manually.
+  private final Optional<Expr> optionalRetainRawJsonExpr;
   private Type assertedParsedResultType;
   private Type assertedTargetType;
+  // When the asserted type is a `std::JsonArrayStream<T>`, the JSON is parsed lazily from a `files::Resource` instead.
+  private boolean streamJsonArrayFromResource = false;
 
   public FromJsonExpr(Expr parsedExpr, Supplier<String> currentLine, int currentLineNumber, int startCol, int endCol) {
+    this(parsedExpr, Optional.empty(), currentLine, currentLineNumber, startCol, endCol);
+  }
+
+  public FromJsonExpr(
+      Expr parsedExpr,
+      Optional<Expr> optionalRetainRawJsonExpr,
+      Supplier<String> currentLine,
+      int currentLineNumber,
+      int startCol,
+      int endCol) {
     super(ImmutableList.of(), currentLine, currentLineNumber, startCol, endCol);
     this.parsedExpr = parsedExpr;
+    this.optionalRetainRawJsonExpr = optionalRetainRawJsonExpr;
   }
 
   @Override
@@ -39,6 +55,14 @@ public class FromJsonExpr extends Expr {
       this.logTypeError(ClaroTypeException.forIllegalParseFromJSONWithNoTargetTypeAssertion());
     }
 
+    if (this.optionalRetainRawJsonExpr.isPresent()) {
+      this.optionalRetainRawJsonExpr.get().assertExpectedExprType(scopedHeap, Types.BOOLEAN);
+    }
+
+    if (this.assertedParsedResultType != null && isJsonArrayStreamType(this.assertedParsedResultType)) {
+      return getValidatedJsonArrayStreamType(scopedHeap);
+    }
+
     // Obviously I can only parse from JSON strings.
     this.parsedExpr.assertExpectedExprType(scopedHeap, Types.STRING);
 
@@ -74,6 +98,33 @@ public class FromJsonExpr extends Expr {
     return resultType;
   }
 
+  private static boolean isJsonArrayStreamType(Type type) {
+    return type.baseType().equals(BaseType.USER_DEFINED_TYPE)
+           && ((Types.UserDefinedType) type).getTypeName().equals("JsonArrayStream")
+           && ((Types.UserDefinedType) type).getDefiningModuleDisambiguator()
+               .equals(StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR);
+  }
+
+  private Type getValidatedJsonArrayStreamType(ScopedHeap scopedHeap) throws ClaroTypeException {
+    this.streamJsonArrayFromResource = true;
+    if (this.optionalRetainRawJsonExpr.isPresent()) {
+      this.logTypeError(ClaroTypeException.forIllegalRetainRawJsonForJsonArrayStream());
+    }
+    // The whole point of streaming is to avoid ever holding the entire input in memory, so this only makes sense to do
+    // from some Resource rather than a string.
+    this.parsedExpr.assertExpectedExprType(
+        scopedHeap, Types.UserDefinedType.forTypeNameAndDisambiguator("Resource", "stdlib$files$files"));
+
+    this.assertedTargetType = this.assertedParsedResultType.parameterizedTypeArgs().get("0");
+    try {
+      validateJSONParsingIsPossible(this.assertedTargetType);
+    } catch (ClaroTypeException e) {
+      this.logTypeError(e);
+      return Types.UNKNOWABLE;
+    }
+    return this.assertedParsedResultType;
+  }
+
   private void validateJSONParsingIsPossible(Type type) throws ClaroTypeException {
     switch (type.baseType()) {
       case ATOM:
@@ -103,8 +154,8 @@ public class FromJsonExpr extends Expr {
         // backtracking parser, so instead, if it wouldn't be trivial to distinguish all variants from one another using
         // a single JsonToken that Gson provides via JsonReader::peek(), then I'll reject the format. This essentially
         // can be boiled down to the simple restriction that your oneof may only have up to a single list type and up to
-        // a single struct type - and additionally it cannot have both an int and float variant as the single
-        // JsonToken::NUMBER is used to represent both.
+        // a single struct or map type (as both begin with JsonToken::BEGIN_OBJECT) - and additionally it cannot have
+        // both an int and float variant as the single JsonToken::NUMBER is used to represent both.
         for (Type variantType : ((Types.OneofType) type).getVariantTypes()) {
           validateJSONParsingIsPossible(variantType);
         }
@@ -114,7 +165,7 @@ public class FromJsonExpr extends Expr {
                 .count() > 1
             || ((Types.OneofType) type).getVariantTypes()
                    .stream()
-                   .filter(t -> t.baseType().equals(BaseType.STRUCT))
+                   .filter(t -> t.baseType().equals(BaseType.STRUCT) || t.baseType().equals(BaseType.MAP))
                    .count() > 1) {
           throw ClaroTypeException.forIllegalParseFromJSONForUnsupportedOneofType(type, this.assertedTargetType);
         }
@@ -134,401 +185,352 @@ public class FromJsonExpr extends Expr {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    if (this.streamJsonArrayFromResource) {
+      GeneratedJavaSource res = GeneratedJavaSource.forJavaSourceBody(
+          new StringBuilder(getOrCreateJsonArrayStreamClassName(this.assertedTargetType))
+              .append(".open(($UserDefinedType<?>) ("));
+      res = res.createMerged(this.parsedExpr.generateJavaSourceOutput(scopedHeap));
+      res.javaSourceBody().append("))");
+      return res;
+    }
+    // All of the actual parsing logic lives in a shared parser class generated once per target type, so that repeated
+    // fromJson(...) calls targeting the same type (and nested occurrences of the same type) don't each generate their
+    // own copy of the parser. The call site just delegates to it.
     GeneratedJavaSource res = GeneratedJavaSource.forJavaSourceBody(
-        new StringBuilder("((Function<String, ")
-            .append(this.assertedParsedResultType.getJavaSourceType()) // ParsedJson<TargetType>
-            .append(">) $jsonString -> {\n")
-            .append("\tcom.google.gson.stream.JsonReader $jsonReader = new com.google.gson.stream.JsonReader(new StringReader($jsonString));\n")
-            .append(getParseJSONJavaSource(this.assertedTargetType, 0, /*alreadyPeekedType=*/ false))
-            .append("\n}).apply("));
+        new StringBuilder(getOrCreateJsonParserClassName(this.assertedTargetType)).append(".fromJson("));
     // TODO(steving) Consider some way to handle the "non-execute Prefix"
     //  https://www.javadoc.io/doc/com.google.code.gson/gson/2.8.0/com/google/gson/stream/JsonReader.html#nonexecuteprefix
     //  Gson's builtin setLenient(true) is too permissive in that it'll allow malformed JSON.
 //            .append("\tjsonReader.setLenient(true);\n"));
     res = res.createMerged(this.parsedExpr.generateJavaSourceOutput(scopedHeap));
+    res.javaSourceBody().append(", ");
+    if (this.optionalRetainRawJsonExpr.isPresent()) {
+      res = res.createMerged(this.optionalRetainRawJsonExpr.get().generateJavaSourceOutput(scopedHeap));
+    } else {
+      res.javaSourceBody().append("false");
+    }
     res.javaSourceBody().append(")");
     return res;
   }
 
-  private static StringBuilder getParseJSONJavaSource(Type type, int nestingLevel, boolean alreadyPeekedType) {
-    final String GSON_TOKEN = "com.google.gson.stream.JsonToken";
-    StringBuilder res = new StringBuilder()
-        .append("try {\n");
-    if (!alreadyPeekedType) {
-      res.append(GSON_TOKEN).append(" $peeked").append(nestingLevel).append(" = $jsonReader.peek();\n");
+  // Each distinct type that needs parsing gets a single static nested class `$JsonParser$N` exposing:
+  //   - `static <T> parse(JsonReader)` which parses a single JSON value of the type, delegating to the parsers of any
+  //     nested compound types and signaling a mismatch by throwing (never by allocating a ParsedJson per value).
+  //   - `static ParsedJson<T> fromJson(String, boolean)` which is the entrypoint used by `fromJson(...)` call sites.
+  // The Claro type itself (and the types describing the ParsedJson<T> result) are hoisted into static final fields so
+  // that they're only constructed once, on first use (the JVM only initializes the nested class lazily, so this doesn't
+  // depend on static initialization order).
+  // The generated classes are collected centrally so that they can be emitted at the top-level of the generated class
+  // rather than nested in whatever scope (e.g. a Contract impl) happened to first need them.
+  private static String getOrCreateJsonParserClassName(Type type) {
+    String parserClassName = InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType.get(type);
+    if (parserClassName != null) {
+      return parserClassName;
     }
-    BiFunction<Type, Boolean, StringBuilder> getFieldParserForType = (fieldType, _alreadyPeeked) ->
-        new StringBuilder()
-            .append("((Supplier<$UserDefinedType<ClaroStruct>>) () -> {\n")
-            .append("\t\t")
-            .append(getParseJSONJavaSource(fieldType, nestingLevel + 1, /*alreadyPeekedType=*/ _alreadyPeeked))
-            .append("\t}).get();");
+    parserClassName = "$JsonParser$" + InternalStaticStateUtil.FromJsonExpr_jsonParsersCount++;
+    // Register before generating the parse method so that any nested references resolve to this same class.
+    InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType.put(type, parserClassName);
+
+    String claroTypeClass;
     switch (type.baseType()) {
-      case BOOLEAN:
-        if (!alreadyPeekedType) {
-          res.append("if (").append(GSON_TOKEN).append(".BOOLEAN.equals($peeked").append(nestingLevel).append(")) {\n");
-        }
-        res.append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.nextBoolean(), $jsonString);\n");
-        if (!alreadyPeekedType) {
-          res.append("} ");
-        }
+      case LIST:
+        claroTypeClass = "Types.ListType";
         break;
-      case INTEGER:
-        if (!alreadyPeekedType) {
-          res.append("if (").append(GSON_TOKEN).append(".NUMBER.equals($peeked").append(nestingLevel).append(")) {\n");
-        }
-        res.append("\ttry {\n")
-            .append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.nextInt(), $jsonString);\n")
-            .append("\t} catch (java.lang.NumberFormatException e) {\n")
-            .append("\t\treturn ClaroRuntimeUtilities.$getErrorParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.getPath(), $jsonString);\n")
-            .append("\t}\n");
-        if (!alreadyPeekedType) {
-          res.append("}");
-        }
+      case STRUCT:
+        claroTypeClass = "Types.StructType";
         break;
-      case FLOAT:
-        if (!alreadyPeekedType) {
-          res.append("if (").append(GSON_TOKEN).append(".NUMBER.equals($peeked").append(nestingLevel).append(")) {\n");
-        }
-        res.append("\ttry {\n")
-            .append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.nextDouble(), $jsonString);\n")
-            .append("\t} catch (java.lang.NumberFormatException e) {\n")
-            .append("\t\treturn ClaroRuntimeUtilities.$getErrorParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(" $jsonReader.getPath(), $jsonString);\n")
-            .append("\t}\n");
-        if (!alreadyPeekedType) {
-          res.append("}");
-        }
+      case MAP:
+        claroTypeClass = "Types.MapType";
         break;
+      default:
+        claroTypeClass = "Type";
+    }
+    StringBuilder parseHelperMethods = new StringBuilder();
+    StringBuilder parseMethodBody = getParseJSONJavaSource(type, parseHelperMethods);
+    InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen
+        .append("static final class ").append(parserClassName).append(" {\n")
+        .append("  static final ").append(claroTypeClass).append(" $TYPE = (").append(claroTypeClass).append(") ")
+        .append(type.getJavaSourceClaroType()).append(";\n")
+        .append("  static final ClaroRuntimeUtilities.$ParsedJsonType $PARSED_JSON_TYPE =\n")
+        .append("      ClaroRuntimeUtilities.$getParsedJsonType($TYPE);\n\n")
+        .append("  static ").append(type.getJavaSourceType())
+        .append(" parse(com.google.gson.stream.JsonReader $jsonReader) throws java.io.IOException {\n")
+        .append(parseMethodBody)
+        .append("  }\n\n")
+        .append(parseHelperMethods)
+        .append("  static $UserDefinedType<ClaroStruct> fromJson(String $jsonString, boolean $retainRawJson) {\n")
+        .append("    com.google.gson.stream.JsonReader $jsonReader = new com.google.gson.stream.JsonReader(new StringReader($jsonString));\n")
+        .append("    try {\n")
+        .append("      return ClaroRuntimeUtilities.$getSuccessParsedJson(\n")
+        .append("          $PARSED_JSON_TYPE, parse($jsonReader), $retainRawJson ? $jsonString : \"\");\n")
+        .append("    } catch (java.io.IOException e) {\n")
+        .append("      return ClaroRuntimeUtilities.$getErrorParsedJson($PARSED_JSON_TYPE, $jsonReader.getPath(), $jsonString);\n")
+        .append("    }\n")
+        .append("  }\n")
+        .append("}\n");
+    return parserClassName;
+  }
+
+  // Streaming a top-level JSON array gets a `$JsonArrayStream$N` class per element type, whose `open(Resource)` method
+  // constructs the `std::JsonArrayStream<T>` wrapping a provider that parses only a single element per call. Neither the
+  // raw input nor any previously returned elements are retained.
+  private static String getOrCreateJsonArrayStreamClassName(Type elementType) {
+    String streamClassName = InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType.get(elementType);
+    if (streamClassName != null) {
+      return streamClassName;
+    }
+    streamClassName = "$JsonArrayStream$" + InternalStaticStateUtil.FromJsonExpr_jsonParsersCount++;
+    InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType.put(elementType, streamClassName);
+
+    String endOfJsonArrayAtom = getStdlibAtomCacheReference("EndOfJsonArray");
+    Type streamedResultType = Types.OneofType.forVariantTypes(
+        ImmutableList.of(
+            elementType,
+            Types.UserDefinedType.forTypeNameAndParameterizedTypes(
+                "Error",
+                /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
+                ImmutableList.of(Types.STRING)
+            ),
+            Types.AtomType.forNameAndDisambiguator(
+                "EndOfJsonArray", StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR)
+        ));
+    String parseElementExpr = getParseValueExpr(elementType);
+    InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen
+        .append("static final class ").append(streamClassName).append(" {\n")
+        .append("  static final Type $ELEMENT_TYPE = ").append(elementType.getJavaSourceClaroType()).append(";\n")
+        .append("  static final Type $PROVIDER_TYPE = Types.ProcedureType.ProviderType.typeLiteralForReturnType(")
+        .append(streamedResultType.getJavaSourceClaroType()).append(", false);\n\n")
+        .append("  static $UserDefinedType<ClaroProviderFunction<Object>> open($UserDefinedType<?> $resource) {\n")
+        .append("    final com.claro.runtime_utilities.JsonArrayStreamReader $stream =\n")
+        .append("        new com.claro.runtime_utilities.JsonArrayStreamReader((java.net.URL) $resource.wrappedValue);\n")
+        .append("    return new $UserDefinedType<>(\n")
+        .append("        \"JsonArrayStream\",\n")
+        .append("        \"").append(StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR).append("\",\n")
+        .append("        ImmutableList.of($ELEMENT_TYPE),\n")
+        .append("        $PROVIDER_TYPE,\n")
+        .append("        new ClaroProviderFunction<Object>() {\n")
+        .append("          @Override\n")
+        .append("          public Object apply() {\n")
+        .append("            try {\n")
+        .append("              if (!$stream.hasNext()) {\n")
+        .append("                return ").append(endOfJsonArrayAtom).append(";\n")
+        .append("              }\n")
+        .append("              com.google.gson.stream.JsonReader $jsonReader = $stream.getJsonReader();\n")
+        .append("              return ").append(parseElementExpr).append(";\n")
+        .append("            } catch (java.io.IOException e) {\n")
+        .append("              return ClaroRuntimeUtilities.$getJsonArrayStreamError($ELEMENT_TYPE, $stream.fail());\n")
+        .append("            }\n")
+        .append("          }\n\n")
+        .append("          @Override\n")
+        .append("          public Type getClaroType() {\n")
+        .append("            return $PROVIDER_TYPE;\n")
+        .append("          }\n")
+        .append("        }\n")
+        .append("    );\n")
+        .append("  }\n")
+        .append("}\n");
+    return streamClassName;
+  }
+
+  // Returns an expression that parses a single JSON value of the given type from `$jsonReader`. Primitives are parsed
+  // inline via runtime helpers, while compound types delegate to their own shared parser class.
+  private static String getParseValueExpr(Type type) {
+    switch (type.baseType()) {
+      case BOOLEAN:
+        return "ClaroRuntimeUtilities.$parseJsonBoolean($jsonReader)";
+      case INTEGER:
+        return "ClaroRuntimeUtilities.$parseJsonInt($jsonReader)";
+      case FLOAT:
+        return "ClaroRuntimeUtilities.$parseJsonFloat($jsonReader)";
       case STRING:
-        if (!alreadyPeekedType) {
-          res.append("if (").append(GSON_TOKEN).append(".STRING.equals($peeked").append(nestingLevel).append(")) {\n");
-        }
-        res.append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.nextString(), $jsonString);\n");
-        if (!alreadyPeekedType) {
-          res.append("} ");
-        }
-        break;
+        return "ClaroRuntimeUtilities.$parseJsonString($jsonReader)";
       case ATOM:
-        if (((Types.AtomType) type).getName().equals("Nothing")
-            &&
-            ((Types.AtomType) type).getDefiningModuleDisambiguator()
-                .equals(StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR)) {
-          if (!alreadyPeekedType) {
-            res.append("if (").append(GSON_TOKEN).append(".NULL.equals($peeked").append(nestingLevel).append(")) {\n");
-          }
-          // Here it turns out that we actually need to codegen a lookup into the ATOM CACHE of the stdlib module
-          // defining this builtin type.
-          res.append("\t$jsonReader.nextNull();\n")
-              .append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-              .append(type.getJavaSourceClaroType())
-              .append(", ")
-              .append(
-                  String.format(
-                      "%s.%s.ATOM_CACHE[%s]",
-                      StdLibModuleRegistry.STDLIB_MODULE_PACKAGE,
-                      StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
-                      InternalStaticStateUtil.AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME.build().get(
-                          StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
-                          String.format("Nothing$%s", StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR)
-                      )
-                  ))
-              .append(", $jsonString);");
-          if (!alreadyPeekedType) {
-            res.append("} ");
-          }
-          break;
+        if (isStdlibNothing(type)) {
+          return String.format(
+              "ClaroRuntimeUtilities.$parseJsonNothing($jsonReader, %s)", getStdlibAtomCacheReference("Nothing"));
         }
         throw new RuntimeException("Internal Compiler Error: Should be unreachable! " + type);
+      case LIST:
+      case STRUCT:
+      case MAP:
+      case ONEOF:
+        return getOrCreateJsonParserClassName(type) + ".parse($jsonReader)";
+      default:
+        throw new RuntimeException("Internal Compiler Error: Should be unreachable! " + type);
+    }
+  }
+
+  // Here it turns out that we actually need to codegen a lookup into the ATOM CACHE of the stdlib module defining these
+  // builtin atoms.
+  private static String getStdlibAtomCacheReference(String atomName) {
+    return String.format(
+        "%s.%s.ATOM_CACHE[%s]",
+        StdLibModuleRegistry.STDLIB_MODULE_PACKAGE,
+        StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
+        InternalStaticStateUtil.AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME.build().get(
+            StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
+            String.format("%s$%s", atomName, StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR)
+        )
+    );
+  }
+
+  private static boolean isStdlibNothing(Type type) {
+    return ((Types.AtomType) type).getName().equals("Nothing")
+           && ((Types.AtomType) type).getDefiningModuleDisambiguator()
+               .equals(StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR);
+  }
+
+  // Any helper methods that the returned parse method body calls are appended to the given StringBuilder.
+  private static StringBuilder getParseJSONJavaSource(Type type, StringBuilder helperMethods) {
+    final String GSON_TOKEN = "com.google.gson.stream.JsonToken";
+    StringBuilder res = new StringBuilder();
+    switch (type.baseType()) {
       case LIST:
         Type elemType = ((Types.ListType) type).getElementType();
-        if (!alreadyPeekedType) {
-          res.append("if (")
-              .append(GSON_TOKEN)
-              .append(".BEGIN_ARRAY.equals($peeked")
-              .append(nestingLevel)
-              .append(")) {\n");
-        }
-        res.append("\t$jsonReader.beginArray();\n")
+        res.append("    if ($jsonReader.peek() != ").append(GSON_TOKEN).append(".BEGIN_ARRAY) {\n")
+            .append("      throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+            .append("    }\n")
+            .append("    $jsonReader.beginArray();\n")
             // This is a fascinating example of a compiler superpower that the users don't have access to. Here,
             // regardless of whether the list is being parsed to a mutable/immutable list, I'm going to append to the
             // ClaroList because I know that I'm the sole owner of this list as I, the compiler, just created it.
-            .append("\tClaroList<")
-            .append(elemType.getJavaSourceType())
-            .append("> $listBuilder")
-            .append(nestingLevel)
-            .append(" = new ClaroList(")
-            .append(type.getJavaSourceClaroType())
-            .append(");\n")
-            .append("\tfinal Supplier<$UserDefinedType<ClaroStruct>> $parseElement")
-            .append(nestingLevel)
-            .append(" = () -> {\n")
-            .append("\t\t")
-            .append(getParseJSONJavaSource(elemType, nestingLevel + 1, /*alreadyPeekedType=*/ false))
-            .append("\t};\n")
-            .append("\twhile ($jsonReader.hasNext()) {\n")
-            .append("\t\t$UserDefinedType<ClaroStruct> $parsedElem")
-            .append(nestingLevel)
-            .append(" = $parseElement")
-            .append(nestingLevel)
-            .append(".get();\n")
-            .append("\t\tif ($parsedElem")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0] instanceof $UserDefinedType) { // It's necessarily an Error<string> since Claro can't parse user-defined types from JSON automatically.\n")
-            .append("\t\t\treturn $parsedElem")
-            .append(nestingLevel)
-            .append(";\n")
-            .append("\t\t}\n")
-            .append("\t\t$listBuilder")
-            .append(nestingLevel)
-            .append(".add((")
-            .append(elemType.getJavaSourceType())
-            .append(") $parsedElem")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0]);\n")
-            .append("\t}\n")
-            .append("\t$jsonReader.endArray();\n")
-            .append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $listBuilder")
-            .append(nestingLevel)
-            .append(", $jsonString);\n");
-        if (!alreadyPeekedType) {
-          res.append("} ");
-        }
+            .append("    ClaroList<").append(elemType.getJavaSourceType()).append("> $res = new ClaroList<>($TYPE);\n")
+            .append("    while ($jsonReader.hasNext()) {\n")
+            .append("      $res.add(").append(getParseValueExpr(elemType)).append(");\n")
+            .append("    }\n")
+            .append("    $jsonReader.endArray();\n")
+            .append("    return $res;\n");
         break;
       case STRUCT:
         Types.StructType structType = (Types.StructType) type;
-        if (!alreadyPeekedType) {
-          res.append("if (")
-              .append(GSON_TOKEN)
-              .append(".BEGIN_OBJECT.equals($peeked")
-              .append(nestingLevel)
-              .append(")) {\n");
-        }
-        res.append("\t$jsonReader.beginObject();\n")
+        res.append("    if ($jsonReader.peek() != ").append(GSON_TOKEN).append(".BEGIN_OBJECT) {\n")
+            .append("      throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+            .append("    }\n")
+            .append("    $jsonReader.beginObject();\n")
             // This is a fascinating example of a compiler superpower that the users don't have access to. Here,
             // regardless of whether the struct is being parsed to mutable/immutable, I'm going to modify the
             // array because I know that I'm the sole owner of this struct as I, the compiler, just created it.
-            .append("\tClaroStruct $structBuilder")
-            .append(nestingLevel)
-            .append(" = new ClaroStruct(")
-            .append(type.getJavaSourceClaroType())
-            .append(", ")
-            .append(IntStream.range(0, structType.getFieldTypes().size())
-                        .boxed()
-                        .map(i -> "(Object) null")
-                        .collect(Collectors.joining(", ")))
-            .append(");\n")
-            .append("\twhile ($jsonReader.hasNext()) {\n")
-            .append("\t\t$UserDefinedType<ClaroStruct> $parsedField")
-            .append(nestingLevel)
-            .append(";\n")
-            .append("\t\tswitch($jsonReader.nextName()) {\n");
-        IntStream.range(0, structType.getFieldTypes().size()).boxed().forEach(
-            i -> res
-                .append("\t\t\tcase \"")
-                .append(structType.getFieldNames().get(i))
-                .append("\":\n")
-                .append("\t\t\t\t$parsedField")
-                .append(nestingLevel)
-                .append(" = ")
-                .append(getFieldParserForType.apply(structType.getFieldTypes().get(i), /*_alreadyPeaked=*/ false))
-                // This is just to save some lines of code, but here I'm going to optimistically put whatever we parsed
-                // into the struct builder, though we may not end up using it.
-                .append("\n\t\t\t\t$structBuilder")
-                .append(nestingLevel)
-                .append(".values[")
-                .append(i)
-                .append("] = $parsedField")
-                .append(nestingLevel)
-                .append(".wrappedValue.values[0];\n")
-                .append("\t\t\t\tbreak;\n")
-        );
-        res.append("\t\t\tdefault: // This is some unexpected field.\n")
-            .append("\t\t\t\treturn ClaroRuntimeUtilities.$getErrorParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.getPath(), $jsonString);\n")
-            .append("\t\t}\n")
-            .append("\t\tif ($parsedField")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0] instanceof $UserDefinedType) { // It's necessarily an Error<string> since Claro can't parse user-defined types from JSON automatically.\n")
-            .append("\t\t\treturn $parsedField")
-            .append(nestingLevel)
-            .append(";\n")
-            .append("\t\t}\n")
-            .append("\t}\n")
-            .append("\t$jsonReader.endObject();\n")
+            .append("    Object[] $values = new Object[").append(structType.getFieldTypes().size()).append("];\n")
+            .append("    while ($jsonReader.hasNext()) {\n");
+        ArrayList<String> fieldCases = new ArrayList<>();
+        for (int i = 0; i < structType.getFieldTypes().size(); i++) {
+          fieldCases.add(
+              String.format(
+                  "        case \"%s\":\n          $values[%s] = %s;\n",
+                  structType.getFieldNames().get(i),
+                  i,
+                  getParseValueExpr(structType.getFieldTypes().get(i))
+              ));
+        }
+        // The field dispatch of a wide enough struct would be too large for the JIT to compile, if not for javac to
+        // compile at all, so it's split across as many helper methods as it takes, each reporting whether it matched.
+        ImmutableList<Integer> fieldCasesRunStarts =
+            InternalStaticStateUtil.StmtListNode_outlineHugeMethods
+            ? HugeMethodOutliner.getMethodSizedRunStarts(
+                fieldCases.stream().map(String::length).collect(ImmutableList.toImmutableList()))
+            : ImmutableList.of(0);
+        if (fieldCasesRunStarts.size() <= 1) {
+          // Java compiles a String switch down to a switch over the precomputed hashCodes of the case labels, so
+          // field dispatch doesn't degrade into a chain of string comparisons for wide structs.
+          res.append("      switch ($jsonReader.nextName()) {\n");
+          fieldCases.forEach(fieldCase -> res.append(fieldCase).append("          break;\n"));
+          res.append("        default: // This is some unexpected field.\n")
+              .append("          throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+              .append("      }\n");
+        } else {
+          res.append("      String $name = $jsonReader.nextName();\n")
+              .append("      if (!(");
+          for (int run = 0; run < fieldCasesRunStarts.size(); run++) {
+            String helperName = "parseFields$" + run;
+            res.append(run == 0 ? "" : "\n            || ").append(helperName).append("($jsonReader, $name, $values)");
+            helperMethods
+                .append("  static boolean ").append(helperName)
+                .append("(com.google.gson.stream.JsonReader $jsonReader, String $name, Object[] $values)")
+                .append(" throws java.io.IOException {\n")
+                .append("    switch ($name) {\n");
+            int runEnd =
+                run + 1 < fieldCasesRunStarts.size() ? fieldCasesRunStarts.get(run + 1) : fieldCases.size();
+            for (int i = fieldCasesRunStarts.get(run); i < runEnd; i++) {
+              helperMethods.append(fieldCases.get(i)).append("          return true;\n");
+            }
+            helperMethods.append("    }\n")
+                .append("    return false;\n")
+                .append("  }\n\n");
+          }
+          res.append(")) { // This is some unexpected field.\n")
+              .append("        throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+              .append("      }\n");
+        }
+        res.append("    }\n")
             // Make sure that we validate that *all* required fields were actually set, otherwise the json parsing is
             // considered a failure. Even if the missing field types were `oneof<..., Nothing>`, Nothing only
-            // maps to `null` in the JSON representation, a missing field is an error, not auto-coerced to null.
-            .append("\tfor (int $i = 0; $i < ")
-            .append(structType.getFieldNames().size())
-            .append("; ++$i) {\n")
-            .append("\t\tif ($structBuilder")
-            .append(nestingLevel)
-            .append(".values[$i] == null) {\n")
-            .append("\t\t\treturn ClaroRuntimeUtilities.$getErrorParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.getPath(), $jsonString);\n")
-            .append("\t\t}")
-            .append("\t}")
-            .append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $structBuilder")
-            .append(nestingLevel)
-            .append(", $jsonString);\n");
-        if (!alreadyPeekedType) {
-          res.append("} ");
-        }
+            // maps to `null` in the JSON representation, a missing field is an error, not auto-coerced to null. This
+            // is checked before consuming the closing brace so that the reported path still points into this object.
+            .append("    for (Object $value : $values) {\n")
+            .append("      if ($value == null) {\n")
+            .append("        throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+            .append("      }\n")
+            .append("    }\n")
+            .append("    $jsonReader.endObject();\n")
+            .append("    return new ClaroStruct($TYPE, $values);\n");
         break;
       case MAP:
-        Types.MapType mapType = (Types.MapType) type;
-        if (!alreadyPeekedType) {
-          res.append("if (")
-              .append(GSON_TOKEN)
-              .append(".BEGIN_OBJECT.equals($peeked")
-              .append(nestingLevel)
-              .append(")) {\n");
-        }
-        res.append("\t$jsonReader.beginObject();\n")
+        Type valuesType = type.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES);
+        res.append("    if ($jsonReader.peek() != ").append(GSON_TOKEN).append(".BEGIN_OBJECT) {\n")
+            .append("      throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+            .append("    }\n")
+            .append("    $jsonReader.beginObject();\n")
             // This is a fascinating example of a compiler superpower that the users don't have access to. Here,
             // regardless of whether the map is being parsed to mutable/immutable, I'm going to modify the
             // map because I know that I'm the sole owner of this map as I, the compiler, just created it.
-            .append("\tClaroMap $mapBuilder")
-            .append(nestingLevel)
-            .append(" = new ClaroMap(")
-            .append(type.getJavaSourceClaroType())
-            .append(");\n")
-            .append("\tfinal Supplier<$UserDefinedType<ClaroStruct>> $parseElement")
-            .append(nestingLevel)
-            .append(" = () -> {\n")
-            .append("\t\t")
-            .append(getParseJSONJavaSource(
-                mapType.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES),
-                nestingLevel + 1, /*alreadyPeekedType=*/ false
-            ))
-            .append("\t};\n")
-            .append("\twhile ($jsonReader.hasNext()) {\n")
-            .append("\t\tString $key")
-            .append(nestingLevel)
-            .append(" = $jsonReader.nextName();\n")
-            .append("\t\t$UserDefinedType<ClaroStruct> $parsedElem")
-            .append(nestingLevel)
-            .append(" = $parseElement")
-            .append(nestingLevel)
-            .append(".get();\n")
-            .append("\t\tif ($parsedElem")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0] instanceof $UserDefinedType) { // It's necessarily an Error<string> since Claro can't parse user-defined types from JSON automatically.\n")
-            .append("\t\t\treturn $parsedElem")
-            .append(nestingLevel)
-            .append(";\n")
-            .append("\t\t}\n")
-            .append("\t\t$mapBuilder")
-            .append(nestingLevel)
-            .append(".set($key")
-            .append(nestingLevel)
-            .append(", (")
-            .append(mapType.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES).getJavaSourceType())
-            .append(") $parsedElem")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0]);\n")
-            .append("\t}\n")
-            .append("\t$jsonReader.endObject();\n")
-            .append("\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $mapBuilder")
-            .append(nestingLevel)
-            .append(", $jsonString);\n");
-        if (!alreadyPeekedType) {
-          res.append("} ");
-        }
+            .append("    ClaroMap<String, ").append(valuesType.getJavaSourceType()).append("> $res = new ClaroMap<>($TYPE);\n")
+            .append("    while ($jsonReader.hasNext()) {\n")
+            .append("      String $key = $jsonReader.nextName();\n")
+            .append("      $res.set($key, ").append(getParseValueExpr(valuesType)).append(");\n")
+            .append("    }\n")
+            .append("    $jsonReader.endObject();\n")
+            .append("    return $res;\n");
         break;
       case ONEOF:
         // Claro can support a very limited lookahead for parsing oneofs. Here we'll assume that validation has already
         // completed so we know that this oneof's variants can be disambiguated with a single peek().
-        Types.OneofType oneofType = (Types.OneofType) type;
-        res.append("\t$UserDefinedType<ClaroStruct> $parsedOneof").append(nestingLevel).append(";\n")
-            .append("\tswitch($peeked").append(nestingLevel).append(") {\n");
-        IntStream.range(0, oneofType.getVariantTypes().size()).boxed().forEach(
-            i -> {
-              res.append("\t\tcase ");
-              Type currType;
-              switch ((currType = oneofType.getVariantTypes().asList().get(i)).baseType()) {
-                case BOOLEAN:
-                  res.append("BOOLEAN:\n");
-                  break;
-                case INTEGER:
-                case FLOAT:
-                  res.append("NUMBER:\n");
-                  break;
-                case STRING:
-                  res.append("STRING:\n");
-                  break;
-                case ATOM:
-                  if (((Types.AtomType) currType).getName().equals("Nothing")
-                      && ((Types.AtomType) currType).getDefiningModuleDisambiguator()
-                          .equals(StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR)) {
-                    res.append("NULL:\n");
-                    break;
-                  }
-                  throw new RuntimeException("Internal Compiler Error! Should be unreachable." + currType);
-                case LIST:
-                  res.append("BEGIN_ARRAY:\n");
-                  break;
-                case STRUCT:
-                  res.append("BEGIN_OBJECT:\n");
-                  break;
-              }
-              res.append("\t\t\t$parsedOneof").append(nestingLevel).append(" = ")
-                  .append(getFieldParserForType.apply(oneofType.getVariantTypes()
-                                                          .asList()
-                                                          .get(i), /*_alreadyPeeked=*/ true))
-                  .append("\n\t\t\tbreak;\n");
-            }
-        );
-        res.append("\t\tdefault: // This is some unexpected field.\n")
-            .append("\t\t\treturn ClaroRuntimeUtilities.$getErrorParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $jsonReader.getPath(), $jsonString);\n")
-            .append("\t}\n")
-            .append("\tif ($parsedOneof")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0] instanceof $UserDefinedType) { // It's necessarily an Error<string> since Claro can't parse user-defined types from JSON automatically.\n")
-            .append("\t\treturn $parsedOneof")
-            .append(nestingLevel)
-            .append(";\n")
-            .append("\t} else {\n")
-            .append("\t\treturn ClaroRuntimeUtilities.$getSuccessParsedJson(")
-            .append(type.getJavaSourceClaroType())
-            .append(", $parsedOneof")
-            .append(nestingLevel)
-            .append(".wrappedValue.values[0], $jsonString);\n")
-            .append("\t} ");
+        res.append("    switch ($jsonReader.peek()) {\n");
+        for (Type variantType : ((Types.OneofType) type).getVariantTypes()) {
+          switch (variantType.baseType()) {
+            case BOOLEAN:
+              res.append("      case BOOLEAN:\n");
+              break;
+            case INTEGER:
+            case FLOAT:
+              res.append("      case NUMBER:\n");
+              break;
+            case STRING:
+              res.append("      case STRING:\n");
+              break;
+            case ATOM:
+              res.append("      case NULL:\n");
+              break;
+            case LIST:
+              res.append("      case BEGIN_ARRAY:\n");
+              break;
+            case STRUCT:
+            case MAP:
+              res.append("      case BEGIN_OBJECT:\n");
+              break;
+            default:
+              throw new RuntimeException("Internal Compiler Error! Should be unreachable." + variantType);
+          }
+          res.append("        return ").append(getParseValueExpr(variantType)).append(";\n");
+        }
+        res.append("      default:\n")
+            .append("        throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;\n")
+            .append("    }\n");
         break;
       default:
-        throw new RuntimeException("Internal Compiler Error: Should be unreachable! " + type);
+        // Primitive target types are parsed exactly as they would be when nested.
+        res.append("    return ").append(getParseValueExpr(type)).append(";\n");
     }
-    if (!alreadyPeekedType && !type.baseType().equals(BaseType.ONEOF)) {
-      res.append("else { $jsonReader.skipValue(); return ClaroRuntimeUtilities.$getErrorParsedJson(")
-          .append(type.getJavaSourceClaroType())
-          .append(", $jsonReader.getPath(), $jsonString); }\n");
-    }
-    return res.append("} catch (java.io.IOException e) {\n\treturn ClaroRuntimeUtilities.$getErrorParsedJson(")
-        .append(type.getJavaSourceClaroType())
-        .append(", $jsonReader.getPath(), $jsonString); }\n");
+    return res;
   }
 
   @Override
@@ -15,7 +15,8 @@ public class GraphNodeReferenceExpr extends IdentifierReferenceTerm {
   public GraphNodeReferenceExpr(String referencedGraphNodeName, Supplier<String> currentLine, int currentLineNumber, int startCol, int endCol) {
     super(referencedGraphNodeName, currentLine, currentLineNumber, startCol, endCol);
     this.referencedGraphNodeName = referencedGraphNodeName;
-    InternalStaticStateUtil.GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder.add(this.referencedGraphNodeName);
+    InternalStaticStateUtil.parsingState().GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder
+        .add(this.referencedGraphNodeName);
   }
 
   @Override
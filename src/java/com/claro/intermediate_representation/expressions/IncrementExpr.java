@@ -38,6 +38,7 @@ public class IncrementExpr extends Expr {
   @Override
   public StringBuilder generateJavaSourceBodyOutput(ScopedHeap scopedHeap) {
     StringBuilder res = ((Expr) getChildren().get(0)).generateJavaSourceBodyOutput(scopedHeap);
+    scopedHeap.recordCodegenAssignment(((IdentifierReferenceTerm) getChildren().get(0)).getIdentifier());
     if (preIncrement) {
       res.insert(0, "++");
     } else {
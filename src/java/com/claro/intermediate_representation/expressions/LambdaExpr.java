@@ -14,9 +14,6 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 public class LambdaExpr extends Expr {
-  // In order to give all of the objects that represent Claro lambdas a valid disambiguated name, count lambdas.
-  private static long lambdaExprCount = 0;
-
   private final String lambdaName;
   private final StmtListNode stmtListNode;
   private final ImmutableList<String> argNameList;
@@ -40,11 +37,12 @@ public class LambdaExpr extends Expr {
     this.argNameList = argNameList;
     this.returnTypeReference = returnTypeReference;
 
-    // Keep track of all the lambdas that are created so we can generate unambiguous aliases for the objects
-    // generated for the lambdas.
-    lambdaExprCount++;
+    // In order to give all of the objects that represent Claro lambdas a valid disambiguated name, count lambdas so
+    // that we can generate unambiguous aliases for the objects generated for the lambdas.
+    InternalStaticStateUtil.ParsingState parsingState = InternalStaticStateUtil.parsingState();
+    parsingState.LambdaExpr_lambdaExprCount++;
     // Lambdas are unnamed. Let's name them all "$lambda" just to have some unambiguous alias.
-    this.lambdaName = "$lambda" + LambdaExpr.lambdaExprCount;
+    this.lambdaName = "$lambda" + parsingState.LambdaExpr_lambdaExprCount;
   }
 
   // Support the following syntax:
@@ -1,12 +1,12 @@
 package com.claro.intermediate_representation.expressions;
 
 import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.statements.HugeMethodOutliner;
 import com.claro.intermediate_representation.types.*;
 import com.claro.intermediate_representation.types.impls.builtins_impls.collections.ClaroList;
 import com.google.common.collect.ImmutableList;
 
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -104,29 +104,23 @@ public class ListExpr extends Expr {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
-    AtomicReference<GeneratedJavaSource> initializerValsGenJavaSource =
-        new AtomicReference<>(GeneratedJavaSource.forJavaSourceBody(new StringBuilder()));
-
     String listFormatString = "ClaroList.initializeList(%s%s)";
-    String initializerArgs;
-    if (initializerArgExprsList.isEmpty()) {
-      initializerArgs = "";
-    } else {
-      initializerArgs =
-          this.initializerArgExprsList.stream()
-              .map(expr -> {
-                GeneratedJavaSource curr = expr.generateJavaSourceOutput(scopedHeap);
-                String currJavaSource = curr.javaSourceBody().toString();
-                curr.javaSourceBody().setLength(0);
-                initializerValsGenJavaSource.set(initializerValsGenJavaSource.get().createMerged(curr));
-                return currJavaSource;
-              })
-              .collect(Collectors.joining(", ", ", ", ""));
-    }
-    return GeneratedJavaSource.forJavaSourceBody(
-            new StringBuilder(
-                String.format(listFormatString, this.validatedListType.getJavaSourceClaroType(), initializerArgs)))
-        .createMerged(initializerValsGenJavaSource.get());
+    String claroType = this.validatedListType.getJavaSourceClaroType();
+    return HugeMethodOutliner.generateLiteralJavaSourceOutput(
+        scopedHeap,
+        this.initializerArgExprsList,
+        initializerArgs -> String.format(
+            listFormatString,
+            claroType,
+            initializerArgs.stream().map(arg -> ", " + arg).collect(Collectors.joining())
+        ),
+        this.validatedListType.getJavaSourceType(),
+        String.format(
+            "return (%s) (Object) %s;",
+            this.validatedListType.getJavaSourceType(),
+            String.format(listFormatString, claroType, ", $elems")
+        )
+    );
   }
 
   @Override
@@ -1,10 +1,12 @@
 package com.claro.intermediate_representation.expressions;
 
 import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.statements.HugeMethodOutliner;
 import com.claro.intermediate_representation.types.*;
 import com.claro.intermediate_representation.types.impls.builtins_impls.collections.ClaroMap;
 import com.google.common.collect.ImmutableList;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
 
@@ -84,38 +86,39 @@ public class MapExpr extends Expr {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
-    GeneratedJavaSource res = GeneratedJavaSource.forJavaSourceBody(
-        new StringBuilder(
-            String.format(
-                "new ClaroMap<%s, %s>(%s)",
-                this.validatedMapType.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_KEYS)
-                    .getJavaSourceType(),
-                this.validatedMapType.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES)
-                    .getJavaSourceType(),
-                this.validatedMapType.getJavaSourceClaroType()
-            )));
-    if (!this.initializerKeyValPairs.isEmpty()) {
-      for (ImmutableList<Expr> kv : this.initializerKeyValPairs) {
-        GeneratedJavaSource keyGenJavaSource = kv.get(0).generateJavaSourceOutput(scopedHeap);
-        GeneratedJavaSource valueGenJavaSource = kv.get(1).generateJavaSourceOutput(scopedHeap);
-        StringBuilder putKVJavaSourceBody =
-            new StringBuilder(
-                String.format(
-                    ".set(%s, %s)",
-                    keyGenJavaSource.javaSourceBody(),
-                    valueGenJavaSource.javaSourceBody()
-                ));
-        // Now that I've consumed java source bodies of both key and value, I can consume them.
-        keyGenJavaSource.javaSourceBody().setLength(0);
-        valueGenJavaSource.javaSourceBody().setLength(0);
-        // Now, make sure that the prefix/static java source stmts will be executed in the order of key first then value.
-        res = res
-            .createMerged(keyGenJavaSource)
-            .createMerged(valueGenJavaSource)
-            .createMerged(GeneratedJavaSource.forJavaSourceBody(putKVJavaSourceBody));
-      }
-    }
-    return res;
+    String keysJavaSourceType =
+        this.validatedMapType.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_KEYS).getJavaSourceType();
+    String valuesJavaSourceType =
+        this.validatedMapType.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES).getJavaSourceType();
+    String newMapJavaSource =
+        String.format(
+            "new ClaroMap<%s, %s>(%s)",
+            keysJavaSourceType,
+            valuesJavaSourceType,
+            this.validatedMapType.getJavaSourceClaroType()
+        );
+    // The keys and values are codegen'd as a single flat sequence so that the prefix/static java source stmts will be
+    // executed in the order of key first then value.
+    return HugeMethodOutliner.generateLiteralJavaSourceOutput(
+        scopedHeap,
+        this.initializerKeyValPairs.stream().flatMap(List::stream).collect(ImmutableList.toImmutableList()),
+        keysAndValues -> {
+          StringBuilder res = new StringBuilder(newMapJavaSource);
+          for (int i = 0; i < keysAndValues.size(); i += 2) {
+            res.append(String.format(".set(%s, %s)", keysAndValues.get(i), keysAndValues.get(i + 1)));
+          }
+          return res.toString();
+        },
+        String.format("ClaroMap<%s, %s>", keysJavaSourceType, valuesJavaSourceType),
+        String.format(
+            "ClaroMap<%s, %s> $res = %s;\n" +
+            "for (int $i = 0; $i < $elems.length; $i += 2) {\n" +
+            "  $res.set((%s) $elems[$i], (%s) $elems[$i + 1]);\n" +
+            "}\n" +
+            "return $res;",
+            keysJavaSourceType, valuesJavaSourceType, newMapJavaSource, keysJavaSourceType, valuesJavaSourceType
+        )
+    );
   }
 
   @Override
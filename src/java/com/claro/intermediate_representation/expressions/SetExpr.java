@@ -1,14 +1,13 @@
 package com.claro.intermediate_representation.expressions;
 
 import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.statements.HugeMethodOutliner;
 import com.claro.intermediate_representation.types.*;
 import com.claro.intermediate_representation.types.impls.builtins_impls.collections.ClaroSet;
 import com.google.common.collect.ImmutableList;
 
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class SetExpr extends Expr {
 
@@ -79,26 +78,17 @@ public class SetExpr extends Expr {
       return GeneratedJavaSource.forJavaSourceBody(resJavaSourceBody);
     }
 
-    AtomicReference<GeneratedJavaSource> setValsGenJavaSource =
-        new AtomicReference<>(GeneratedJavaSource.forJavaSourceBody(new StringBuilder()));
-    resJavaSourceBody.append(".add(ImmutableList.of(");
-    resJavaSourceBody.append(
-        initializerValues.stream()
-            .map(expr -> {
-              GeneratedJavaSource setValGenJavaSource = expr.generateJavaSourceOutput(scopedHeap);
-              String setValJavaSourceString = setValGenJavaSource.javaSourceBody().toString();
-              // We've consumed the javaSourceBody, it's safe to clear.
-              setValGenJavaSource.javaSourceBody().setLength(0);
-              // Now merge with the overall gen java source to track all of the static and preamble stmts.
-              setValsGenJavaSource.set(setValsGenJavaSource.get().createMerged(setValGenJavaSource));
-
-              return setValJavaSourceString;
-            })
-            .collect(Collectors.joining(", ")));
-    resJavaSourceBody.append("))");
-
-    return GeneratedJavaSource.forJavaSourceBody(resJavaSourceBody)
-        .createMerged(setValsGenJavaSource.get());
+    return HugeMethodOutliner.generateLiteralJavaSourceOutput(
+        scopedHeap,
+        initializerValues,
+        setVals -> new StringBuilder(resJavaSourceBody)
+            .append(".add(ImmutableList.of(")
+            .append(String.join(", ", setVals))
+            .append("))")
+            .toString(),
+        validatedType.getJavaSourceType(),
+        String.format("return %s.add((java.util.Collection) java.util.Arrays.asList($elems));", resJavaSourceBody)
+    );
   }
 
   @Override
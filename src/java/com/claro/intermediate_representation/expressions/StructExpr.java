@@ -1,13 +1,12 @@
 package com.claro.intermediate_representation.expressions;
 
 import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.statements.HugeMethodOutliner;
 import com.claro.intermediate_representation.types.*;
 import com.claro.intermediate_representation.types.impls.builtins_impls.structs.ClaroStruct;
 import com.google.common.collect.ImmutableList;
 
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class StructExpr extends Expr {
 
@@ -92,30 +91,14 @@ public class StructExpr extends Expr {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
-    AtomicReference<GeneratedJavaSource> structValsGenJavaSource =
-        new AtomicReference<>(GeneratedJavaSource.forJavaSourceBody(new StringBuilder()));
-
-    StringBuilder resJavaSourceBody = new StringBuilder();
-    resJavaSourceBody.append("new ClaroStruct(");
-    resJavaSourceBody.append(this.type.getJavaSourceClaroType());
-    resJavaSourceBody.append(", ");
-    resJavaSourceBody.append(
-        this.fieldValues.stream()
-            .map(expr -> {
-              GeneratedJavaSource fieldValGenJavaSource = expr.generateJavaSourceOutput(scopedHeap);
-              String fieldValJavaSourceString = fieldValGenJavaSource.javaSourceBody().toString();
-              // We've consumed the javaSourceBody, it's safe to clear.
-              fieldValGenJavaSource.javaSourceBody().setLength(0);
-              // Now merge with the overall gen java source to track all of the static and preamble stmts.
-              structValsGenJavaSource.set(structValsGenJavaSource.get().createMerged(fieldValGenJavaSource));
-
-              return fieldValJavaSourceString;
-            })
-            .collect(Collectors.joining(", ")));
-    resJavaSourceBody.append(")");
-
-    return GeneratedJavaSource.forJavaSourceBody(resJavaSourceBody)
-        .createMerged(structValsGenJavaSource.get());
+    String claroType = this.type.getJavaSourceClaroType();
+    return HugeMethodOutliner.generateLiteralJavaSourceOutput(
+        scopedHeap,
+        this.fieldValues,
+        fieldVals -> String.format("new ClaroStruct(%s, %s)", claroType, String.join(", ", fieldVals)),
+        "ClaroStruct",
+        String.format("return new ClaroStruct(%s, $elems);", claroType)
+    );
   }
 
   @Override
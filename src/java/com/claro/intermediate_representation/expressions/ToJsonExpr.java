@@ -0,0 +1,296 @@
+package com.claro.intermediate_representation.expressions;
+
+import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.expressions.procedures.functions.StructuralConcreteGenericTypeValidationUtil;
+import com.claro.intermediate_representation.types.ClaroTypeException;
+import com.claro.intermediate_representation.types.Type;
+import com.claro.intermediate_representation.types.Types;
+import com.claro.internal_static_state.InternalStaticStateUtil;
+import com.claro.stdlib.StdLibModuleRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class ToJsonExpr extends Expr {
+  private final Expr serializedExpr;
+  private Type validatedSerializedExprType;
+
+  public ToJsonExpr(Expr serializedExpr, Supplier<String> currentLine, int currentLineNumber, int startCol, int endCol) {
+    super(ImmutableList.of(), currentLine, currentLineNumber, startCol, endCol);
+    this.serializedExpr = serializedExpr;
+  }
+
+  @Override
+  public Type getValidatedExprType(ScopedHeap scopedHeap) throws ClaroTypeException {
+    this.validatedSerializedExprType = this.serializedExpr.getValidatedExprType(scopedHeap);
+
+    // Walk the structure to ensure that there's actually a sensible JSON representation for every nested value.
+    try {
+      validateJSONSerializationIsPossible(this.validatedSerializedExprType, new HashSet<>());
+    } catch (ClaroTypeException e) {
+      this.logTypeError(e);
+    }
+
+    // Serialization can't fail for any type that passed validation, so this is always just a plain string.
+    return Types.STRING;
+  }
+
+  private void validateJSONSerializationIsPossible(Type type, HashSet<Type> alreadyValidatedUserDefinedTypes)
+      throws ClaroTypeException {
+    switch (type.baseType()) {
+      case ATOM:
+      case BOOLEAN:
+      case INTEGER:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+        return;
+      case LIST:
+        validateJSONSerializationIsPossible(((Types.ListType) type).getElementType(), alreadyValidatedUserDefinedTypes);
+        return;
+      case STRUCT:
+        for (Type fieldType : ((Types.StructType) type).getFieldTypes()) {
+          validateJSONSerializationIsPossible(fieldType, alreadyValidatedUserDefinedTypes);
+        }
+        return;
+      case ONEOF:
+        for (Type variantType : ((Types.OneofType) type).getVariantTypes()) {
+          validateJSONSerializationIsPossible(variantType, alreadyValidatedUserDefinedTypes);
+        }
+        return;
+      case MAP:
+        if (type.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_KEYS).equals(Types.STRING)) {
+          validateJSONSerializationIsPossible(
+              type.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES),
+              alreadyValidatedUserDefinedTypes
+          );
+          return;
+        }
+        break;
+      case USER_DEFINED_TYPE:
+        // User defined types are serialized as their wrapped value. Recursive types are perfectly fine, so make sure
+        // not to validate the same type forever.
+        if (alreadyValidatedUserDefinedTypes.add(type)) {
+          validateJSONSerializationIsPossible(
+              getWrappedType((Types.UserDefinedType) type), alreadyValidatedUserDefinedTypes);
+        }
+        return;
+    }
+    throw ClaroTypeException.forIllegalSerializeToJSONForUnsupportedType(type, this.validatedSerializedExprType);
+  }
+
+  @Override
+  public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    // Just like fromJson(...), all of the actual serialization logic lives in a shared writer class generated once per
+    // type, so the call site just delegates to it.
+    GeneratedJavaSource res = GeneratedJavaSource.forJavaSourceBody(
+        new StringBuilder(getOrCreateJsonWriterClassName(this.validatedSerializedExprType)).append(".toJson("));
+    res = res.createMerged(this.serializedExpr.generateJavaSourceOutput(scopedHeap));
+    res.javaSourceBody().append(")");
+    return res;
+  }
+
+  // Each distinct type that needs serializing gets a single static nested class `$JsonWriter$N` exposing:
+  //   - `static void write(StringBuilder, Object)` which appends the JSON representation of a single value of the type
+  //     directly into the given buffer, delegating to the writers of any nested compound types. No intermediate
+  //     Strings are built for nested values.
+  //   - `static String toJson(Object)` which is the entrypoint used by `toJson(...)` call sites. It writes into a
+  //     reusable per-thread buffer so that the only allocation is the final String itself.
+  // These are collected centrally and emitted at the top-level of the generated class exactly as fromJson(...) parsers
+  // are.
+  private static String getOrCreateJsonWriterClassName(Type type) {
+    String writerClassName = InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType.get(type);
+    if (writerClassName != null) {
+      return writerClassName;
+    }
+    writerClassName = "$JsonWriter$" + InternalStaticStateUtil.ToJsonExpr_jsonWritersCount++;
+    // Register before generating the write method so that recursive types resolve to this same class.
+    InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType.put(type, writerClassName);
+
+    StringBuilder hoistedTypes = new StringBuilder();
+    StringBuilder writeMethodBody = getWriteJSONJavaSource(type, hoistedTypes);
+    InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen
+        .append("static final class ").append(writerClassName).append(" {\n")
+        .append(hoistedTypes)
+        .append("  static void write(StringBuilder $out, Object $value) {\n")
+        .append(writeMethodBody)
+        .append("  }\n\n")
+        .append("  static String toJson(Object $value) {\n")
+        .append("    StringBuilder $out = ClaroRuntimeUtilities.$getReusableJsonBuffer();\n")
+        .append("    write($out, $value);\n")
+        .append("    return $out.toString();\n")
+        .append("  }\n")
+        .append("}\n");
+    return writerClassName;
+  }
+
+  // Returns a statement that appends the JSON representation of `valueExpr` (of the given type) to `$out`. Primitives
+  // are written inline while compound types delegate to their own shared writer class.
+  private static String getWriteValueStmt(Type type, String valueExpr) {
+    switch (type.baseType()) {
+      case BOOLEAN:
+        return String.format("$out.append((boolean) (Boolean) %s);", valueExpr);
+      case INTEGER:
+        return String.format("$out.append((int) (Integer) %s);", valueExpr);
+      case LONG:
+        return String.format("$out.append((long) (Long) %s);", valueExpr);
+      case FLOAT:
+        return String.format("ClaroRuntimeUtilities.$writeJsonNumber($out, (Float) %s);", valueExpr);
+      case DOUBLE:
+        return String.format("ClaroRuntimeUtilities.$writeJsonNumber($out, (Double) %s);", valueExpr);
+      case STRING:
+        return String.format("ClaroRuntimeUtilities.$writeJsonString($out, (String) %s);", valueExpr);
+      case ATOM:
+        // Atoms are singletons, so their representation is known statically. The stdlib's Nothing is represented as
+        // `null` so that it round-trips through fromJson(...), every other atom is just written as its name.
+        if (((Types.AtomType) type).getName().equals("Nothing")
+            && ((Types.AtomType) type).getDefiningModuleDisambiguator()
+                .equals(StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR)) {
+          return "$out.append(\"null\");";
+        }
+        return String.format("$out.append(\"\\\"%s\\\"\");", ((Types.AtomType) type).getName());
+      default:
+        return String.format("%s.write($out, %s);", getOrCreateJsonWriterClassName(type), valueExpr);
+    }
+  }
+
+  private static StringBuilder getWriteJSONJavaSource(Type type, StringBuilder hoistedTypes) {
+    StringBuilder res = new StringBuilder();
+    switch (type.baseType()) {
+      case LIST:
+        res.append("    ClaroList<?> $list = (ClaroList<?>) $value;\n")
+            .append("    $out.append('[');\n")
+            .append("    for (int $i = 0; $i < $list.size(); $i++) {\n")
+            .append("      if ($i > 0) {\n")
+            .append("        $out.append(',');\n")
+            .append("      }\n")
+            .append("      ").append(getWriteValueStmt(((Types.ListType) type).getElementType(), "$list.get($i)"))
+            .append("\n")
+            .append("    }\n")
+            .append("    $out.append(']');\n");
+        break;
+      case STRUCT:
+        Types.StructType structType = (Types.StructType) type;
+        res.append("    Object[] $values = ((ClaroStruct) $value).values;\n");
+        // Field names are statically known, so the keys and all of the surrounding punctuation get folded into
+        // constant string appends between the field values.
+        for (int i = 0; i < structType.getFieldNames().size(); i++) {
+          res.append("    $out.append(\"")
+              .append(i == 0 ? "{" : ",")
+              .append("\\\"").append(structType.getFieldNames().get(i)).append("\\\":\");\n")
+              .append("    ").append(getWriteValueStmt(structType.getFieldTypes().get(i), "$values[" + i + "]"))
+              .append("\n");
+        }
+        res.append(structType.getFieldNames().isEmpty() ? "    $out.append(\"{}\");\n" : "    $out.append('}');\n");
+        break;
+      case MAP:
+        res.append("    $out.append('{');\n")
+            .append("    boolean $first = true;\n")
+            .append("    for (java.util.Map.Entry<?, ?> $entry : ((ClaroMap<?, ?>) $value).entrySet()) {\n")
+            .append("      if (!$first) {\n")
+            .append("        $out.append(',');\n")
+            .append("      }\n")
+            .append("      $first = false;\n")
+            .append("      ClaroRuntimeUtilities.$writeJsonString($out, (String) $entry.getKey());\n")
+            .append("      $out.append(':');\n")
+            .append("      ")
+            .append(getWriteValueStmt(
+                type.parameterizedTypeArgs().get(Types.MapType.PARAMETERIZED_TYPE_VALUES), "$entry.getValue()"))
+            .append("\n")
+            .append("    }\n")
+            .append("    $out.append('}');\n");
+        break;
+      case ONEOF:
+        // Primitive variants are trivially distinguishable by their Java class, but e.g. two different list variants
+        // are only distinguishable by their Claro type, so those get their types hoisted for comparison at runtime.
+        ImmutableList<Type> variantTypes = ((Types.OneofType) type).getVariantTypes().asList();
+        for (int i = 0; i < variantTypes.size(); i++) {
+          Type variantType = variantTypes.get(i);
+          String variantCheck;
+          switch (variantType.baseType()) {
+            case BOOLEAN:
+            case INTEGER:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+            case STRING:
+              variantCheck = String.format("$value instanceof %s", variantType.getJavaSourceType());
+              break;
+            default:
+              hoistedTypes.append("  static final Type $VARIANT_TYPE_").append(i).append(" = ")
+                  .append(variantType.getJavaSourceClaroType()).append(";\n");
+              variantCheck = "$VARIANT_TYPE_" + i + ".equals($valueType)";
+          }
+          res.append(i == 0 ? "    " : " else ").append("if (").append(variantCheck).append(") {\n")
+              .append("      ").append(getWriteValueStmt(variantType, "$value")).append("\n")
+              .append("    }");
+        }
+        // Only bother looking up the value's Claro type if some variant actually needs it.
+        boolean checksClaroType = hoistedTypes.length() > 0;
+        res.append(" else {\n")
+            .append("      throw new IllegalStateException(\"Internal Compiler Error! Unexpected oneof variant: \" + ")
+            .append(checksClaroType ? "$valueType" : "$value.getClass()").append(");\n")
+            .append("    }\n");
+        if (checksClaroType) {
+          hoistedTypes.append("\n");
+          res.insert(0, "    Type $valueType = ClaroRuntimeUtilities.getClaroType($value);\n");
+        }
+        break;
+      case USER_DEFINED_TYPE:
+        res.append("    ")
+            .append(getWriteValueStmt(
+                getWrappedType((Types.UserDefinedType) type), "(($UserDefinedType<?>) $value).wrappedValue"))
+            .append("\n");
+        break;
+      default:
+        // Primitive top-level types are written exactly as they would be when nested.
+        res.append("    ").append(getWriteValueStmt(type, "$value")).append("\n");
+    }
+    return res;
+  }
+
+  // User defined types are represented in a somewhat complex way when parameterized, so in that case the concrete
+  // wrapped type must be derived from the type's concrete type params.
+  private static Type getWrappedType(Types.UserDefinedType userDefinedType) {
+    String disambiguatedTypeName =
+        String.format("%s$%s", userDefinedType.getTypeName(), userDefinedType.getDefiningModuleDisambiguator());
+    if (userDefinedType.parameterizedTypeArgs().isEmpty()) {
+      return Types.UserDefinedType.$resolvedWrappedTypes.get(disambiguatedTypeName);
+    }
+    ImmutableList<String> typeParamNames = Types.UserDefinedType.$typeParamNames.get(disambiguatedTypeName);
+    Map<Type, Type> concreteTypeParams =
+        IntStream.range(0, userDefinedType.parameterizedTypeArgs().size()).boxed()
+            .collect(ImmutableMap.toImmutableMap(
+                i -> Types.$GenericTypeParam.forTypeParamName(typeParamNames.get(i)),
+                i -> userDefinedType.parameterizedTypeArgs().get(i.toString())
+            ));
+    Optional<Map<Type, Type>> originalGenTypeCodegenMappings =
+        Types.$GenericTypeParam.concreteTypeMappingsForParameterizedTypeCodegen;
+    try {
+      Types.$GenericTypeParam.concreteTypeMappingsForParameterizedTypeCodegen = Optional.of(concreteTypeParams);
+      return StructuralConcreteGenericTypeValidationUtil.validateArgExprsAndExtractConcreteGenericTypeParams(
+          Maps.newHashMap(concreteTypeParams),
+          Types.UserDefinedType.$resolvedWrappedTypes.get(disambiguatedTypeName),
+          Types.UserDefinedType.$resolvedWrappedTypes.get(disambiguatedTypeName),
+          true
+      );
+    } catch (ClaroTypeException e) {
+      throw new RuntimeException("Internal Compiler Error! Should be unreachable.", e);
+    } finally {
+      Types.$GenericTypeParam.concreteTypeMappingsForParameterizedTypeCodegen = originalGenTypeCodegenMappings;
+    }
+  }
+
+  @Override
+  public Object generateInterpretedOutput(ScopedHeap scopedHeap) {
+    // TODO(steving) Eventually need to impl toJson when I come back to adding support for the interpreted backend.
+    throw new RuntimeException("Internal Compiler Error! Claro doesn't support toJson() in the interpreted backend just yet!");
+  }
+}
@@ -1,13 +1,12 @@
 package com.claro.intermediate_representation.expressions;
 
 import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.statements.HugeMethodOutliner;
 import com.claro.intermediate_representation.types.*;
 import com.claro.intermediate_representation.types.impls.builtins_impls.collections.ClaroTuple;
 import com.google.common.collect.ImmutableList;
 
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 public class TupleExpr extends Expr {
 
@@ -59,30 +58,14 @@ public class TupleExpr extends Expr {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
-    AtomicReference<GeneratedJavaSource> tupleValsGenJavaSource =
-        new AtomicReference<>(GeneratedJavaSource.forJavaSourceBody(new StringBuilder()));
-
-    StringBuilder resJavaSourceBody = new StringBuilder();
-    resJavaSourceBody.append("new ClaroTuple(");
-    resJavaSourceBody.append(this.type.getJavaSourceClaroType());
-    resJavaSourceBody.append(", ");
-    resJavaSourceBody.append(
-        this.tupleValues.stream()
-            .map(expr -> {
-              GeneratedJavaSource tupleValGenJavaSource = expr.generateJavaSourceOutput(scopedHeap);
-              String tupleValJavaSourceString = tupleValGenJavaSource.javaSourceBody().toString();
-              // We've consumed the javaSourceBody, it's safe to clear.
-              tupleValGenJavaSource.javaSourceBody().setLength(0);
-              // Now merge with the overall gen java source to track all of the static and preamble stmts.
-              tupleValsGenJavaSource.set(tupleValsGenJavaSource.get().createMerged(tupleValGenJavaSource));
-
-              return tupleValJavaSourceString;
-            })
-            .collect(Collectors.joining(", ")));
-    resJavaSourceBody.append(")");
-
-    return GeneratedJavaSource.forJavaSourceBody(resJavaSourceBody)
-        .createMerged(tupleValsGenJavaSource.get());
+    String claroType = this.type.getJavaSourceClaroType();
+    return HugeMethodOutliner.generateLiteralJavaSourceOutput(
+        scopedHeap,
+        this.tupleValues,
+        tupleVals -> String.format("new ClaroTuple(%s, %s)", claroType, String.join(", ", tupleVals)),
+        "ClaroTuple",
+        String.format("return new ClaroTuple(%s, $elems);", claroType)
+    );
   }
 
   @Override
@@ -22,6 +22,8 @@ public class IdentifierReferenceTerm extends Term {
   private final Optional<String> optionalDefiningModuleDisambiguator;
   private Optional<Supplier<String>> alternateCodegenString = Optional.empty();
   private boolean contextualTypeAsserted = false;
+  // This is only set after the compiler's type-checking phase, and only for the interpreter to use.
+  private Optional<ScopedHeap.IdentifierSlot> optionalIdentifierSlot = Optional.empty();
 
   public IdentifierReferenceTerm(String identifier, Supplier<String> currentLine, int currentLineNumber, int startCol, int endCol) {
     this(identifier, Optional.empty(), currentLine, currentLineNumber, startCol, endCol);
@@ -172,6 +174,7 @@ public class IdentifierReferenceTerm extends Term {
       return Types.UNKNOWABLE;
     }
     scopedHeap.markIdentifierUsed(this.identifier);
+    this.optionalIdentifierSlot = scopedHeap.resolveIdentifierSlot(this.identifier);
     Type referencedIdentifierType = scopedHeap.getValidatedIdentifierType(this.identifier);
 
     if (referencedIdentifierType.autoValueIgnored_IsNarrowedType.get()) {
@@ -282,6 +285,7 @@ public class IdentifierReferenceTerm extends Term {
               } else if (InternalStaticStateUtil.ComprehensionExpr_nestedComprehensionIdentifierReferences.contains(this.identifier)) {
                 // Nested comprehension Exprs depend on a synthetic class wrapping the nested identifier refs to
                 // workaround Java's restriction that all lambda captures must be effectively final.
+                scopedHeap.recordCodegenSyntheticLocalReference();
                 return "$nestedComprehensionState." + this.identifier;
               }
               return this.identifier;
@@ -304,6 +308,11 @@ public class IdentifierReferenceTerm extends Term {
 
   @Override
   public Object generateInterpretedOutput(ScopedHeap scopedHeap) {
+    if (this.optionalIdentifierSlot.isPresent()) {
+      ScopedHeap.IdentifierData identifierData = scopedHeap.getIdentifierData(this.optionalIdentifierSlot.get());
+      identifierData.used = true;
+      return identifierData.interpretedValue;
+    }
     scopedHeap.markIdentifierUsed(this.identifier);
     return scopedHeap.getIdentifierValue(this.identifier);
   }
@@ -47,6 +47,7 @@ public class PipeChainBackreferenceTerm extends Term {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    scopedHeap.recordCodegenSyntheticLocalReference();
     // We lookup the backreferenced expr again since the PipeChainStmt might be swapping out the Expr between
     // type checking and codegen in the case of a stage needing to be backreferenced multiple times.
     return (GeneratedJavaSource) prevPipeChainStageBackreferenceCodegenFn.get()
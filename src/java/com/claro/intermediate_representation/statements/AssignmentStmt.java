@@ -16,6 +16,8 @@ public class AssignmentStmt extends Stmt {
   private final IdentifierReferenceTerm IDENTIFIER;
   // This is only set after the compiler's type-checking phase.
   private Type identifierValidatedType;
+  // This is only set after the compiler's type-checking phase, and only for the interpreter to use.
+  private Optional<ScopedHeap.IdentifierSlot> optionalIdentifierSlot = Optional.empty();
 
   public AssignmentStmt(IdentifierReferenceTerm identifier, Expr e) {
     super(ImmutableList.of(e));
@@ -82,6 +84,7 @@ public class AssignmentStmt extends Stmt {
     }
 
     scopedHeap.initializeIdentifier(this.IDENTIFIER.identifier);
+    this.optionalIdentifierSlot = scopedHeap.resolveIdentifierSlot(this.IDENTIFIER.identifier);
   }
 
   @Override
@@ -105,10 +108,12 @@ public class AssignmentStmt extends Stmt {
   @Override
   public Object generateInterpretedOutput(ScopedHeap scopedHeap) {
     // Put the computed value of this identifier directly in the heap.
-    scopedHeap.updateIdentifierValue(
-        this.IDENTIFIER.identifier,
-        this.getChildren().get(0).generateInterpretedOutput(scopedHeap)
-    );
+    Object value = this.getChildren().get(0).generateInterpretedOutput(scopedHeap);
+    if (this.optionalIdentifierSlot.isPresent()) {
+      scopedHeap.updateIdentifierValue(this.optionalIdentifierSlot.get(), value);
+    } else {
+      scopedHeap.updateIdentifierValue(this.IDENTIFIER.identifier, value);
+    }
     scopedHeap.initializeIdentifier(this.IDENTIFIER.identifier);
     return null;
   }
@@ -14,18 +14,15 @@ import java.util.stream.Collectors;
 
 public class AtomDefinitionStmt extends Stmt {
   public final IdentifierReferenceTerm name;
-  private final int atomId;
-  private static int globalAtomCount = 0;
   private boolean alreadyRegisteredAtom = false;
 
   public AtomDefinitionStmt(IdentifierReferenceTerm name) {
     super(ImmutableList.of());
     this.name = name;
-    this.atomId = AtomDefinitionStmt.getNextGlobalAtomId();
   }
 
   public static int getNextGlobalAtomId() {
-    return globalAtomCount++;
+    return InternalStaticStateUtil.AtomDefinitionStmt_globalAtomCount++;
   }
 
   public void registerType(ScopedHeap scopedHeap) {
@@ -45,10 +42,12 @@ public class AtomDefinitionStmt extends Stmt {
       scopedHeap.initializeIdentifier(this.name.identifier);
       // Now I need to cache this atom. This codepath will be accessed more than once when compiling a module in order
       // to setup a synthetic symbol table for validating that exported procedures are actually defined in .claro files
-      // so avoid adding this to the atom cache more than once here.
+      // so avoid adding this to the atom cache more than once here. Note that the atom's id is only assigned here rather
+      // than at parse time, as src files may be parsed concurrently while atom ids must remain dense indices into the
+      // atom cache.
       if (!alreadyRegisteredAtom) {
         InternalStaticStateUtil.AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME.put(
-            thisModuleDisambiguator, this.name.identifier, this.atomId);
+            thisModuleDisambiguator, this.name.identifier, AtomDefinitionStmt.getNextGlobalAtomId());
         alreadyRegisteredAtom = true;
       }
     }
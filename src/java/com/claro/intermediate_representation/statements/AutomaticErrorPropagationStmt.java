@@ -16,7 +16,6 @@ import com.google.common.collect.Maps;
 import java.util.Optional;
 
 public class AutomaticErrorPropagationStmt {
-  private static long autoCheckedVariableCount = 0;
   private final long uniqueId;
   private final Optional<Type> optionalAssertedNonErrorType;
   private final Expr returnExpr;
@@ -32,7 +31,7 @@ public class AutomaticErrorPropagationStmt {
 
     // Make sure that every instantiation of this class triggers an increment to this so that we ensure we have unique
     // generated var names at codegen time.
-    this.uniqueId = AutomaticErrorPropagationStmt.autoCheckedVariableCount++;
+    this.uniqueId = InternalStaticStateUtil.parsingState().AutomaticErrorPropagationStmt_autoCheckedVariableCount++;
   }
 
   public Type getValidatedExprType(ScopedHeap scopedHeap) throws ClaroTypeException {
@@ -136,6 +135,7 @@ public class AutomaticErrorPropagationStmt {
   }
 
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    scopedHeap.recordCodegenReturn();
     // First, do codegen for the underlying expr, so we can hold onto its static codegen at the end.
     GeneratedJavaSource exprGenJavaSource = this.returnExpr.generateJavaSourceOutput(scopedHeap);
     // First I need to prefix the current stmt with a synthetic stmt setting up a variable
@@ -42,6 +42,7 @@ public class BreakStmt extends Stmt {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    scopedHeap.recordCodegenLoopJump();
     return GeneratedJavaSource.forJavaSourceBody(new StringBuilder("break;\n"));
   }
 
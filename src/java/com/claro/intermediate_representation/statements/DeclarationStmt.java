@@ -19,6 +19,8 @@ public class DeclarationStmt extends Stmt {
   private final boolean errorProp;
   private Optional<AutomaticErrorPropagationStmt> optionalAutomaticErrorPropagationStmt = Optional.empty();
   private Type identifierValidatedInferredType;
+  // This is only set after the compiler's type-checking phase, and only for the interpreter to use.
+  private Optional<ScopedHeap.IdentifierSlot> optionalIdentifierSlot = Optional.empty();
 
   // Determines whether this variable declaration should allow variable hiding or not. This is not always desirable,
   // so it must be explicitly set if this is desirable in this case.
@@ -171,6 +173,7 @@ public class DeclarationStmt extends Stmt {
         ((Expr) this.getChildren().get(0)).logTypeError(e);
       }
     }
+    this.optionalIdentifierSlot = scopedHeap.resolveDeclaredIdentifierSlot(this.IDENTIFIER);
   }
 
   private void annotateOptionalActiveProcedureDefBlocking() {
@@ -232,7 +235,13 @@ public class DeclarationStmt extends Stmt {
               .resolveType(scopedHeap);
 
       // Put the declared variable directly in the heap, with its computed value if initialized.
-      if (this.getChildren().isEmpty()) {
+      if (this.optionalIdentifierSlot.isPresent()) {
+        scopedHeap.putIdentifierValue(
+            this.optionalIdentifierSlot.get(),
+            identifierValidatedType,
+            this.getChildren().isEmpty() ? null : this.getChildren().get(0).generateInterpretedOutput(scopedHeap)
+        );
+      } else if (this.getChildren().isEmpty()) {
         if (allowVariableHiding) {
           scopedHeap.putIdentifierValueAllowingHiding(this.IDENTIFIER, identifierValidatedType, null);
         } else {
@@ -11,10 +11,13 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
 import com.google.common.hash.Hashing;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class GenericFunctionDefinitionStmt extends Stmt {
@@ -37,6 +40,15 @@ public class GenericFunctionDefinitionStmt extends Stmt {
   public static final HashBasedTable<String, ImmutableMap<Type, Type>, String>
       alreadyCodegendMonomorphizations = HashBasedTable.create();
   public static final HashMap<String, GenericFunctionDefinitionStmt> genericFunctionDefStmtsByName = Maps.newHashMap();
+  // When sharing erased monomorphizations, this maps the hashed name of each monomorphization that delegates to another
+  // one's implementation to the hashed name of a monomorphization in the same group, following which always ends at
+  // the one whose implementation is shared. See shareErasedMonomorphizationsCodeGen().
+  public static final HashMap<String, String> sharedErasedMonomorphizations = Maps.newHashMap();
+  public static int erasableMonomorphizationsCount = 0;
+  public static int sharedErasedMonomorphizationsCount = 0;
+  private static final ArrayList<ErasableMonomorphization> pendingErasableMonomorphizations = new ArrayList<>();
+  // Matches the hashed name of any monomorphization referenced by another monomorphization's codegen.
+  private static final Pattern MONOMORPHIZATION_NAME_PATTERN = Pattern.compile("[A-Za-z_]\\w*__[0-9a-f]{64}");
 
 
   public GenericFunctionDefinitionStmt( // FUNCTION
@@ -426,6 +438,9 @@ public class GenericFunctionDefinitionStmt extends Stmt {
         }
       }
     }
+    if (!GenericFunctionDefinitionStmt.pendingErasableMonomorphizations.isEmpty()) {
+      monomorphizationsCodeGen = monomorphizationsCodeGen.createMerged(shareErasedMonomorphizationsCodeGen());
+    }
     scopedHeap.checkUnused = originalCheckUnused;
     return monomorphizationsCodeGen;
   }
@@ -437,6 +452,25 @@ public class GenericFunctionDefinitionStmt extends Stmt {
       ProcedureDefinitionStmt monomorphization) {
     GeneratedJavaSource monomorphizationsCodeGen;
 
+    // When monomorphizing on behalf of another compilation unit, each monomorphization's codegen gets shipped back and
+    // emitted in its own class, so any fromJson(...)/toJson(...) codegen it needs must be emitted alongside it rather
+    // than at the top-level of this (never emitted) program.
+    HashMap<Type, String> originalJsonParserClassNamesByType =
+        InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType;
+    HashMap<Type, String> originalJsonArrayStreamClassNamesByType =
+        InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType;
+    StringBuilder originalJsonParsersCodegen = InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen;
+    HashMap<Type, String> originalJsonWriterClassNamesByType =
+        InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType;
+    StringBuilder originalJsonWritersCodegen = InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen;
+    if (InternalStaticStateUtil.DEP_MODULE_MONOMORPHIZATION_ENABLED) {
+      InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType = new HashMap<>();
+      InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType = new HashMap<>();
+      InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen = new StringBuilder();
+      InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType = new HashMap<>();
+      InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen = new StringBuilder();
+    }
+
     // Now, some initial cleanup based on some unwanted side-effects of the FunctionCallExpr which already
     // puts the generic function's canonicalized name in the scoped heap in order to reuse the rest of its
     // non-generic call flow which marks the called function used...So here I'll remove the existing declaration
@@ -477,6 +511,20 @@ public class GenericFunctionDefinitionStmt extends Stmt {
           .hashUnencodedChars(monomorphization.procedureName)
           .toString();
       monomorphizationsCodeGen = monomorphization.generateJavaSourceOutput(scopedHeap);
+      if (InternalStaticStateUtil.DEP_MODULE_MONOMORPHIZATION_ENABLED) {
+        monomorphizationsCodeGen = monomorphizationsCodeGen.createMerged(
+            GeneratedJavaSource.forStaticDefinitions(
+                new StringBuilder(InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen)
+                    .append(InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen)));
+      } else if (InternalStaticStateUtil.GenericProcedureDefinitionStmt_shareErasedMonomorphizations) {
+        // Dep module monomorphizations are each emitted in their own class by the requesting compilation unit, so
+        // they can only be shared when monomorphizing local generic procedures. Whether this one can be shared depends
+        // on whether the monomorphizations that it calls can be, and those may not even have been type checked yet,
+        // so its codegen is set aside until all of them have been.
+        GenericFunctionDefinitionStmt.pendingErasableMonomorphizations.add(
+            new ErasableMonomorphization(currGenericProcedureName, monomorphization, monomorphizationsCodeGen));
+        monomorphizationsCodeGen = GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
+      }
     } else {
       // Need to drop the "$ContractName::<Concrete,Types>___" prefix to make it callable.
       monomorphization.procedureName =
@@ -486,12 +534,24 @@ public class GenericFunctionDefinitionStmt extends Stmt {
               .hashUnencodedChars(monomorphization.procedureName)
               .toString();
       GeneratedJavaSource currMonomorphizationCodeGen = monomorphization.generateJavaSourceOutput(scopedHeap);
+      if (InternalStaticStateUtil.DEP_MODULE_MONOMORPHIZATION_ENABLED) {
+        currMonomorphizationCodeGen = currMonomorphizationCodeGen.createMerged(
+            GeneratedJavaSource.forStaticDefinitions(
+                new StringBuilder(InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen)
+                    .append(InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen)));
+      }
       InternalStaticStateUtil.GenericProcedureDefinitionStmt_alreadyCodegenedContractProcedureMonomorphizations
           .put(currGenericProcedureName, concreteTypeParams, currMonomorphizationCodeGen);
 
       // Intentionally not returning any actual monomorphization for this contract procedure.
       monomorphizationsCodeGen = GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
     }
+    InternalStaticStateUtil.FromJsonExpr_jsonParserClassNamesByType = originalJsonParserClassNamesByType;
+    InternalStaticStateUtil.FromJsonExpr_jsonArrayStreamClassNamesByType = originalJsonArrayStreamClassNamesByType;
+    InternalStaticStateUtil.FromJsonExpr_jsonParsersCodegen = originalJsonParsersCodegen;
+    InternalStaticStateUtil.ToJsonExpr_jsonWriterClassNamesByType = originalJsonWriterClassNamesByType;
+    InternalStaticStateUtil.ToJsonExpr_jsonWritersCodegen = originalJsonWritersCodegen;
+
     // We only need the hash name during codegen, we'll keep the readable name during internal evaluation to make
     // debugging easier.
     monomorphization.procedureName = originalMonomorphizationName;
@@ -507,6 +567,116 @@ public class GenericFunctionDefinitionStmt extends Stmt {
     return monomorphizationsCodeGen;
   }
 
+  // Monomorphizations of the same generic procedure whose codegen differs only in their own name, their own runtime
+  // procedure type (which must still be kept so that first-class references report the correct type), and in which
+  // monomorphizations they call, where those callees themselves share an implementation, have identical behavior and
+  // identical Java signatures. This is the case whenever the generic procedure only passes its generic values around
+  // (possibly on to other such generic procedures) and every concrete type param maps to the same Java type (e.g. every
+  // struct type is represented as a ClaroStruct), so it's an erased implementation in all but name. It's never the case
+  // for monomorphizations that construct values whose runtime type depends on the type params, that dispatch to
+  // contract procedures over them, or whose type params map to distinct Java types (e.g. int vs string), which all
+  // remain fully monomorphized. So rather than emitting yet another copy of an implementation that's already been
+  // emitted, just delegate to it.
+  private static GeneratedJavaSource shareErasedMonomorphizationsCodeGen() {
+    ImmutableList<ErasableMonomorphization> erasableMonomorphizations =
+        ImmutableList.copyOf(GenericFunctionDefinitionStmt.pendingErasableMonomorphizations);
+    GenericFunctionDefinitionStmt.pendingErasableMonomorphizations.clear();
+
+    // Start out with every monomorphization keeping its own implementation, and then keep merging the groups of those
+    // whose erased codegen matches once their callees are replaced by the implementations they share, until nothing
+    // more can be merged. Merging groups never makes two erased codegens stop matching, and every pass that doesn't
+    // stop leaves fewer groups, so this always terminates.
+    boolean sharedAny;
+    do {
+      sharedAny = false;
+      HashMap<String, String> sharedImplsByErasedCodeGen = new HashMap<>();
+      for (ErasableMonomorphization erasableMonomorphization : erasableMonomorphizations) {
+        String sharedImpl = sharedImplsByErasedCodeGen.putIfAbsent(
+            erasableMonomorphization.genericProcedureName + "\n" + erasableMonomorphization.getErasedCodeGen(),
+            erasableMonomorphization.hashedName
+        );
+        if (sharedImpl != null) {
+          sharedImpl = getSharedErasedMonomorphization(sharedImpl);
+          String currImpl = getSharedErasedMonomorphization(erasableMonomorphization.hashedName);
+          if (!sharedImpl.equals(currImpl)) {
+            GenericFunctionDefinitionStmt.sharedErasedMonomorphizations.put(currImpl, sharedImpl);
+            sharedAny = true;
+          }
+        }
+      }
+    } while (sharedAny);
+
+    GeneratedJavaSource res = GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
+    for (ErasableMonomorphization erasableMonomorphization : erasableMonomorphizations) {
+      String sharedImpl = getSharedErasedMonomorphization(erasableMonomorphization.hashedName);
+      if (sharedImpl.equals(erasableMonomorphization.hashedName)) {
+        res = res.createMerged(erasableMonomorphization.codeGen);
+      } else {
+        // The delegating codegen is only valid under the same hashed name that the original codegen was produced with.
+        ProcedureDefinitionStmt monomorphization = erasableMonomorphization.monomorphization;
+        String originalMonomorphizationName = monomorphization.procedureName;
+        monomorphization.procedureName = erasableMonomorphization.hashedName;
+        res = res.createMerged(
+            monomorphization.generateDelegatingJavaSourceOutput(String.format("$%s.%s", sharedImpl, sharedImpl)));
+        monomorphization.procedureName = originalMonomorphizationName;
+        GenericFunctionDefinitionStmt.sharedErasedMonomorphizationsCount++;
+      }
+    }
+    GenericFunctionDefinitionStmt.erasableMonomorphizationsCount += erasableMonomorphizations.size();
+    return res;
+  }
+
+  public static void resetSharedErasedMonomorphizations() {
+    GenericFunctionDefinitionStmt.sharedErasedMonomorphizations.clear();
+    GenericFunctionDefinitionStmt.pendingErasableMonomorphizations.clear();
+    GenericFunctionDefinitionStmt.erasableMonomorphizationsCount = 0;
+    GenericFunctionDefinitionStmt.sharedErasedMonomorphizationsCount = 0;
+  }
+
+  private static String getSharedErasedMonomorphization(String hashedName) {
+    String res = hashedName;
+    while (GenericFunctionDefinitionStmt.sharedErasedMonomorphizations.containsKey(res)) {
+      res = GenericFunctionDefinitionStmt.sharedErasedMonomorphizations.get(res);
+    }
+    return res;
+  }
+
+  private static final class ErasableMonomorphization {
+    private final String genericProcedureName;
+    private final ProcedureDefinitionStmt monomorphization;
+    private final String hashedName;
+    private final GeneratedJavaSource codeGen;
+    // The monomorphization's codegen with its own name and runtime procedure type erased.
+    private final String erasedOwnNameCodeGen;
+
+    ErasableMonomorphization(
+        String genericProcedureName, ProcedureDefinitionStmt monomorphization, GeneratedJavaSource codeGen) {
+      this.genericProcedureName = genericProcedureName;
+      this.monomorphization = monomorphization;
+      this.hashedName = monomorphization.procedureName;
+      this.codeGen = codeGen;
+      Types.ProcedureType procedureType = monomorphization.resolvedProcedureType;
+      this.erasedOwnNameCodeGen =
+          (codeGen.optionalStaticPreambleStmts().map(StringBuilder::toString).orElse("")
+           + codeGen.optionalStaticDefinitions().map(StringBuilder::toString).orElse("")
+           + codeGen.javaSourceBody())
+              .replace(" claroType = " + procedureType.getJavaSourceClaroType() + ";", " claroType = $ERASED;")
+              .replace("return \"" + procedureType + "\";", "return $ERASED;")
+              .replace(this.hashedName, "$ERASED");
+    }
+
+    // Every monomorphization called from this one is replaced by the implementation that it currently shares.
+    String getErasedCodeGen() {
+      Matcher calledMonomorphizations = MONOMORPHIZATION_NAME_PATTERN.matcher(this.erasedOwnNameCodeGen);
+      StringBuffer res = new StringBuffer();
+      while (calledMonomorphizations.find()) {
+        calledMonomorphizations.appendReplacement(
+            res, Matcher.quoteReplacement(getSharedErasedMonomorphization(calledMonomorphizations.group())));
+      }
+      return calledMonomorphizations.appendTail(res).toString();
+    }
+  }
+
   @Override
   public Object generateInterpretedOutput(ScopedHeap scopedHeap) {
     return null;
@@ -34,9 +34,9 @@ public class GraphNodeDefinitionStmt extends Stmt {
     super(ImmutableList.of());
     this.nodeName = nodeName;
     this.nodeExpr = nodeExpr;
-    this.upstreamGraphNodeReferences =
-        InternalStaticStateUtil.GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder.build();
-    InternalStaticStateUtil.GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder = ImmutableSet.builder();
+    InternalStaticStateUtil.ParsingState parsingState = InternalStaticStateUtil.parsingState();
+    this.upstreamGraphNodeReferences = parsingState.GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder.build();
+    parsingState.GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder = ImmutableSet.builder();
   }
 
   // Register this GraphNode's TypeProvider prior to performing type checking so that nodes may reference each other out
@@ -0,0 +1,518 @@
+package com.claro.intermediate_representation.statements;
+
+import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.intermediate_representation.Node;
+import com.claro.intermediate_representation.Node.GeneratedJavaSource;
+import com.claro.intermediate_representation.types.Type;
+import com.claro.internal_static_state.InternalStaticStateUtil;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// HotSpot refuses to JIT compile any method whose bytecode is larger than 8000 bytes (-XX:HugeMethodLimit), and javac
+// refuses to compile any method whose bytecode is larger than 64KB at all. Since a Claro program's top-level Stmts are
+// all codegen'd into the body of a single `main` method (and each procedure's Stmts into a single static method), a
+// sufficiently large program would otherwise run entirely in the interpreter, or not compile at all. So, this collects
+// the codegen of each top-level Stmt of a single method body as it's generated, and if the whole body turns out to be
+// too large, outlines runs of consecutive top-level Stmts into separate private static helper methods. Within each
+// top-level Stmt, match arms and the elements of collection literals that are too large on their own are outlined into
+// helper methods of their own as they're generated.
+//
+// What each outlined piece of codegen references, declares, and assigns is recorded from the IR as it's generated (see
+// ScopedHeap.CodegenRecording). The Claro locals that it references from elsewhere in the method are passed to its
+// helper as args, and any that it assigns, along with any locals that it declares that are referenced after it, are
+// handed back to the method in an Object[] to be (re)assigned there. To keep this transformation trivially
+// semantics-preserving, codegen that returns from the method is never outlined (nor is a match arm that breaks out of
+// or continues an enclosing loop), and codegen is left inline entirely if it would need to pass or hand back a local
+// that isn't definitely initialized at that point.
+public final class HugeMethodOutliner {
+  // HotSpot's default -XX:HugeMethodLimit.
+  private static final int MAX_ESTIMATED_METHOD_BYTECODE_SIZE = 8000;
+  // Generated Java source is quite verbose, so this is a deliberately low estimate of how much source it takes to
+  // produce a single byte of bytecode, in order to err on the side of outlining methods that are close to the limit.
+  private static final int ESTIMATED_JAVA_SOURCE_CHARS_PER_BYTECODE_BYTE = 3;
+  // Outlining very small runs (e.g. those sandwiched between Stmts that can't be outlined) isn't worth the extra call.
+  private static final int MIN_ESTIMATED_OUTLINED_BYTECODE_SIZE = 256;
+  // Blocks nested within a top-level Stmt are outlined as soon as they're generated, before it's known whether the
+  // method will turn out to be too large, so only those that would take up a sizeable share of the limit by themselves
+  // are worth it.
+  private static final int MIN_ESTIMATED_OUTLINED_BLOCK_BYTECODE_SIZE = MAX_ESTIMATED_METHOD_BYTECODE_SIZE / 4;
+  // Storing an element into the Object[] that an outlined literal is built from costs a few bytes of bytecode of its own.
+  private static final int ESTIMATED_OUTLINED_LITERAL_ELEMENT_OVERHEAD_CHARS = 16;
+  private static final int MAX_OUTLINED_STMTS_HELPER_ARGS = 250;
+  private static final Pattern JAVA_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  private final ScopedHeap scopedHeap;
+  private final int methodScopeLevel;
+  private final int methodFrameBaseLevel;
+  private final HashMap<String, ScopedHeap.IdentifierData> methodScopeSymbolTable;
+  private final HashSet<String> observedIdentifiers;
+  private final GeneratedJavaSource.Accumulator staticCodegen = GeneratedJavaSource.accumulator();
+  // Set only while the codegen of a top-level Stmt is in progress.
+  private ScopedHeap.CodegenRecording currStmtRecording = null;
+
+  // Every Claro local of this method, indexed by the Stmt that declared it (-1 for the method's own args). Locals are
+  // only ever tracked at the method's own top-level scope, since those are the only ones that can outlive a Stmt.
+  private final HashMap<String, Type> localTypes = new HashMap<>();
+  private final HashMap<String, Integer> localDeclaredAtStmt = new HashMap<>();
+  private final HashMap<String, Integer> localInitializedAtStmt = new HashMap<>();
+  private final HashMap<String, Integer> localLastReferencedAtStmt = new HashMap<>();
+  private final HashSet<String> uninitializedLocals = new HashSet<>();
+
+  private final ArrayList<StringBuilder> stmtBodies = new ArrayList<>();
+  private final ArrayList<Boolean> stmtOutlinable = new ArrayList<>();
+  private final ArrayList<HashSet<String>> stmtReferencedLocals = new ArrayList<>();
+  private final ArrayList<HashSet<String>> stmtAssignedLocals = new ArrayList<>();
+  private final ArrayList<ArrayList<String>> stmtDeclaredLocals = new ArrayList<>();
+  private long totalBodyLength = 0;
+
+  // Must be constructed within the method's own top-level scope, after its args have been declared.
+  HugeMethodOutliner(ScopedHeap scopedHeap, ImmutableSet<String> methodArgNames) {
+    this.scopedHeap = scopedHeap;
+    this.methodScopeLevel = scopedHeap.scopeStack.size() - 1;
+    this.methodFrameBaseLevel = scopedHeap.getCurrFrameBaseLevel();
+    this.methodScopeSymbolTable = scopedHeap.scopeStack.peek().scopedSymbolTable;
+    this.observedIdentifiers = new HashSet<>(this.methodScopeSymbolTable.keySet());
+    for (String arg : methodArgNames) {
+      observeLocal(arg, /*stmtIndex=*/-1);
+    }
+    InternalStaticStateUtil.StmtListNode_activeHugeMethodOutliners.add(this);
+  }
+
+  // Must be called to codegen each top-level Stmt, in order, while still in the method's scope.
+  void addStmt(Supplier<GeneratedJavaSource> stmtCodegenFn) {
+    ScopedHeap.CodegenRecording recording =
+        this.currStmtRecording = this.scopedHeap.startCodegenRecording(/*isJavaBlock=*/false);
+    GeneratedJavaSource stmtCodegen = stmtCodegenFn.get();
+    this.scopedHeap.stopCodegenRecording(recording);
+    this.currStmtRecording = null;
+
+    int stmtIndex = this.stmtBodies.size();
+    ArrayList<String> declaredLocals = new ArrayList<>();
+    for (String identifier : recording.declaredIdentifiers) {
+      if (this.observedIdentifiers.add(identifier) && observeLocal(identifier, stmtIndex)) {
+        declaredLocals.add(identifier);
+      }
+    }
+    this.uninitializedLocals.removeIf(local -> {
+      if (this.scopedHeap.isIdentifierInitialized(local)) {
+        this.localInitializedAtStmt.put(local, stmtIndex);
+        return true;
+      }
+      return false;
+    });
+
+    HashSet<String> referencedLocals = new HashSet<>();
+    for (String identifier : recording.referencedIdentifiersInitialized.keySet()) {
+      if (this.localTypes.containsKey(identifier)) {
+        referencedLocals.add(identifier);
+        this.localLastReferencedAtStmt.put(identifier, stmtIndex);
+      }
+    }
+    HashSet<String> assignedLocals = new HashSet<>(recording.assignedIdentifiers);
+    assignedLocals.retainAll(referencedLocals);
+
+    StringBuilder body = stmtCodegen.javaSourceBody();
+    this.stmtBodies.add(body);
+    this.stmtOutlinable.add(!recording.returns && !recording.inlinesJava);
+    this.stmtReferencedLocals.add(referencedLocals);
+    this.stmtAssignedLocals.add(assignedLocals);
+    this.stmtDeclaredLocals.add(declaredLocals);
+    this.totalBodyLength += body.length();
+    this.staticCodegen.append(stmtCodegen.withNewJavaSourceBody(new StringBuilder()));
+  }
+
+  GeneratedJavaSource build() {
+    ArrayList<Object> activeOutliners = InternalStaticStateUtil.StmtListNode_activeHugeMethodOutliners;
+    activeOutliners.remove(activeOutliners.size() - 1);
+
+    StringBuilder body = new StringBuilder();
+    if (estimateBytecodeSize(this.totalBodyLength) <= MAX_ESTIMATED_METHOD_BYTECODE_SIZE) {
+      this.stmtBodies.forEach(body::append);
+      return this.staticCodegen.build().withNewJavaSourceBody(body);
+    }
+    boolean[] safeBoundaries = getSafeBoundaries();
+    int i = 0;
+    while (i < this.stmtBodies.size()) {
+      if (!this.stmtOutlinable.get(i)) {
+        body.append(this.stmtBodies.get(i++));
+        continue;
+      }
+      // Greedily fill each helper method up to the limit, but then back off to the last boundary that doesn't fall
+      // between a local's declaration and its initialization, so that a run doesn't end up unable to hand it back.
+      int runEnd = i;
+      long runLength = 0;
+      int safeRunEnd = -1;
+      long safeRunLength = 0;
+      while (runEnd < this.stmtBodies.size() && this.stmtOutlinable.get(runEnd)
+             && (runEnd == i
+                 || estimateBytecodeSize(runLength + this.stmtBodies.get(runEnd).length())
+                    <= MAX_ESTIMATED_METHOD_BYTECODE_SIZE)) {
+        runLength += this.stmtBodies.get(runEnd++).length();
+        if (safeBoundaries[runEnd]) {
+          safeRunEnd = runEnd;
+          safeRunLength = runLength;
+        }
+      }
+      if (safeRunEnd > 0) {
+        runEnd = safeRunEnd;
+        runLength = safeRunLength;
+      }
+      if (estimateBytecodeSize(runLength) < MIN_ESTIMATED_OUTLINED_BYTECODE_SIZE || !outlineRun(i, runEnd, body)) {
+        for (int j = i; j < runEnd; j++) {
+          body.append(this.stmtBodies.get(j));
+        }
+      }
+      i = runEnd;
+    }
+    return this.staticCodegen.build().withNewJavaSourceBody(body);
+  }
+
+  // Codegens a block that's nested within some top-level Stmt (e.g. a match arm), outlining it into a new helper method
+  // if it's large enough to be worth it. The block must be codegen'd as a Java block of its own, as any locals that it
+  // declares are declared within the helper method instead.
+  public static GeneratedJavaSource generateBlockJavaSourceOutput(
+      ScopedHeap scopedHeap, Supplier<GeneratedJavaSource> blockCodegenFn) {
+    Optional<HugeMethodOutliner> optionalOutliner = getActiveOutlinerForCurrFrame(scopedHeap);
+    if (!optionalOutliner.isPresent()) {
+      return blockCodegenFn.get();
+    }
+    ScopedHeap.CodegenRecording recording = scopedHeap.startCodegenRecording(/*isJavaBlock=*/true);
+    GeneratedJavaSource blockCodegen = blockCodegenFn.get();
+    scopedHeap.stopCodegenRecording(recording);
+
+    StringBuilder blockBody = blockCodegen.javaSourceBody();
+    if (recording.returns || recording.jumps || recording.inlinesJava
+        || estimateBytecodeSize(blockBody.length()) < MIN_ESTIMATED_OUTLINED_BLOCK_BYTECODE_SIZE) {
+      return blockCodegen;
+    }
+    Optional<LinkedHashMap<String, Type>> optionalArgs = optionalOutliner.get().getOutlinedHelperArgs(recording);
+    if (!optionalArgs.isPresent()) {
+      return blockCodegen;
+    }
+    LinkedHashMap<String, Type> handedBack = new LinkedHashMap<>(optionalArgs.get());
+    handedBack.keySet().retainAll(recording.assignedIdentifiers);
+
+    String helperName = "$outlinedBlock$" + InternalStaticStateUtil.StmtListNode_outlinedStmtsHelpersCount++;
+    StringBuilder helper =
+        startHelperMethod(handedBack.isEmpty() ? "void" : "Object[]", helperName, "", optionalArgs.get())
+            .append(blockBody);
+    endHelperMethod(helper, handedBack.keySet());
+    StringBuilder call = new StringBuilder();
+    appendHelperCall(call, helperName, optionalArgs.get().keySet(), handedBack, ImmutableSet.of());
+    return blockCodegen.withNewJavaSourceBody(call).createMerged(GeneratedJavaSource.forStaticDefinitions(helper));
+  }
+
+  // Codegens the elements of a collection literal, and if they alone would exceed the limit, builds the literal in a new
+  // helper method instead, which fills in an Object[] of the elements (named `$elems`) via as many further helper
+  // methods as it takes to keep each of them under the limit, and then builds the literal from it using the given Java
+  // stmts. Else, the literal is built inline from the codegen of its elements using the given function.
+  public static GeneratedJavaSource generateLiteralJavaSourceOutput(
+      ScopedHeap scopedHeap,
+      List<? extends Node> elems,
+      Function<List<String>, String> inlineLiteralFn,
+      String literalJavaSourceType,
+      String literalFromElemsJavaSourceStmts) {
+    Optional<HugeMethodOutliner> optionalOutliner = getActiveOutlinerForCurrFrame(scopedHeap);
+    Optional<ScopedHeap.CodegenRecording> optionalRecording =
+        optionalOutliner.map(unused -> scopedHeap.startCodegenRecording(/*isJavaBlock=*/false));
+    int prefixJavaSourceStmtsLength = Stmt.getGeneratedJavaSourceStmtsBeforeCurrentStmtLength();
+    ArrayList<String> elemJavaSources = new ArrayList<>(elems.size());
+    ArrayList<GeneratedJavaSource> elemsStaticCodegen = new ArrayList<>(elems.size());
+    long elemsJavaSourceLength = 0;
+    for (Node elem : elems) {
+      GeneratedJavaSource elemCodegen = elem.generateJavaSourceOutput(scopedHeap);
+      String elemJavaSource = elemCodegen.javaSourceBody().toString();
+      // We've consumed the javaSourceBody, it's safe to clear.
+      elemCodegen.javaSourceBody().setLength(0);
+      elemJavaSources.add(elemJavaSource);
+      elemsStaticCodegen.add(elemCodegen);
+      elemsJavaSourceLength += elemJavaSource.length() + ESTIMATED_OUTLINED_LITERAL_ELEMENT_OVERHEAD_CHARS;
+    }
+    optionalRecording.ifPresent(scopedHeap::stopCodegenRecording);
+
+    StringBuilder resJavaSourceBody = null;
+    Optional<StringBuilder> optionalHelpers = Optional.empty();
+    // The elements must be self-contained expressions for them to be evaluated elsewhere. In particular, any prefix
+    // stmts that they requested (e.g. for lambdas) would declare locals that the helpers can't see.
+    if (optionalRecording.isPresent()
+        && estimateBytecodeSize(elemsJavaSourceLength) > MAX_ESTIMATED_METHOD_BYTECODE_SIZE
+        && optionalRecording.get().assignedIdentifiers.isEmpty()
+        && !optionalRecording.get().returns
+        && !optionalRecording.get().referencesSyntheticLocals
+        && !optionalRecording.get().inlinesJava
+        && Stmt.getGeneratedJavaSourceStmtsBeforeCurrentStmtLength() == prefixJavaSourceStmtsLength) {
+      Optional<LinkedHashMap<String, Type>> optionalArgs =
+          optionalOutliner.get().getOutlinedHelperArgs(optionalRecording.get());
+      if (optionalArgs.isPresent()) {
+        StringBuilder helpers = new StringBuilder();
+        resJavaSourceBody =
+            outlineLiteral(
+                elemJavaSources, optionalArgs.get(), literalJavaSourceType, literalFromElemsJavaSourceStmts, helpers);
+        optionalHelpers = Optional.of(helpers);
+      }
+    }
+    if (resJavaSourceBody == null) {
+      resJavaSourceBody = new StringBuilder(inlineLiteralFn.apply(elemJavaSources));
+    }
+
+    GeneratedJavaSource.Accumulator res =
+        GeneratedJavaSource.accumulator().append(GeneratedJavaSource.forJavaSourceBody(resJavaSourceBody));
+    elemsStaticCodegen.forEach(res::append);
+    optionalHelpers.ifPresent(helpers -> res.append(GeneratedJavaSource.forStaticDefinitions(helpers)));
+    return res.build();
+  }
+
+  // Splits a sequence of codegen'd pieces (given by their lengths) into as few consecutive runs as possible such that
+  // each run would fit within the limit as a method body of its own, returning the index that each run starts at.
+  public static ImmutableList<Integer> getMethodSizedRunStarts(List<Integer> javaSourceLengths) {
+    ImmutableList.Builder<Integer> res = ImmutableList.builder();
+    long runLength = 0;
+    for (int i = 0; i < javaSourceLengths.size(); i++) {
+      if (i == 0
+          || estimateBytecodeSize(runLength + javaSourceLengths.get(i)) > MAX_ESTIMATED_METHOD_BYTECODE_SIZE) {
+        res.add(i);
+        runLength = 0;
+      }
+      runLength += javaSourceLengths.get(i);
+    }
+    return res.build();
+  }
+
+  // Returns the innermost method currently being outlined, but only if codegen is currently within its own frame (e.g.
+  // not within the body of a lambda defined in it) while one of its top-level Stmts is being generated.
+  private static Optional<HugeMethodOutliner> getActiveOutlinerForCurrFrame(ScopedHeap scopedHeap) {
+    ArrayList<Object> activeOutliners = InternalStaticStateUtil.StmtListNode_activeHugeMethodOutliners;
+    if (activeOutliners.isEmpty()) {
+      return Optional.empty();
+    }
+    HugeMethodOutliner outliner = (HugeMethodOutliner) activeOutliners.get(activeOutliners.size() - 1);
+    if (outliner.currStmtRecording == null || outliner.methodFrameBaseLevel != scopedHeap.getCurrFrameBaseLevel()) {
+      return Optional.empty();
+    }
+    return Optional.of(outliner);
+  }
+
+  // Returns the Java locals of this method that the recorded codegen references from outside of itself, along with
+  // their types, or empty if they can't all be passed to a helper method.
+  private Optional<LinkedHashMap<String, Type>> getOutlinedHelperArgs(ScopedHeap.CodegenRecording recording) {
+    LinkedHashMap<String, Type> res = new LinkedHashMap<>();
+    for (Map.Entry<String, Boolean> referenced : recording.referencedIdentifiersInitialized.entrySet()) {
+      String identifier = referenced.getKey();
+      if (recording.declaredIdentifiers.contains(identifier)) {
+        continue;
+      }
+      ScopedHeap.IdentifierData identifierData = getJavaLocalIdentifierData(identifier);
+      if (identifierData == null) {
+        continue;
+      }
+      if (!referenced.getValue() || identifierData.type == null) {
+        return Optional.empty();
+      }
+      res.put(identifier, identifierData.type);
+    }
+    // The JVM limits methods to 255 params.
+    if (res.size() > MAX_OUTLINED_STMTS_HELPER_ARGS) {
+      return Optional.empty();
+    }
+    return Optional.of(res);
+  }
+
+  // Returns the IdentifierData of the given identifier only if it's currently bound to a Java local of this method.
+  private ScopedHeap.IdentifierData getJavaLocalIdentifierData(String identifier) {
+    for (int scopeLevel = this.scopedHeap.scopeStack.size() - 1; scopeLevel >= this.methodScopeLevel; scopeLevel--) {
+      ScopedHeap.IdentifierData identifierData =
+          this.scopedHeap.scopeStack.get(scopeLevel).scopedSymbolTable.get(identifier);
+      if (identifierData == null) {
+        continue;
+      }
+      if (identifierData.isTypeDefinition || identifierData.isStaticValue
+          || !JAVA_IDENTIFIER.matcher(identifier).matches()) {
+        return null;
+      }
+      // Everything bound in the method's own top-level scope that isn't one of its locals (e.g. procedures) was already
+      // bound before its first Stmt, except for whatever's been bound by the current Stmt so far (e.g. the wildcard
+      // bindings of the match arm being codegen'd).
+      if (scopeLevel > this.methodScopeLevel
+          || this.localTypes.containsKey(identifier)
+          || this.currStmtRecording.declaredIdentifiers.contains(identifier)) {
+        return identifierData;
+      }
+      return null;
+    }
+    return null;
+  }
+
+  // A boundary (i.e. the point just before the Stmt with the same index) is safe unless some local that's referenced
+  // after it was declared before it but is only initialized after it.
+  private boolean[] getSafeBoundaries() {
+    int stmtCount = this.stmtBodies.size();
+    int[] unsafeDelta = new int[stmtCount + 2];
+    for (Map.Entry<String, Integer> local : this.localDeclaredAtStmt.entrySet()) {
+      int lastUnsafeBoundary =
+          Math.min(
+              this.localInitializedAtStmt.getOrDefault(local.getKey(), stmtCount),
+              this.localLastReferencedAtStmt.getOrDefault(local.getKey(), -1)
+          );
+      if (lastUnsafeBoundary > local.getValue()) {
+        unsafeDelta[local.getValue() + 1]++;
+        unsafeDelta[lastUnsafeBoundary + 1]--;
+      }
+    }
+    boolean[] res = new boolean[stmtCount + 1];
+    int unsafe = 0;
+    for (int boundary = 0; boundary <= stmtCount; boundary++) {
+      unsafe += unsafeDelta[boundary];
+      res[boundary] = unsafe == 0;
+    }
+    return res;
+  }
+
+  // Outlines the Stmts in [runStart, runEnd) into a new helper method and appends a call to it to the given body, or
+  // returns false without changing anything if that isn't possible.
+  private boolean outlineRun(int runStart, int runEnd, StringBuilder body) {
+    LinkedHashMap<String, Type> args = new LinkedHashMap<>();
+    LinkedHashMap<String, Type> handedBack = new LinkedHashMap<>();
+    LinkedHashSet<String> declaredAndHandedBack = new LinkedHashSet<>();
+    for (int i = runStart; i < runEnd; i++) {
+      for (String local : this.stmtReferencedLocals.get(i)) {
+        if (this.localDeclaredAtStmt.get(local) < runStart) {
+          if (this.localInitializedAtStmt.getOrDefault(local, Integer.MAX_VALUE) >= runStart) {
+            return false;
+          }
+          args.put(local, this.localTypes.get(local));
+          if (this.stmtAssignedLocals.get(i).contains(local)) {
+            handedBack.put(local, this.localTypes.get(local));
+          }
+        }
+      }
+      for (String local : this.stmtDeclaredLocals.get(i)) {
+        if (this.localLastReferencedAtStmt.getOrDefault(local, -1) >= runEnd) {
+          if (this.localInitializedAtStmt.getOrDefault(local, Integer.MAX_VALUE) >= runEnd) {
+            return false;
+          }
+          declaredAndHandedBack.add(local);
+          handedBack.put(local, this.localTypes.get(local));
+        }
+      }
+    }
+    // The JVM limits methods to 255 params.
+    if (args.size() > MAX_OUTLINED_STMTS_HELPER_ARGS
+        || args.containsValue(null) || handedBack.containsValue(null)) {
+      return false;
+    }
+
+    String helperName = "$outlinedStmts$" + InternalStaticStateUtil.StmtListNode_outlinedStmtsHelpersCount++;
+    StringBuilder helper = startHelperMethod(handedBack.isEmpty() ? "void" : "Object[]", helperName, "", args);
+    for (int i = runStart; i < runEnd; i++) {
+      helper.append(this.stmtBodies.get(i));
+    }
+    endHelperMethod(helper, handedBack.keySet());
+    this.staticCodegen.append(GeneratedJavaSource.forStaticDefinitions(helper));
+    appendHelperCall(body, helperName, args.keySet(), handedBack, declaredAndHandedBack);
+    return true;
+  }
+
+  // Appends the helpers for the given literal elements to the given StringBuilder and returns a call to the top one.
+  private static StringBuilder outlineLiteral(
+      List<String> elemJavaSources,
+      LinkedHashMap<String, Type> args,
+      String literalJavaSourceType,
+      String literalFromElemsJavaSourceStmts,
+      StringBuilder helpers) {
+    String helperName = "$outlinedLiteral$" + InternalStaticStateUtil.StmtListNode_outlinedStmtsHelpersCount++;
+    StringBuilder helper =
+        startHelperMethod(literalJavaSourceType, helperName, "", args)
+            .append("Object[] $elems = new Object[").append(elemJavaSources.size()).append("];\n");
+    String fillHelperArgs = args.isEmpty() ? "$elems" : "$elems, " + String.join(", ", args.keySet());
+    ImmutableList<Integer> runStarts =
+        getMethodSizedRunStarts(
+            elemJavaSources.stream()
+                .map(elem -> elem.length() + ESTIMATED_OUTLINED_LITERAL_ELEMENT_OVERHEAD_CHARS)
+                .collect(ImmutableList.toImmutableList()));
+    for (int run = 0; run < runStarts.size(); run++) {
+      String fillHelperName = helperName + "$" + run;
+      StringBuilder fillHelper = startHelperMethod("void", fillHelperName, "Object[] $elems", args);
+      int runEnd = run + 1 < runStarts.size() ? runStarts.get(run + 1) : elemJavaSources.size();
+      for (int i = runStarts.get(run); i < runEnd; i++) {
+        fillHelper.append("$elems[").append(i).append("] = ").append(elemJavaSources.get(i)).append(";\n");
+      }
+      helpers.append(fillHelper.append("}\n"));
+      helper.append(fillHelperName).append('(').append(fillHelperArgs).append(");\n");
+    }
+    helpers.append(helper.append(literalFromElemsJavaSourceStmts).append("\n}\n"));
+    return new StringBuilder(helperName).append('(').append(String.join(", ", args.keySet())).append(')');
+  }
+
+  private static StringBuilder startHelperMethod(
+      String returnJavaSourceType, String helperName, String leadingParams, Map<String, Type> args) {
+    StringBuilder helper =
+        new StringBuilder("private static ")
+            .append(returnJavaSourceType)
+            .append(' ')
+            .append(helperName)
+            .append('(')
+            .append(leadingParams);
+    String separator = leadingParams.isEmpty() ? "" : ", ";
+    for (Map.Entry<String, Type> arg : args.entrySet()) {
+      helper.append(separator).append(arg.getValue().getJavaSourceType()).append(' ').append(arg.getKey());
+      separator = ", ";
+    }
+    return helper.append(") {\n");
+  }
+
+  private static void endHelperMethod(StringBuilder helper, Set<String> handedBack) {
+    if (!handedBack.isEmpty()) {
+      helper.append("\nreturn new Object[]{").append(String.join(", ", handedBack)).append("};");
+    }
+    helper.append("\n}\n");
+  }
+
+  private static void appendHelperCall(
+      StringBuilder body,
+      String helperName,
+      Set<String> args,
+      LinkedHashMap<String, Type> handedBack,
+      Set<String> declaredAndHandedBack) {
+    String call = String.format("%s(%s);\n", helperName, String.join(", ", args));
+    if (handedBack.isEmpty()) {
+      body.append(call);
+      return;
+    }
+    String handedBackArray = helperName + "$locals";
+    body.append("Object[] ").append(handedBackArray).append(" = ").append(call);
+    int i = 0;
+    for (Map.Entry<String, Type> local : handedBack.entrySet()) {
+      String javaSourceType = local.getValue().getJavaSourceType();
+      if (declaredAndHandedBack.contains(local.getKey())) {
+        body.append(javaSourceType).append(' ');
+      }
+      body.append(String.format("%s = (%s) %s[%s];\n", local.getKey(), javaSourceType, handedBackArray, i++));
+    }
+  }
+
+  // Returns whether the given identifier, newly declared in the method's top-level scope, is actually a Java local.
+  private boolean observeLocal(String identifier, int stmtIndex) {
+    ScopedHeap.IdentifierData identifierData = this.methodScopeSymbolTable.get(identifier);
+    if (identifierData == null || identifierData.isTypeDefinition || identifierData.isStaticValue
+        || !JAVA_IDENTIFIER.matcher(identifier).matches()) {
+      return false;
+    }
+    this.localTypes.put(identifier, identifierData.type);
+    this.localDeclaredAtStmt.put(identifier, stmtIndex);
+    if (stmtIndex < 0 || this.scopedHeap.isIdentifierInitialized(identifier)) {
+      this.localInitializedAtStmt.put(identifier, stmtIndex);
+    } else {
+      this.uninitializedLocals.add(identifier);
+    }
+    return true;
+  }
+
+  private static long estimateBytecodeSize(long javaSourceLength) {
+    return javaSourceLength / ESTIMATED_JAVA_SOURCE_CHARS_PER_BYTECODE_BYTE;
+  }
+}
@@ -7,6 +7,7 @@ import com.claro.intermediate_representation.expressions.procedures.functions.Fu
 import com.claro.intermediate_representation.expressions.procedures.functions.StructuralConcreteGenericTypeValidationUtil;
 import com.claro.intermediate_representation.expressions.term.*;
 import com.claro.intermediate_representation.types.*;
+import com.claro.internal_static_state.InternalStaticStateUtil;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -23,7 +24,6 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class MatchStmt extends Stmt {
-  private static long globalMatchCount = 0;
   private final Expr matchedExpr;
   private ImmutableList<ImmutableList<Object>> cases;
   private final ImmutableList<ImmutableList<Object>> originalCases;
@@ -40,7 +40,7 @@ public class MatchStmt extends Stmt {
     this.matchedExpr = matchedExpr;
     this.cases = cases;
     this.originalCases = cases;
-    this.matchId = MatchStmt.globalMatchCount++;
+    this.matchId = InternalStaticStateUtil.parsingState().MatchStmt_globalMatchCount++;
   }
 
   @Override
@@ -771,6 +771,18 @@ public class MatchStmt extends Stmt {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    if (!scopedHeap.isCodegenRecording()) {
+      return generateMatchJavaSourceOutput(scopedHeap);
+    }
+    // Everything that this match binds (e.g. wildcard bindings and the locals declared in each case action) is only
+    // declared in Java within the labeled block that the match is codegen'd to.
+    ScopedHeap.CodegenRecording recording = scopedHeap.startCodegenRecording(/*isJavaBlock=*/true);
+    GeneratedJavaSource res = generateMatchJavaSourceOutput(scopedHeap);
+    scopedHeap.stopCodegenRecording(recording);
+    return res;
+  }
+
+  private GeneratedJavaSource generateMatchJavaSourceOutput(ScopedHeap scopedHeap) {
     GeneratedJavaSource res = GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
 
     res.javaSourceBody().append("$Match").append(this.matchId).append(" : { // Begin structured type match. \n");
@@ -806,7 +818,8 @@ public class MatchStmt extends Stmt {
             l -> ImmutableList.of(
                 ((FlattenedTypeMatchPattern) l.get(0)).getFlattenedPattern(),
                 l.get(1),
-                ((FlattenedTypeMatchPattern) l.get(0)).autoValueIgnored_CaseActionAlreadyExitsMatchViaReturnBreakContinue.get()
+                ((FlattenedTypeMatchPattern) l.get(0)).autoValueIgnored_CaseActionAlreadyExitsMatchViaReturnBreakContinue.get(),
+                /*outlinable=*/true
             ))
         .forEach(casesStack::push);
     AtomicReference<GeneratedJavaSource> codegen = new AtomicReference<>(res);
@@ -1491,14 +1504,20 @@ public class MatchStmt extends Stmt {
             // Just so that the usage marking works for the exprs in the StmtListNode, initialize this binding.
             scopedHeap.putIdentifierValue(wildcardBindingName, patternPart.autoValueIgnored_optionalWildcardBindingType.get()
                 .get());
+            scopedHeap.initializeIdentifier(wildcardBindingName);
             scopedHeap.markIdentifierUsed(wildcardBindingName);
             // Do codegen.
             res.get().javaSourceBody().append(codegenWildcardBinding);
             alreadyCodegendWildcardBindings.add(wildcardBindingName);
           }
         }
-        res.updateAndGet(
-            codegen -> codegen.createMerged(((StmtListNode) top.get(1)).generateJavaSourceOutput(scopedHeap)));
+        StmtListNode caseAction = (StmtListNode) top.get(1);
+        GeneratedJavaSource caseActionCodegen =
+            (boolean) top.get(3)
+            ? HugeMethodOutliner.generateBlockJavaSourceOutput(
+                scopedHeap, () -> caseAction.generateJavaSourceOutput(scopedHeap))
+            : caseAction.generateJavaSourceOutput(scopedHeap);
+        res.updateAndGet(codegen -> codegen.createMerged(caseActionCodegen));
         // This is an unfortunate hack since I don't want to have to figure out how to avoid adding trailing `break`s
         // if they'd happen to be unreachable beyond these `break $MatchN` clauses. I've already validated using javap
         // that all of this gets optimized out of the JVM bytecode in the final class file, so this doesn't actually
@@ -1631,7 +1650,9 @@ public class MatchStmt extends Stmt {
                         }
                       }
                   ),
-                  l.get(2) // Maintain indication of whether this case action returns.
+                  l.get(2), // Maintain indication of whether this case action returns.
+                  // This synthetic case action continues the match itself, so it must remain inline.
+                  /*outlinable=*/false
               )
           )
           .forEach(oneofTypeVariantValueLiteralSwitchGroup::push);
@@ -1921,8 +1942,6 @@ public class MatchStmt extends Stmt {
   // This class will be used by the parser to signal that a nested Wildcard was matched.
   @AutoValue
   public abstract static class MaybeWildcardPrimitivePattern implements TypeMatchPattern<Type> {
-    private static long globalWildcardCount = 0;
-
     // Many Optionals representing only a few valid states... here's a perfect example of where Claro will give me better
     // tools for reasoning about correctness than Java gives me with reasonable effort.
     public abstract Optional<Object> getOptionalExpr();
@@ -1939,7 +1958,7 @@ public class MatchStmt extends Stmt {
 
     public static MaybeWildcardPrimitivePattern forNullableExpr(Object nullableExpr) {
       if (nullableExpr == null) {
-        return new AutoValue_MatchStmt_MaybeWildcardPrimitivePattern(Optional.empty(), Optional.empty(), Optional.of(MaybeWildcardPrimitivePattern.globalWildcardCount++));
+        return new AutoValue_MatchStmt_MaybeWildcardPrimitivePattern(Optional.empty(), Optional.empty(), Optional.of(InternalStaticStateUtil.parsingState().MatchStmt_globalWildcardCount++));
       } else if (nullableExpr instanceof IntegerTerm) {
         return new AutoValue_MatchStmt_MaybeWildcardPrimitivePattern(Optional.of(((IntegerTerm) nullableExpr).getValue()), Optional.empty(), Optional.empty());
       } else if (nullableExpr instanceof LongTerm) {
@@ -1959,7 +1978,7 @@ public class MatchStmt extends Stmt {
     }
 
     public static MaybeWildcardPrimitivePattern forWildcardBinding(IdentifierReferenceTerm wildcardBinding) {
-      return new AutoValue_MatchStmt_MaybeWildcardPrimitivePattern(Optional.empty(), Optional.of(wildcardBinding), Optional.of(MaybeWildcardPrimitivePattern.globalWildcardCount++));
+      return new AutoValue_MatchStmt_MaybeWildcardPrimitivePattern(Optional.empty(), Optional.of(wildcardBinding), Optional.of(InternalStaticStateUtil.parsingState().MatchStmt_globalWildcardCount++));
     }
 
     public static MaybeWildcardPrimitivePattern forTypeLiteralWildcardBinding(
@@ -1967,7 +1986,7 @@ public class MatchStmt extends Stmt {
       return new AutoValue_MatchStmt_MaybeWildcardPrimitivePattern(
           Optional.of(typeProvider),
           Optional.of(wildcardBinding),
-          Optional.of(MaybeWildcardPrimitivePattern.globalWildcardCount++)
+          Optional.of(InternalStaticStateUtil.parsingState().MatchStmt_globalWildcardCount++)
       );
     }
 
@@ -14,8 +14,7 @@ import com.google.common.collect.ImmutableSet;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class PipeChainStmt extends Stmt {
-  private static int globalPipeChainCount = 0;
-  private final int currPipeChainUniqueId;
+  private final long currPipeChainUniqueId;
   private final Expr sourceExpr;
   private final ImmutableList<Object> chainExprs;
   private final Stmt sinkStmt;
@@ -24,7 +23,7 @@ public class PipeChainStmt extends Stmt {
 
   public PipeChainStmt(Expr sourceExpr, ImmutableList<Object> chainExprs, Stmt sinkStmt) {
     super(ImmutableList.of());
-    this.currPipeChainUniqueId = globalPipeChainCount++;
+    this.currPipeChainUniqueId = InternalStaticStateUtil.parsingState().PipeChainStmt_globalPipeChainCount++;
     this.sourceExpr = sourceExpr;
     this.chainExprs = chainExprs;
     this.sinkStmt = sinkStmt;
@@ -163,7 +162,7 @@ public class PipeChainStmt extends Stmt {
     throw new ClaroParserException("PipeChainStmt Not yet implemented!");
   }
 
-  private static String getPipeStageTempVarName(int currPipeChainUniqueId, int currStageNum) {
+  private static String getPipeStageTempVarName(long currPipeChainUniqueId, int currStageNum) {
     return String.format(
         "$pipeChain_%s_stage_%s_val",
         currPipeChainUniqueId,
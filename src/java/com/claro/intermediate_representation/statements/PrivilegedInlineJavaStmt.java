@@ -59,6 +59,7 @@ public class PrivilegedInlineJavaStmt extends Stmt {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    scopedHeap.recordCodegenInlineJava();
     // Somehow this must've been allowed by the Parser, so the only thing that needs to happen here is just
     // synthetically mark *every* variable in the current scope as initialized/used.
     scopedHeap.scopeStack.peek().scopedSymbolTable.keySet().stream()
@@ -772,8 +772,13 @@ public class ProcedureDefinitionStmt extends Stmt {
                 ));
 
     // There's a StmtListNode to generate code for.
-    GeneratedJavaSource procedureBodyGeneratedJavaSource =
-        ((StmtListNode) this.getChildren().get(0)).generateJavaSourceOutput(scopedHeap);
+    StmtListNode procedureBody = (StmtListNode) this.getChildren().get(0);
+    if (!isLambdaType) {
+      // Lambdas are codegen'd as local classes within the body of some other method, so they're never outlined.
+      procedureBody.optionalOutlinableMethodArgNames =
+          Optional.of(ImmutableSet.copyOf(scopedHeap.scopeStack.peek().scopedSymbolTable.keySet()));
+    }
+    GeneratedJavaSource procedureBodyGeneratedJavaSource = procedureBody.generateJavaSourceOutput(scopedHeap);
     String javaSourceOutput;
     if (isLambdaType) {
       javaSourceOutput =
@@ -811,22 +816,8 @@ public class ProcedureDefinitionStmt extends Stmt {
               // Non-lambdas all generate a static procedure implementation that will be called in all cases where the
               // call isn't done via a first-class reference in the .claro src.
               Optional.of(
-                  new StringBuilder("\npublic static ")
-                      .append(this.resolvedProcedureType.hasReturnValue()
-                              ? this.resolvedProcedureType.getReturnType().getJavaSourceType()
-                              : "void")
-                      .append(" ")
-                      .append(this.procedureName)
-                      .append("(")
-                      .append(
-                          this.optionalArgTypesByNameMap
-                              .map(argTypesByName ->
-                                       argTypesByName.entrySet().stream()
-                                           .map(e -> String.format("%s %s", e.getValue()
-                                               .getJavaSourceType(), e.getKey()))
-                                           .collect(Collectors.joining(", ")))
-                              .orElse(""))
-                      .append(") {\n")
+                  getStaticProcedureSignatureJavaSource()
+                      .append(" {\n")
                       .append(optionalInitializeInjectedKeysJavaSource.map(StringBuilder::toString).orElse(""))
                       .append(procedureBodyGeneratedJavaSource.javaSourceBody())
                       .append("\n}\n")
@@ -858,6 +849,59 @@ public class ProcedureDefinitionStmt extends Stmt {
 
   }
 
+  // Codegens this (non-lambda) procedure's wrapper class and static reference exactly as generateJavaSourceOutput()
+  // would, except that the static procedure implementation simply delegates to the given static procedure, which must
+  // have the exact same Java signature. The procedure must already have been type checked.
+  public GeneratedJavaSource generateDelegatingJavaSourceOutput(String delegateStaticProcedure) {
+    String argNames = this.optionalArgTypesByNameMap.map(argMap -> String.join(", ", argMap.keySet())).orElse("");
+    StringBuilder applyBody = new StringBuilder();
+    if (this.resolvedProcedureType.hasArgs()) {
+      ImmutableList<Map.Entry<String, Type>> argsEntrySet = this.optionalArgTypesByNameMap.get().entrySet().asList();
+      for (int i = 0; i < argsEntrySet.size(); i++) {
+        String argJavaSourceType = argsEntrySet.get(i).getValue().getJavaSourceType();
+        applyBody.append(
+            String.format(
+                "%s %s = (%s) $args[%s];\n", argJavaSourceType, argsEntrySet.get(i).getKey(), argJavaSourceType, i));
+      }
+    }
+    String returnPrefix = this.resolvedProcedureType.hasReturnValue() ? "return " : "";
+    applyBody.append(returnPrefix).append(this.procedureName).append("(").append(argNames).append(");\n");
+    return GeneratedJavaSource.forStaticDefinitionsAndPreamble(
+        new StringBuilder(
+            this.resolvedProcedureType.getJavaNewTypeDefinitionStmt(
+                this.procedureName,
+                applyBody,
+                Optional.of(
+                    getStaticProcedureSignatureJavaSource()
+                        .append(" {\n")
+                        .append(returnPrefix)
+                        .append(delegateStaticProcedure)
+                        .append("(")
+                        .append(argNames)
+                        .append(");\n}\n"))
+            )),
+        new StringBuilder(this.resolvedProcedureType.getStaticFunctionReferenceDefinitionStmt(this.procedureName))
+    );
+  }
+
+  private StringBuilder getStaticProcedureSignatureJavaSource() {
+    return new StringBuilder("\npublic static ")
+        .append(this.resolvedProcedureType.hasReturnValue()
+                ? this.resolvedProcedureType.getReturnType().getJavaSourceType()
+                : "void")
+        .append(" ")
+        .append(this.procedureName)
+        .append("(")
+        .append(
+            this.optionalArgTypesByNameMap
+                .map(argTypesByName ->
+                         argTypesByName.entrySet().stream()
+                             .map(e -> String.format("%s %s", e.getValue().getJavaSourceType(), e.getKey()))
+                             .collect(Collectors.joining(", ")))
+                .orElse(""))
+        .append(")");
+  }
+
   @Override
   public Object generateInterpretedOutput(ScopedHeap definitionTimeScopedHeap) {
     // Within this function's new scope we'll need to add nodes to declare+init the arg vars within this scope. Do this
@@ -74,6 +74,7 @@ public class ReturnStmt extends Stmt {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
+    scopedHeap.recordCodegenReturn();
     GeneratedJavaSource exprGenJavaSource = ((Expr) getChildren().get(0)).generateJavaSourceOutput(scopedHeap);
     String exprJavaSourceBody = exprGenJavaSource.javaSourceBody().toString();
     // We've already consumed the javaSourceBody, so we can safely clear it.
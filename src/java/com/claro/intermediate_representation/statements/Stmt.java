@@ -53,6 +53,11 @@ public abstract class Stmt extends Node {
     Stmt.prefixJavaSourceStmts.append(prefixGeneratedJavaSourceStmt);
   }
 
+  // Allows checking whether any sub-Exprs requested prefix Stmts during some span of codegen.
+  public static int getGeneratedJavaSourceStmtsBeforeCurrentStmtLength() {
+    return Stmt.prefixJavaSourceStmts.length();
+  }
+
   // In some situations these prefix java source statements may be consumed early.
   public static StringBuilder consumeGeneratedJavaSourceStmtsBeforeCurrentStmt() {
     StringBuilder res = Stmt.prefixJavaSourceStmts;
@@ -2,12 +2,25 @@ package com.claro.intermediate_representation.statements;
 
 import com.claro.ClaroParserException;
 import com.claro.compiler_backends.interpreted.ScopedHeap;
+import com.claro.compiler_backends.profiling.CompilerProfiler;
 import com.claro.intermediate_representation.Node;
 import com.claro.intermediate_representation.types.ClaroTypeException;
+import com.claro.internal_static_state.InternalStaticStateUtil;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import java.util.Optional;
 
 public class StmtListNode extends Node {
   public StmtListNode tail = null;
+  // Set on the head of each program file's top-level StmtListNode so that, when profiling, time can be attributed to
+  // individual top-level Stmts without also profiling every nested block.
+  public boolean profileTopLevelStmts = false;
+  // Set on the head of the main program file's top-level StmtListNode, and on the body of each non-lambda procedure
+  // (along with the names of its args), so that if the single Java method that these Stmts are codegen'd into would be
+  // too large for the JIT to compile, runs of them can be outlined into separate helper methods.
+  public Optional<ImmutableSet<String>> optionalOutlinableMethodArgNames = Optional.empty();
 
   private String generatedJavaClassName;
 
@@ -63,7 +76,12 @@ public class StmtListNode extends Node {
         // ModuleDefinitionStmts were already validated during an earlier parsing phase, don't waste time
         // validating them again, skip them now.
       } else {
+        CompilerProfiler.Span span =
+            this.profileTopLevelStmts ? startTopLevelStmtSpan("Type Validation", currStmt) : null;
         currStmt.assertExpectedExprTypes(scopedHeap);
+        if (span != null) {
+          span.end();
+        }
       }
 
       // Move on to the next StmtListNode.
@@ -78,20 +96,55 @@ public class StmtListNode extends Node {
 
   @Override
   public GeneratedJavaSource generateJavaSourceOutput(ScopedHeap scopedHeap) {
-    GeneratedJavaSource res =
-        ((Stmt) this.getChildren().get(0)).generateJavaSourceOutput(scopedHeap, this.generatedJavaClassName);
+    if (this.optionalOutlinableMethodArgNames.isPresent() && InternalStaticStateUtil.StmtListNode_outlineHugeMethods) {
+      HugeMethodOutliner outliner = new HugeMethodOutliner(scopedHeap, this.optionalOutlinableMethodArgNames.get());
+      StmtListNode curr = this;
+      while (curr != null) {
+        Stmt stmt = (Stmt) curr.getChildren().get(0);
+        outliner.addStmt(() -> generateJavaSourceOutputForStmt(stmt, scopedHeap));
+        curr = curr.tail;
+      }
+      return outliner.build();
+    }
+    GeneratedJavaSource.Accumulator res =
+        GeneratedJavaSource.accumulator()
+            .append(generateJavaSourceOutputForStmt((Stmt) this.getChildren().get(0), scopedHeap));
     // Codegen shouldn't be recursive over StmtListNode as it may cause stack overflow during compilation just because
     // there are a large number of statements. We don't want to fail during compilation for code that would succeed at
     // runtime.
     StmtListNode curr = this;
     while (curr.tail != null) {
       curr = curr.tail;
-      res = res.createMerged(
-          ((Stmt) curr.getChildren().get(0)).generateJavaSourceOutput(scopedHeap, this.generatedJavaClassName));
+      res.append(generateJavaSourceOutputForStmt((Stmt) curr.getChildren().get(0), scopedHeap));
+    }
+    return res.build();
+  }
+
+  private GeneratedJavaSource generateJavaSourceOutputForStmt(Stmt stmt, ScopedHeap scopedHeap) {
+    if (!this.profileTopLevelStmts) {
+      return stmt.generateJavaSourceOutput(scopedHeap, this.generatedJavaClassName);
     }
+    CompilerProfiler.Span span = startTopLevelStmtSpan("Codegen", stmt);
+    GeneratedJavaSource res = stmt.generateJavaSourceOutput(scopedHeap, this.generatedJavaClassName);
+    span.end();
     return res;
   }
 
+  @Override
+  protected Iterable<Node> getCountedAstNodes() {
+    return this.tail == null ? getChildren() : Iterables.concat(getChildren(), ImmutableList.of(this.tail));
+  }
+
+  // Only call this when profiling is actually enabled, as describing the Stmt isn't free.
+  public static CompilerProfiler.Span startTopLevelStmtSpan(String phase, Stmt stmt) {
+    String stmtDescription = stmt.getClass().getSimpleName();
+    if (stmt instanceof ProcedureDefinitionStmt) {
+      stmtDescription += " " + ((ProcedureDefinitionStmt) stmt).procedureName;
+    }
+    return CompilerProfiler.start("stmt", String.format("%s: %s", phase, stmtDescription))
+        .withArg("nodes", stmt.countAstNodes());
+  }
+
   @Override
   public Object generateInterpretedOutput(ScopedHeap scopedHeap) {
     // Simply execute the statements. Statements don't return values UNLESS we're in a procedure scope and the
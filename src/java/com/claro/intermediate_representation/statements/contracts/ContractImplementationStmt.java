@@ -28,6 +28,12 @@ public class ContractImplementationStmt extends Stmt {
   static GeneratedJavaSource dependencyGenericProcedureDefCodegenJavaSource =
       GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
 
+  // Drops any dependent generic procedure codegen left over from a prior compilation in the same process.
+  public static void resetDependencyGenericProcedureDefCodegen() {
+    ContractImplementationStmt.dependencyGenericProcedureDefCodegenJavaSource =
+        GeneratedJavaSource.forJavaSourceBody(new StringBuilder());
+  }
+
   public ContractImplementationStmt(
       String contractName,
       ImmutableList<TypeProvider> concreteImplementationTypeParamTypeProviders,
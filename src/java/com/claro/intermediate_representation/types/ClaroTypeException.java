@@ -332,7 +332,7 @@ public class ClaroTypeException extends Exception {
       "\t\t%s";
   private static final String ILLEGAL_PARSE_FROM_JSON_FOR_UNSUPPORTED_TARGET_ONEOF_TYPE =
       "Illegal Attempt To Parse JSON String to Target Type Containing Unsupported Oneof: Claro's builtin JSON Parser currently supports only a limited single-token lookahead and does no recursive backtracking" +
-      " so it can only generate Automatic JSON parsing code for oneof types with <= 1 list and <= 1 struct each in its variants set, and as long as both int and float do not appear together:\n" +
+      " so it can only generate Automatic JSON parsing code for oneof types with <= 1 list and <= 1 struct or map each in its variants set, and as long as both int and float do not appear together:\n" +
       "\tFor the give target type:\n" +
       "\t\t%s" +
       "\tFound the following unsupported oneof type definition:\n" +
@@ -344,6 +344,19 @@ public class ClaroTypeException extends Exception {
       "\t\tvar parsed = fromJson(\"...\");\n" +
       "\tProvide some target type instead:\n" +
       "\t\tvar parsed: TargetType = fromJson(\"...\");";
+  private static final String ILLEGAL_RETAIN_RAW_JSON_FOR_JSON_ARRAY_STREAM =
+      "Illegal Attempt to Retain Raw JSON While Streaming a JSON Array: The whole point of parsing a std::JsonArrayStream<T> is to never hold the entire raw JSON input in memory, so there's no raw JSON to retain.\n" +
+      "\tInstead of something like:\n" +
+      "\t\tvar stream: std::JsonArrayStream<T> = fromJson(resource, true);\n" +
+      "\tDrop the second arg:\n" +
+      "\t\tvar stream: std::JsonArrayStream<T> = fromJson(resource);";
+  private static final String ILLEGAL_SERIALIZE_TO_JSON_FOR_UNSUPPORTED_TYPE =
+      "Illegal Attempt To Serialize Unsupported Type to JSON: Claro can only generate Automatic JSON serialization code for types structurally matching the following (pseudocode) type definition:\n" +
+      "\t\tnewtype JSON : oneof<atom, boolean, int, long, float, double, string, [JSON], struct{field1: JSON, ..., fieldN: JSON}, {string: JSON}, UserDefinedType<...> wrapping JSON>\n" +
+      "\tFor the given type:\n" +
+      "\t\t%s\n" +
+      "\tFound the following unsupported type:\n" +
+      "\t\t%s";
   private static final String INVALID_ENDPOINT_HANDLERS_BLOCK_FOR_HTTP_SERVICE_UNDEFINED =
       "Invalid Endpoint Handlers Block for Undefined HttpService: No HttpService named `%s` declared within the current scope!";
   private static final String INVALID_ENDPOINT_HANDLERS_BLOCK_FOR_NON_HTTP_SERVICE =
@@ -1494,10 +1507,24 @@ public class ClaroTypeException extends Exception {
     );
   }
 
+  public static ClaroTypeException forIllegalSerializeToJSONForUnsupportedType(Type type, Type serializedType) {
+    return new ClaroTypeException(
+        String.format(
+            ILLEGAL_SERIALIZE_TO_JSON_FOR_UNSUPPORTED_TYPE,
+            serializedType,
+            type
+        )
+    );
+  }
+
   public static ClaroTypeException forIllegalParseFromJSONWithNoTargetTypeAssertion() {
     return new ClaroTypeException(ILLEGAL_PARSE_FROM_JSON_WITH_NO_TARGET_TYPE_ASSERTION);
   }
 
+  public static ClaroTypeException forIllegalRetainRawJsonForJsonArrayStream() {
+    return new ClaroTypeException(ILLEGAL_RETAIN_RAW_JSON_FOR_JSON_ARRAY_STREAM);
+  }
+
   public static ClaroTypeException forInvalidEndpointHandlersBlockForHttpServiceUndefined() {
     return new ClaroTypeException(INVALID_ENDPOINT_HANDLERS_BLOCK_FOR_HTTP_SERVICE_UNDEFINED);
   }
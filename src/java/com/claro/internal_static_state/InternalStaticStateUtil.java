@@ -4,10 +4,14 @@ import com.claro.compiler_backends.interpreted.ScopedHeap;
 import com.claro.compiler_backends.java_source.monomorphization.proto.ipc_protos.IPCMessages;
 import com.claro.intermediate_representation.types.Type;
 import com.claro.intermediate_representation.types.TypeProvider;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.*;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 
@@ -19,23 +23,19 @@ import java.util.function.BiFunction;
 public class InternalStaticStateUtil {
   public static boolean DEP_MODULE_MONOMORPHIZATION_ENABLED = false;
   public static Optional<String> optionalGeneratedClassName = Optional.empty();
-  public static final ImmutableTable.Builder<String, String, Integer>
+  public static ImmutableTable.Builder<String, String, Integer>
       AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME =
       ImmutableTable.builder();
+  public static int AtomDefinitionStmt_globalAtomCount = 0;
   public static ImmutableMap<String, TypeProvider> GraphProcedureDefinitionStmt_graphFunctionArgs;
   public static Optional<ImmutableMap<String, TypeProvider>>
       GraphProcedureDefinitionStmt_graphFunctionOptionalInjectedKeys;
   public static HashSet<String> GraphProcedureDefinitionStmt_usedGraphNodesNamesSet = new HashSet<>();
 
-  // This is to be used during the parsing phase so that whenever a GraphNodeReference is legally identified the
-  // referenced node will be added to this list so that this GraphNodeDefinitionStmt knows which upstream deps it needs
-  // to gen code for. Since GraphNodeReferences are only valid within the scope of matching a GraphNodeDefinition this
-  // is valid and safe.
-  public static ImmutableSet.Builder<String> GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder =
-      ImmutableSet.builder();
-  // This set of upstream deps refers to the same node references as the above list, but membership in this set
-  // indicates that the reference is implicitly indicating the user wants control over lazy evaluation of the node
-  // via access to the subgraph as a provider to execute on demand instead of depending on the already computed result.
+  // This set of upstream deps refers to the same node references as the upstream references collected in ParsingState,
+  // but membership in this set indicates that the reference is implicitly indicating the user wants control over lazy
+  // evaluation of the node via access to the subgraph as a provider to execute on demand instead of depending on the
+  // already computed result.
   public static ImmutableSet.Builder<String> GraphNodeDefinitionStmt_upstreamGraphNodeProviderReferencesBuilder =
       ImmutableSet.builder();
 
@@ -61,6 +61,9 @@ public class InternalStaticStateUtil {
       GenericProcedureDefinitionStmt_alreadyCodegenedContractProcedureMonomorphizations = HashBasedTable.create();
   public static HashBasedTable<String, ImmutableMap<Type, Type>, String>
       GenericProcedureDefinitionStmt_monomorphizationsByGenericProcedureCanonName = HashBasedTable.create();
+  // When set, monomorphizations whose codegen would be identical but for their name and type delegate to a single
+  // shared implementation rather than each getting their own copy.
+  public static boolean GenericProcedureDefinitionStmt_shareErasedMonomorphizations = false;
 
   public static boolean GnericProcedureDefinitionStmt_withinGenericProcedureDefinitionTypeValidation = false;
   public static boolean GnericProcedureDefinitionStmt_doneWithGenericProcedureTypeValidationPhase = false;
@@ -97,8 +100,132 @@ public class InternalStaticStateUtil {
     }
   }
 
+  // fromJson(...) codegen generates a single shared parser class per target type. These are collected here and emitted
+  // once at the top-level of the generated class. Names are never reused so that parsers generated for separately
+  // emitted dep module monomorphizations can't collide.
+  public static HashMap<Type, String> FromJsonExpr_jsonParserClassNamesByType = new HashMap<>();
+  public static HashMap<Type, String> FromJsonExpr_jsonArrayStreamClassNamesByType = new HashMap<>();
+  public static StringBuilder FromJsonExpr_jsonParsersCodegen = new StringBuilder();
+  public static int FromJsonExpr_jsonParsersCount = 0;
+
+  // toJson(...) codegen generates a single shared writer class per serialized type, collected exactly as above.
+  public static HashMap<Type, String> ToJsonExpr_jsonWriterClassNamesByType = new HashMap<>();
+  public static StringBuilder ToJsonExpr_jsonWritersCodegen = new StringBuilder();
+  public static int ToJsonExpr_jsonWritersCount = 0;
+
+  // When set, any main method or procedure body whose codegen would be too large for the JIT to compile has runs of its
+  // top-level Stmts outlined into separate helper methods, along with any oversized match arms and collection literals,
+  // each uniquely named using this count.
+  public static boolean StmtListNode_outlineHugeMethods = false;
+  public static int StmtListNode_outlinedStmtsHelpersCount = 0;
+  // The HugeMethodOutliners of the methods whose codegen is currently in progress, innermost last.
+  public static ArrayList</*HugeMethodOutliner*/Object> StmtListNode_activeHugeMethodOutliners = new ArrayList<>();
+
   public static final HashBasedTable<String, String, Type> HttpServiceDef_endpointProcedureSignatures =
       HashBasedTable.create();
   public static HashSet<String> HttpServiceDef_servicesWithValidEndpointHandlersDefined = Sets.newHashSet();
   public static HashBasedTable<String, String, String> HttpServiceDef_endpointPaths = HashBasedTable.create();
+
+  // Some state is accumulated as IR nodes are constructed during parsing. Since independent src files are parsed
+  // concurrently, each concurrently parsed src file gets its own ParsingState (see withSrcFileParsingState()), while
+  // everything else (i.e. the main src file, and any nodes constructed after parsing) shares a single ParsingState.
+  private static ParsingState sharedParsingState = new ParsingState(0);
+  private static final ThreadLocal<ParsingState> srcFileParsingState = new ThreadLocal<>();
+
+  public static ParsingState parsingState() {
+    ParsingState res = srcFileParsingState.get();
+    return res == null ? sharedParsingState : res;
+  }
+
+  // Runs the given parse with the current thread using a ParsingState specific to the src file at the given index.
+  public static <T> T withSrcFileParsingState(int srcFileIndex, Callable<T> parse) throws Exception {
+    Preconditions.checkArgument(srcFileIndex > 0, "Src file index 0 is reserved for the shared ParsingState.");
+    srcFileParsingState.set(new ParsingState(srcFileIndex * ParsingState.SRC_FILE_ID_BASE_STRIDE));
+    try {
+      return parse.call();
+    } finally {
+      srcFileParsingState.remove();
+    }
+  }
+
+  public static final class ParsingState {
+    // Each src file's counters start from a distinct multiple of this base so that the synthetic names generated from
+    // them remain unique across the entire compilation unit without depending on the order that files finish parsing.
+    private static final long SRC_FILE_ID_BASE_STRIDE = 1_000_000;
+
+    // These counters are used to generate unique names for the synthetic Java identifiers/classes that various
+    // constructs codegen.
+    public long LambdaExpr_lambdaExprCount;
+    public long ComprehensionExpr_totalComprehensionsCount;
+    public long AutomaticErrorPropagationStmt_autoCheckedVariableCount;
+    public long PipeChainStmt_globalPipeChainCount;
+    public long MatchStmt_globalMatchCount;
+    public long MatchStmt_globalWildcardCount;
+    // Whenever a GraphNodeReference is legally identified the referenced node will be added to this list so that this
+    // GraphNodeDefinitionStmt knows which upstream deps it needs to gen code for. Since GraphNodeReferences are only
+    // valid within the scope of matching a GraphNodeDefinition this is valid and safe.
+    public ImmutableSet.Builder<String> GraphNodeDefinitionStmt_upstreamGraphNodeReferencesBuilder =
+        ImmutableSet.builder();
+
+    private ParsingState(long idBase) {
+      this.LambdaExpr_lambdaExprCount = idBase;
+      this.ComprehensionExpr_totalComprehensionsCount = idBase;
+      this.AutomaticErrorPropagationStmt_autoCheckedVariableCount = idBase;
+      this.PipeChainStmt_globalPipeChainCount = idBase;
+      this.MatchStmt_globalMatchCount = idBase;
+      this.MatchStmt_globalWildcardCount = idBase;
+    }
+  }
+
+  // Resets all of the above state back to its initial values. This must be called between compilations whenever the
+  // compiler is invoked more than once in the same process (e.g. as a Bazel persistent worker) as otherwise state from
+  // the prior compilation would leak into the next one. In particular, the above counters must restart from zero so
+  // that the generated code is identical regardless of what the process happened to compile previously.
+  public static void reset() {
+    DEP_MODULE_MONOMORPHIZATION_ENABLED = false;
+    optionalGeneratedClassName = Optional.empty();
+    AtomDefinition_CACHE_INDEX_BY_MODULE_AND_ATOM_NAME = ImmutableTable.builder();
+    AtomDefinitionStmt_globalAtomCount = 0;
+    GraphProcedureDefinitionStmt_graphFunctionArgs = null;
+    GraphProcedureDefinitionStmt_graphFunctionOptionalInjectedKeys = null;
+    GraphProcedureDefinitionStmt_usedGraphNodesNamesSet = new HashSet<>();
+    GraphNodeDefinitionStmt_upstreamGraphNodeProviderReferencesBuilder = ImmutableSet.builder();
+    ProcedureDefinitionStmt_optionalActiveProcedureDefinitionStmt = Optional.empty();
+    ProcedureDefinitionStmt_optionalActiveProcedureResolvedType = Optional.empty();
+    PipeChainStmt_withinPipeChainContext = false;
+    PipeChainStmt_backreferencedPipeChainStageType = null;
+    PipeChainStmt_backreferenceUsagesCount = 0;
+    PipeChainStmt_backreferencedPipeChainStageCodegenFn = new AtomicReference<>();
+    ContractDefinitionStmt_currentContractName = null;
+    ContractDefinitionStmt_currentContractGenericTypeParamNames = null;
+    ContractDefinitionStmt_genericContractImplProceduresCanonicalNames = new HashSet<>();
+    GenericProcedureDefinitionStmt_alreadyCodegenedContractProcedureMonomorphizations = HashBasedTable.create();
+    GenericProcedureDefinitionStmt_monomorphizationsByGenericProcedureCanonName = HashBasedTable.create();
+    GenericProcedureDefinitionStmt_shareErasedMonomorphizations = false;
+    GnericProcedureDefinitionStmt_withinGenericProcedureDefinitionTypeValidation = false;
+    GnericProcedureDefinitionStmt_doneWithGenericProcedureTypeValidationPhase = false;
+    LambdaExpr_optionalActiveGenericProcedureDefRequiredContractNamesToGenericArgs = Optional.empty();
+    IfStmt_withinConditionTypeValidation = false;
+    InitializersBlockStmt_initializersByInitializedTypeNameAndModuleDisambiguator = HashBasedTable.create();
+    UnwrappersBlockStmt_unwrappersByUnwrappedTypeNameAndModuleDisambiguator = HashBasedTable.create();
+    ComprehensionExpr_nestedComprehensionCollectionsCount = -1;
+    ComprehensionExpr_nestedComprehensionMappedItemName = null;
+    ComprehensionExpr_nestedComprehensionIdentifierReferences = new HashSet<>();
+    LoopingConstructs_withinLoopingConstructBody = false;
+    sharedParsingState = new ParsingState(0);
+    JavaSourceCompilerBackend_depModuleGenericMonomoprhizationsNeeded = HashMultimap.create();
+    FromJsonExpr_jsonParserClassNamesByType = new HashMap<>();
+    FromJsonExpr_jsonArrayStreamClassNamesByType = new HashMap<>();
+    FromJsonExpr_jsonParsersCodegen = new StringBuilder();
+    FromJsonExpr_jsonParsersCount = 0;
+    ToJsonExpr_jsonWriterClassNamesByType = new HashMap<>();
+    ToJsonExpr_jsonWritersCodegen = new StringBuilder();
+    ToJsonExpr_jsonWritersCount = 0;
+    StmtListNode_outlineHugeMethods = false;
+    StmtListNode_outlinedStmtsHelpersCount = 0;
+    StmtListNode_activeHugeMethodOutliners = new ArrayList<>();
+    HttpServiceDef_endpointProcedureSignatures.clear();
+    HttpServiceDef_servicesWithValidEndpointHandlersDefined = Sets.newHashSet();
+    HttpServiceDef_endpointPaths = HashBasedTable.create();
+  }
 }
@@ -3,6 +3,7 @@ package com.claro.module_system;
 import com.claro.ModuleApiLexer;
 import com.claro.ModuleApiParser;
 
+import java.io.Reader;
 import java.io.StringReader;
 import java.util.Scanner;
 
@@ -22,11 +23,19 @@ public class ModuleApiParserUtil {
   }
 
   public static ModuleApiLexer createLexer(String input) {
-    ModuleApiLexer lexer = new ModuleApiLexer(new StringReader(input));
+    return createLexer(new StringReader(input));
+  }
+
+  public static ModuleApiLexer createLexer(Reader input) {
+    ModuleApiLexer lexer = new ModuleApiLexer(input);
     return lexer;
   }
 
   public static ModuleApiParser createParser(String input, String srcFilename) {
+    return createParser(new StringReader(input), srcFilename);
+  }
+
+  public static ModuleApiParser createParser(Reader input, String srcFilename) {
     ModuleApiLexer lexer = createLexer(input);
     lexer.moduleFilename = srcFilename;
     ModuleApiParser parser = new ModuleApiParser(lexer);
@@ -9,7 +9,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
+import java.io.IOException;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -177,33 +180,186 @@ public class ClaroRuntimeUtilities {
     }
   }
 
+  // Codegen'd JSON parsers signal that the JSON didn't match the asserted target type by throwing this singleton rather
+  // than threading a ParsedJson result through every nested value. The actual error reported to the user is derived
+  // from the JsonReader's path, so there's no need to pay for a stack trace on every failed parse. For that path to
+  // point at the offending value, it must be thrown *before* consuming that value from the JsonReader.
+  public static final IOException $JSON_TYPE_MISMATCH = new IOException("JSON did not match the asserted type.") {
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  };
+
+  public static boolean $parseJsonBoolean(JsonReader jsonReader) throws IOException {
+    if (jsonReader.peek() != JsonToken.BOOLEAN) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+    return jsonReader.nextBoolean();
+  }
+
+  public static int $parseJsonInt(JsonReader jsonReader) throws IOException {
+    if (jsonReader.peek() != JsonToken.NUMBER) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+    try {
+      return jsonReader.nextInt();
+    } catch (NumberFormatException e) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+  }
+
+  public static float $parseJsonFloat(JsonReader jsonReader) throws IOException {
+    if (jsonReader.peek() != JsonToken.NUMBER) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+    try {
+      return (float) jsonReader.nextDouble();
+    } catch (NumberFormatException e) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+  }
+
+  public static String $parseJsonString(JsonReader jsonReader) throws IOException {
+    if (jsonReader.peek() != JsonToken.STRING) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+    return jsonReader.nextString();
+  }
+
+  // The Nothing atom singleton lives in the stdlib's ATOM_CACHE, so the generated code passes it along.
+  public static <A> A $parseJsonNothing(JsonReader jsonReader, A nothing) throws IOException {
+    if (jsonReader.peek() != JsonToken.NULL) {
+      throw $JSON_TYPE_MISMATCH;
+    }
+    jsonReader.nextNull();
+    return nothing;
+  }
+
+  // Codegen'd JSON writers append directly into this per-thread buffer, so that serializing a value allocates nothing
+  // but the final String. Buffers that grew unusually large for some huge payload aren't retained forever.
+  private static final int MAX_RETAINED_JSON_BUFFER_CAPACITY = 1 << 20;
+  private static final ThreadLocal<StringBuilder> REUSABLE_JSON_BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+  public static StringBuilder $getReusableJsonBuffer() {
+    StringBuilder buffer = REUSABLE_JSON_BUFFER.get();
+    if (buffer.capacity() > MAX_RETAINED_JSON_BUFFER_CAPACITY) {
+      buffer = new StringBuilder(256);
+      REUSABLE_JSON_BUFFER.set(buffer);
+    }
+    buffer.setLength(0);
+    return buffer;
+  }
+
+  private static final String[] JSON_CONTROL_CHAR_ESCAPES = new String[0x20];
+
+  static {
+    for (int c = 0; c < 0x20; c++) {
+      JSON_CONTROL_CHAR_ESCAPES[c] = String.format("\\u%04x", c);
+    }
+    JSON_CONTROL_CHAR_ESCAPES['\b'] = "\\b";
+    JSON_CONTROL_CHAR_ESCAPES['\t'] = "\\t";
+    JSON_CONTROL_CHAR_ESCAPES['\n'] = "\\n";
+    JSON_CONTROL_CHAR_ESCAPES['\f'] = "\\f";
+    JSON_CONTROL_CHAR_ESCAPES['\r'] = "\\r";
+  }
+
+  public static void $writeJsonString(StringBuilder out, String s) {
+    out.append('"');
+    // Copy over unescaped runs in bulk rather than char by char.
+    int runStart = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      String escape;
+      if (c < 0x20) {
+        escape = JSON_CONTROL_CHAR_ESCAPES[c];
+      } else if (c == '"') {
+        escape = "\\\"";
+      } else if (c == '\\') {
+        escape = "\\\\";
+      } else if (c == '\u2028') {
+        // These are valid in JSON, but not in JavaScript string literals.
+        escape = "\\u2028";
+      } else if (c == '\u2029') {
+        escape = "\\u2029";
+      } else {
+        continue;
+      }
+      out.append(s, runStart, i).append(escape);
+      runStart = i + 1;
+    }
+    out.append(s, runStart, s.length()).append('"');
+  }
+
+  // JSON has no representation for NaN or infinities, so these are written as null.
+  public static void $writeJsonNumber(StringBuilder out, float f) {
+    if (Float.isFinite(f)) {
+      out.append(f);
+    } else {
+      out.append("null");
+    }
+  }
+
+  public static void $writeJsonNumber(StringBuilder out, double d) {
+    if (Double.isFinite(d)) {
+      out.append(d);
+    } else {
+      out.append("null");
+    }
+  }
+
+  /**
+   * The types describing a `std::ParsedJson<T>` for some particular target type T. These are the same for every value
+   * parsed to the same target type, so codegen'd parsers precompute this once per target type rather than rebuilding
+   * the struct and oneof types on every parse.
+   */
+  public static final class $ParsedJsonType {
+    private final Type targetType;
+    private final ImmutableList<Type> parameterizedTypes;
+    private final Types.StructType parsedJsonStructType;
+
+    private $ParsedJsonType(Type targetType) {
+      this.targetType = targetType;
+      this.parameterizedTypes = ImmutableList.of(targetType);
+      this.parsedJsonStructType =
+          Types.StructType.forFieldTypes(
+              ImmutableList.of("result", "rawJson"),
+              ImmutableList.of(
+                  Types.OneofType.forVariantTypes(
+                      ImmutableList.of(
+                          targetType,
+                          Types.UserDefinedType.forTypeNameAndParameterizedTypes(
+                              "Error",
+                              /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
+                              ImmutableList.of(Types.STRING)
+                          )
+                      )
+                  ),
+                  Types.STRING
+              ),
+              /*isMutable=*/false
+          );
+    }
+  }
+
+  public static $ParsedJsonType $getParsedJsonType(Type targetType) {
+    return new $ParsedJsonType(targetType);
+  }
+
   public static $UserDefinedType<ClaroStruct> $getErrorParsedJson(Type targetType, String jsonPathError, String jsonString) {
-    final Types.StructType parsedJsonStructType =
-        Types.StructType.forFieldTypes(
-            ImmutableList.of("result", "rawJson"),
-            ImmutableList.of(
-                Types.OneofType.forVariantTypes(
-                    ImmutableList.of(
-                        targetType,
-                        Types.UserDefinedType.forTypeNameAndParameterizedTypes(
-                            "Error",
-                            /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
-                            ImmutableList.of(Types.STRING)
-                        )
-                    )
-                ),
-                Types.STRING
-            ),
-            /*isMutable=*/false
-        );
+    return $getErrorParsedJson($getParsedJsonType(targetType), jsonPathError, jsonString);
+  }
 
+  public static $UserDefinedType<ClaroStruct> $getErrorParsedJson(
+      $ParsedJsonType parsedJsonType, String jsonPathError, String jsonString) {
     return new $UserDefinedType<>(
         "ParsedJson",
         /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
-        ImmutableList.of(targetType),
-        parsedJsonStructType,
+        parsedJsonType.parameterizedTypes,
+        parsedJsonType.parsedJsonStructType,
         new ClaroStruct(
-            parsedJsonStructType,
+            parsedJsonType.parsedJsonStructType,
             new $UserDefinedType<>(
                 "Error",
                 /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
@@ -215,7 +371,7 @@ public class ClaroRuntimeUtilities {
                     "\t\t%s\n" +
                     "\tAt JsonPath:\n" +
                     "\t\t%s",
-                    targetType,
+                    parsedJsonType.targetType,
                     jsonPathError
                 )
             ),
@@ -224,33 +380,37 @@ public class ClaroRuntimeUtilities {
     );
   }
 
+  public static $UserDefinedType<String> $getJsonArrayStreamError(Type elementType, String jsonPathError) {
+    return new $UserDefinedType<>(
+        "Error",
+        /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
+        ImmutableList.of(Types.STRING),
+        Types.STRING,
+        String.format(
+            "Streamed JSON array element did not match the asserted target type definition.\n" +
+            "\tExpected:\n" +
+            "\t\t%s\n" +
+            "\tAt JsonPath:\n" +
+            "\t\t%s",
+            elementType,
+            jsonPathError
+        )
+    );
+  }
+
   public static $UserDefinedType<ClaroStruct> $getSuccessParsedJson(
       Type targetType, Object parsedRes, String jsonString) {
-    final Types.StructType parsedJsonStructType =
-        Types.StructType.forFieldTypes(
-            ImmutableList.of("result", "rawJson"),
-            ImmutableList.of(
-                Types.OneofType.forVariantTypes(
-                    ImmutableList.of(
-                        targetType,
-                        Types.UserDefinedType.forTypeNameAndParameterizedTypes(
-                            "Error",
-                            /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
-                            ImmutableList.of(Types.STRING)
-                        )
-                    )
-                ),
-                Types.STRING
-            ),
-            /*isMutable=*/false
-        );
+    return $getSuccessParsedJson($getParsedJsonType(targetType), parsedRes, jsonString);
+  }
 
+  public static $UserDefinedType<ClaroStruct> $getSuccessParsedJson(
+      $ParsedJsonType parsedJsonType, Object parsedRes, String jsonString) {
     return new $UserDefinedType<>(
         "ParsedJson",
         /*definingModuleDisambiguator=*/StdLibModuleRegistry.STDLIB_MODULE_DISAMBIGUATOR,
-        ImmutableList.of(targetType),
-        parsedJsonStructType,
-        new ClaroStruct(parsedJsonStructType, parsedRes, jsonString)
+        parsedJsonType.parameterizedTypes,
+        parsedJsonType.parsedJsonStructType,
+        new ClaroStruct(parsedJsonType.parsedJsonStructType, parsedRes, jsonString)
     );
   }
 }
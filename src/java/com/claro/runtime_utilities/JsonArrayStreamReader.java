@@ -0,0 +1,93 @@
+package com.claro.runtime_utilities;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Backs the provider wrapped by a `std::JsonArrayStream<T>`. This incrementally walks the elements of a top-level JSON
+ * array read from the given URL so that codegen'd parsers can parse one element at a time without ever holding the
+ * entire input (or the entire parsed list) in memory.
+ * <p>
+ * The underlying stream isn't opened until the first element is requested, and it's closed as soon as the array has
+ * been exhausted or the first error is encountered (as the JsonReader's position is unreliable after an error), after
+ * which this reader is considered done.
+ * <p>
+ * Not thread safe.
+ */
+public final class JsonArrayStreamReader {
+  private final URL url;
+  private JsonReader jsonReader;
+  private boolean done = false;
+  // Retained after closing so that errors can still be reported at the position where they occurred.
+  private String lastPath = "$";
+
+  public JsonArrayStreamReader(URL url) {
+    this.url = url;
+  }
+
+  /**
+   * Returns true if there's another element to be parsed from {@link #getJsonReader()}.
+   */
+  public boolean hasNext() throws IOException {
+    if (this.done) {
+      return false;
+    }
+    try {
+      if (this.jsonReader == null) {
+        this.jsonReader = new JsonReader(
+            new BufferedReader(new InputStreamReader(this.url.openStream(), StandardCharsets.UTF_8)));
+        // Gson reports a top-level value of the wrong shape via an IllegalStateException, which would escape the
+        // generated provider rather than being reported as a std::Error like any other mismatch.
+        if (this.jsonReader.peek() != JsonToken.BEGIN_ARRAY) {
+          throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;
+        }
+        this.jsonReader.beginArray();
+      }
+      if (this.jsonReader.hasNext()) {
+        return true;
+      }
+      this.jsonReader.endArray();
+      // Anything after the array (besides whitespace) means that the input wasn't a JSON array after all.
+      if (this.jsonReader.peek() != JsonToken.END_DOCUMENT) {
+        throw ClaroRuntimeUtilities.$JSON_TYPE_MISMATCH;
+      }
+    } catch (IOException | RuntimeException e) {
+      close();
+      throw e;
+    }
+    close();
+    return false;
+  }
+
+  public JsonReader getJsonReader() {
+    return this.jsonReader;
+  }
+
+  /**
+   * Returns the JsonPath of the reader's current position for error reporting, and closes this reader as no further
+   * elements can be reliably parsed after an error.
+   */
+  public String fail() {
+    close();
+    return this.lastPath;
+  }
+
+  private void close() {
+    this.done = true;
+    if (this.jsonReader != null) {
+      this.lastPath = this.jsonReader.getPath();
+      try {
+        this.jsonReader.close();
+      } catch (IOException ignored) {
+        // Nothing to do, we're done with this reader either way.
+      }
+      this.jsonReader = null;
+    }
+  }
+}